@@ -0,0 +1,15 @@
+package com.pharmacyintel.bench;
+
+import java.io.File;
+
+/** Location of the generated supplier files, shared by all benchmarks. */
+final class BenchData {
+
+    private BenchData() {
+    }
+
+    /** {@code -Dbench.data=...} or {@code target/bench-data}. */
+    static File dir() {
+        return new File(System.getProperty("bench.data", "target/bench-data"));
+    }
+}
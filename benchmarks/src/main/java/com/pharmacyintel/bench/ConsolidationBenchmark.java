@@ -0,0 +1,73 @@
+package com.pharmacyintel.bench;
+
+import com.pharmacyintel.engine.ConsolidationEngine;
+import com.pharmacyintel.model.GlobalConfig;
+import com.pharmacyintel.model.MasterProduct;
+import com.pharmacyintel.model.Supplier;
+import com.pharmacyintel.model.SupplierProduct;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ConsolidationEngine.process / recalculate / applyRate and the per-product
+ * competitiveness ranking, on in-memory supplier data (no file I/O).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx8g" })
+@State(Scope.Benchmark)
+public class ConsolidationBenchmark {
+
+    @Param({ "10000", "100000", "500000" })
+    public int rows;
+
+    @Param({ "false", "true" })
+    public boolean includeAll;
+
+    private Map<Supplier, List<SupplierProduct>> data;
+    private ConsolidationEngine engine;
+    private List<MasterProduct> products;
+    private boolean rateToggle;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        GlobalConfig.getInstance().setBcvRate(SupplierFileGenerator.BS_RATE);
+        data = SupplierFileGenerator.generateData(rows);
+        engine = new ConsolidationEngine();
+        engine.process(data, 30, includeAll);
+        products = new ArrayList<>(engine.getMasterCatalog().values());
+    }
+
+    @Benchmark
+    public Map<String, MasterProduct> process() {
+        return new ConsolidationEngine().process(data, 30, includeAll);
+    }
+
+    @Benchmark
+    public void recalculate(Blackhole bh) {
+        engine.recalculate(35, includeAll);
+        bh.consume(engine.getSnapshot());
+    }
+
+    /** What-if BCV rate: only the Bs suppliers' products are re-priced. */
+    @Benchmark
+    public void applyRate(Blackhole bh) {
+        rateToggle = !rateToggle;
+        bh.consume(engine.applyRate(SupplierFileGenerator.BS_RATE * (rateToggle ? 1.05 : 1.0)));
+    }
+
+    @Benchmark
+    public void computeCompetitiveness(Blackhole bh) {
+        for (MasterProduct mp : products) {
+            mp.computeCompetitiveness();
+        }
+        bh.consume(products);
+    }
+}
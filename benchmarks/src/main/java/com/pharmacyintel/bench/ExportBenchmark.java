@@ -0,0 +1,55 @@
+package com.pharmacyintel.bench;
+
+import com.pharmacyintel.engine.ConsolidationEngine;
+import com.pharmacyintel.model.GlobalConfig;
+import com.pharmacyintel.model.MasterProduct;
+import com.pharmacyintel.report.ExcelExporter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ExcelExporter.export of the full report for a consolidated catalog.
+ * Measures workbook construction plus writing to disk.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx8g" })
+@State(Scope.Benchmark)
+public class ExportBenchmark {
+
+    @Param({ "10000", "100000", "500000" })
+    public int rows;
+
+    @Param({ "Todos", "Peor Neto DroActiva" })
+    public String filter;
+
+    @Param({ "false", "true" })
+    public boolean autoSize;
+
+    private Map<String, MasterProduct> catalog;
+    private File outputDir;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        GlobalConfig.getInstance().setBcvRate(SupplierFileGenerator.BS_RATE);
+        ConsolidationEngine engine = new ConsolidationEngine();
+        engine.process(SupplierFileGenerator.generateData(rows), 30, false);
+        catalog = engine.getMasterCatalog();
+        outputDir = new File(BenchData.dir(), "export");
+        outputDir.mkdirs();
+    }
+
+    @Benchmark
+    public File export() throws Exception {
+        ExcelExporter exporter = new ExcelExporter();
+        exporter.setAutoSizeColumns(autoSize);
+        File file = exporter.export(catalog, SupplierFileGenerator.BS_RATE, outputDir, filter, false);
+        file.delete();
+        return file;
+    }
+}
@@ -0,0 +1,71 @@
+package com.pharmacyintel.bench;
+
+import com.pharmacyintel.engine.ConsolidationEngine;
+import com.pharmacyintel.engine.MarginSimulator;
+import com.pharmacyintel.model.GlobalConfig;
+import com.pharmacyintel.model.MasterProduct;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Columnar margin simulation against the per-object
+ * {@link MasterProduct#simulateMargin(double)} pass. Forks with the Vector API
+ * module; add {@code -jvmArgsAppend -Dpharmacyintel.vector=false} to measure
+ * the scalar kernel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx8g", "--add-modules=jdk.incubator.vector" })
+@State(Scope.Benchmark)
+public class MarginSimulatorBenchmark {
+
+    @Param({ "10000", "100000", "500000" })
+    public int rows;
+
+    private MarginSimulator simulator;
+    private List<MasterProduct> products;
+    private double[] sale;
+    private double[] margin;
+    private double[] scenarios;
+    private int tick;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        GlobalConfig.getInstance().setBcvRate(SupplierFileGenerator.BS_RATE);
+        ConsolidationEngine engine = new ConsolidationEngine();
+        engine.process(SupplierFileGenerator.generateData(rows), 30, false);
+        simulator = new MarginSimulator(engine.getSnapshot(), false);
+        products = simulator.getProducts();
+        sale = new double[simulator.size()];
+        margin = new double[simulator.size()];
+        scenarios = new double[16];
+        for (int i = 0; i < scenarios.length; i++)
+            scenarios[i] = 5 + i * 2.5;
+    }
+
+    /** One slider tick: every product at one margin, into reused arrays. */
+    @Benchmark
+    public double sliderTick() {
+        tick = (tick + 1) % 60;
+        return simulator.simulate(tick, sale, margin);
+    }
+
+    /** Sixteen margins in one blocked pass. */
+    @Benchmark
+    public MarginSimulator.Scenarios batchScenarios() {
+        return simulator.simulate(scenarios);
+    }
+
+    @Benchmark
+    public void perProductSimulate(Blackhole bh) {
+        tick = (tick + 1) % 60;
+        for (MasterProduct mp : products)
+            mp.simulateMargin(tick);
+        bh.consume(products);
+    }
+}
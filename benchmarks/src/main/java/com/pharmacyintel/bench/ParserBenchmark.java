@@ -0,0 +1,45 @@
+package com.pharmacyintel.bench;
+
+import com.pharmacyintel.model.Supplier;
+import com.pharmacyintel.model.SupplierProduct;
+import com.pharmacyintel.parser.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end parse time of each supplier file, one file per
+ * (supplier, rows) pair. Single-shot: the XLSX parsers load the whole
+ * workbook, so each invocation is already hundreds of milliseconds.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx8g" })
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+
+    @Param({ "DROACTIVA", "DROMARKO", "COBECA", "NENA", "F24", "P365" })
+    public String supplierName;
+
+    @Param({ "10000", "100000", "500000" })
+    public int rows;
+
+    private File file;
+    private SupplierParser parser;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Supplier supplier = Supplier.valueOf(supplierName);
+        file = SupplierFileGenerator.generate(supplier, BenchData.dir(), rows);
+        parser = SupplierRegistry.createParser(supplier);
+    }
+
+    @Benchmark
+    public List<SupplierProduct> parse() throws Exception {
+        return parser.parse(file);
+    }
+}
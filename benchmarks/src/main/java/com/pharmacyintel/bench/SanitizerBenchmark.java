@@ -0,0 +1,69 @@
+package com.pharmacyintel.bench;
+
+import com.pharmacyintel.parser.DataSanitizer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call cost of the DataSanitizer helpers, which run several times for
+ * every parsed row. Inputs mix the formats seen in real supplier files.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SanitizerBenchmark {
+
+    private static final String[] BARCODES = { "7591234567890", " 007591234567890 ", "759-1234-56789",
+            "A1B2C3", "0000123", "" };
+    private static final String[] DECIMALS = { "1.351,75", "7,94", "3.39", "1,351.75", "1,000", " 12 | ", "-",
+            "" };
+    /** Cells of a bad export: text where the price should be. */
+    private static final String[] BAD_DECIMALS = { "N/D", "S/P", "#N/A", "Consultar", "12.5.3" };
+    private static final String[] STOCKS = { "150", "150.0", "1.200 und", "", "-3" };
+    private static final String[] DESCRIPTIONS = { "  ACETAMINOFEN   500 MG  TABLETAS X 20 ",
+            "IBUPROFENO 400MG", "LORATADINA\t10 MG\nJARABE" };
+
+    private int i;
+
+    @Benchmark
+    public String cleanBarcode() {
+        return DataSanitizer.cleanBarcode(BARCODES[i++ % BARCODES.length]);
+    }
+
+    @Benchmark
+    public double parseDecimal() {
+        return DataSanitizer.parseDecimal(DECIMALS[i++ % DECIMALS.length]);
+    }
+
+    @Benchmark
+    public double parseDecimalInvalid() {
+        return DataSanitizer.tryParseDecimal(BAD_DECIMALS[i++ % BAD_DECIMALS.length]);
+    }
+
+    @Benchmark
+    public int parseStock() {
+        return DataSanitizer.parseStock(STOCKS[i++ % STOCKS.length]);
+    }
+
+    @Benchmark
+    public String cleanDescription() {
+        return DataSanitizer.cleanDescription(DESCRIPTIONS[i++ % DESCRIPTIONS.length]);
+    }
+
+    /** The per-row mix of a CSV parser: one of each. */
+    @Benchmark
+    public void row(Blackhole bh) {
+        int k = i++;
+        bh.consume(DataSanitizer.cleanBarcode(BARCODES[k % BARCODES.length]));
+        bh.consume(DataSanitizer.parseDecimal(DECIMALS[k % DECIMALS.length]));
+        bh.consume(DataSanitizer.parseDecimal(DECIMALS[(k + 3) % DECIMALS.length]));
+        bh.consume(DataSanitizer.cleanDescription(DESCRIPTIONS[k % DESCRIPTIONS.length]));
+        bh.consume(DataSanitizer.parseStock(STOCKS[k % STOCKS.length]));
+        bh.consume(DataSanitizer.parseIva(DECIMALS[(k + 5) % DECIMALS.length]));
+    }
+}
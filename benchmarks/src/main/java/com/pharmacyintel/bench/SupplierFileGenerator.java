@@ -0,0 +1,269 @@
+package com.pharmacyintel.bench;
+
+import com.pharmacyintel.model.PriceCurrency;
+import com.pharmacyintel.model.Supplier;
+import com.pharmacyintel.model.SupplierProduct;
+import com.pharmacyintel.parser.SupplierRegistry;
+import com.pharmacyintel.model.SupplierMap;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Synthetic supplier files in the exact layouts the parsers expect (three
+ * semicolon CSVs, three XLSX sheets). Product {@code i} has the same barcode
+ * in every file, and each non-DroActiva supplier carries ~70% of the catalog,
+ * so consolidation sees a realistic overlap. Output is deterministic per
+ * (supplier, rows) so cached files can be reused across runs.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.pharmacyintel.bench.SupplierFileGenerator out/ 100000
+ * </pre>
+ */
+public final class SupplierFileGenerator {
+
+    /** Bs per USD used for the NENA and F24 price columns. */
+    public static final double BS_RATE = 40.0;
+
+    private static final String[] MOLECULES = { "ACETAMINOFEN", "IBUPROFENO", "LORATADINA", "AMOXICILINA",
+            "OMEPRAZOL", "LOSARTAN", "METFORMINA", "DICLOFENAC", "CETIRIZINA", "AZITROMICINA", "ATORVASTATINA",
+            "SALBUTAMOL" };
+    private static final String[] FORMS = { "TABLETAS", "CAPSULAS", "JARABE", "SUSPENSION", "GOTAS", "CREMA" };
+    private static final String[] BRANDS = { "GENVEN", "CALOX", "LETI", "ELMOR", "PHARMETIQUE", "VIVAX" };
+
+    private SupplierFileGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Uso: SupplierFileGenerator <carpeta> <filas>");
+            return;
+        }
+        File dir = new File(args[0]);
+        int rows = Integer.parseInt(args[1]);
+        for (Supplier s : Supplier.values()) {
+            File f = generate(s, dir, rows);
+            System.out.println("[SupplierFileGenerator] " + f + " (" + f.length() / 1024 + " KB)");
+        }
+    }
+
+    /** Generate (or reuse) the file for one supplier. */
+    public static File generate(Supplier supplier, File dir, int rows) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs())
+            throw new IOException("No se pudo crear " + dir);
+        File file = new File(dir, supplier.name().toLowerCase() + "_" + rows + "." + extension(supplier));
+        if (file.isFile() && file.length() > 0)
+            return file;
+
+        File tmp = new File(dir, file.getName() + ".tmp");
+        if (supplier == Supplier.DROACTIVA)
+            writeCsv(tmp, supplier, rows, true);
+        else if (supplier == Supplier.DROMARKO || supplier == Supplier.P365)
+            writeCsv(tmp, supplier, rows, false);
+        else if (supplier == Supplier.COBECA)
+            writeCobeca(tmp, rows);
+        else if (supplier == Supplier.NENA)
+            writeNena(tmp, rows);
+        else if (supplier == Supplier.F24)
+            writeF24(tmp, rows);
+        else
+            throw new IllegalArgumentException("Sin generador para " + supplier.name());
+        if (!tmp.renameTo(file))
+            throw new IOException("No se pudo renombrar " + tmp);
+        return file;
+    }
+
+    public static String extension(Supplier supplier) {
+        return SupplierRegistry.getFileExtensions(supplier).get(0);
+    }
+
+    /**
+     * In-memory equivalent of the generated files, for benchmarks that start
+     * after parsing. Bs suppliers carry native prices at {@link #BS_RATE}, so
+     * set that as the BCV rate before handing the data to the engine.
+     */
+    public static Map<Supplier, List<SupplierProduct>> generateData(int rows) {
+        Map<Supplier, List<SupplierProduct>> data = new SupplierMap<>();
+        for (Supplier s : Supplier.values()) {
+            Random rnd = random(s, rows);
+            List<SupplierProduct> list = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                if (!carries(s, rnd))
+                    continue;
+                double price = usdPrice(i, rnd);
+                if (s.getCurrency() == PriceCurrency.VES)
+                    price *= BS_RATE;
+                SupplierProduct sp = new SupplierProduct(barcode(i), description(i), price, offer(rnd), stock(rnd), s);
+                sp.setBrand(BRANDS[i % BRANDS.length]);
+                list.add(sp);
+            }
+            data.put(s, list);
+        }
+        return data;
+    }
+
+    // ====================================================================
+    // CSV (DroActiva / Dromarko / 365)
+    // ====================================================================
+
+    private static void writeCsv(File file, Supplier supplier, int rows, boolean extended) throws IOException {
+        Random rnd = random(supplier, rows);
+        try (Writer w = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+            w.write('﻿');
+            w.write(extended ? "CODIGO;DESCRIPCION;MARCA;BARRA;PRECIO(USD);EXISTENCIA;IVA;DA(%)\n"
+                    : "DESCRIPCION;BARRA;PRECIO(USD);EXISTENCIA;IVA;DA(%)\n");
+            StringBuilder sb = new StringBuilder(128);
+            for (int i = 0; i < rows; i++) {
+                if (!carries(supplier, rnd))
+                    continue;
+                sb.setLength(0);
+                if (extended)
+                    sb.append("A").append(100000 + i).append(';');
+                sb.append(description(i)).append(';');
+                if (extended)
+                    sb.append(BRANDS[i % BRANDS.length]).append(';');
+                // ~1% of rows with padded/noisy barcodes, as seen in real exports
+                sb.append(rnd.nextInt(100) == 0 ? " 00" + barcode(i) + " " : barcode(i)).append(';');
+                sb.append(venezuelan(usdPrice(i, rnd))).append(';');
+                sb.append(stock(rnd)).append(';');
+                sb.append(i % 5 == 0 ? "16" : "0").append(';');
+                sb.append(venezuelan(offer(rnd))).append('\n');
+                w.write(sb.toString());
+            }
+        }
+    }
+
+    // ====================================================================
+    // XLSX (Cobeca / Nena / F24)
+    // ====================================================================
+
+    private static void writeCobeca(File file, int rows) throws IOException {
+        Random rnd = random(Supplier.COBECA, rows);
+        writeXlsx(file, new String[] { "Codigo_Barra", "Descripcion", "Precio_Referencial", "Descuento_Proveedor",
+                "Existencia" }, (sheet, rowIdx) -> {
+                    for (int i = 0; i < rows; i++) {
+                        if (!carries(Supplier.COBECA, rnd))
+                            continue;
+                        Row row = sheet.createRow(rowIdx[0]++);
+                        row.createCell(0).setCellValue(barcode(i));
+                        row.createCell(1).setCellValue(description(i));
+                        row.createCell(2).setCellValue(usdPrice(i, rnd));
+                        row.createCell(3).setCellValue(offer(rnd));
+                        row.createCell(4).setCellValue(stock(rnd));
+                    }
+                });
+    }
+
+    private static void writeNena(File file, int rows) throws IOException {
+        Random rnd = random(Supplier.NENA, rows);
+        writeXlsx(file, new String[] { "Cod. Barra", "Descripcion", "Precio (Referencial)", "Dcto. en Factura",
+                "Existencia" }, (sheet, rowIdx) -> {
+                    for (int i = 0; i < rows; i++) {
+                        if (!carries(Supplier.NENA, rnd))
+                            continue;
+                        Row row = sheet.createRow(rowIdx[0]++);
+                        row.createCell(0).setCellValue(barcode(i));
+                        row.createCell(1).setCellValue(description(i));
+                        row.createCell(2).setCellValue(venezuelan(usdPrice(i, rnd) * BS_RATE));
+                        double dcto = offer(rnd);
+                        row.createCell(3).setCellValue(dcto > 0 ? "DCTO " + venezuelan(dcto) + "%" : "");
+                        row.createCell(4).setCellValue(stock(rnd));
+                    }
+                });
+    }
+
+    private static void writeF24(File file, int rows) throws IOException {
+        Random rnd = random(Supplier.F24, rows);
+        writeXlsx(file, new String[] { "C. Barra", "Descripcion", "PRECIO MAYOR (Bs)", "PROMO (%)", "OFERTA (%)",
+                "DA (%)", "Existencia" }, (sheet, rowIdx) -> {
+                    for (int i = 0; i < rows; i++) {
+                        if (!carries(Supplier.F24, rnd))
+                            continue;
+                        Row row = sheet.createRow(rowIdx[0]++);
+                        row.createCell(0).setCellValue(barcode(i));
+                        row.createCell(1).setCellValue(description(i));
+                        row.createCell(2).setCellValue(usdPrice(i, rnd) * BS_RATE);
+                        row.createCell(3).setCellValue(rnd.nextInt(4) == 0 ? "5%" : "0%");
+                        row.createCell(4).setCellValue(offer(rnd) + "%");
+                        row.createCell(5).setCellValue("0%");
+                        row.createCell(6).setCellValue(String.valueOf(stock(rnd)));
+                    }
+                });
+    }
+
+    private interface SheetBody {
+        void write(Sheet sheet, int[] rowIdx);
+    }
+
+    private static void writeXlsx(File file, String[] headers, SheetBody body) throws IOException {
+        SXSSFWorkbook wb = new SXSSFWorkbook(1000);
+        try (FileOutputStream fos = new FileOutputStream(file)) {
+            Sheet sheet = wb.createSheet("Productos");
+            // Title row above the header, so header detection has to scan
+            sheet.createRow(0).createCell(0).setCellValue("LISTA DE PRECIOS");
+            Row header = sheet.createRow(1);
+            for (int c = 0; c < headers.length; c++)
+                header.createCell(c).setCellValue(headers[c]);
+            body.write(sheet, new int[] { 2 });
+            wb.write(fos);
+        } finally {
+            wb.dispose();
+            wb.close();
+        }
+    }
+
+    // ====================================================================
+    // Value helpers
+    // ====================================================================
+
+    private static Random random(Supplier supplier, int rows) {
+        return new Random(31L * supplier.ordinal() + rows);
+    }
+
+    private static boolean carries(Supplier supplier, Random rnd) {
+        return supplier == Supplier.DROACTIVA || rnd.nextInt(10) < 7;
+    }
+
+    private static String barcode(int i) {
+        return "759" + String.format("%010d", i);
+    }
+
+    private static String description(int i) {
+        return MOLECULES[i % MOLECULES.length] + " " + (50 * (1 + i % 20)) + " MG " + FORMS[(i / 7) % FORMS.length]
+                + " X " + (10 + i % 30);
+    }
+
+    private static double usdPrice(int i, Random rnd) {
+        double base = 1.5 + (i % 97) * 0.35;
+        return Math.round(base * (0.85 + rnd.nextDouble() * 0.3) * 100) / 100.0;
+    }
+
+    private static double offer(Random rnd) {
+        int r = rnd.nextInt(10);
+        return r < 6 ? 0 : r * 2.5;
+    }
+
+    private static int stock(Random rnd) {
+        return rnd.nextInt(8) == 0 ? 0 : rnd.nextInt(500);
+    }
+
+    /** "1.351,75" style, as Venezuelan suppliers export it. */
+    private static String venezuelan(double v) {
+        String s = String.format(Locale.ROOT, "%.2f", v);
+        int dot = s.indexOf('.');
+        String intPart = s.substring(0, dot);
+        StringBuilder sb = new StringBuilder();
+        int len = intPart.length();
+        for (int i = 0; i < len; i++) {
+            if (i > 0 && (len - i) % 3 == 0)
+                sb.append('.');
+            sb.append(intPart.charAt(i));
+        }
+        return sb.append(',').append(s, dot + 1, s.length()).toString();
+    }
+}
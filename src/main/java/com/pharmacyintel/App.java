@@ -1,10 +1,27 @@
 package com.pharmacyintel;
 
 import com.formdev.flatlaf.FlatDarkLaf;
+import com.pharmacyintel.metrics.FlightRecording;
+import com.pharmacyintel.model.GlobalConfig;
+import com.pharmacyintel.parser.SupplierRegistry;
+
 import javax.swing.*;
+import java.nio.file.Path;
 
 public class App {
     public static void main(String[] args) {
+        if (GlobalConfig.getInstance().isContinuousRecording()) {
+            FlightRecording.start(Path.of(System.getProperty("user.dir"), "pharmacy-intelligence.jfr"));
+        }
+
+        // Plugin suppliers first: tables and exporters size their columns from the registry
+        SupplierRegistry.load();
+
+        // Scheduled runs: hand off before any Swing/FlatLaf class is touched
+        if (args.length > 0 && "--batch".equals(args[0])) {
+            System.exit(BatchRunner.run(args));
+        }
+
         FlatDarkLaf.setup();
         UIManager.put("Component.arc", 12);
         UIManager.put("Button.arc", 14);
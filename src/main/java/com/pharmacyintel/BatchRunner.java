@@ -0,0 +1,357 @@
+package com.pharmacyintel;
+
+import com.pharmacyintel.engine.CatalogSnapshot;
+import com.pharmacyintel.engine.ConsolidationEngine;
+import com.pharmacyintel.engine.DescriptionMatcher;
+import com.pharmacyintel.engine.OrderOptimizer;
+import com.pharmacyintel.engine.RateSweepAnalyzer;
+import com.pharmacyintel.model.BarcodeAliases;
+import com.pharmacyintel.model.GlobalConfig;
+import com.pharmacyintel.model.Supplier;
+import com.pharmacyintel.model.SupplierMap;
+import com.pharmacyintel.parser.DataSanitizer;
+import com.pharmacyintel.parser.SupplierRegistry;
+import com.pharmacyintel.report.DelimitedExporter;
+import com.pharmacyintel.report.ExcelExporter;
+import com.pharmacyintel.report.MatchSuggestionExporter;
+import com.pharmacyintel.report.OrderPlanExporter;
+import com.pharmacyintel.report.RateSweepExporter;
+import com.pharmacyintel.service.SyncOrchestrator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Headless entry point for scheduled syncs: parse → consolidate → export
+ * without touching Swing, FlatLaf or AWT.
+ *
+ * <pre>
+ * java -cp pharmacy-intelligence.jar com.pharmacyintel.BatchRunner \
+ *     --file DROACTIVA=droactiva.csv --file NENA=nena.xlsx \
+ *     --fetch-bcv --bcv 51.32 --margin 30 --filter "Todos" --format xlsx --out reports/ \
+ *     --rate-sweep 40:80:400 --order pedido.csv --order-min COBECA=150
+ * </pre>
+ *
+ * Also reachable through {@code App --batch ...}.
+ */
+public class BatchRunner {
+
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_USAGE = 1;
+    public static final int EXIT_FAILED = 2;
+    public static final int EXIT_WARNINGS = 3;
+
+    private final Map<Supplier, File> files = new SupplierMap<>();
+    private double manualRate = 0;
+    private boolean fetchBcv = false;
+    private double margin = 30.0;
+    private String filter = "Todos";
+    private boolean stockOnly = false;
+    private boolean includeAll = false;
+    private String format = "xlsx";
+    private File outputDir = new File(System.getProperty("user.dir"));
+    /** min, max, steps of the optional BCV rate sweep; null if not requested. */
+    private double[] rateSweep;
+    /** Basket to optimize (barcode and quantity per line); null if not requested. */
+    private File orderFile;
+    private final Map<Supplier, Double> orderMinimums = new SupplierMap<>();
+    private final Map<Supplier, Double> orderBudgets = new SupplierMap<>();
+    /** Write description match suggestions for products under different barcodes. */
+    private boolean matchSuggestions = false;
+    /** Alias table to key rows through instead of the user's; null for the default. */
+    private File aliasFile;
+
+    private boolean completed = false;
+    private int warnings = 0;
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    public static int run(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        SupplierRegistry.load();
+        BatchRunner runner = new BatchRunner();
+        try {
+            if (!runner.parseArgs(args))
+                return EXIT_USAGE;
+        } catch (IllegalArgumentException e) {
+            System.err.println("[Batch] " + e.getMessage());
+            printUsage();
+            return EXIT_USAGE;
+        }
+        return runner.execute();
+    }
+
+    private boolean parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--batch" -> {
+                    // Marker used by App to route here; nothing to do
+                }
+                case "--file", "-f" -> addFile(value(args, ++i, arg));
+                case "--bcv" -> manualRate = parsePositive(value(args, ++i, arg), arg);
+                case "--fetch-bcv" -> fetchBcv = true;
+                case "--margin" -> margin = parsePositive(value(args, ++i, arg), arg);
+                case "--filter" -> filter = value(args, ++i, arg);
+                case "--stock-only" -> stockOnly = true;
+                case "--include-all" -> includeAll = true;
+                case "--format" -> format = value(args, ++i, arg).toLowerCase(Locale.ROOT);
+                case "--out", "-o" -> outputDir = new File(value(args, ++i, arg));
+                case "--rate-sweep" -> rateSweep = parseSweep(value(args, ++i, arg));
+                case "--order" -> orderFile = new File(value(args, ++i, arg));
+                case "--order-min" -> addAmount(orderMinimums, value(args, ++i, arg), arg);
+                case "--order-budget" -> addAmount(orderBudgets, value(args, ++i, arg), arg);
+                case "--match-suggestions" -> matchSuggestions = true;
+                case "--aliases" -> aliasFile = new File(value(args, ++i, arg));
+                case "--help", "-h" -> {
+                    printUsage();
+                    return false;
+                }
+                default -> throw new IllegalArgumentException("Argumento desconocido: " + arg);
+            }
+        }
+
+        if (files.isEmpty())
+            throw new IllegalArgumentException("Debe indicar al menos un archivo con --file PROVEEDOR=ruta");
+        if (!files.containsKey(Supplier.DROACTIVA))
+            throw new IllegalArgumentException("DroActiva es obligatorio como base de productos");
+        if (!fetchBcv && manualRate <= 0)
+            throw new IllegalArgumentException("Indique --bcv <tasa> o --fetch-bcv");
+        if (!format.equals("xlsx") && !format.equals("csv") && !format.equals("tsv"))
+            throw new IllegalArgumentException("Formato no soportado: " + format + " (xlsx, csv, tsv)");
+        if (orderFile != null && !orderFile.isFile())
+            throw new IllegalArgumentException("No existe el archivo de pedido: " + orderFile);
+        if (aliasFile != null && !aliasFile.isFile())
+            throw new IllegalArgumentException("No existe la tabla de alias: " + aliasFile);
+        if (orderFile == null && (!orderMinimums.isEmpty() || !orderBudgets.isEmpty()))
+            throw new IllegalArgumentException("--order-min y --order-budget requieren --order");
+        return true;
+    }
+
+    private void addFile(String mapping) {
+        int eq = mapping.indexOf('=');
+        if (eq <= 0 || eq == mapping.length() - 1)
+            throw new IllegalArgumentException("Formato esperado PROVEEDOR=ruta: " + mapping);
+        Supplier supplier = findSupplier(mapping.substring(0, eq).trim());
+        File file = new File(mapping.substring(eq + 1).trim());
+        if (!file.isFile())
+            throw new IllegalArgumentException("No existe el archivo: " + file);
+        files.put(supplier, file);
+    }
+
+    /** PROV=MONTO, e.g. COBECA=150. */
+    private static void addAmount(Map<Supplier, Double> amounts, String mapping, String option) {
+        int eq = mapping.indexOf('=');
+        if (eq <= 0 || eq == mapping.length() - 1)
+            throw new IllegalArgumentException("Formato esperado PROVEEDOR=monto para " + option + ": " + mapping);
+        amounts.put(findSupplier(mapping.substring(0, eq).trim()),
+                parsePositive(mapping.substring(eq + 1).trim(), option));
+    }
+
+    private static Supplier findSupplier(String name) {
+        for (Supplier s : Supplier.values()) {
+            if (s.name().equalsIgnoreCase(name) || s.getDisplayName().equalsIgnoreCase(name))
+                return s;
+        }
+        throw new IllegalArgumentException("Proveedor desconocido: " + name);
+    }
+
+    private static String value(String[] args, int idx, String option) {
+        if (idx >= args.length)
+            throw new IllegalArgumentException("Falta el valor de " + option);
+        return args[idx];
+    }
+
+    private static double parsePositive(String raw, String option) {
+        try {
+            double v = Double.parseDouble(raw.replace(',', '.'));
+            if (v < 0)
+                throw new NumberFormatException();
+            return v;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor inválido para " + option + ": " + raw);
+        }
+    }
+
+    /** MIN:MAX[:PASOS], e.g. 40:80:400. */
+    private static double[] parseSweep(String raw) {
+        String[] parts = raw.split(":");
+        if (parts.length < 2 || parts.length > 3)
+            throw new IllegalArgumentException("Formato esperado MIN:MAX[:PASOS] para --rate-sweep: " + raw);
+        double min = parsePositive(parts[0], "--rate-sweep");
+        double max = parsePositive(parts[1], "--rate-sweep");
+        double steps = parts.length == 3 ? parsePositive(parts[2], "--rate-sweep") : 200;
+        if (min <= 1.0 || max < min || steps < 1)
+            throw new IllegalArgumentException("Rango inválido para --rate-sweep: " + raw);
+        return new double[] { min, max, Math.floor(steps) };
+    }
+
+    private int execute() {
+        long start = System.nanoTime();
+        GlobalConfig config = GlobalConfig.getInstance();
+        // Manual rate first: it is the fallback if the BCV fetch fails
+        if (manualRate > 0)
+            config.setBcvRate(manualRate);
+        config.setTargetMarginPct(margin);
+
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            System.err.println("[Batch] No se pudo crear el directorio de salida: " + outputDir);
+            return EXIT_FAILED;
+        }
+
+        SyncOrchestrator orchestrator = new SyncOrchestrator();
+        orchestrator.setProgressListener(new SyncOrchestrator.ProgressListener() {
+            @Override
+            public void onProgress(String stage, int percent) {
+                System.out.println("[Batch] " + percent + "% " + stage);
+            }
+
+            @Override
+            public void onError(String stage, String message) {
+                warnings++;
+                System.err.println("[Batch] " + stage + ": " + message);
+            }
+
+            @Override
+            public void onComplete(ConsolidationEngine engine) {
+                completed = true;
+            }
+        });
+        orchestrator.setIncludeAllProducts(includeAll);
+        if (aliasFile != null)
+            orchestrator.getEngine().setBarcodeAliases(new BarcodeAliases(aliasFile));
+        orchestrator.execute(files, outputDir, fetchBcv);
+
+        ConsolidationEngine engine = orchestrator.getEngine();
+        if (!completed || engine.getTotalProducts() == 0) {
+            System.err.println("[Batch] El procesamiento no produjo productos");
+            return EXIT_FAILED;
+        }
+        CatalogSnapshot snapshot = engine.getSnapshot();
+        File output;
+        try {
+            if (format.equals("xlsx")) {
+                ExcelExporter exporter = new ExcelExporter();
+                exporter.setAutoSizeColumns(false);
+                output = exporter.export(snapshot.getMasterCatalog(), snapshot.getBcvRate(), outputDir, filter,
+                        stockOnly);
+            } else {
+                DelimitedExporter.Format f = format.equals("tsv") ? DelimitedExporter.Format.TSV
+                        : DelimitedExporter.Format.CSV;
+                output = new DelimitedExporter(f).export(snapshot.getMasterCatalog(), outputDir, filter, stockOnly);
+            }
+        } catch (Exception e) {
+            System.err.println("[Batch] Error exportando: " + e.getMessage());
+            return EXIT_FAILED;
+        }
+
+        if (rateSweep != null) {
+            try {
+                long sweepStart = System.nanoTime();
+                RateSweepAnalyzer.Result sweep = new RateSweepAnalyzer(snapshot, stockOnly)
+                        .sweep(rateSweep[0], rateSweep[1], (int) rateSweep[2]);
+                File[] sweepFiles = new RateSweepExporter().export(sweep, outputDir);
+                System.out.println("[Batch] Barrido de tasas (" + (System.nanoTime() - sweepStart) / 1_000_000
+                        + " ms) → " + sweepFiles[0].getName() + ", " + sweepFiles[1].getName());
+            } catch (Exception e) {
+                warnings++;
+                System.err.println("[Batch] Error en el barrido de tasas: " + e.getMessage());
+            }
+        }
+
+        if (orderFile != null) {
+            try {
+                OrderOptimizer optimizer = new OrderOptimizer(snapshot);
+                orderMinimums.forEach(optimizer::setMinimumOrder);
+                orderBudgets.forEach(optimizer::setBudget);
+                OrderOptimizer.Plan plan = optimizer.optimize(readOrder(orderFile));
+                File[] orderFiles = new OrderPlanExporter().export(plan, outputDir);
+                plan.getCostBySupplier().forEach((s, cost) -> System.out.println("[Batch] Pedido "
+                        + s.getDisplayName() + ": " + String.format(Locale.ROOT, "%.2f", cost) + " USD"));
+                for (Supplier s : plan.getDroppedSuppliers())
+                    System.out.println("[Batch] " + s.getDisplayName() + " excluido: no alcanza el pedido mínimo");
+                System.out.println("[Batch] Pedido optimizado: " + String.format(Locale.ROOT, "%.2f",
+                        plan.getTotalCost()) + " USD (ideal sin restricciones "
+                        + String.format(Locale.ROOT, "%.2f", plan.getIdealCost()) + ") → " + orderFiles[0].getName()
+                        + ", " + orderFiles[1].getName());
+                if (!plan.getShortfalls().isEmpty())
+                    warnings++;
+            } catch (Exception e) {
+                warnings++;
+                System.err.println("[Batch] Error optimizando el pedido: " + e.getMessage());
+            }
+        }
+
+        if (matchSuggestions) {
+            try {
+                List<DescriptionMatcher.Suggestion> suggestions = new DescriptionMatcher()
+                        .match(snapshot.getUniversalCatalog().values());
+                File matchFile = new MatchSuggestionExporter().export(suggestions, outputDir);
+                System.out.println("[Batch] " + suggestions.size() + " coincidencias por descripción → "
+                        + matchFile.getName());
+            } catch (Exception e) {
+                warnings++;
+                System.err.println("[Batch] Error buscando coincidencias: " + e.getMessage());
+            }
+        }
+
+        long ms = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("[Batch] " + snapshot.getTotalProducts() + " productos → " + output.getAbsolutePath()
+                + " (" + ms + " ms)");
+        return warnings > 0 ? EXIT_WARNINGS : EXIT_OK;
+    }
+
+    /**
+     * One line per product: barcode and quantity separated by ';', ',' or a
+     * tab. Lines without a positive quantity (such as a header) are skipped.
+     */
+    private static List<OrderOptimizer.Line> readOrder(File file) throws IOException {
+        List<OrderOptimizer.Line> lines = new ArrayList<>();
+        for (String raw : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            String[] cells = raw.replace("\uFEFF", "").split("[;,\t]", 3);
+            if (cells.length < 2)
+                continue;
+            String barcode = DataSanitizer.cleanBarcode(cells[0]);
+            int quantity = DataSanitizer.parseStock(cells[1]);
+            if (!barcode.isEmpty() && quantity > 0)
+                lines.add(new OrderOptimizer.Line(barcode, quantity));
+        }
+        return lines;
+    }
+
+    private static void printUsage() {
+        System.out.println("""
+                Uso: BatchRunner --file PROVEEDOR=ruta [--file ...] (--bcv TASA | --fetch-bcv) [opciones]
+
+                  --file, -f PROV=ruta  Archivo de un proveedor (%s)
+                  --bcv TASA            Tasa BCV manual (respaldo si --fetch-bcv falla y no hay tasa en caché)
+                  --fetch-bcv           Obtener la tasa del sitio del BCV
+                  --margin PCT          Margen objetivo (por defecto 30)
+                  --filter NOMBRE       Filtro del reporte (por defecto "Todos")
+                  --stock-only          Solo precios con inventario
+                  --include-all         Full Outer Join en lugar de solo DroActiva
+                  --format FMT          xlsx (por defecto), csv o tsv
+                  --out, -o DIR         Carpeta de salida (por defecto el directorio actual)
+                  --rate-sweep MIN:MAX[:PASOS]
+                                        Barrido de tasas BCV: victorias por tasa y tasas de equilibrio (CSV)
+                  --order ARCHIVO       Optimizar un pedido (codigo;cantidad por línea) entre proveedores (CSV)
+                  --order-min PROV=USD  Pedido mínimo del proveedor (repetible)
+                  --order-budget PROV=USD
+                                        Presupuesto máximo con el proveedor (repetible)
+                  --match-suggestions   Productos con la misma descripción y distinto código (CSV)
+                  --aliases ARCHIVO     Tabla de alias codigo=canonico (por defecto la del usuario)
+
+                Códigos de salida: 0 OK, 1 uso incorrecto, 2 fallo, 3 completado con advertencias""".formatted(
+                Arrays.stream(Supplier.values()).map(Supplier::name).collect(Collectors.joining(", "))));
+    }
+}
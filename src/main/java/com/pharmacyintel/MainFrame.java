@@ -1,10 +1,17 @@
 package com.pharmacyintel;
 
+import com.pharmacyintel.api.CatalogHttpServer;
+import com.pharmacyintel.engine.CatalogSnapshot;
 import com.pharmacyintel.engine.ConsolidationEngine;
+import com.pharmacyintel.model.GlobalConfig;
 import com.pharmacyintel.model.Supplier;
+import com.pharmacyintel.parser.ParseReport;
+import com.pharmacyintel.service.BcvRateProvider;
+import com.pharmacyintel.service.InboxWatcher;
 import com.pharmacyintel.service.SyncOrchestrator;
 import com.pharmacyintel.ui.DashboardPanel;
 import com.pharmacyintel.ui.FileUploadPanel;
+import com.pharmacyintel.ui.ParseQualityDialog;
 import com.pharmacyintel.ui.Toast;
 import com.formdev.flatlaf.FlatClientProperties;
 import net.miginfocom.swing.MigLayout;
@@ -12,6 +19,8 @@ import net.miginfocom.swing.MigLayout;
 import javax.swing.*;
 import java.awt.*;
 import java.io.File;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 
 public class MainFrame extends JFrame {
@@ -21,6 +30,10 @@ public class MainFrame extends JFrame {
     private CardLayout cardLayout;
     private JProgressBar progressBar;
     private JLabel statusLabel;
+    private CatalogHttpServer apiServer;
+    private FileUploadPanel uploadPanel;
+    /** Orchestrator of the dashboard on screen; inbox files are synced into its engine. Null on the upload screen. */
+    private volatile SyncOrchestrator liveOrchestrator;
 
     public MainFrame() {
         setTitle("Pharmacy Intelligence — Análisis Comparativo de Precios");
@@ -37,7 +50,7 @@ public class MainFrame extends JFrame {
         rootPanel.setBackground(ROOT_BG);
 
         // Phase 1: Upload
-        FileUploadPanel uploadPanel = new FileUploadPanel(this::onProcess);
+        uploadPanel = new FileUploadPanel(this::onProcess);
         rootPanel.add(uploadPanel, "UPLOAD");
 
         // Loading screen
@@ -49,6 +62,68 @@ public class MainFrame extends JFrame {
 
         getRootPane().putClientProperty(FlatClientProperties.TITLE_BAR_BACKGROUND, ROOT_BG);
         getRootPane().putClientProperty(FlatClientProperties.TITLE_BAR_FOREGROUND, Color.WHITE);
+
+        startApiServer();
+        startInbox();
+        // Keep the cached BCV rate fresh so a sync rarely has to wait for the site
+        BcvRateProvider.getDefault().startScheduledRefresh(Duration.ofHours(1));
+    }
+
+    private void startApiServer() {
+        int port = GlobalConfig.getInstance().getApiPort();
+        if (port <= 0)
+            return;
+        apiServer = new CatalogHttpServer(port);
+        try {
+            apiServer.start();
+        } catch (Exception e) {
+            apiServer = null;
+            System.err.println("[MainFrame] No se pudo iniciar la API en el puerto " + port + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Watch the drop folder: on the upload screen a recognized file fills its
+     * supplier's slot; with a dashboard open it is synced into that catalog
+     * right away and the dashboard follows.
+     */
+    private void startInbox() {
+        File dir = GlobalConfig.getInstance().getInboxDir();
+        if (dir == null)
+            return;
+        InboxWatcher inbox = new InboxWatcher(dir, Duration.ofSeconds(2), new InboxWatcher.Listener() {
+            @Override
+            public void onFile(Supplier supplier, File file) {
+                SyncOrchestrator live = liveOrchestrator;
+                if (live == null) {
+                    SwingUtilities.invokeLater(() -> uploadPanel.setFile(supplier, file));
+                    return;
+                }
+                SwingUtilities.invokeLater(() -> Toast.show("Bandeja: actualizando " + supplier.getDisplayName()
+                        + " con " + file.getName(), Toast.Type.INFO));
+                ParseReport quality = live.syncSupplier(supplier, file, new File(System.getProperty("user.dir")));
+                if (quality == null)
+                    return;
+                String message = supplier.getDisplayName() + " actualizado: " + quality.getProducts() + " productos";
+                SwingUtilities.invokeLater(() -> {
+                    if (quality.getSkipped() > 0)
+                        Toast.show(message + "; " + quality.getSkipped() + " filas descartadas", Toast.Type.WARNING);
+                    else
+                        Toast.show(message, Toast.Type.SUCCESS);
+                });
+            }
+
+            @Override
+            public void onUnrecognized(File file) {
+                SwingUtilities.invokeLater(() -> Toast.show("Bandeja: no se reconoció el proveedor de "
+                        + file.getName(), Toast.Type.WARNING));
+            }
+        });
+        try {
+            inbox.start();
+        } catch (Exception e) {
+            System.err.println("[MainFrame] No se pudo vigilar la bandeja " + dir + ": " + e.getMessage());
+        }
     }
 
     private void onProcess(Map<Supplier, File> files, boolean fetchBcv) {
@@ -73,7 +148,8 @@ public class MainFrame extends JFrame {
 
             @Override
             public void onComplete(ConsolidationEngine engine) {
-                SwingUtilities.invokeLater(() -> showDashboard(engine));
+                List<ParseReport> quality = orchestrator.getLastReport().getParseReports();
+                SwingUtilities.invokeLater(() -> showDashboard(orchestrator, quality));
             }
         });
 
@@ -88,13 +164,17 @@ public class MainFrame extends JFrame {
         }.execute();
     }
 
-    private void showDashboard(ConsolidationEngine engine) {
+    private void showDashboard(SyncOrchestrator orchestrator, List<ParseReport> quality) {
+        ConsolidationEngine engine = orchestrator.getEngine();
+        if (apiServer != null)
+            apiServer.attach(engine);
+
         // Build dashboard view
         JPanel dashView = new JPanel(new MigLayout("insets 0, fill, wrap", "[grow]", "[]0[grow]"));
         dashView.setBackground(ROOT_BG);
 
         // Title bar
-        JPanel titleBar = new JPanel(new MigLayout("insets 12 24 12 24, fillx", "[]16[]push[]16[]", ""));
+        JPanel titleBar = new JPanel(new MigLayout("insets 12 24 12 24, fillx", "[]16[]push[]16[]16[]", ""));
         titleBar.setBackground(new Color(35, 38, 46));
 
         JLabel appTitle = new JLabel(" 💊 Pharmacy Intelligence ");
@@ -116,11 +196,24 @@ public class MainFrame extends JFrame {
         backBtn.setFocusPainted(false);
         backBtn.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
         backBtn.addActionListener(e -> {
+            liveOrchestrator = null;
+            if (apiServer != null)
+                apiServer.detach();
             rootPanel.remove(dashView);
             cardLayout.show(rootPanel, "UPLOAD");
         });
         titleBar.add(backBtn);
 
+        // Parse quality of this sync; highlighted when rows were dropped
+        int skipped = quality.stream().mapToInt(ParseReport::getSkipped).sum();
+        JButton qualityBtn = new JButton(skipped > 0 ? " ⚠ " + skipped + " filas descartadas " : " 📋 Calidad de lectura ");
+        qualityBtn.setFont(new Font("Segoe UI Emoji", Font.PLAIN, 12));
+        qualityBtn.setForeground(skipped > 0 ? new Color(255, 193, 7) : new Color(130, 140, 160));
+        qualityBtn.setFocusPainted(false);
+        qualityBtn.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+        qualityBtn.addActionListener(e -> new ParseQualityDialog(this, quality).setVisible(true));
+        titleBar.add(qualityBtn);
+
         // Export / Open Excel button
         JButton exportExcelBtn = new JButton(" 📥 Exportar a Excel ");
         exportExcelBtn.setFont(new Font("Segoe UI Emoji", Font.BOLD, 12));
@@ -138,8 +231,8 @@ public class MainFrame extends JFrame {
                     protected File doInBackground() throws Exception {
                         com.pharmacyintel.report.ExcelExporter exporter = new com.pharmacyintel.report.ExcelExporter();
                         File outputDir = new File(System.getProperty("user.dir"));
-                        return exporter.export(engine.getMasterCatalog(),
-                                com.pharmacyintel.model.GlobalConfig.getInstance().getBcvRate(), outputDir, "Todos",
+                        CatalogSnapshot snapshot = engine.getSnapshot();
+                        return exporter.export(snapshot.getMasterCatalog(), snapshot.getBcvRate(), outputDir, "Todos",
                                 false);
                     }
 
@@ -185,7 +278,28 @@ public class MainFrame extends JFrame {
         rootPanel.add(dashView, "DASHBOARD");
         cardLayout.show(rootPanel, "DASHBOARD");
 
-        Toast.show("Análisis completado: " + engine.getTotalProducts() + " productos", Toast.Type.SUCCESS);
+        // From now on inbox files update this catalog; their errors come as toasts
+        orchestrator.setProgressListener(new SyncOrchestrator.ProgressListener() {
+            @Override
+            public void onProgress(String stage, int percent) {
+            }
+
+            @Override
+            public void onError(String stage, String message) {
+                SwingUtilities.invokeLater(() -> Toast.show(stage + ": " + message, Toast.Type.WARNING));
+            }
+
+            @Override
+            public void onComplete(ConsolidationEngine engine) {
+            }
+        });
+        liveOrchestrator = orchestrator;
+
+        if (skipped > 0)
+            Toast.show("Análisis completado: " + engine.getTotalProducts() + " productos; " + skipped
+                    + " filas descartadas al leer", Toast.Type.WARNING);
+        else
+            Toast.show("Análisis completado: " + engine.getTotalProducts() + " productos", Toast.Type.SUCCESS);
     }
 
     private JPanel createLoadingPanel() {
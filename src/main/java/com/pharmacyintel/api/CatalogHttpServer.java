@@ -0,0 +1,382 @@
+package com.pharmacyintel.api;
+
+import com.pharmacyintel.engine.CatalogSnapshot;
+import com.pharmacyintel.engine.ConsolidationEngine;
+import com.pharmacyintel.engine.OpportunityMetric;
+import com.pharmacyintel.engine.RankedProduct;
+import com.pharmacyintel.model.MasterProduct;
+import com.pharmacyintel.model.Supplier;
+import com.pharmacyintel.model.SupplierProduct;
+import com.pharmacyintel.parser.DataSanitizer;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Optional embedded HTTP server with read-only JSON lookups over the
+ * consolidated catalog, so other machines in the shop can query prices.
+ *
+ * <pre>
+ * GET /api/products/{barcode}
+ * GET /api/search?q=acetaminofen+500&amp;limit=50
+ * GET /api/gaps/{supplier}?limit=100
+ * GET /api/top/{metric}?supplier=DROACTIVA&amp;limit=100&amp;stock=true
+ * GET /api/kpis
+ * </pre>
+ *
+ * {@code metric} in {@code /api/top} is an {@link OpportunityMetric}
+ * (diff_pct, diff_amount, offer_pct, margin), ranked largest first.
+ *
+ * Requests run on virtual threads against the last published
+ * {@link CatalogView}; the engine given to {@link #attach} swaps in a new view
+ * atomically with every snapshot it publishes, so lookups never wait on a
+ * recalculation.
+ */
+public class CatalogHttpServer {
+
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 5000;
+
+    private final int port;
+    private final AtomicReference<CatalogView> current = new AtomicReference<>(CatalogView.EMPTY);
+    /** Engine whose snapshots are served; snapshots of any other are ignored. */
+    private volatile ConsolidationEngine source;
+    private Consumer<CatalogSnapshot> sourceListener;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public CatalogHttpServer(int port) {
+        this.port = port;
+    }
+
+    public synchronized void start() throws IOException {
+        if (server != null)
+            return;
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/api/products/", this::handleProduct);
+        server.createContext("/api/search", this::handleSearch);
+        server.createContext("/api/gaps/", this::handleGaps);
+        server.createContext("/api/top/", this::handleTop);
+        server.createContext("/api/kpis", this::handleKpis);
+        server.start();
+        System.out.println("[CatalogHttpServer] Listening on port " + server.getAddress().getPort());
+    }
+
+    public synchronized void stop() {
+        if (server == null)
+            return;
+        server.stop(0);
+        executor.shutdown();
+        server = null;
+        executor = null;
+    }
+
+    public int getPort() {
+        return server != null ? server.getAddress().getPort() : port;
+    }
+
+    /**
+     * Serve {@code engine}'s catalog: its current snapshot now and every one
+     * it publishes later. Replaces the engine attached before, whose
+     * listener is removed; each engine numbers its snapshots from 1, so
+     * versions are only compared within one engine.
+     */
+    public synchronized void attach(ConsolidationEngine engine) {
+        detach();
+        source = engine;
+        sourceListener = snapshot -> publish(engine, snapshot);
+        engine.addRecalculationListener(sourceListener);
+        publish(engine, engine.getSnapshot());
+    }
+
+    /** Stop following the attached engine; its last catalog stays served. */
+    public synchronized void detach() {
+        if (source != null)
+            source.removeRecalculationListener(sourceListener);
+        source = null;
+        sourceListener = null;
+    }
+
+    /**
+     * Index a snapshot of {@code engine} and make it the one served. Older
+     * snapshots of the same engine arriving late (out of order), and any from
+     * an engine no longer attached, are ignored.
+     */
+    private void publish(ConsolidationEngine engine, CatalogSnapshot snapshot) {
+        CatalogView view = new CatalogView(snapshot, engine);
+        current.getAndUpdate(prev -> engine != source || (prev.source == engine && prev.version > view.version)
+                ? prev : view);
+    }
+
+    // ====================================================================
+    // Handlers
+    // ====================================================================
+
+    private void handleProduct(HttpExchange ex) throws IOException {
+        if (!checkGet(ex))
+            return;
+        CatalogView view = current.get();
+        String raw = ex.getRequestURI().getPath().substring("/api/products/".length());
+        String barcode = DataSanitizer.cleanBarcode(decode(raw));
+        MasterProduct mp = view.find(barcode);
+        if (mp == null) {
+            sendError(ex, 404, "Producto no encontrado: " + barcode);
+            return;
+        }
+        JsonWriter json = new JsonWriter().beginObject();
+        json.field("version", view.version);
+        json.name("product");
+        writeProduct(json, mp, true);
+        send(ex, 200, json.endObject());
+    }
+
+    private void handleSearch(HttpExchange ex) throws IOException {
+        if (!checkGet(ex))
+            return;
+        CatalogView view = current.get();
+        Map<String, String> params = queryParams(ex);
+        String q = params.getOrDefault("q", "").trim().toLowerCase();
+        if (q.isEmpty()) {
+            sendError(ex, 400, "Parámetro 'q' requerido");
+            return;
+        }
+        String[] tokens = q.split("\\s+");
+        int limit = limit(params);
+
+        JsonWriter json = new JsonWriter().beginObject();
+        json.field("version", view.version).field("query", q);
+        json.name("results").beginArray();
+        int found = 0;
+        // byPrice is already sorted cheapest-first, so the first hits are the answer
+        for (int i = 0; i < view.byPrice.length && found < limit; i++) {
+            if (matchesAll(view.lowerDescriptions[i], tokens)) {
+                writeProduct(json, view.byPrice[i], false);
+                found++;
+            }
+        }
+        json.endArray().field("count", found);
+        send(ex, 200, json.endObject());
+    }
+
+    private void handleGaps(HttpExchange ex) throws IOException {
+        if (!checkGet(ex))
+            return;
+        CatalogView view = current.get();
+        String name = decode(ex.getRequestURI().getPath().substring("/api/gaps/".length()));
+        Supplier target = findSupplier(name);
+        if (target == null) {
+            sendError(ex, 404, "Proveedor desconocido: " + name);
+            return;
+        }
+        int limit = limit(queryParams(ex));
+
+        JsonWriter json = new JsonWriter().beginObject();
+        json.field("version", view.version).field("supplier", target.name());
+        json.name("results").beginArray();
+        int found = 0;
+        int total = 0;
+        for (MasterProduct mp : view.byPrice) {
+            if (isGap(mp, target)) {
+                total++;
+                if (found < limit) {
+                    writeProduct(json, mp, false);
+                    found++;
+                }
+            }
+        }
+        json.endArray().field("count", found).field("total", total);
+        send(ex, 200, json.endObject());
+    }
+
+    private void handleTop(HttpExchange ex) throws IOException {
+        if (!checkGet(ex))
+            return;
+        CatalogView view = current.get();
+        String name = decode(ex.getRequestURI().getPath().substring("/api/top/".length()));
+        OpportunityMetric metric;
+        try {
+            metric = OpportunityMetric.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            sendError(ex, 404, "Métrica desconocida: " + name);
+            return;
+        }
+        Map<String, String> params = queryParams(ex);
+        String supplierName = params.get("supplier");
+        Supplier supplier = supplierName != null ? findSupplier(supplierName) : null;
+        if (supplierName != null && supplier == null) {
+            sendError(ex, 404, "Proveedor desconocido: " + supplierName);
+            return;
+        }
+        if (supplier == null && !metric.isSupplierOptional()) {
+            sendError(ex, 400, "Parámetro 'supplier' requerido");
+            return;
+        }
+        boolean stockOnly = Boolean.parseBoolean(params.getOrDefault("stock", "false"));
+
+        JsonWriter json = new JsonWriter().beginObject();
+        json.field("version", view.version).field("metric", metric.name())
+                .field("supplier", supplier != null ? supplier.name() : null).field("stockOnly", stockOnly);
+        json.name("results").beginArray();
+        for (RankedProduct ranked : metric.top(view.master.values(), supplier, limit(params), stockOnly)) {
+            json.beginObject().field("value", round(ranked.value()));
+            json.name("product");
+            writeProduct(json, ranked.product(), false);
+            json.endObject();
+        }
+        send(ex, 200, json.endArray().endObject());
+    }
+
+    private void handleKpis(HttpExchange ex) throws IOException {
+        if (!checkGet(ex))
+            return;
+        CatalogView view = current.get();
+        JsonWriter json = new JsonWriter().beginObject();
+        json.field("version", view.version)
+                .field("publishedAt", view.publishedAt)
+                .field("bcvRate", view.bcvRate)
+                .field("marginPct", view.marginPct)
+                .field("totalProducts", view.totalProducts)
+                .field("comparableProducts", view.comparableProducts)
+                .field("universalProducts", view.universal.size());
+        json.name("suppliers").beginArray();
+        for (Supplier s : Supplier.values()) {
+            int i = s.ordinal();
+            json.beginObject()
+                    .field("supplier", s.name())
+                    .field("name", s.getDisplayName())
+                    .field("wins", view.winsBySupplier[i])
+                    .field("offers", view.offersBySupplier[i])
+                    .field("avgNetPrice", round(view.avgNetBySupplier[i]))
+                    .endObject();
+        }
+        json.endArray();
+        send(ex, 200, json.endObject());
+    }
+
+    // ====================================================================
+    // Helpers
+    // ====================================================================
+
+    private static boolean isGap(MasterProduct mp, Supplier target) {
+        SupplierProduct own = mp.getSupplierPrices().get(target);
+        if (own != null && own.hasStock())
+            return false;
+        for (var entry : mp.getSupplierPrices().entrySet()) {
+            if (entry.getKey() != target && entry.getValue().hasStock())
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean matchesAll(String desc, String[] tokens) {
+        for (String token : tokens) {
+            if (!desc.contains(token))
+                return false;
+        }
+        return true;
+    }
+
+    private static void writeProduct(JsonWriter json, MasterProduct mp, boolean detailed) {
+        json.beginObject()
+                .field("barcode", mp.getBarcode())
+                .field("description", mp.getDescription())
+                .field("bestPrice", round(mp.getBestPrice()))
+                .field("winner", mp.getWinnerSupplier() != null ? mp.getWinnerSupplier().name() : null)
+                .field("supplierCount", mp.getSupplierCount());
+        if (detailed) {
+            json.field("internalCode", mp.getInternalCode())
+                    .field("brand", mp.getBrand())
+                    .field("diffPct", round(mp.getDiffPct()))
+                    .field("diffAmount", round(mp.getDiffAmount()))
+                    .field("simulatedSalePrice", round(mp.getSimulatedSalePrice()))
+                    .field("simulatedMargin", round(mp.getSimulatedMargin()));
+        }
+        json.name("suppliers").beginArray();
+        for (var entry : mp.getSupplierPrices().entrySet()) {
+            SupplierProduct sp = entry.getValue();
+            json.beginObject()
+                    .field("supplier", entry.getKey().name())
+                    .field("basePrice", round(sp.getBasePrice()))
+                    .field("offerPct", round(sp.getOfferPct()))
+                    .field("netPrice", round(sp.getNetPrice()))
+                    .field("stock", sp.getStock());
+            if (detailed)
+                json.field("position", mp.getPositionForSupplier(entry.getKey()));
+            json.endObject();
+        }
+        json.endArray().endObject();
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 10000.0) / 10000.0;
+    }
+
+    private static Supplier findSupplier(String name) {
+        for (Supplier s : Supplier.values()) {
+            if (s.name().equalsIgnoreCase(name) || s.getDisplayName().equalsIgnoreCase(name))
+                return s;
+        }
+        return null;
+    }
+
+    private static int limit(Map<String, String> params) {
+        try {
+            int limit = Integer.parseInt(params.getOrDefault("limit", String.valueOf(DEFAULT_LIMIT)));
+            return Math.max(1, Math.min(limit, MAX_LIMIT));
+        } catch (NumberFormatException e) {
+            return DEFAULT_LIMIT;
+        }
+    }
+
+    private static Map<String, String> queryParams(HttpExchange ex) {
+        Map<String, String> params = new HashMap<>();
+        String query = ex.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty())
+            return params;
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0)
+                params.put(decode(pair.substring(0, eq)), decode(pair.substring(eq + 1)));
+        }
+        return params;
+    }
+
+    private static String decode(String s) {
+        return URLDecoder.decode(s, StandardCharsets.UTF_8);
+    }
+
+    private static boolean checkGet(HttpExchange ex) throws IOException {
+        if ("GET".equals(ex.getRequestMethod()))
+            return true;
+        ex.getResponseHeaders().set("Allow", "GET");
+        sendError(ex, 405, "Solo se permite GET");
+        return false;
+    }
+
+    private static void sendError(HttpExchange ex, int status, String message) throws IOException {
+        send(ex, status, new JsonWriter().beginObject().field("error", message).endObject());
+    }
+
+    private static void send(HttpExchange ex, int status, JsonWriter json) throws IOException {
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, body.length);
+        try (OutputStream os = ex.getResponseBody()) {
+            os.write(body);
+        }
+    }
+}
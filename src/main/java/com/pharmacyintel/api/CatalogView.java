@@ -0,0 +1,111 @@
+package com.pharmacyintel.api;
+
+import com.pharmacyintel.engine.CatalogSnapshot;
+import com.pharmacyintel.model.BarcodeAliases;
+import com.pharmacyintel.model.MasterProduct;
+import com.pharmacyintel.model.Supplier;
+
+import java.util.*;
+
+/**
+ * Query indexes over one {@link CatalogSnapshot}, built once per published
+ * version so request threads read it without locks while the engine
+ * recalculates.
+ */
+final class CatalogView {
+
+    static final CatalogView EMPTY = new CatalogView();
+
+    final long version;
+    /** Engine the snapshot came from; versions only compare within one engine. */
+    final Object source;
+    final long publishedAt;
+    final double bcvRate;
+    final double marginPct;
+    final Map<String, MasterProduct> master;
+    final Map<String, MasterProduct> universal;
+    /** Universal products ordered by best price, with lower-cased descriptions aligned by index. */
+    final MasterProduct[] byPrice;
+    final String[] lowerDescriptions;
+
+    // Pre-aggregated KPIs over the master catalog
+    final int totalProducts;
+    final long comparableProducts;
+    final int[] winsBySupplier;
+    final int[] offersBySupplier;
+    final double[] avgNetBySupplier;
+
+    private CatalogView() {
+        version = 0;
+        source = null;
+        publishedAt = 0;
+        bcvRate = 0;
+        marginPct = 0;
+        master = Map.of();
+        universal = Map.of();
+        byPrice = new MasterProduct[0];
+        lowerDescriptions = new String[0];
+        totalProducts = 0;
+        comparableProducts = 0;
+        winsBySupplier = new int[Supplier.values().length];
+        offersBySupplier = new int[Supplier.values().length];
+        avgNetBySupplier = new double[Supplier.values().length];
+    }
+
+    CatalogView(CatalogSnapshot snapshot, Object source) {
+        this.version = snapshot.getVersion();
+        this.source = source;
+        this.publishedAt = System.currentTimeMillis();
+        this.bcvRate = snapshot.getBcvRate();
+        this.marginPct = snapshot.getMarginPct();
+        this.master = snapshot.getMasterCatalog();
+        this.universal = snapshot.getUniversalCatalog();
+
+        byPrice = universal.values().toArray(new MasterProduct[0]);
+        Arrays.sort(byPrice, Comparator.comparingDouble(
+                (MasterProduct mp) -> mp.getBestPrice() > 0 ? mp.getBestPrice() : Double.MAX_VALUE));
+        lowerDescriptions = new String[byPrice.length];
+        for (int i = 0; i < byPrice.length; i++) {
+            String desc = byPrice[i].getDescription();
+            lowerDescriptions[i] = desc != null ? desc.toLowerCase() : "";
+        }
+
+        int n = Supplier.values().length;
+        winsBySupplier = new int[n];
+        offersBySupplier = new int[n];
+        avgNetBySupplier = new double[n];
+        int[] netCount = new int[n];
+        long comparable = 0;
+        for (MasterProduct mp : master.values()) {
+            if (mp.getWinnerSupplier() != null)
+                winsBySupplier[mp.getWinnerSupplier().ordinal()]++;
+            if (mp.getSupplierCount() >= 2)
+                comparable++;
+            for (var entry : mp.getSupplierPrices().entrySet()) {
+                int idx = entry.getKey().ordinal();
+                if (entry.getValue().hasDiscount())
+                    offersBySupplier[idx]++;
+                if (entry.getValue().getNetPrice() > 0) {
+                    avgNetBySupplier[idx] += entry.getValue().getNetPrice();
+                    netCount[idx]++;
+                }
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            if (netCount[i] > 0)
+                avgNetBySupplier[i] /= netCount[i];
+        }
+        totalProducts = master.size();
+        comparableProducts = comparable;
+    }
+
+    /**
+     * Master catalog entry first (it carries the margin simulation), else
+     * universal; a supplier's own barcode finds the product it is an alias of.
+     */
+    MasterProduct find(String barcode) {
+        barcode = BarcodeAliases.getDefault().resolve(barcode);
+        MasterProduct mp = master.get(barcode);
+        return mp != null ? mp : universal.get(barcode);
+    }
+}
@@ -0,0 +1,128 @@
+package com.pharmacyintel.api;
+
+/**
+ * Minimal append-only JSON builder for the query API. Handles commas between
+ * members so callers only open/close objects and arrays.
+ */
+final class JsonWriter {
+
+    private final StringBuilder sb = new StringBuilder(256);
+    private boolean needComma = false;
+
+    JsonWriter beginObject() {
+        comma();
+        sb.append('{');
+        needComma = false;
+        return this;
+    }
+
+    JsonWriter endObject() {
+        sb.append('}');
+        needComma = true;
+        return this;
+    }
+
+    JsonWriter beginArray() {
+        comma();
+        sb.append('[');
+        needComma = false;
+        return this;
+    }
+
+    JsonWriter endArray() {
+        sb.append(']');
+        needComma = true;
+        return this;
+    }
+
+    JsonWriter name(String name) {
+        comma();
+        string(name);
+        sb.append(':');
+        needComma = false;
+        return this;
+    }
+
+    JsonWriter value(String value) {
+        comma();
+        if (value == null)
+            sb.append("null");
+        else
+            string(value);
+        needComma = true;
+        return this;
+    }
+
+    JsonWriter value(double value) {
+        comma();
+        if (Double.isNaN(value) || Double.isInfinite(value))
+            sb.append("null");
+        else if (value == Math.rint(value) && Math.abs(value) < 1e15)
+            sb.append((long) value);
+        else
+            sb.append(value);
+        needComma = true;
+        return this;
+    }
+
+    JsonWriter value(long value) {
+        comma();
+        sb.append(value);
+        needComma = true;
+        return this;
+    }
+
+    JsonWriter value(boolean value) {
+        comma();
+        sb.append(value);
+        needComma = true;
+        return this;
+    }
+
+    JsonWriter field(String name, String value) {
+        return name(name).value(value);
+    }
+
+    JsonWriter field(String name, double value) {
+        return name(name).value(value);
+    }
+
+    JsonWriter field(String name, long value) {
+        return name(name).value(value);
+    }
+
+    JsonWriter field(String name, boolean value) {
+        return name(name).value(value);
+    }
+
+    private void comma() {
+        if (needComma)
+            sb.append(',');
+    }
+
+    private void string(String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20)
+                        sb.append(String.format("\\u%04x", (int) c));
+                    else
+                        sb.append(c);
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    @Override
+    public String toString() {
+        return sb.toString();
+    }
+}
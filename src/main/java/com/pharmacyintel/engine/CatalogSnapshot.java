@@ -0,0 +1,314 @@
+package com.pharmacyintel.engine;
+
+import com.pharmacyintel.model.*;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * One published state of the consolidated catalog. The engine never touches a
+ * snapshot after publication, so exports, charts and the query API can keep
+ * reading an older version while the next one is built. A margin or rate
+ * change may reuse the unchanged {@link MasterProduct} instances of the
+ * previous snapshot; those are shared read-only, never modified in place.
+ */
+public final class CatalogSnapshot {
+
+    static final CatalogSnapshot EMPTY = new CatalogSnapshot(0, new LinkedHashMap<>(), new LinkedHashMap<>(), 0, 0,
+            false, new PriceDistributions());
+
+    private final long version;
+    private final Map<String, MasterProduct> masterCatalog;
+    private final Map<String, MasterProduct> universalCatalog;
+    private final double marginPct;
+    private final double bcvRate;
+    private final boolean includeAllProducts;
+    private final long comparableProducts;
+    private final PriceDistributions distributions;
+
+    CatalogSnapshot(long version, Map<String, MasterProduct> masterCatalog, Map<String, MasterProduct> universalCatalog,
+            double marginPct, double bcvRate, boolean includeAllProducts, PriceDistributions distributions) {
+        this.version = version;
+        this.masterCatalog = Collections.unmodifiableMap(masterCatalog);
+        this.universalCatalog = Collections.unmodifiableMap(universalCatalog);
+        this.marginPct = marginPct;
+        this.bcvRate = bcvRate;
+        this.includeAllProducts = includeAllProducts;
+        this.comparableProducts = masterCatalog.values().stream().filter(mp -> mp.getSupplierCount() >= 2).count();
+        this.distributions = distributions;
+    }
+
+    private CatalogSnapshot(long version, CatalogSnapshot other) {
+        this.version = version;
+        this.masterCatalog = other.masterCatalog;
+        this.universalCatalog = other.universalCatalog;
+        this.marginPct = other.marginPct;
+        this.bcvRate = other.bcvRate;
+        this.includeAllProducts = other.includeAllProducts;
+        this.comparableProducts = other.comparableProducts;
+        this.distributions = other.distributions;
+    }
+
+    /** The same catalog under another version number (set when it is published). */
+    CatalogSnapshot withVersion(long version) {
+        return version == this.version ? this : new CatalogSnapshot(version, this);
+    }
+
+    /** Increases by one with every process/recalculate/applyRate of the owning engine. */
+    public long getVersion() {
+        return version;
+    }
+
+    public Map<String, MasterProduct> getMasterCatalog() {
+        return masterCatalog;
+    }
+
+    public Map<String, MasterProduct> getUniversalCatalog() {
+        return universalCatalog;
+    }
+
+    public List<MasterProduct> getMasterProductList() {
+        return new ArrayList<>(masterCatalog.values());
+    }
+
+    public double getMarginPct() {
+        return marginPct;
+    }
+
+    /** BCV rate the Bs suppliers were projected at (also used for report headers). */
+    public double getBcvRate() {
+        return bcvRate;
+    }
+
+    public boolean isIncludeAllProducts() {
+        return includeAllProducts;
+    }
+
+    // =============================================
+    // Executive Summary Analytics
+    // =============================================
+
+    public Supplier getSupplierWithMostWins() {
+        Map<Supplier, Integer> wins = getWinCountBySupplier();
+        return wins.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse(null);
+    }
+
+    public Supplier getSupplierWithMostLosses() {
+        Map<Supplier, Integer> losses = new SupplierMap<>();
+        for (Supplier s : Supplier.values())
+            losses.put(s, 0);
+
+        for (MasterProduct mp : masterCatalog.values()) {
+            Supplier worst = mp.getLoserSupplier();
+            if (worst != null) {
+                losses.merge(worst, 1, Integer::sum);
+            }
+        }
+        return losses.entrySet().stream()
+                .filter(e -> e.getValue() > 0)
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse(null);
+    }
+
+    public Supplier getSupplierWithBestAvgDiscount() {
+        Map<Supplier, List<Double>> discounts = new SupplierMap<>();
+        for (MasterProduct mp : masterCatalog.values()) {
+            for (var entry : mp.getSupplierPrices().entrySet()) {
+                if (entry.getValue().hasDiscount()) {
+                    discounts.computeIfAbsent(entry.getKey(), k -> new ArrayList<>())
+                            .add(entry.getValue().getOfferPct());
+                }
+            }
+        }
+        return discounts.entrySet().stream()
+                .max(Comparator.comparingDouble(e -> e.getValue().stream()
+                        .mapToDouble(d -> d).average().orElse(0)))
+                .map(Map.Entry::getKey)
+                .orElse(null);
+    }
+
+    public Supplier getSupplierWithWorstAvgDiscount() {
+        Map<Supplier, List<Double>> discounts = new SupplierMap<>();
+        for (MasterProduct mp : masterCatalog.values()) {
+            for (var entry : mp.getSupplierPrices().entrySet()) {
+                discounts.computeIfAbsent(entry.getKey(), k -> new ArrayList<>())
+                        .add(entry.getValue().getOfferPct());
+            }
+        }
+        return discounts.entrySet().stream()
+                .filter(e -> !e.getValue().isEmpty())
+                .min(Comparator.comparingDouble(e -> e.getValue().stream()
+                        .mapToDouble(d -> d).average().orElse(0)))
+                .map(Map.Entry::getKey)
+                .orElse(null);
+    }
+
+    // =============================================
+    // Molecule Search
+    // =============================================
+
+    public List<MasterProduct> getCheapestByMolecule(String keyword) {
+        if (keyword == null || keyword.isBlank())
+            return List.of();
+        String[] tokens = keyword.toLowerCase().trim().split("\\s+");
+
+        return universalCatalog.values().stream()
+                .filter(mp -> {
+                    if (mp.getDescription() == null)
+                        return false;
+                    String desc = mp.getDescription().toLowerCase();
+                    for (String token : tokens) {
+                        if (!desc.contains(token))
+                            return false;
+                    }
+                    return true;
+                })
+                .sorted(Comparator.comparingDouble(mp -> mp.getBestPrice() > 0 ? mp.getBestPrice() : Double.MAX_VALUE))
+                .collect(Collectors.toList());
+    }
+
+    // =============================================
+    // Gap Analysis
+    // =============================================
+
+    public List<MasterProduct> getGapProducts(Supplier target) {
+        return universalCatalog.values().stream()
+                .filter(mp -> {
+                    SupplierProduct sp = mp.getSupplierPrices().get(target);
+                    return sp == null || !sp.hasStock();
+                })
+                .filter(mp -> {
+                    return mp.getSupplierPrices().entrySet().stream()
+                            .anyMatch(e -> e.getKey() != target && e.getValue().hasStock());
+                })
+                .collect(Collectors.toList());
+    }
+
+    public Map<Supplier, Integer> getGapSummaryBySupplier() {
+        List<MasterProduct> gaps = getGapProducts(Supplier.DROACTIVA);
+        Map<Supplier, Integer> summary = new SupplierMap<>();
+        for (Supplier s : Supplier.values()) {
+            if (s == Supplier.DROACTIVA)
+                continue;
+            summary.put(s, 0);
+        }
+        for (MasterProduct mp : gaps) {
+            for (var entry : mp.getSupplierPrices().entrySet()) {
+                if (entry.getKey() != Supplier.DROACTIVA && entry.getValue().hasStock()) {
+                    summary.merge(entry.getKey(), 1, Integer::sum);
+                }
+            }
+        }
+        return summary;
+    }
+
+    // =============================================
+    // Top-K Opportunities
+    // =============================================
+
+    /**
+     * The {@code k} master-catalog products where {@code metric} is largest
+     * for {@code supplier}, e.g. {@code topK(DIFF_PCT, DROACTIVA, 100, false)}
+     * for DroActiva's most overpriced products.
+     */
+    public List<RankedProduct> topK(OpportunityMetric metric, Supplier supplier, int k, boolean stockOnly) {
+        return metric.top(masterCatalog.values(), supplier, k, stockOnly);
+    }
+
+    // =============================================
+    // Aggregate Analytics
+    // =============================================
+
+    /** Net price, offer % and DIF % percentiles per supplier over the master catalog. */
+    public PriceDistributions getPriceDistributions() {
+        return distributions;
+    }
+
+    public Map<Supplier, Double> getAveragePriceBySupplier() {
+        Map<Supplier, List<Double>> prices = new SupplierMap<>();
+        for (MasterProduct mp : masterCatalog.values()) {
+            for (var entry : mp.getSupplierPrices().entrySet()) {
+                if (entry.getValue().getNetPrice() > 0) {
+                    prices.computeIfAbsent(entry.getKey(), k -> new ArrayList<>())
+                            .add(entry.getValue().getNetPrice());
+                }
+            }
+        }
+        Map<Supplier, Double> avg = new SupplierMap<>();
+        for (var entry : prices.entrySet()) {
+            avg.put(entry.getKey(), entry.getValue().stream().mapToDouble(d -> d).average().orElse(0));
+        }
+        return avg;
+    }
+
+    public Map<Supplier, Integer> getWinCountBySupplier() {
+        Map<Supplier, Integer> wins = new SupplierMap<>();
+        for (Supplier s : Supplier.values())
+            wins.put(s, 0);
+
+        for (MasterProduct mp : masterCatalog.values()) {
+            if (mp.getWinnerSupplier() != null) {
+                wins.merge(mp.getWinnerSupplier(), 1, Integer::sum);
+            }
+        }
+        return wins;
+    }
+
+    public Map<Supplier, Integer> getTotalStockBySupplier() {
+        Map<Supplier, Integer> stock = new SupplierMap<>();
+        for (MasterProduct mp : masterCatalog.values()) {
+            for (var entry : mp.getSupplierPrices().entrySet()) {
+                stock.merge(entry.getKey(), entry.getValue().getStock(), Integer::sum);
+            }
+        }
+        return stock;
+    }
+
+    public Map<Supplier, Integer> getOfferCountBySupplier() {
+        Map<Supplier, Integer> offers = new SupplierMap<>();
+        for (MasterProduct mp : masterCatalog.values()) {
+            for (var entry : mp.getSupplierPrices().entrySet()) {
+                if (entry.getValue().hasDiscount()) {
+                    offers.merge(entry.getKey(), 1, Integer::sum);
+                }
+            }
+        }
+        return offers;
+    }
+
+    public Map<Supplier, double[]> getBasePriceVsOfferPrice() {
+        Map<Supplier, List<double[]>> data = new SupplierMap<>();
+        for (MasterProduct mp : masterCatalog.values()) {
+            for (var entry : mp.getSupplierPrices().entrySet()) {
+                SupplierProduct sp = entry.getValue();
+                if (sp.getBasePrice() > 0 && sp.getNetPrice() > 0) {
+                    data.computeIfAbsent(entry.getKey(), k -> new ArrayList<>())
+                            .add(new double[] { sp.getBasePrice(), sp.getNetPrice() });
+                }
+            }
+        }
+        Map<Supplier, double[]> result = new SupplierMap<>();
+        for (var entry : data.entrySet()) {
+            double avgBase = entry.getValue().stream().mapToDouble(d -> d[0]).average().orElse(0);
+            double avgNet = entry.getValue().stream().mapToDouble(d -> d[1]).average().orElse(0);
+            result.put(entry.getKey(), new double[] { avgBase, avgNet });
+        }
+        return result;
+    }
+
+    public int getTotalProducts() {
+        return masterCatalog.size();
+    }
+
+    public int getUniversalProductCount() {
+        return universalCatalog.size();
+    }
+
+    public long getComparableProducts() {
+        return comparableProducts;
+    }
+}
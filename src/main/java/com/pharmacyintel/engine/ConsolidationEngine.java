@@ -1,125 +1,459 @@
 package com.pharmacyintel.engine;
 
+import com.pharmacyintel.metrics.StageMetrics;
+import com.pharmacyintel.metrics.StageTimer;
 import com.pharmacyintel.model.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
-import java.util.stream.Collectors;
-
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Builds the consolidated catalog from parsed supplier data. Each
+ * process/recalculate assembles a complete new {@link CatalogSnapshot} off to
+ * the side and publishes it atomically; readers call {@link #getSnapshot()}
+ * once and work against that version without locks.
+ * <p>
+ * Bs suppliers are kept in their native prices and projected to USD at the
+ * current BCV rate, so {@link #applyRate(double)} can swap the rate without
+ * re-parsing and only re-prices the products those suppliers carry.
+ * <p>
+ * After the first consolidation the parsed rows are spilled to a temp file
+ * ({@link RawDataSpill}) and released, so between syncs the heap holds the
+ * catalogs only; {@link #recalculate} reads them back for its re-join.
+ * <p>
+ * Rows arrive keyed through the {@link BarcodeAliases} table (the ingest
+ * resolves each barcode while parsing), so the join itself is a plain
+ * barcode lookup. When the table changes afterwards, the next recalculation
+ * re-keys copies of the rows once and spills them again.
+ * <p>
+ * Rebuilds from the raw data ({@link #process}, {@link #recalculate},
+ * {@link #replaceSupplier}) are serialized on the engine. {@link #applyMargin}
+ * and {@link #applyRate} never wait for them: they derive a snapshot from the
+ * latest one and publish it with a compare-and-set, and a rebuild that
+ * finishes afterwards carries their margin or rate over. Listeners are called
+ * after publishing, outside the engine lock.
+ */
 public class ConsolidationEngine {
 
-    private final Map<String, MasterProduct> masterCatalog = new LinkedHashMap<>();
-    private final Map<String, MasterProduct> universalCatalog = new LinkedHashMap<>();
-    private Map<Supplier, List<SupplierProduct>> rawSupplierData;
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>(CatalogSnapshot.EMPTY);
+    /** Parsed data as quoted by each supplier (Bs suppliers unconverted), once spilled. */
+    private RawDataSpill spill;
+    /** The same data kept in memory when it could not be spilled. */
+    private Map<Supplier, List<SupplierProduct>> nativeSupplierData;
+    private final List<Consumer<CatalogSnapshot>> recalculationListeners = new CopyOnWriteArrayList<>();
+    private volatile List<StageMetrics> lastRebuildMetrics = List.of();
+    private volatile BarcodeAliases aliases = BarcodeAliases.getDefault();
+    /** Alias table version the raw rows are keyed at. */
+    private long keyedAliasVersion;
 
     /**
-     * Consolidate with mode selection.
-     * 
+     * Master catalog as a view over the universal one: the same
+     * {@link MasterProduct} instances, so no product is built or ranked twice.
+     *
      * @param includeAllProducts false = DroActiva-centric, true = Full Outer Join
      */
-    public void consolidate(boolean includeAllProducts) {
-        masterCatalog.clear();
-
-        if (rawSupplierData == null || rawSupplierData.isEmpty())
-            return;
-
-        if (includeAllProducts) {
-            // Full Outer Join: every barcode from every supplier
-            for (var entry : rawSupplierData.entrySet()) {
-                for (SupplierProduct sp : entry.getValue()) {
-                    String key = sp.getBarcode();
-                    if (key == null || key.isEmpty())
-                        continue;
-                    MasterProduct mp = masterCatalog.computeIfAbsent(key,
-                            k -> new MasterProduct(k, sp.getDescription()));
-                    mp.addSupplierProduct(sp);
-                }
-            }
-        } else {
-            // DroActiva-centric: build base catalog from DroActiva only
-            List<SupplierProduct> droactivaList = rawSupplierData.getOrDefault(Supplier.DROACTIVA, List.of());
-            for (SupplierProduct sp : droactivaList) {
+    private static Map<String, MasterProduct> consolidate(Map<Supplier, List<SupplierProduct>> rawSupplierData,
+            Map<String, MasterProduct> universalCatalog, boolean includeAllProducts) {
+        if (includeAllProducts)
+            return universalCatalog;
+
+        // DroActiva-centric: DroActiva's barcodes, in its order, with every supplier that carries them
+        Map<String, MasterProduct> masterCatalog = new LinkedHashMap<>();
+        for (SupplierProduct sp : rawSupplierData.getOrDefault(Supplier.DROACTIVA, List.of())) {
+            String key = sp.getBarcode();
+            if (key == null || key.isEmpty())
+                continue;
+            MasterProduct mp = universalCatalog.get(key);
+            if (mp != null)
+                masterCatalog.putIfAbsent(key, mp);
+        }
+        return masterCatalog;
+    }
+
+    /** Every barcode from every supplier (Full Outer Join). */
+    private static Map<String, MasterProduct> consolidateUniversal(
+            Map<Supplier, List<SupplierProduct>> rawSupplierData) {
+        Map<String, MasterProduct> universalCatalog = new LinkedHashMap<>();
+        for (var entry : rawSupplierData.entrySet()) {
+            for (SupplierProduct sp : entry.getValue()) {
                 String key = sp.getBarcode();
                 if (key == null || key.isEmpty())
                     continue;
-                MasterProduct mp = masterCatalog.computeIfAbsent(key,
+                MasterProduct mp = universalCatalog.computeIfAbsent(key,
                         k -> new MasterProduct(k, sp.getDescription()));
                 mp.addSupplierProduct(sp);
             }
+        }
+        return universalCatalog;
+    }
 
-            // Add other suppliers only if barcode already exists
-            for (var entry : rawSupplierData.entrySet()) {
-                if (entry.getKey() == Supplier.DROACTIVA)
-                    continue;
-                for (SupplierProduct sp : entry.getValue()) {
-                    String key = sp.getBarcode();
-                    if (key == null || key.isEmpty())
-                        continue;
-                    MasterProduct mp = masterCatalog.get(key);
-                    if (mp != null) {
-                        mp.addSupplierProduct(sp);
-                    }
-                }
-            }
+    /**
+     * Full pipeline: consolidate, analyze, margin, then spill the raw data.
+     * The rows are expected keyed through {@link #getBarcodeAliases()} as it
+     * is now ({@code IngestPipeline} does it while parsing). The caller should
+     * drop {@code supplierData} afterwards; the engine no longer holds it
+     * unless the spill failed.
+     */
+    public Map<String, MasterProduct> process(Map<Supplier, List<SupplierProduct>> supplierData,
+            double marginPct, boolean includeAllProducts) {
+        CatalogSnapshot published;
+        synchronized (this) {
+            CatalogSnapshot start = snapshot.get();
+            keyedAliasVersion = aliases.getVersion();
+            published = commit(start, rebuild(supplierData, marginPct, includeAllProducts,
+                    GlobalConfig.getInstance().getBcvRate()));
+            spill(supplierData);
         }
+        notifyListeners(published);
+        return published.getMasterCatalog();
     }
 
-    public void consolidateUniversal() {
-        universalCatalog.clear();
+    /** Replaces the raw data the engine keeps with {@code supplierData}, on disk if possible. */
+    private void spill(Map<Supplier, List<SupplierProduct>> supplierData) {
+        releaseRawData();
+        try {
+            spill = RawDataSpill.write(supplierData);
+            System.out.println("[ConsolidationEngine] Datos crudos en disco: " + spill.getRows() + " filas, "
+                    + spill.getBytes() / 1024 + " KB");
+        } catch (IOException e) {
+            System.err.println("[ConsolidationEngine] No se pudieron volcar los datos crudos, se mantienen en memoria: "
+                    + e.getMessage());
+            nativeSupplierData = supplierData;
+        }
+    }
 
-        if (rawSupplierData == null)
-            return;
+    /** Native data back from the spill (or memory); {@code null} before the first process. */
+    private Map<Supplier, List<SupplierProduct>> nativeData() {
+        if (nativeSupplierData != null || spill == null)
+            return nativeSupplierData;
+        try {
+            return spill.read();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudieron releer los datos crudos", e);
+        }
+    }
 
-        for (var entry : rawSupplierData.entrySet()) {
-            for (SupplierProduct sp : entry.getValue()) {
-                String key = sp.getBarcode();
-                if (key == null || key.isEmpty())
-                    continue;
-                MasterProduct mp = universalCatalog.computeIfAbsent(key,
-                        k -> new MasterProduct(k, sp.getDescription()));
-                mp.addSupplierProduct(sp);
+    private void releaseRawData() {
+        if (spill != null)
+            spill.delete();
+        spill = null;
+        nativeSupplierData = null;
+    }
+
+    /**
+     * Re-price the Bs suppliers at a new BCV rate and publish the result.
+     * Products without a Bs supplier are shared with the previous snapshot
+     * (they are never mutated); the rest are copied with their Bs products
+     * re-projected and re-ranked, so a what-if rate costs a fraction of a
+     * rebuild. Projected products keep their native price, so the catalog
+     * itself is the source and the raw data is not read.
+     */
+    public CatalogSnapshot applyRate(double bcvRate) {
+        return update(current -> current == CatalogSnapshot.EMPTY ? current : withRate(current, bcvRate));
+    }
+
+    /**
+     * Publish the current catalog at another target margin. Only the
+     * simulated margin changes, so the master products are copied with their
+     * ranking and re-simulated while universal-only products are shared;
+     * neither the raw data nor the consolidation is touched.
+     */
+    public CatalogSnapshot applyMargin(double marginPct) {
+        return update(current -> withMargin(current, marginPct));
+    }
+
+    /**
+     * Publishes {@code change} applied to the latest snapshot, again on the
+     * newer one if another update got there first. Never blocks.
+     */
+    private CatalogSnapshot update(UnaryOperator<CatalogSnapshot> change) {
+        while (true) {
+            CatalogSnapshot current = snapshot.get();
+            CatalogSnapshot next = change.apply(current);
+            if (next == current)
+                return current;
+            next = next.withVersion(current.getVersion() + 1);
+            if (snapshot.compareAndSet(current, next)) {
+                notifyListeners(next);
+                return next;
             }
         }
+    }
 
-        for (MasterProduct mp : universalCatalog.values()) {
-            mp.computeCompetitiveness();
+    /**
+     * Publishes a snapshot rebuilt from the raw data. A margin or rate
+     * applied since {@code start} (while the rebuild ran) is applied to it
+     * too, so the rebuild does not undo it.
+     */
+    private CatalogSnapshot commit(CatalogSnapshot start, CatalogSnapshot built) {
+        while (true) {
+            CatalogSnapshot latest = snapshot.get();
+            CatalogSnapshot next = built;
+            if (latest.getBcvRate() != start.getBcvRate())
+                next = withRate(next, latest.getBcvRate());
+            if (latest.getMarginPct() != start.getMarginPct())
+                next = withMargin(next, latest.getMarginPct());
+            next = next.withVersion(latest.getVersion() + 1);
+            if (snapshot.compareAndSet(latest, next))
+                return next;
         }
     }
 
-    public void computeCompetitiveness() {
-        for (MasterProduct mp : masterCatalog.values()) {
-            mp.computeCompetitiveness();
+    /** {@code current} with its Bs products projected at {@code bcvRate} (unnumbered). */
+    private CatalogSnapshot withRate(CatalogSnapshot current, double bcvRate) {
+        if (bcvRate == current.getBcvRate())
+            return current;
+        StageTimer timer = StageTimer.start("applyRate");
+        Map<String, MasterProduct> universalCatalog = reprice(current.getUniversalCatalog(),
+                current.getMasterCatalog(), bcvRate, current.getMarginPct());
+        Map<String, MasterProduct> masterCatalog = universalCatalog;
+        if (!current.isIncludeAllProducts()) {
+            masterCatalog = new LinkedHashMap<>();
+            for (String key : current.getMasterCatalog().keySet())
+                masterCatalog.put(key, universalCatalog.get(key));
         }
+        // Bs net prices moved, so their percentiles (and everyone's DIF %) did too
+        PriceDistributions distributions = PriceDistributions.of(masterCatalog.values());
+        lastRebuildMetrics = List.of(timer.finish(masterCatalog.size()));
+        return new CatalogSnapshot(current.getVersion(), masterCatalog, universalCatalog, current.getMarginPct(),
+                bcvRate, current.isIncludeAllProducts(), distributions);
     }
 
-    public void simulateMargin(double marginPct) {
-        for (MasterProduct mp : masterCatalog.values()) {
-            mp.simulateMargin(marginPct);
+    /** {@code current} simulated at {@code marginPct} (unnumbered). */
+    private CatalogSnapshot withMargin(CatalogSnapshot current, double marginPct) {
+        if (marginPct == current.getMarginPct())
+            return current;
+        StageTimer timer = StageTimer.start("applyMargin");
+        Map<String, MasterProduct> universalCatalog = new LinkedHashMap<>(current.getUniversalCatalog());
+        Map<String, MasterProduct> masterCatalog = current.isIncludeAllProducts() ? universalCatalog
+                : new LinkedHashMap<>();
+        for (var entry : current.getMasterCatalog().entrySet()) {
+            MasterProduct copy = entry.getValue().withMargin(marginPct);
+            universalCatalog.replace(entry.getKey(), copy);
+            masterCatalog.put(entry.getKey(), copy);
+        }
+        lastRebuildMetrics = List.of(timer.finish(masterCatalog.size()));
+        return new CatalogSnapshot(current.getVersion(), masterCatalog, universalCatalog, marginPct,
+                current.getBcvRate(), current.isIncludeAllProducts(), current.getPriceDistributions());
+    }
+
+    /** USD view of the native data. USD lists are shared as-is. */
+    private static Map<Supplier, List<SupplierProduct>> project(Map<Supplier, List<SupplierProduct>> data,
+            double bcvRate) {
+        Map<Supplier, List<SupplierProduct>> projected = new LinkedHashMap<>();
+        for (var entry : data.entrySet()) {
+            Supplier supplier = entry.getKey();
+            List<SupplierProduct> products = entry.getValue();
+            if (supplier.getCurrency() == PriceCurrency.USD) {
+                projected.put(supplier, products);
+                continue;
+            }
+            List<SupplierProduct> converted = new ArrayList<>(products.size());
+            for (SupplierProduct sp : products)
+                converted.add(sp.projectToUsd(bcvRate));
+            projected.put(supplier, converted);
         }
+        return projected;
     }
 
     /**
-     * Full pipeline: store raw data, consolidate, analyze, margin.
+     * Copy of the universal catalog with every Bs product re-projected at
+     * {@code bcvRate}; products also in the master catalog get their margin
+     * simulated again.
      */
-    public Map<String, MasterProduct> process(Map<Supplier, List<SupplierProduct>> supplierData,
-            double marginPct, boolean includeAllProducts) {
-        this.rawSupplierData = supplierData;
-        consolidate(includeAllProducts);
-        consolidateUniversal();
-        fillDescriptions();
-        computeCompetitiveness();
-        simulateMargin(marginPct);
-        return masterCatalog;
+    private static Map<String, MasterProduct> reprice(Map<String, MasterProduct> catalog,
+            Map<String, MasterProduct> masterCatalog, double bcvRate, double marginPct) {
+        Map<String, MasterProduct> result = new LinkedHashMap<>(catalog);
+        Map<Supplier, SupplierProduct> replacements = new SupplierMap<>();
+        for (var entry : result.entrySet()) {
+            MasterProduct mp = entry.getValue();
+            replacements.clear();
+            for (var supplierEntry : mp.getSupplierPrices().entrySet()) {
+                SupplierProduct sp = supplierEntry.getValue();
+                if (sp.getCurrency() != PriceCurrency.USD)
+                    replacements.put(supplierEntry.getKey(), sp.projectToUsd(bcvRate));
+            }
+            if (replacements.isEmpty())
+                continue;
+            MasterProduct copy = mp.withSupplierProducts(replacements);
+            copy.computeCompetitiveness();
+            if (masterCatalog.containsKey(entry.getKey()))
+                copy.simulateMargin(marginPct);
+            entry.setValue(copy);
+        }
+        return result;
+    }
+
+    public BarcodeAliases getBarcodeAliases() {
+        return aliases;
+    }
+
+    /** Alias table the rows are keyed through (the user's table by default). */
+    public synchronized void setBarcodeAliases(BarcodeAliases aliases) {
+        this.aliases = aliases;
+        keyedAliasVersion = -1;
+    }
+
+    /** BCV rate the Bs suppliers are currently projected at. */
+    public double getProjectedRate() {
+        return snapshot.get().getBcvRate();
     }
 
     /**
      * Recalculate with new parameters without re-parsing files.
      */
     public void recalculate(double marginPct, boolean includeAllProducts) {
-        consolidate(includeAllProducts);
-        consolidateUniversal();
-        fillDescriptions();
-        computeCompetitiveness();
-        simulateMargin(marginPct);
+        CatalogSnapshot published;
+        synchronized (this) {
+            CatalogSnapshot start = snapshot.get();
+            Map<Supplier, List<SupplierProduct>> data = nativeData();
+            if (data != null && aliases.getVersion() != keyedAliasVersion) {
+                Map<Supplier, List<SupplierProduct>> rekeyed = rekey(data);
+                keyedAliasVersion = aliases.getVersion();
+                if (rekeyed != data) {
+                    data = rekeyed;
+                    spill(data);
+                }
+            }
+            published = commit(start, rebuild(data, marginPct, includeAllProducts, start.getBcvRate()));
+        }
+        notifyListeners(published);
+    }
+
+    /**
+     * Swap in a new price list for one supplier and publish the rebuilt
+     * catalog at the current margin and mode; the other suppliers' rows are
+     * reused as they are, nothing is re-parsed. {@code products} are expected
+     * keyed like for {@link #process}. Before the first process this starts
+     * the catalog with that supplier alone.
+     */
+    public CatalogSnapshot replaceSupplier(Supplier supplier, List<SupplierProduct> products) {
+        CatalogSnapshot published;
+        synchronized (this) {
+            CatalogSnapshot start = snapshot.get();
+            Map<Supplier, List<SupplierProduct>> current = nativeData();
+            Map<Supplier, List<SupplierProduct>> data = new SupplierMap<>();
+            if (current != null)
+                data.putAll(aliases.getVersion() != keyedAliasVersion ? rekey(current) : current);
+            keyedAliasVersion = aliases.getVersion();
+            data.put(supplier, products);
+            double rate = current != null ? start.getBcvRate() : GlobalConfig.getInstance().getBcvRate();
+            double margin = start == CatalogSnapshot.EMPTY ? GlobalConfig.getInstance().getTargetMarginPct()
+                    : start.getMarginPct();
+            published = commit(start, rebuild(data, margin, start.isIncludeAllProducts(), rate));
+            spill(data);
+        }
+        System.out.println("[ConsolidationEngine] " + supplier.name() + " reemplazado: " + products.size()
+                + " filas");
+        notifyListeners(published);
+        return published;
+    }
+
+    /**
+     * Rows resolved through the alias table. Rows whose key changes are
+     * copied (the published catalogs may hold the originals); returns
+     * {@code data} itself when none does.
+     */
+    private Map<Supplier, List<SupplierProduct>> rekey(Map<Supplier, List<SupplierProduct>> data) {
+        Map<Supplier, List<SupplierProduct>> result = new SupplierMap<>();
+        int changed = 0;
+        for (var entry : data.entrySet()) {
+            List<SupplierProduct> products = entry.getValue();
+            List<SupplierProduct> keyed = products;
+            for (int i = 0; i < products.size(); i++) {
+                SupplierProduct sp = products.get(i);
+                String key = aliases.resolve(sp.getBarcode());
+                if (Objects.equals(key, sp.getBarcode()))
+                    continue;
+                if (keyed == products)
+                    keyed = new ArrayList<>(products);
+                keyed.set(i, sp.withBarcode(key));
+                changed++;
+            }
+            result.put(entry.getKey(), keyed);
+        }
+        System.out.println("[ConsolidationEngine] Tabla de alias cambiada: " + changed + " filas con otro código");
+        return changed > 0 ? result : data;
+    }
+
+    /**
+     * Build a new snapshot from the native data, projected at
+     * {@code bcvRate}, ready for {@link #commit}. The previous snapshot's
+     * products are never reused, so its readers are unaffected. Within the
+     * snapshot the master catalog shares its products with the universal one
+     * (in Full Outer Join mode it is the same map).
+     */
+    private CatalogSnapshot rebuild(Map<Supplier, List<SupplierProduct>> nativeData, double marginPct,
+            boolean includeAllProducts, double bcvRate) {
+        List<StageMetrics> metrics = new ArrayList<>(5);
+        Map<Supplier, List<SupplierProduct>> rawSupplierData = nativeData != null
+                ? project(nativeData, bcvRate)
+                : Map.of();
+
+        StageTimer timer = StageTimer.start("consolidateUniversal");
+        Map<String, MasterProduct> universalCatalog = consolidateUniversal(rawSupplierData);
+        metrics.add(timer.finish(universalCatalog.size()));
+
+        timer = StageTimer.start("consolidate");
+        Map<String, MasterProduct> masterCatalog = consolidate(rawSupplierData, universalCatalog, includeAllProducts);
+        metrics.add(timer.finish(masterCatalog.size()));
+
+        timer = StageTimer.start("fillDescriptions");
+        fillDescriptions(rawSupplierData, masterCatalog);
+        metrics.add(timer.finish(masterCatalog.size()));
+
+        timer = StageTimer.start("competitiveness");
+        for (MasterProduct mp : universalCatalog.values()) {
+            mp.computeCompetitiveness();
+        }
+        metrics.add(timer.finish(universalCatalog.size()));
+
+        // Same pass: margins and the per-supplier price distributions
+        timer = StageTimer.start("simulateMargin");
+        PriceDistributions distributions = new PriceDistributions();
+        for (MasterProduct mp : masterCatalog.values()) {
+            mp.simulateMargin(marginPct);
+            distributions.add(mp);
+        }
+        metrics.add(timer.finish(masterCatalog.size()));
+        lastRebuildMetrics = List.copyOf(metrics);
+
+        return new CatalogSnapshot(0, masterCatalog, universalCatalog, marginPct, bcvRate, includeAllProducts,
+                distributions);
+    }
+
+    private void notifyListeners(CatalogSnapshot published) {
+        for (Consumer<CatalogSnapshot> listener : recalculationListeners) {
+            listener.accept(published);
+        }
+    }
+
+    /** Per-stage cost of the most recent process/recalculate/applyRate. */
+    public List<StageMetrics> getLastRebuildMetrics() {
+        return lastRebuildMetrics;
+    }
+
+    /** Latest published catalog; hold on to it for a consistent view across calls. */
+    public CatalogSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Notified on the calling thread with each newly published snapshot,
+     * after it is published and outside the engine lock. Concurrent updates
+     * may be notified out of order; {@link #getSnapshot()} is the latest.
+     */
+    public void addRecalculationListener(Consumer<CatalogSnapshot> listener) {
+        recalculationListeners.add(listener);
+    }
+
+    public void removeRecalculationListener(Consumer<CatalogSnapshot> listener) {
+        recalculationListeners.remove(listener);
     }
 
     /**
@@ -127,10 +461,8 @@ public class ConsolidationEngine {
      * by scanning ALL raw supplier data for the longest valid description per
      * barcode.
      */
-    private void fillDescriptions() {
-        if (rawSupplierData == null)
-            return;
-
+    private static void fillDescriptions(Map<Supplier, List<SupplierProduct>> rawSupplierData,
+            Map<String, MasterProduct> masterCatalog) {
         // Build barcode -> best description from raw data
         Map<String, String> bestDescriptions = new HashMap<>();
         for (var entry : rawSupplierData.entrySet()) {
@@ -164,224 +496,82 @@ public class ConsolidationEngine {
     }
 
     public Map<String, MasterProduct> getMasterCatalog() {
-        return masterCatalog;
+        return snapshot.get().getMasterCatalog();
     }
 
     public Map<String, MasterProduct> getUniversalCatalog() {
-        return universalCatalog;
+        return snapshot.get().getUniversalCatalog();
     }
 
     public List<MasterProduct> getMasterProductList() {
-        return new ArrayList<>(masterCatalog.values());
+        return snapshot.get().getMasterProductList();
     }
 
     // =============================================
-    // Executive Summary Analytics
+    // Analytics (delegate to the current snapshot)
     // =============================================
 
     public Supplier getSupplierWithMostWins() {
-        Map<Supplier, Integer> wins = getWinCountBySupplier();
-        return wins.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse(null);
+        return snapshot.get().getSupplierWithMostWins();
     }
 
     public Supplier getSupplierWithMostLosses() {
-        Map<Supplier, Integer> losses = new EnumMap<>(Supplier.class);
-        for (Supplier s : Supplier.values())
-            losses.put(s, 0);
-
-        for (MasterProduct mp : masterCatalog.values()) {
-            Supplier worst = mp.getLoserSupplier();
-            if (worst != null) {
-                losses.merge(worst, 1, Integer::sum);
-            }
-        }
-        return losses.entrySet().stream()
-                .filter(e -> e.getValue() > 0)
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse(null);
+        return snapshot.get().getSupplierWithMostLosses();
     }
 
     public Supplier getSupplierWithBestAvgDiscount() {
-        Map<Supplier, List<Double>> discounts = new EnumMap<>(Supplier.class);
-        for (MasterProduct mp : masterCatalog.values()) {
-            for (var entry : mp.getSupplierPrices().entrySet()) {
-                if (entry.getValue().hasDiscount()) {
-                    discounts.computeIfAbsent(entry.getKey(), k -> new ArrayList<>())
-                            .add(entry.getValue().getOfferPct());
-                }
-            }
-        }
-        return discounts.entrySet().stream()
-                .max(Comparator.comparingDouble(e -> e.getValue().stream()
-                        .mapToDouble(d -> d).average().orElse(0)))
-                .map(Map.Entry::getKey)
-                .orElse(null);
+        return snapshot.get().getSupplierWithBestAvgDiscount();
     }
 
     public Supplier getSupplierWithWorstAvgDiscount() {
-        Map<Supplier, List<Double>> discounts = new EnumMap<>(Supplier.class);
-        for (MasterProduct mp : masterCatalog.values()) {
-            for (var entry : mp.getSupplierPrices().entrySet()) {
-                discounts.computeIfAbsent(entry.getKey(), k -> new ArrayList<>())
-                        .add(entry.getValue().getOfferPct());
-            }
-        }
-        return discounts.entrySet().stream()
-                .filter(e -> !e.getValue().isEmpty())
-                .min(Comparator.comparingDouble(e -> e.getValue().stream()
-                        .mapToDouble(d -> d).average().orElse(0)))
-                .map(Map.Entry::getKey)
-                .orElse(null);
+        return snapshot.get().getSupplierWithWorstAvgDiscount();
     }
 
-    // =============================================
-    // Molecule Search
-    // =============================================
-
     public List<MasterProduct> getCheapestByMolecule(String keyword) {
-        if (keyword == null || keyword.isBlank())
-            return List.of();
-        String[] tokens = keyword.toLowerCase().trim().split("\\s+");
-
-        return universalCatalog.values().stream()
-                .filter(mp -> {
-                    if (mp.getDescription() == null)
-                        return false;
-                    String desc = mp.getDescription().toLowerCase();
-                    for (String token : tokens) {
-                        if (!desc.contains(token))
-                            return false;
-                    }
-                    return true;
-                })
-                .sorted(Comparator.comparingDouble(mp -> mp.getBestPrice() > 0 ? mp.getBestPrice() : Double.MAX_VALUE))
-                .collect(Collectors.toList());
+        return snapshot.get().getCheapestByMolecule(keyword);
     }
 
-    // =============================================
-    // Gap Analysis
-    // =============================================
-
     public List<MasterProduct> getGapProducts(Supplier target) {
-        return universalCatalog.values().stream()
-                .filter(mp -> {
-                    SupplierProduct sp = mp.getSupplierPrices().get(target);
-                    return sp == null || !sp.hasStock();
-                })
-                .filter(mp -> {
-                    return mp.getSupplierPrices().entrySet().stream()
-                            .anyMatch(e -> e.getKey() != target && e.getValue().hasStock());
-                })
-                .collect(Collectors.toList());
+        return snapshot.get().getGapProducts(target);
     }
 
     public Map<Supplier, Integer> getGapSummaryBySupplier() {
-        List<MasterProduct> gaps = getGapProducts(Supplier.DROACTIVA);
-        Map<Supplier, Integer> summary = new EnumMap<>(Supplier.class);
-        for (Supplier s : Supplier.values()) {
-            if (s == Supplier.DROACTIVA)
-                continue;
-            summary.put(s, 0);
-        }
-        for (MasterProduct mp : gaps) {
-            for (var entry : mp.getSupplierPrices().entrySet()) {
-                if (entry.getKey() != Supplier.DROACTIVA && entry.getValue().hasStock()) {
-                    summary.merge(entry.getKey(), 1, Integer::sum);
-                }
-            }
-        }
-        return summary;
+        return snapshot.get().getGapSummaryBySupplier();
     }
 
-    // =============================================
-    // Aggregate Analytics
-    // =============================================
+    public List<RankedProduct> topK(OpportunityMetric metric, Supplier supplier, int k, boolean stockOnly) {
+        return snapshot.get().topK(metric, supplier, k, stockOnly);
+    }
 
     public Map<Supplier, Double> getAveragePriceBySupplier() {
-        Map<Supplier, List<Double>> prices = new EnumMap<>(Supplier.class);
-        for (MasterProduct mp : masterCatalog.values()) {
-            for (var entry : mp.getSupplierPrices().entrySet()) {
-                if (entry.getValue().getNetPrice() > 0) {
-                    prices.computeIfAbsent(entry.getKey(), k -> new ArrayList<>())
-                            .add(entry.getValue().getNetPrice());
-                }
-            }
-        }
-        Map<Supplier, Double> avg = new EnumMap<>(Supplier.class);
-        for (var entry : prices.entrySet()) {
-            avg.put(entry.getKey(), entry.getValue().stream().mapToDouble(d -> d).average().orElse(0));
-        }
-        return avg;
+        return snapshot.get().getAveragePriceBySupplier();
     }
 
     public Map<Supplier, Integer> getWinCountBySupplier() {
-        Map<Supplier, Integer> wins = new EnumMap<>(Supplier.class);
-        for (Supplier s : Supplier.values())
-            wins.put(s, 0);
-
-        for (MasterProduct mp : masterCatalog.values()) {
-            if (mp.getWinnerSupplier() != null) {
-                wins.merge(mp.getWinnerSupplier(), 1, Integer::sum);
-            }
-        }
-        return wins;
+        return snapshot.get().getWinCountBySupplier();
     }
 
     public Map<Supplier, Integer> getTotalStockBySupplier() {
-        Map<Supplier, Integer> stock = new EnumMap<>(Supplier.class);
-        for (MasterProduct mp : masterCatalog.values()) {
-            for (var entry : mp.getSupplierPrices().entrySet()) {
-                stock.merge(entry.getKey(), entry.getValue().getStock(), Integer::sum);
-            }
-        }
-        return stock;
+        return snapshot.get().getTotalStockBySupplier();
     }
 
     public Map<Supplier, Integer> getOfferCountBySupplier() {
-        Map<Supplier, Integer> offers = new EnumMap<>(Supplier.class);
-        for (MasterProduct mp : masterCatalog.values()) {
-            for (var entry : mp.getSupplierPrices().entrySet()) {
-                if (entry.getValue().hasDiscount()) {
-                    offers.merge(entry.getKey(), 1, Integer::sum);
-                }
-            }
-        }
-        return offers;
+        return snapshot.get().getOfferCountBySupplier();
     }
 
     public Map<Supplier, double[]> getBasePriceVsOfferPrice() {
-        Map<Supplier, List<double[]>> data = new EnumMap<>(Supplier.class);
-        for (MasterProduct mp : masterCatalog.values()) {
-            for (var entry : mp.getSupplierPrices().entrySet()) {
-                SupplierProduct sp = entry.getValue();
-                if (sp.getBasePrice() > 0 && sp.getNetPrice() > 0) {
-                    data.computeIfAbsent(entry.getKey(), k -> new ArrayList<>())
-                            .add(new double[] { sp.getBasePrice(), sp.getNetPrice() });
-                }
-            }
-        }
-        Map<Supplier, double[]> result = new EnumMap<>(Supplier.class);
-        for (var entry : data.entrySet()) {
-            double avgBase = entry.getValue().stream().mapToDouble(d -> d[0]).average().orElse(0);
-            double avgNet = entry.getValue().stream().mapToDouble(d -> d[1]).average().orElse(0);
-            result.put(entry.getKey(), new double[] { avgBase, avgNet });
-        }
-        return result;
+        return snapshot.get().getBasePriceVsOfferPrice();
     }
 
     public int getTotalProducts() {
-        return masterCatalog.size();
+        return snapshot.get().getTotalProducts();
     }
 
     public int getUniversalProductCount() {
-        return universalCatalog.size();
+        return snapshot.get().getUniversalProductCount();
     }
 
     public long getComparableProducts() {
-        return masterCatalog.values().stream().filter(mp -> mp.getSupplierCount() >= 2).count();
+        return snapshot.get().getComparableProducts();
     }
 }
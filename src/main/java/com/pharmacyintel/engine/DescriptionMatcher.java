@@ -0,0 +1,374 @@
+package com.pharmacyintel.engine;
+
+import com.pharmacyintel.model.MasterProduct;
+import com.pharmacyintel.model.Supplier;
+
+import java.text.Normalizer;
+import java.util.*;
+
+/**
+ * Finds products that are probably the same item listed under different
+ * barcodes, by description. Descriptions are reduced to sets of normalized
+ * tokens (accents, case, units and common abbreviations folded; strength and
+ * pack size glued into one token such as {@code 500MG} or {@code X30}), and
+ * each set gets a MinHash signature. Locality-sensitive hashing over bands of
+ * the signature puts similar sets in the same bucket, so only products that
+ * share a bucket are compared, never all pairs.
+ * <p>
+ * A candidate pair becomes a {@link Suggestion} when the two products have no
+ * supplier in common (a supplier listing both means they are different items),
+ * their numeric tokens are the same (500 MG is not 650 MG, X10 is not X20) and
+ * the token Jaccard similarity reaches {@link #getMinScore()}. Each product
+ * is suggested at most once, best score first; the canonical side is the
+ * DroActiva product, else the one with more suppliers.
+ */
+public class DescriptionMatcher {
+
+    public static final double DEFAULT_MIN_SCORE = 0.6;
+
+    /** 16 bands of 4 rows: pairs at Jaccard 0.6 share a band ~89% of the time, at 0.3 ~12%. */
+    private static final int BANDS = 16;
+    private static final int ROWS = 4;
+    private static final int HASHES = BANDS * ROWS;
+    /** Buckets larger than this (one description repeated by hundreds of products) are skipped. */
+    private static final int MAX_BUCKET = 200;
+    private static final int INDEX_BITS = 24;
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+
+    private static final Set<String> STOPWORDS = Set.of("DE", "DEL", "LA", "EL", "LOS", "LAS", "Y", "CON", "EN",
+            "PARA", "POR", "SIN", "X", "C", "P");
+    private static final Set<String> UNITS = Set.of("MG", "G", "MCG", "ML", "L", "UI", "CC", "KG", "OZ", "%");
+    private static final Map<String, String> SYNONYMS = new HashMap<>();
+
+    static {
+        synonyms("MG", "MGS", "MILIGRAMOS");
+        synonyms("G", "GR", "GRS", "GRAMOS");
+        synonyms("MCG", "UG");
+        synonyms("ML", "MLS", "MILILITROS");
+        synonyms("UI", "U");
+        synonyms("TAB", "TABS", "TABLETA", "TABLETAS", "TBS", "TB", "TABL", "COMP", "COMPRIMIDO", "COMPRIMIDOS",
+                "GRAG", "GRAGEAS");
+        synonyms("CAP", "CAPS", "CAPSULA", "CAPSULAS", "CAPSULES");
+        synonyms("JBE", "JARABE");
+        synonyms("SUSP", "SUSPENSION");
+        synonyms("AMP", "AMPOLLA", "AMPOLLAS", "AMPOLLETA", "AMPOLLETAS");
+        synonyms("SOL", "SOLUCION");
+        synonyms("INY", "INYECTABLE");
+        synonyms("CR", "CREMA");
+        synonyms("UNG", "UNGUENTO");
+        synonyms("GTS", "GOTAS");
+        synonyms("SOB", "SOBRE", "SOBRES");
+        synonyms("FCO", "FRASCO");
+        synonyms("PED", "PEDIATRICO", "PEDIATRICA", "INF", "INFANTIL");
+    }
+
+    private static void synonyms(String canonical, String... variants) {
+        for (String v : variants)
+            SYNONYMS.put(v, canonical);
+    }
+
+    /** One suggested join: {@code alias}'s barcode should resolve to {@code canonical}'s. */
+    public record Suggestion(MasterProduct canonical, MasterProduct alias, double score) {
+    }
+
+    private double minScore = DEFAULT_MIN_SCORE;
+    private int candidatePairs;
+
+    public double getMinScore() {
+        return minScore;
+    }
+
+    public void setMinScore(double minScore) {
+        if (minScore <= 0 || minScore > 1)
+            throw new IllegalArgumentException("Similitud mínima fuera de (0, 1]: " + minScore);
+        this.minScore = minScore;
+    }
+
+    /** Pairs compared exactly by the last {@link #match} (after LSH blocking). */
+    public int getCandidatePairs() {
+        return candidatePairs;
+    }
+
+    /** Suggestions for {@code products} (typically the universal catalog), best score first. */
+    public List<Suggestion> match(Collection<MasterProduct> products) {
+        long start = System.nanoTime();
+        List<Entry> entries = new ArrayList<>(products.size());
+        for (MasterProduct mp : products) {
+            Entry e = Entry.of(mp);
+            if (e != null)
+                entries.add(e);
+        }
+        int n = entries.size();
+        if (n >= 1 << INDEX_BITS)
+            throw new IllegalArgumentException("Demasiados productos para comparar: " + n);
+
+        int[] signatures = new int[n * HASHES];
+        for (int i = 0; i < n; i++)
+            signature(entries.get(i).tokens, signatures, i * HASHES);
+
+        List<Candidate> candidates = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        long[] keys = new long[n];
+        int skippedBuckets = 0;
+        candidatePairs = 0;
+        for (int band = 0; band < BANDS; band++) {
+            for (int i = 0; i < n; i++)
+                keys[i] = (bandHash(signatures, i * HASHES + band * ROWS) << INDEX_BITS) | i;
+            Arrays.sort(keys);
+            for (int from = 0; from < n;) {
+                int to = from + 1;
+                long bucket = keys[from] >>> INDEX_BITS;
+                while (to < n && keys[to] >>> INDEX_BITS == bucket)
+                    to++;
+                if (to - from > MAX_BUCKET) {
+                    skippedBuckets++;
+                } else {
+                    for (int a = from; a < to; a++) {
+                        for (int b = a + 1; b < to; b++)
+                            compare(entries, (int) (keys[a] & INDEX_MASK), (int) (keys[b] & INDEX_MASK), seen,
+                                    candidates);
+                    }
+                }
+                from = to;
+            }
+        }
+
+        List<Suggestion> suggestions = assign(entries, candidates);
+        System.out.println("[DescriptionMatcher] " + n + " productos, " + candidatePairs + " pares comparados, "
+                + suggestions.size() + " sugerencias" + (skippedBuckets > 0 ? " (" + skippedBuckets
+                        + " grupos demasiado grandes omitidos)" : "")
+                + " en " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return suggestions;
+    }
+
+    private void compare(List<Entry> entries, int i, int j, Set<Long> seen, List<Candidate> candidates) {
+        Entry a = entries.get(i);
+        Entry b = entries.get(j);
+        if ((a.suppliers & b.suppliers) != 0)
+            return;
+        if (!seen.add(i < j ? (long) i << 32 | j : (long) j << 32 | i))
+            return;
+        candidatePairs++;
+        if (!Arrays.equals(a.numbers, b.numbers))
+            return;
+        double score = jaccard(a.tokens, b.tokens);
+        if (score >= minScore)
+            candidates.add(new Candidate(i, j, score));
+    }
+
+    /**
+     * Greedy one-to-one-per-alias assignment, best score first: a product is
+     * an alias at most once, an alias is never a canonical, and a canonical
+     * only takes aliases whose suppliers it does not have yet.
+     */
+    private static List<Suggestion> assign(List<Entry> entries, List<Candidate> candidates) {
+        candidates.sort((x, y) -> Double.compare(y.score, x.score));
+        Map<Integer, Long> canonicalSuppliers = new HashMap<>();
+        Set<Integer> aliases = new HashSet<>();
+        List<Suggestion> suggestions = new ArrayList<>();
+        for (Candidate c : candidates) {
+            int canonical = preferCanonical(entries.get(c.i), entries.get(c.j)) ? c.i : c.j;
+            int alias = canonical == c.i ? c.j : c.i;
+            if (aliases.contains(alias) || aliases.contains(canonical) || canonicalSuppliers.containsKey(alias))
+                continue;
+            long suppliers = canonicalSuppliers.getOrDefault(canonical, entries.get(canonical).suppliers);
+            if ((suppliers & entries.get(alias).suppliers) != 0)
+                continue;
+            canonicalSuppliers.put(canonical, suppliers | entries.get(alias).suppliers);
+            aliases.add(alias);
+            suggestions.add(new Suggestion(entries.get(canonical).product, entries.get(alias).product, c.score));
+        }
+        return suggestions;
+    }
+
+    private static boolean preferCanonical(Entry a, Entry b) {
+        boolean aBase = a.product.getSupplierPrices().containsKey(Supplier.DROACTIVA);
+        boolean bBase = b.product.getSupplierPrices().containsKey(Supplier.DROACTIVA);
+        if (aBase != bBase)
+            return aBase;
+        int aCount = a.product.getSupplierCount();
+        int bCount = b.product.getSupplierCount();
+        if (aCount != bCount)
+            return aCount > bCount;
+        return a.product.getBarcode().compareTo(b.product.getBarcode()) <= 0;
+    }
+
+    // =============================================
+    // Tokens and signatures
+    // =============================================
+
+    /**
+     * Normalized tokens of a description, in order, duplicates kept:
+     * "Acetaminofén 500 mg Tabletas x 20" → [ACETAMINOFEN, 500MG, TAB, X20].
+     */
+    public static List<String> tokens(String description) {
+        List<String> tokens = new ArrayList<>();
+        if (description == null || description.isBlank())
+            return tokens;
+        String text = Normalizer.normalize(description, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toUpperCase(Locale.ROOT)
+                .replaceAll("(\\d),(\\d)", "$1.$2");
+        String[] raw = text.split("[^A-Z0-9.%]+");
+        boolean pendingX = false;
+        for (String word : raw) {
+            String t = trimDots(word);
+            if (t.isEmpty())
+                continue;
+            t = SYNONYMS.getOrDefault(t, t);
+            // "500 MG" -> "500MG"; "X 20" / "X20" -> "X20"
+            if (UNITS.contains(t) && !tokens.isEmpty() && isNumber(tokens.get(tokens.size() - 1))) {
+                tokens.set(tokens.size() - 1, tokens.get(tokens.size() - 1) + t);
+                continue;
+            }
+            if (pendingX && isNumber(t)) {
+                tokens.add("X" + t);
+                pendingX = false;
+                continue;
+            }
+            pendingX = t.equals("X");
+            if (t.length() > 1 && t.charAt(0) == 'X' && isNumber(t.substring(1))) {
+                tokens.add(t);
+                continue;
+            }
+            String unitSuffix = splitUnit(t);
+            if (unitSuffix != null) {
+                tokens.add(unitSuffix);
+                continue;
+            }
+            if (!STOPWORDS.contains(t))
+                tokens.add(t);
+        }
+        return tokens;
+    }
+
+    private static String trimDots(String s) {
+        int from = 0, to = s.length();
+        while (from < to && s.charAt(from) == '.')
+            from++;
+        while (to > from && s.charAt(to - 1) == '.')
+            to--;
+        return s.substring(from, to);
+    }
+
+    private static boolean isNumber(String s) {
+        if (s.isEmpty())
+            return false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if ((c < '0' || c > '9') && c != '.')
+                return false;
+        }
+        return Character.isDigit(s.charAt(0));
+    }
+
+    /** "500MGS" → "500MG" (a number glued to a unit, normalized); null otherwise. */
+    private static String splitUnit(String t) {
+        int i = 0;
+        while (i < t.length() && (Character.isDigit(t.charAt(i)) || t.charAt(i) == '.'))
+            i++;
+        if (i == 0 || i == t.length())
+            return null;
+        String unit = SYNONYMS.getOrDefault(t.substring(i), t.substring(i));
+        return UNITS.contains(unit) ? t.substring(0, i) + unit : null;
+    }
+
+    private static void signature(long[] tokens, int[] out, int offset) {
+        for (int h = 0; h < HASHES; h++) {
+            long seed = (h + 1) * 0x9E3779B97F4A7C15L;
+            int min = Integer.MAX_VALUE;
+            for (long token : tokens) {
+                int v = (int) (mix(token ^ seed) >>> 32);
+                if (Integer.compareUnsigned(v, min) < 0)
+                    min = v;
+            }
+            out[offset + h] = min;
+        }
+    }
+
+    /** 40-bit hash of one band's rows (the low 24 bits of the sort key hold the product index). */
+    private static long bandHash(int[] signatures, int offset) {
+        long h = 0;
+        for (int r = 0; r < ROWS; r++)
+            h = mix(h * 31 + (signatures[offset + r] & 0xFFFFFFFFL));
+        return h >>> INDEX_BITS;
+    }
+
+    /** Sorted, distinct token hashes: Jaccard by merge. */
+    private static double jaccard(long[] a, long[] b) {
+        int i = 0, j = 0, common = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) common / (a.length + b.length - common);
+    }
+
+    private static long hash(String token) {
+        // FNV-1a, 64-bit
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < token.length(); i++) {
+            h ^= token.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long z) {
+        // SplitMix64 finalizer
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /** A product prepared for matching: token hashes, numeric token hashes, supplier bits. */
+    private record Entry(MasterProduct product, long[] tokens, long[] numbers, long suppliers) {
+
+        /** Null when the description has fewer than two tokens (too little to match on). */
+        static Entry of(MasterProduct mp) {
+            List<String> words = DescriptionMatcher.tokens(mp.getDescription());
+            if (words.size() < 2)
+                return null;
+            long[] tokens = new long[words.size()];
+            long[] numbers = new long[words.size()];
+            int numberCount = 0;
+            for (int i = 0; i < words.size(); i++) {
+                String w = words.get(i);
+                tokens[i] = hash(w);
+                for (int c = 0; c < w.length(); c++) {
+                    if (Character.isDigit(w.charAt(c))) {
+                        numbers[numberCount++] = tokens[i];
+                        break;
+                    }
+                }
+            }
+            long suppliers = 0;
+            // Bits wrap past 64 suppliers: a false overlap only hides a suggestion
+            for (Supplier s : mp.getSupplierPrices().keySet())
+                suppliers |= 1L << (s.ordinal() & 63);
+            return new Entry(mp, distinctSorted(tokens, tokens.length), distinctSorted(numbers, numberCount),
+                    suppliers);
+        }
+
+        private static long[] distinctSorted(long[] values, int length) {
+            long[] sorted = Arrays.copyOf(values, length);
+            Arrays.sort(sorted);
+            int k = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (k == 0 || sorted[i] != sorted[k - 1])
+                    sorted[k++] = sorted[i];
+            }
+            return Arrays.copyOf(sorted, k);
+        }
+    }
+
+    private record Candidate(int i, int j, double score) {
+    }
+}
@@ -0,0 +1,34 @@
+package com.pharmacyintel.engine;
+
+/**
+ * Inner loop of {@link MarginSimulator}: {@code sale = cost * factor},
+ * {@code margin = sale - cost} over a range of a cost column. Same operations
+ * in the same order as {@link com.pharmacyintel.model.MasterProduct#simulateMargin(double)},
+ * so both implementations give bit-identical prices; only the returned sum may
+ * differ in the last digits (lane-wise accumulation).
+ */
+interface MarginKernel {
+
+    /** Fills {@code sale} and {@code margin} on {@code [from, to)} and returns the sum of the margins. */
+    double apply(double[] cost, int from, int to, double factor, double[] sale, double[] margin);
+
+    String name();
+
+    /**
+     * The Vector API kernel when {@code jdk.incubator.vector} is in the boot
+     * layer (started with {@code --add-modules jdk.incubator.vector}) and
+     * {@code -Dpharmacyintel.vector} is not {@code false}; the scalar loop
+     * otherwise. The vector class is only loaded in the first case.
+     */
+    static MarginKernel select() {
+        if (Boolean.parseBoolean(System.getProperty("pharmacyintel.vector", "true"))
+                && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return new VectorMarginKernel();
+            } catch (LinkageError e) {
+                System.out.println("[MarginKernel] Vector API no disponible: " + e);
+            }
+        }
+        return new ScalarMarginKernel();
+    }
+}
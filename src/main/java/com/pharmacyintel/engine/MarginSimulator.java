@@ -0,0 +1,162 @@
+package com.pharmacyintel.engine;
+
+import com.pharmacyintel.model.MasterProduct;
+
+import java.util.List;
+
+/**
+ * Margin what-if over a published snapshot, without touching its products.
+ * <p>
+ * The best prices of the master catalog are copied once into a primitive
+ * column (0 where a product has no valid price, which then simulates to 0 like
+ * an untouched {@link MasterProduct}); every simulation is a single pass over
+ * that column through a {@link MarginKernel}. Several margins at once are
+ * evaluated block by block, so each slice of the column is read from memory
+ * once and reused for every scenario while it is still in cache.
+ * <p>
+ * {@link #simulate(double, double[], double[])} writes into caller arrays, so a
+ * slider can re-evaluate 50k products on every tick without allocating.
+ */
+public final class MarginSimulator {
+
+    private static final MarginKernel KERNEL = MarginKernel.select();
+    /** 2048 doubles = 16 KB of cost; the matching sale/margin slices stay within L1/L2. */
+    private static final int BLOCK = 2048;
+
+    private final List<MasterProduct> products;
+    private final boolean stockOnly;
+    private final double[] cost;
+    private final double totalCost;
+
+    public MarginSimulator(CatalogSnapshot snapshot, boolean stockOnly) {
+        this.products = snapshot.getMasterProductList();
+        this.stockOnly = stockOnly;
+        int n = products.size();
+        cost = new double[n];
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            cost[i] = products.get(i).getBestPrice(stockOnly);
+            total += cost[i];
+        }
+        totalCost = total;
+    }
+
+    /** Implementation in use, e.g. "Vector API (4 x double)" or "escalar". */
+    public static String getKernelName() {
+        return KERNEL.name();
+    }
+
+    /** Products in column order (master catalog order). */
+    public List<MasterProduct> getProducts() {
+        return products;
+    }
+
+    public int size() {
+        return cost.length;
+    }
+
+    public boolean isStockOnly() {
+        return stockOnly;
+    }
+
+    /** Best price per product in column order, 0 if none. */
+    public double getCost(int i) {
+        return cost[i];
+    }
+
+    public double getTotalCost() {
+        return totalCost;
+    }
+
+    /**
+     * Fills {@code salePrice} and {@code margin} (each at least {@link #size()}
+     * long) for one margin and returns the total margin in USD.
+     */
+    public double simulate(double marginPct, double[] salePrice, double[] margin) {
+        checkLength(salePrice);
+        checkLength(margin);
+        return KERNEL.apply(cost, 0, cost.length, factor(marginPct), salePrice, margin);
+    }
+
+    /** Evaluates every margin in {@code marginPcts} in one blocked pass over the catalog. */
+    public Scenarios simulate(double... marginPcts) {
+        long start = System.nanoTime();
+        int n = cost.length;
+        int count = marginPcts.length;
+        double[] factors = new double[count];
+        double[][] sale = new double[count][n];
+        double[][] margin = new double[count][n];
+        double[] totalMargin = new double[count];
+        for (int s = 0; s < count; s++)
+            factors[s] = factor(marginPcts[s]);
+
+        for (int from = 0; from < n; from += BLOCK) {
+            int to = Math.min(n, from + BLOCK);
+            for (int s = 0; s < count; s++)
+                totalMargin[s] += KERNEL.apply(cost, from, to, factors[s], sale[s], margin[s]);
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("[MarginSimulator] " + count + " escenarios x " + n + " productos en " + elapsedMs
+                + " ms (" + KERNEL.name() + ")");
+        return new Scenarios(marginPcts.clone(), sale, margin, totalMargin, totalCost, elapsedMs);
+    }
+
+    /** Same expression as {@link MasterProduct#simulateMargin(double)}. */
+    private static double factor(double marginPct) {
+        return 1.0 + marginPct / 100.0;
+    }
+
+    private void checkLength(double[] out) {
+        if (out.length < cost.length)
+            throw new IllegalArgumentException("Se requieren " + cost.length + " posiciones, hay " + out.length);
+    }
+
+    /** Results of {@link #simulate(double...)}, indexed by scenario then product. */
+    public static final class Scenarios {
+        private final double[] marginPcts;
+        private final double[][] salePrices;
+        private final double[][] margins;
+        private final double[] totalMargin;
+        private final double totalCost;
+        private final long elapsedMs;
+
+        private Scenarios(double[] marginPcts, double[][] salePrices, double[][] margins, double[] totalMargin,
+                double totalCost, long elapsedMs) {
+            this.marginPcts = marginPcts;
+            this.salePrices = salePrices;
+            this.margins = margins;
+            this.totalMargin = totalMargin;
+            this.totalCost = totalCost;
+            this.elapsedMs = elapsedMs;
+        }
+
+        public int size() {
+            return marginPcts.length;
+        }
+
+        public double getMarginPct(int scenario) {
+            return marginPcts[scenario];
+        }
+
+        /** Simulated sale price per product (column order), 0 where there is no best price. */
+        public double[] getSalePrices(int scenario) {
+            return salePrices[scenario];
+        }
+
+        public double[] getMargins(int scenario) {
+            return margins[scenario];
+        }
+
+        public double getTotalMargin(int scenario) {
+            return totalMargin[scenario];
+        }
+
+        public double getTotalSale(int scenario) {
+            return totalCost + totalMargin[scenario];
+        }
+
+        public long getElapsedMs() {
+            return elapsedMs;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.pharmacyintel.engine;
+
+import com.pharmacyintel.model.MasterProduct;
+import com.pharmacyintel.model.Supplier;
+import com.pharmacyintel.model.SupplierProduct;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Per-product figures the top-K queries rank by, always largest first. A
+ * product the metric does not apply to (supplier absent, no competitor, no
+ * offer, no margin) is skipped rather than ranked as zero.
+ * <p>
+ * With {@code stockOnly} only suppliers with stock take part, on both sides
+ * of a comparison.
+ */
+public enum OpportunityMetric {
+
+    /** How much dearer the supplier is than its cheapest competitor, % of its own net price. */
+    DIFF_PCT("Dif. %") {
+        @Override
+        double value(MasterProduct mp, Supplier supplier, boolean stockOnly) {
+            double net = ownNet(mp, supplier, stockOnly);
+            double other = bestCompetitorNet(mp, supplier, stockOnly);
+            return net > 0 && other > 0 ? (net - other) / net * 100.0 : Double.NaN;
+        }
+    },
+    /** The same difference in USD. */
+    DIFF_AMOUNT("Dif. USD") {
+        @Override
+        double value(MasterProduct mp, Supplier supplier, boolean stockOnly) {
+            double net = ownNet(mp, supplier, stockOnly);
+            double other = bestCompetitorNet(mp, supplier, stockOnly);
+            return net > 0 && other > 0 ? net - other : Double.NaN;
+        }
+    },
+    /** The supplier's offer %. */
+    OFFER_PCT("Oferta %") {
+        @Override
+        double value(MasterProduct mp, Supplier supplier, boolean stockOnly) {
+            SupplierProduct sp = mp.getSupplierPrices().get(supplier);
+            if (sp == null || (stockOnly && !sp.hasStock()) || !sp.hasDiscount())
+                return Double.NaN;
+            return sp.getOfferPct();
+        }
+    },
+    /**
+     * Simulated margin in USD at the best price. A supplier, when given, only
+     * restricts the products to the ones it carries.
+     */
+    MARGIN("Margen USD") {
+        @Override
+        double value(MasterProduct mp, Supplier supplier, boolean stockOnly) {
+            if (supplier != null) {
+                SupplierProduct sp = mp.getSupplierPrices().get(supplier);
+                if (sp == null || (stockOnly && !sp.hasStock()))
+                    return Double.NaN;
+            }
+            double margin = mp.getSimulatedMargin(stockOnly);
+            return margin > 0 ? margin : Double.NaN;
+        }
+    };
+
+    private final String label;
+
+    OpportunityMetric(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /** Metric value, or NaN when it does not apply to this product. */
+    abstract double value(MasterProduct mp, Supplier supplier, boolean stockOnly);
+
+    /** Whether {@code supplier} may be null. */
+    public boolean isSupplierOptional() {
+        return this == MARGIN;
+    }
+
+    /**
+     * The {@code k} products with the largest value, largest first; ties keep
+     * catalog order. Runs in O(n log k) over a bounded heap, without sorting
+     * the catalog.
+     */
+    public List<RankedProduct> top(Collection<MasterProduct> products, Supplier supplier, int k,
+            boolean stockOnly) {
+        if (supplier == null && !isSupplierOptional())
+            throw new IllegalArgumentException(name() + " requiere un proveedor");
+        TopKHeap heap = new TopKHeap(Math.min(k, products.size()));
+        for (MasterProduct mp : products) {
+            double v = value(mp, supplier, stockOnly);
+            if (!Double.isNaN(v))
+                heap.offer(mp, v);
+        }
+        return heap.drain();
+    }
+
+    private static double ownNet(MasterProduct mp, Supplier supplier, boolean stockOnly) {
+        SupplierProduct sp = mp.getSupplierPrices().get(supplier);
+        if (sp == null || (stockOnly && !sp.hasStock()))
+            return 0;
+        return sp.getNetPrice();
+    }
+
+    /** Cheapest net price among the other suppliers, 0 when there is none. */
+    private static double bestCompetitorNet(MasterProduct mp, Supplier supplier, boolean stockOnly) {
+        double best = Double.MAX_VALUE;
+        for (var entry : mp.getSupplierPrices().entrySet()) {
+            SupplierProduct sp = entry.getValue();
+            if (entry.getKey() == supplier || (stockOnly && !sp.hasStock()))
+                continue;
+            double net = sp.getNetPrice();
+            if (net > 0 && net < best)
+                best = net;
+        }
+        return best < Double.MAX_VALUE ? best : 0;
+    }
+}
@@ -0,0 +1,452 @@
+package com.pharmacyintel.engine;
+
+import com.pharmacyintel.model.*;
+
+import java.util.*;
+
+/**
+ * Splits a purchase order across suppliers at the lowest total net cost the
+ * constraints allow: a supplier ships at most its stock of each product,
+ * spends at most its budget, and is either left out or ordered at least its
+ * minimum amount.
+ * <p>
+ * Greedy plus repair. Lines are placed cheapest offer first, those with the
+ * most to lose from their next offer (quantity × price gap) first, so binding
+ * budgets go to them. Each supplier left under its minimum is then either
+ * topped up, moving over the units that cost least extra per dollar, or
+ * dropped with its units placed elsewhere, whichever leaves fewer units
+ * unfilled and then costs less. A last pass moves units to cheaper offers the
+ * repair freed. Not guaranteed optimal; every step is O(lines × suppliers), so
+ * baskets of thousands of lines take milliseconds.
+ */
+public final class OrderOptimizer {
+
+    private static final double EPS = 1e-9;
+
+    /** A requested product and quantity. */
+    public record Line(String barcode, int quantity) {
+    }
+
+    /** Units of one product bought from one supplier. */
+    public record Allocation(MasterProduct product, Supplier supplier, int quantity, double unitPrice) {
+        public double subtotal() {
+            return quantity * unitPrice;
+        }
+    }
+
+    /** Units that could not be placed; {@code product} is null when the barcode is unknown. */
+    public record Shortfall(String barcode, MasterProduct product, int quantity, String reason) {
+    }
+
+    private final Supplier[] suppliers = Supplier.values();
+    private final Map<String, MasterProduct> catalog;
+    private final double[] minimums = new double[suppliers.length];
+    private final double[] budgets = new double[suppliers.length];
+
+    /** Orders against the universal catalog, so any product of any supplier can be bought. */
+    public OrderOptimizer(CatalogSnapshot snapshot) {
+        this.catalog = snapshot.getUniversalCatalog();
+        Arrays.fill(budgets, Double.POSITIVE_INFINITY);
+    }
+
+    /** Smallest order (USD net) the supplier accepts; 0 for none. */
+    public OrderOptimizer setMinimumOrder(Supplier supplier, double usd) {
+        minimums[supplier.ordinal()] = Math.max(0, usd);
+        return this;
+    }
+
+    /** Most to spend (USD net) with the supplier. */
+    public OrderOptimizer setBudget(Supplier supplier, double usd) {
+        budgets[supplier.ordinal()] = Math.max(0, usd);
+        return this;
+    }
+
+    public Plan optimize(List<Line> lines) {
+        long start = System.nanoTime();
+        // Merge repeated barcodes, keeping first-seen order
+        Map<String, Integer> requested = new LinkedHashMap<>();
+        for (Line line : lines) {
+            if (line.barcode() != null && !line.barcode().isEmpty() && line.quantity() > 0)
+                requested.merge(line.barcode(), line.quantity(), Integer::sum);
+        }
+
+        List<Shortfall> shortfalls = new ArrayList<>();
+        List<MasterProduct> products = new ArrayList<>();
+        List<Integer> quantities = new ArrayList<>();
+        for (var entry : requested.entrySet()) {
+            MasterProduct mp = catalog.get(entry.getKey());
+            if (mp == null)
+                shortfalls.add(new Shortfall(entry.getKey(), null, entry.getValue(), "Código no encontrado"));
+            else {
+                products.add(mp);
+                quantities.add(entry.getValue());
+            }
+        }
+
+        Run run = new Run(products, quantities);
+        run.placeAll();
+        for (int round = 0; round < 2 * suppliers.length; round++) {
+            int s = run.mostShortOfMinimum();
+            if (s < 0)
+                break;
+            Run topped = run.copy();
+            boolean reached = topped.topUp(s);
+            Run dropped = run.copy();
+            dropped.drop(s);
+            run = reached && !dropped.betterThan(topped) ? topped : dropped;
+        }
+        run.improve();
+
+        Plan plan = run.toPlan(shortfalls, (System.nanoTime() - start) / 1_000_000.0);
+        System.out.println("[OrderOptimizer] " + requested.size() + " líneas → " + plan.getAllocations().size()
+                + " asignaciones, " + String.format(Locale.ROOT, "%.2f", plan.getTotalCost()) + " USD, "
+                + plan.getShortfalls().size() + " faltantes ("
+                + String.format(Locale.ROOT, "%.1f", plan.getElapsedMs()) + " ms)");
+        return plan;
+    }
+
+    /** Working state: per line, the offers cheapest first and the units taken from each. */
+    private final class Run {
+        final MasterProduct[] products;
+        final int[] quantity;
+        final int[][] supplier;
+        final double[][] price;
+        final int[][] stock;
+        int[][] alloc;
+        int[] unfilled;
+        double[] spend;
+        boolean[] closed;
+
+        Run(List<MasterProduct> lines, List<Integer> quantities) {
+            int n = lines.size();
+            products = lines.toArray(new MasterProduct[0]);
+            quantity = new int[n];
+            supplier = new int[n][];
+            price = new double[n][];
+            stock = new int[n][];
+            alloc = new int[n][];
+            unfilled = new int[n];
+            spend = new double[suppliers.length];
+            closed = new boolean[suppliers.length];
+            for (int i = 0; i < n; i++) {
+                quantity[i] = quantities.get(i);
+                collectOffers(i);
+            }
+        }
+
+        private Run(Run other) {
+            products = other.products;
+            quantity = other.quantity;
+            supplier = other.supplier;
+            price = other.price;
+            stock = other.stock;
+            alloc = new int[other.alloc.length][];
+            for (int i = 0; i < alloc.length; i++)
+                alloc[i] = other.alloc[i].clone();
+            unfilled = other.unfilled.clone();
+            spend = other.spend.clone();
+            closed = other.closed.clone();
+        }
+
+        Run copy() {
+            return new Run(this);
+        }
+
+        /** Offers with a price and stock, by price ascending, higher stock first on ties. */
+        private void collectOffers(int i) {
+            Map<Supplier, SupplierProduct> prices = products[i].getSupplierPrices();
+            int[] sup = new int[prices.size()];
+            double[] net = new double[prices.size()];
+            int[] units = new int[prices.size()];
+            int count = 0;
+            for (var entry : prices.entrySet()) {
+                SupplierProduct sp = entry.getValue();
+                if (!(sp.getNetPrice() > 0) || sp.getStock() <= 0 || entry.getKey().ordinal() >= suppliers.length)
+                    continue;
+                int j = count++;
+                while (j > 0 && (net[j - 1] > sp.getNetPrice()
+                        || (net[j - 1] == sp.getNetPrice() && units[j - 1] < sp.getStock()))) {
+                    sup[j] = sup[j - 1];
+                    net[j] = net[j - 1];
+                    units[j] = units[j - 1];
+                    j--;
+                }
+                sup[j] = entry.getKey().ordinal();
+                net[j] = sp.getNetPrice();
+                units[j] = sp.getStock();
+            }
+            supplier[i] = Arrays.copyOf(sup, count);
+            price[i] = Arrays.copyOf(net, count);
+            stock[i] = Arrays.copyOf(units, count);
+            alloc[i] = new int[count];
+        }
+
+        /** Greedy placement, highest regret first. */
+        void placeAll() {
+            Integer[] order = new Integer[products.length];
+            double[] regret = new double[products.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+                double[] p = price[i];
+                // A line with a single offer cannot fall back, so it goes first
+                regret[i] = p.length > 1 ? (p[1] - p[0]) * quantity[i] : Double.POSITIVE_INFINITY;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(regret[b], regret[a]));
+            for (int i : order)
+                unfilled[i] = place(i, quantity[i]);
+        }
+
+        /** Place units of line i cheapest first; returns the units left over. */
+        private int place(int i, int units) {
+            for (int k = 0; k < supplier[i].length && units > 0; k++) {
+                int s = supplier[i][k];
+                if (closed[s])
+                    continue;
+                int take = Math.min(units, Math.min(stock[i][k] - alloc[i][k], affordable(s, price[i][k])));
+                if (take <= 0)
+                    continue;
+                alloc[i][k] += take;
+                spend[s] += take * price[i][k];
+                units -= take;
+            }
+            return units;
+        }
+
+        private int affordable(int s, double unitPrice) {
+            double left = budgets[s] - spend[s];
+            if (left == Double.POSITIVE_INFINITY)
+                return Integer.MAX_VALUE;
+            return (int) Math.min(Integer.MAX_VALUE, Math.floor(left / unitPrice + EPS));
+        }
+
+        /** Units that can leave supplier s without taking it under its minimum. */
+        private int headroom(int s, double unitPrice) {
+            if (minimums[s] <= 0)
+                return Integer.MAX_VALUE;
+            return (int) Math.max(0, Math.floor((spend[s] - minimums[s]) / unitPrice + EPS));
+        }
+
+        /** Open supplier with an order under its minimum, the furthest below first; -1 if none. */
+        int mostShortOfMinimum() {
+            int worst = -1;
+            double worstRatio = Double.MAX_VALUE;
+            for (int s = 0; s < suppliers.length; s++) {
+                if (closed[s] || minimums[s] <= 0 || spend[s] <= EPS || spend[s] >= minimums[s] - EPS)
+                    continue;
+                double ratio = spend[s] / minimums[s];
+                if (ratio < worstRatio) {
+                    worstRatio = ratio;
+                    worst = s;
+                }
+            }
+            return worst;
+        }
+
+        /**
+         * Move units to s from its competitors until it reaches its minimum,
+         * cheapest extra cost per dollar first; false if it cannot.
+         */
+        boolean topUp(int s) {
+            double need = minimums[s] - spend[s];
+            if (budgets[s] < minimums[s] - EPS)
+                return false;
+            List<int[]> moves = new ArrayList<>();
+            List<Double> costs = new ArrayList<>();
+            for (int i = 0; i < products.length; i++) {
+                int ks = offerOf(i, s);
+                if (ks < 0 || stock[i][ks] <= alloc[i][ks])
+                    continue;
+                for (int k = 0; k < supplier[i].length; k++) {
+                    if (k != ks && alloc[i][k] > 0) {
+                        moves.add(new int[] { i, k, ks });
+                        costs.add((price[i][ks] - price[i][k]) / price[i][ks]);
+                    }
+                }
+            }
+            Integer[] order = new Integer[moves.size()];
+            for (int m = 0; m < order.length; m++)
+                order[m] = m;
+            Arrays.sort(order, Comparator.comparingDouble(costs::get));
+
+            for (int m : order) {
+                if (need <= EPS)
+                    break;
+                int i = moves.get(m)[0], k = moves.get(m)[1], ks = moves.get(m)[2];
+                int t = supplier[i][k];
+                double ps = price[i][ks];
+                int units = Math.min(alloc[i][k], stock[i][ks] - alloc[i][ks]);
+                units = Math.min(units, affordable(s, ps));
+                units = Math.min(units, headroom(t, price[i][k]));
+                units = Math.min(units, (int) Math.ceil(need / ps - EPS));
+                if (units <= 0)
+                    continue;
+                move(i, k, ks, units);
+                need -= units * ps;
+            }
+            return need <= EPS;
+        }
+
+        /** Leave s out of the order and place its units elsewhere. */
+        void drop(int s) {
+            closed[s] = true;
+            for (int i = 0; i < products.length; i++) {
+                int ks = offerOf(i, s);
+                if (ks < 0 || alloc[i][ks] == 0)
+                    continue;
+                int units = alloc[i][ks];
+                alloc[i][ks] = 0;
+                unfilled[i] += place(i, units);
+            }
+            spend[s] = 0;
+        }
+
+        /** Move units to cheaper offers wherever stock, budgets and minimums allow. */
+        void improve() {
+            for (int i = 0; i < products.length; i++) {
+                for (int cheap = 0; cheap < supplier[i].length; cheap++) {
+                    int s = supplier[i][cheap];
+                    if (closed[s])
+                        continue;
+                    for (int dear = supplier[i].length - 1; dear > cheap; dear--) {
+                        if (alloc[i][dear] == 0 || price[i][dear] <= price[i][cheap])
+                            continue;
+                        int units = Math.min(alloc[i][dear], stock[i][cheap] - alloc[i][cheap]);
+                        units = Math.min(units, affordable(s, price[i][cheap]));
+                        units = Math.min(units, headroom(supplier[i][dear], price[i][dear]));
+                        // Do not open a supplier below its minimum
+                        if (units <= 0 || (spend[s] <= EPS && units * price[i][cheap] < minimums[s] - EPS))
+                            continue;
+                        move(i, dear, cheap, units);
+                    }
+                }
+            }
+        }
+
+        private void move(int i, int from, int to, int units) {
+            alloc[i][from] -= units;
+            alloc[i][to] += units;
+            spend[supplier[i][from]] -= units * price[i][from];
+            spend[supplier[i][to]] += units * price[i][to];
+        }
+
+        private int offerOf(int i, int s) {
+            for (int k = 0; k < supplier[i].length; k++) {
+                if (supplier[i][k] == s)
+                    return k;
+            }
+            return -1;
+        }
+
+        private long unfilledUnits() {
+            long total = 0;
+            for (int u : unfilled)
+                total += u;
+            return total;
+        }
+
+        private double cost() {
+            double total = 0;
+            for (double s : spend)
+                total += s;
+            return total;
+        }
+
+        boolean betterThan(Run other) {
+            long a = unfilledUnits(), b = other.unfilledUnits();
+            return a != b ? a < b : cost() < other.cost() - EPS;
+        }
+
+        Plan toPlan(List<Shortfall> shortfalls, double elapsedMs) {
+            List<Allocation> allocations = new ArrayList<>();
+            Map<Supplier, Double> bySupplier = new SupplierMap<>();
+            double total = 0;
+            double ideal = 0;
+            for (int s = 0; s < suppliers.length; s++) {
+                for (int i = 0; i < products.length; i++) {
+                    int k = offerOf(i, s);
+                    if (k < 0 || alloc[i][k] == 0)
+                        continue;
+                    Allocation a = new Allocation(products[i], suppliers[s], alloc[i][k], price[i][k]);
+                    allocations.add(a);
+                    bySupplier.merge(suppliers[s], a.subtotal(), Double::sum);
+                    total += a.subtotal();
+                }
+            }
+            for (int i = 0; i < products.length; i++) {
+                double best = products[i].getBestPrice();
+                if (best > 0)
+                    ideal += best * quantity[i];
+                if (unfilled[i] == 0)
+                    continue;
+                long available = 0;
+                for (int units : stock[i])
+                    available += units;
+                String reason = available < quantity[i] ? "Existencia insuficiente"
+                        : "Presupuesto o pedido mínimo del proveedor";
+                shortfalls.add(new Shortfall(products[i].getBarcode(), products[i], unfilled[i], reason));
+            }
+            List<Supplier> dropped = new ArrayList<>();
+            for (int s = 0; s < suppliers.length; s++) {
+                if (closed[s])
+                    dropped.add(suppliers[s]);
+            }
+            return new Plan(allocations, bySupplier, total, ideal, shortfalls, dropped, elapsedMs);
+        }
+    }
+
+    /** Output of {@link #optimize}. */
+    public static final class Plan {
+        private final List<Allocation> allocations;
+        private final Map<Supplier, Double> costBySupplier;
+        private final double totalCost;
+        private final double idealCost;
+        private final List<Shortfall> shortfalls;
+        private final List<Supplier> droppedSuppliers;
+        private final double elapsedMs;
+
+        Plan(List<Allocation> allocations, Map<Supplier, Double> costBySupplier, double totalCost, double idealCost,
+                List<Shortfall> shortfalls, List<Supplier> droppedSuppliers, double elapsedMs) {
+            this.allocations = Collections.unmodifiableList(allocations);
+            this.costBySupplier = Collections.unmodifiableMap(costBySupplier);
+            this.totalCost = totalCost;
+            this.idealCost = idealCost;
+            this.shortfalls = Collections.unmodifiableList(shortfalls);
+            this.droppedSuppliers = Collections.unmodifiableList(droppedSuppliers);
+            this.elapsedMs = elapsedMs;
+        }
+
+        /** Grouped by supplier (ordinal order), then in request order. */
+        public List<Allocation> getAllocations() {
+            return allocations;
+        }
+
+        public Map<Supplier, Double> getCostBySupplier() {
+            return costBySupplier;
+        }
+
+        public double getTotalCost() {
+            return totalCost;
+        }
+
+        /**
+         * Every found line at its best price, ignoring stock, budgets and
+         * minimums: a lower bound for comparison.
+         */
+        public double getIdealCost() {
+            return idealCost;
+        }
+
+        public List<Shortfall> getShortfalls() {
+            return shortfalls;
+        }
+
+        /** Suppliers left out because their minimum could not be reached at a better cost. */
+        public List<Supplier> getDroppedSuppliers() {
+            return droppedSuppliers;
+        }
+
+        public double getElapsedMs() {
+            return elapsedMs;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.pharmacyintel.engine;
+
+import com.pharmacyintel.model.MasterProduct;
+import com.pharmacyintel.model.Supplier;
+import com.pharmacyintel.model.SupplierProduct;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-supplier distributions of net price, offer % and DIF % over the master
+ * catalog, kept as {@link QuantileSketch}es: percentiles and histograms come
+ * from a few hundred retained values per supplier, without sorting or
+ * holding the catalog's prices. The engine fills one while it simulates
+ * margins (the last pass of a rebuild) and publishes it with the snapshot;
+ * distributions of separate runs can be {@link #merge merged}.
+ */
+public final class PriceDistributions {
+
+    public enum Metric {
+        NET_PRICE("Precio Neto", "USD"),
+        OFFER_PCT("Oferta", "%"),
+        DIFF_PCT("DIF", "%");
+
+        private final String label;
+        private final String unit;
+
+        Metric(String label, String unit) {
+            this.label = label;
+            this.unit = unit;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public String getUnit() {
+            return unit;
+        }
+    }
+
+    private static final Metric[] METRICS = Metric.values();
+
+    /** [metric][supplier ordinal]; null until the supplier's first value. */
+    private final QuantileSketch[][] sketches;
+
+    public PriceDistributions() {
+        sketches = new QuantileSketch[METRICS.length][Supplier.count()];
+    }
+
+    public static PriceDistributions of(Collection<MasterProduct> products) {
+        PriceDistributions distributions = new PriceDistributions();
+        for (MasterProduct mp : products)
+            distributions.add(mp);
+        return distributions;
+    }
+
+    /**
+     * Adds each supplier's offer for {@code mp}: net price and DIF % when it
+     * has a net price, offer % (including 0) for every offer. Call after
+     * {@link MasterProduct#computeCompetitiveness()}.
+     */
+    public void add(MasterProduct mp) {
+        for (var entry : mp.getSupplierPrices().entrySet()) {
+            Supplier s = entry.getKey();
+            SupplierProduct sp = entry.getValue();
+            sketch(Metric.OFFER_PCT, s).add(sp.getOfferPct());
+            double net = sp.getNetPrice();
+            if (net > 0) {
+                sketch(Metric.NET_PRICE, s).add(net);
+                sketch(Metric.DIFF_PCT, s).add(mp.getDiffPctForSupplier(s));
+            }
+        }
+    }
+
+    /** New distributions holding the inputs of both. */
+    public PriceDistributions merge(PriceDistributions other) {
+        PriceDistributions merged = new PriceDistributions();
+        merged.addAll(this);
+        merged.addAll(other);
+        return merged;
+    }
+
+    private void addAll(PriceDistributions other) {
+        for (int m = 0; m < METRICS.length; m++) {
+            for (int s = 0; s < other.sketches[m].length; s++) {
+                QuantileSketch sketch = other.sketches[m][s];
+                if (sketch != null)
+                    sketch(METRICS[m], Supplier.byOrdinal(s)).merge(sketch);
+            }
+        }
+    }
+
+    /** The supplier's sketch, or an empty one if it has no values. */
+    public QuantileSketch get(Metric metric, Supplier supplier) {
+        QuantileSketch[] row = sketches[metric.ordinal()];
+        int i = supplier.ordinal();
+        return i < row.length && row[i] != null ? row[i] : new QuantileSketch();
+    }
+
+    /** Suppliers with at least one value for {@code metric}, in registry order. */
+    public Map<Supplier, QuantileSketch> bySupplier(Metric metric) {
+        Map<Supplier, QuantileSketch> result = new LinkedHashMap<>();
+        QuantileSketch[] row = sketches[metric.ordinal()];
+        for (int i = 0; i < row.length; i++) {
+            if (row[i] != null && !row[i].isEmpty())
+                result.put(Supplier.byOrdinal(i), row[i]);
+        }
+        return result;
+    }
+
+    private QuantileSketch sketch(Metric metric, Supplier supplier) {
+        int m = metric.ordinal();
+        int i = supplier.ordinal();
+        if (i >= sketches[m].length) {
+            // A supplier registered after this object was created (plugin loaded later)
+            for (int j = 0; j < sketches.length; j++)
+                sketches[j] = Arrays.copyOf(sketches[j], Math.max(i + 1, Supplier.count()));
+        }
+        QuantileSketch sketch = sketches[m][i];
+        if (sketch == null) {
+            sketch = new QuantileSketch();
+            sketches[m][i] = sketch;
+        }
+        return sketch;
+    }
+}
@@ -0,0 +1,7 @@
+package com.pharmacyintel.engine;
+
+import com.pharmacyintel.model.MasterProduct;
+
+/** One top-K result: the product and the metric value it was ranked by. */
+public record RankedProduct(MasterProduct product, double value) {
+}
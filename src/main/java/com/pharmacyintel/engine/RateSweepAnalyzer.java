@@ -0,0 +1,272 @@
+package com.pharmacyintel.engine;
+
+import com.pharmacyintel.model.*;
+
+import java.util.*;
+
+/**
+ * What-if analysis of the BCV rate over a published snapshot.
+ * <p>
+ * Bs suppliers all scale by the same {@code 1/rate}, so their order among
+ * themselves never changes; only the cheapest Bs offer can overtake the
+ * cheapest USD offer. Each product therefore has at most one breakeven rate,
+ * {@code bestBsNet / bestUsdNet}: below it the USD supplier wins, above it the
+ * Bs supplier does. One pass over primitive arrays computes every breakeven,
+ * and the wins-vs-rate curves are counted from the sorted breakevens with a
+ * binary search per rate, instead of re-ranking the catalog at each rate.
+ * Ties at exactly the breakeven go to the USD supplier (the stock tie-breaker
+ * of {@link MasterProduct#computeCompetitiveness()} is not modelled).
+ */
+public final class RateSweepAnalyzer {
+
+    private final Supplier[] suppliers = Supplier.values();
+    private final List<MasterProduct> products;
+    private final boolean stockOnly;
+    /** Cheapest USD net per product (0 if none) and its supplier ordinal (-1 if none). */
+    private final double[] usdNet;
+    private final short[] usdSupplier;
+    /** Cheapest Bs net per product, in Bs (0 if none), and its supplier ordinal (-1 if none). */
+    private final double[] bsNet;
+    private final short[] bsSupplier;
+    private final double[] breakeven;
+
+    /** Products whose winner does not depend on the rate, per supplier. */
+    private final int[] fixedWins = new int[suppliers.length];
+    /** Sorted breakevens where the supplier is the USD (wins below) or Bs (wins above) side. */
+    private final double[][] winsBelow = new double[suppliers.length][];
+    private final double[][] winsAbove = new double[suppliers.length][];
+
+    public RateSweepAnalyzer(CatalogSnapshot snapshot, boolean stockOnly) {
+        this.products = snapshot.getMasterProductList();
+        this.stockOnly = stockOnly;
+        int n = products.size();
+        usdNet = new double[n];
+        usdSupplier = new short[n];
+        bsNet = new double[n];
+        bsSupplier = new short[n];
+        breakeven = new double[n];
+
+        for (int i = 0; i < n; i++)
+            collectBest(i, products.get(i));
+        computeBreakevens();
+        indexCurves();
+    }
+
+    private void collectBest(int i, MasterProduct mp) {
+        Map<Supplier, SupplierProduct> prices = mp.getSupplierPrices();
+        // Stock-only ranking falls back to every supplier when none has stock
+        boolean filterStock = stockOnly && prices.values().stream().anyMatch(
+                sp -> sp.hasStock() && sp.getNativeNetPrice() > 0);
+        double bestUsd = 0, bestBs = 0;
+        int usdIdx = -1, bsIdx = -1;
+        for (var entry : prices.entrySet()) {
+            SupplierProduct sp = entry.getValue();
+            if (filterStock && !sp.hasStock())
+                continue;
+            double net = sp.getNativeNetPrice();
+            if (net <= 0)
+                continue;
+            if (sp.getCurrency() == PriceCurrency.VES) {
+                if (bsIdx < 0 || net < bestBs) {
+                    bestBs = net;
+                    bsIdx = entry.getKey().ordinal();
+                }
+            } else if (usdIdx < 0 || net < bestUsd) {
+                bestUsd = net;
+                usdIdx = entry.getKey().ordinal();
+            }
+        }
+        usdNet[i] = bestUsd;
+        usdSupplier[i] = (short) usdIdx;
+        bsNet[i] = bestBs;
+        bsSupplier[i] = (short) bsIdx;
+    }
+
+    private void computeBreakevens() {
+        // Straight-line loop over primitives: no per-product objects or maps
+        for (int i = 0; i < breakeven.length; i++) {
+            double usd = usdNet[i];
+            breakeven[i] = usd > 0 ? bsNet[i] / usd : 0;
+        }
+    }
+
+    private void indexCurves() {
+        int[] below = new int[suppliers.length];
+        int[] above = new int[suppliers.length];
+        for (int i = 0; i < breakeven.length; i++) {
+            if (usdSupplier[i] >= 0 && bsSupplier[i] >= 0) {
+                below[usdSupplier[i]]++;
+                above[bsSupplier[i]]++;
+            } else if (usdSupplier[i] >= 0) {
+                fixedWins[usdSupplier[i]]++;
+            } else if (bsSupplier[i] >= 0) {
+                fixedWins[bsSupplier[i]]++;
+            }
+        }
+        for (int s = 0; s < suppliers.length; s++) {
+            winsBelow[s] = new double[below[s]];
+            winsAbove[s] = new double[above[s]];
+        }
+        Arrays.fill(below, 0);
+        Arrays.fill(above, 0);
+        for (int i = 0; i < breakeven.length; i++) {
+            if (usdSupplier[i] >= 0 && bsSupplier[i] >= 0) {
+                winsBelow[usdSupplier[i]][below[usdSupplier[i]]++] = breakeven[i];
+                winsAbove[bsSupplier[i]][above[bsSupplier[i]]++] = breakeven[i];
+            }
+        }
+        for (int s = 0; s < suppliers.length; s++) {
+            Arrays.sort(winsBelow[s]);
+            Arrays.sort(winsAbove[s]);
+        }
+    }
+
+    /**
+     * Evenly spaced rates from {@code minRate} to {@code maxRate} inclusive.
+     */
+    public static double[] rates(double minRate, double maxRate, int steps) {
+        if (minRate <= 1.0 || maxRate < minRate || steps < 1)
+            throw new IllegalArgumentException("Rango de tasas inválido: " + minRate + " - " + maxRate);
+        double[] rates = new double[steps + 1];
+        for (int i = 0; i <= steps; i++)
+            rates[i] = minRate + (maxRate - minRate) * i / steps;
+        return rates;
+    }
+
+    /** Wins per supplier at each rate (index-aligned with {@code rates}). */
+    public Map<Supplier, int[]> winsByRate(double[] rates) {
+        Map<Supplier, int[]> curves = new SupplierMap<>();
+        for (Supplier s : suppliers) {
+            int idx = s.ordinal();
+            int[] wins = new int[rates.length];
+            for (int r = 0; r < rates.length; r++) {
+                // USD side wins while rate <= breakeven, Bs side once rate > breakeven
+                int usdWins = winsBelow[idx].length - lowerBound(winsBelow[idx], rates[r]);
+                int bsWins = lowerBound(winsAbove[idx], rates[r]);
+                wins[r] = fixedWins[idx] + usdWins + bsWins;
+            }
+            curves.put(s, wins);
+        }
+        return curves;
+    }
+
+    /**
+     * Products whose winner flips within {@code [minRate, maxRate]}, ordered
+     * by breakeven rate.
+     */
+    public List<Breakeven> breakevens(double minRate, double maxRate) {
+        List<Breakeven> result = new ArrayList<>();
+        for (int i = 0; i < breakeven.length; i++) {
+            if (usdSupplier[i] < 0 || bsSupplier[i] < 0)
+                continue;
+            double b = breakeven[i];
+            if (b < minRate || b > maxRate)
+                continue;
+            result.add(new Breakeven(products.get(i), suppliers[usdSupplier[i]], usdNet[i],
+                    suppliers[bsSupplier[i]], bsNet[i], b));
+        }
+        result.sort(Comparator.comparingDouble(Breakeven::getRate));
+        return result;
+    }
+
+    /** Run the full sweep: curves over {@code steps + 1} rates plus the breakeven table. */
+    public Result sweep(double minRate, double maxRate, int steps) {
+        double[] rates = rates(minRate, maxRate, steps);
+        return new Result(rates, winsByRate(rates), breakevens(minRate, maxRate), stockOnly);
+    }
+
+    public int getProductCount() {
+        return products.size();
+    }
+
+    /** First index whose value is >= key, i.e. the count of values below it. */
+    private static int lowerBound(double[] sorted, double key) {
+        int lo = 0, hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < key)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    /** One product's winner flip between its cheapest USD and cheapest Bs offer. */
+    public static final class Breakeven {
+        private final MasterProduct product;
+        private final Supplier usdSupplier;
+        private final double usdNetPrice;
+        private final Supplier bsSupplier;
+        private final double bsNetPrice;
+        private final double rate;
+
+        Breakeven(MasterProduct product, Supplier usdSupplier, double usdNetPrice, Supplier bsSupplier,
+                double bsNetPrice, double rate) {
+            this.product = product;
+            this.usdSupplier = usdSupplier;
+            this.usdNetPrice = usdNetPrice;
+            this.bsSupplier = bsSupplier;
+            this.bsNetPrice = bsNetPrice;
+            this.rate = rate;
+        }
+
+        public MasterProduct getProduct() {
+            return product;
+        }
+
+        /** Winner at rates up to {@link #getRate()}. */
+        public Supplier getUsdSupplier() {
+            return usdSupplier;
+        }
+
+        public double getUsdNetPrice() {
+            return usdNetPrice;
+        }
+
+        /** Winner at rates above {@link #getRate()}. */
+        public Supplier getBsSupplier() {
+            return bsSupplier;
+        }
+
+        /** Net price in Bs. */
+        public double getBsNetPrice() {
+            return bsNetPrice;
+        }
+
+        public double getRate() {
+            return rate;
+        }
+    }
+
+    /** Output of {@link #sweep}. */
+    public static final class Result {
+        private final double[] rates;
+        private final Map<Supplier, int[]> winsByRate;
+        private final List<Breakeven> breakevens;
+        private final boolean stockOnly;
+
+        Result(double[] rates, Map<Supplier, int[]> winsByRate, List<Breakeven> breakevens, boolean stockOnly) {
+            this.rates = rates;
+            this.winsByRate = Collections.unmodifiableMap(winsByRate);
+            this.breakevens = Collections.unmodifiableList(breakevens);
+            this.stockOnly = stockOnly;
+        }
+
+        public double[] getRates() {
+            return rates.clone();
+        }
+
+        public Map<Supplier, int[]> getWinsByRate() {
+            return winsByRate;
+        }
+
+        public List<Breakeven> getBreakevens() {
+            return breakevens;
+        }
+
+        public boolean isStockOnly() {
+            return stockOnly;
+        }
+    }
+}
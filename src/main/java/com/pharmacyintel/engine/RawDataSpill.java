@@ -0,0 +1,209 @@
+package com.pharmacyintel.engine;
+
+import com.pharmacyintel.model.Supplier;
+import com.pharmacyintel.model.SupplierProduct;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Parsed supplier rows (native prices) written to a temp file after the first
+ * consolidation, so the heap only holds the catalogs. A rebuild streams them
+ * back. Read through a channel rather than a mapping so the file can be
+ * deleted as soon as it is replaced, on every platform.
+ * <p>
+ * Layout: per supplier its name, row count and the rows; strings are a length
+ * (-1 for null) followed by UTF-8 bytes.
+ */
+final class RawDataSpill {
+
+    private static final int MAGIC = 0x50495231; // "PIR1"
+    private static final int BUFFER = 1 << 20;
+    /** Prices, offer, IVA and stock of one row. */
+    private static final int ROW_NUMBERS = 4 * Double.BYTES + Integer.BYTES;
+
+    private final File file;
+    private final int rows;
+
+    private RawDataSpill(File file, int rows) {
+        this.file = file;
+        this.rows = rows;
+    }
+
+    static RawDataSpill write(Map<Supplier, List<SupplierProduct>> data) throws IOException {
+        File file = File.createTempFile("pharmacy-raw-", ".bin");
+        file.deleteOnExit();
+        int rows = 0;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            Out out = new Out(channel);
+            out.putInt(MAGIC);
+            out.putInt(data.size());
+            for (var entry : data.entrySet()) {
+                out.putString(entry.getKey().name());
+                out.putInt(entry.getValue().size());
+                for (SupplierProduct sp : entry.getValue()) {
+                    out.putString(sp.getBarcode());
+                    out.putString(sp.getDescription());
+                    out.putString(sp.getInternalCode());
+                    out.putString(sp.getBrand());
+                    out.ensure(ROW_NUMBERS);
+                    out.buf.putDouble(sp.getNativeBasePrice());
+                    out.buf.putDouble(sp.getOfferPct());
+                    out.buf.putDouble(sp.getNetPrice());
+                    out.buf.putDouble(sp.getIva());
+                    out.buf.putInt(sp.getStock());
+                }
+                rows += entry.getValue().size();
+            }
+            out.flush();
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        }
+        return new RawDataSpill(file, rows);
+    }
+
+    /**
+     * Fresh native products; suppliers and rows in the order they were
+     * written. One barcode string per product is shared across suppliers, as
+     * the ingest does.
+     */
+    Map<Supplier, List<SupplierProduct>> read() throws IOException {
+        Map<Supplier, List<SupplierProduct>> data = new LinkedHashMap<>();
+        Map<String, String> barcodes = new HashMap<>();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            In in = new In(channel);
+            if (in.getInt() != MAGIC)
+                throw new IOException("Archivo de datos crudos inválido: " + file);
+            int suppliers = in.getInt();
+            for (int s = 0; s < suppliers; s++) {
+                Supplier supplier = Supplier.valueOf(in.getString());
+                int count = in.getInt();
+                List<SupplierProduct> products = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    String barcode = in.getString();
+                    if (barcode != null) {
+                        String shared = barcodes.putIfAbsent(barcode, barcode);
+                        if (shared != null)
+                            barcode = shared;
+                    }
+                    String description = in.getString();
+                    String code = in.getString();
+                    String brand = in.getString();
+                    in.ensure(ROW_NUMBERS);
+                    SupplierProduct sp = new SupplierProduct(barcode, description, in.buf.getDouble(),
+                            in.buf.getDouble(), 0, supplier);
+                    sp.setNetPrice(in.buf.getDouble());
+                    sp.setIva(in.buf.getDouble());
+                    sp.setStock(in.buf.getInt());
+                    sp.setInternalCode(code);
+                    sp.setBrand(brand);
+                    products.add(sp);
+                }
+                data.put(supplier, products);
+            }
+        }
+        return data;
+    }
+
+    int getRows() {
+        return rows;
+    }
+
+    long getBytes() {
+        return file.length();
+    }
+
+    void delete() {
+        if (!file.delete() && file.exists())
+            System.err.println("[RawDataSpill] No se pudo borrar " + file);
+    }
+
+    /** Buffered writer over the channel; strings larger than the buffer go straight through. */
+    private static final class Out {
+        final FileChannel channel;
+        final ByteBuffer buf = ByteBuffer.allocate(BUFFER);
+
+        Out(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void ensure(int bytes) throws IOException {
+            if (buf.remaining() < bytes)
+                flush();
+        }
+
+        void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining())
+                channel.write(buf);
+            buf.clear();
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buf.putInt(value);
+        }
+
+        void putString(String s) throws IOException {
+            if (s == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            ensure(bytes.length);
+            if (bytes.length <= buf.remaining()) {
+                buf.put(bytes);
+                return;
+            }
+            ByteBuffer large = ByteBuffer.wrap(bytes);
+            while (large.hasRemaining())
+                channel.write(large);
+        }
+    }
+
+    /** Buffered reader over the channel. */
+    private static final class In {
+        final FileChannel channel;
+        ByteBuffer buf = ByteBuffer.allocate(BUFFER).flip();
+
+        In(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void ensure(int bytes) throws IOException {
+            if (buf.remaining() >= bytes)
+                return;
+            if (bytes > buf.capacity())
+                buf = ByteBuffer.allocate(bytes).put(buf).flip();
+            buf.compact();
+            while (buf.position() < bytes) {
+                if (channel.read(buf) < 0)
+                    throw new EOFException("Archivo de datos crudos truncado");
+            }
+            buf.flip();
+        }
+
+        int getInt() throws IOException {
+            ensure(4);
+            return buf.getInt();
+        }
+
+        String getString() throws IOException {
+            int len = getInt();
+            if (len < 0)
+                return null;
+            ensure(len);
+            String s = new String(buf.array(), buf.position(), len, StandardCharsets.UTF_8);
+            buf.position(buf.position() + len);
+            return s;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.pharmacyintel.engine;
+
+/** Plain loop; the JIT may still auto-vectorize the stores but not the sum. */
+final class ScalarMarginKernel implements MarginKernel {
+
+    @Override
+    public double apply(double[] cost, int from, int to, double factor, double[] sale, double[] margin) {
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            double c = cost[i];
+            double s = c * factor;
+            double m = s - c;
+            sale[i] = s;
+            margin[i] = m;
+            sum += m;
+        }
+        return sum;
+    }
+
+    @Override
+    public String name() {
+        return "escalar";
+    }
+}
@@ -0,0 +1,97 @@
+package com.pharmacyintel.engine;
+
+import com.pharmacyintel.model.MasterProduct;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keeps the {@code k} largest values offered so far in a min-heap on parallel
+ * arrays: the root is the weakest kept entry, so each further candidate costs
+ * one comparison unless it gets in. On equal values the earlier offer ranks
+ * higher.
+ */
+final class TopKHeap {
+
+    private final MasterProduct[] items;
+    private final double[] values;
+    private final long[] order;
+    private int size;
+    private long offered;
+
+    TopKHeap(int k) {
+        int capacity = Math.max(0, k);
+        items = new MasterProduct[capacity];
+        values = new double[capacity];
+        order = new long[capacity];
+    }
+
+    void offer(MasterProduct mp, double value) {
+        long seq = offered++;
+        if (size < items.length) {
+            set(size, mp, value, seq);
+            siftUp(size++);
+        } else if (size > 0 && value > values[0]) {
+            set(0, mp, value, seq);
+            siftDown(0);
+        }
+    }
+
+    /** Kept entries, largest first; empties the heap. */
+    List<RankedProduct> drain() {
+        RankedProduct[] result = new RankedProduct[size];
+        while (size > 0) {
+            result[size - 1] = new RankedProduct(items[0], values[0]);
+            size--;
+            set(0, items[size], values[size], order[size]);
+            items[size] = null;
+            siftDown(0);
+        }
+        List<RankedProduct> list = new ArrayList<>(result.length);
+        Collections.addAll(list, result);
+        return list;
+    }
+
+    /** Whether entry a ranks below entry b (smaller value, or offered later on a tie). */
+    private boolean weaker(int a, int b) {
+        return values[a] < values[b] || (values[a] == values[b] && order[a] > order[b]);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!weaker(i, parent))
+                return;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size)
+                return;
+            int weakest = left + 1 < size && weaker(left + 1, left) ? left + 1 : left;
+            if (!weaker(weakest, i))
+                return;
+            swap(i, weakest);
+            i = weakest;
+        }
+    }
+
+    private void set(int i, MasterProduct mp, double value, long seq) {
+        items[i] = mp;
+        values[i] = value;
+        order[i] = seq;
+    }
+
+    private void swap(int a, int b) {
+        MasterProduct item = items[a];
+        double value = values[a];
+        long seq = order[a];
+        set(a, items[b], values[b], order[b]);
+        set(b, item, value, seq);
+    }
+}
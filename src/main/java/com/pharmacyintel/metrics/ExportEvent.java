@@ -0,0 +1,45 @@
+package com.pharmacyintel.metrics;
+
+import jdk.jfr.*;
+
+import java.io.File;
+
+/** JFR event for one report export (Excel, CSV or TSV). */
+@Name("com.pharmacyintel.Export")
+@Label("Report Export")
+@Category({ "Pharmacy Intelligence", "Export" })
+@StackTrace(false)
+public final class ExportEvent extends Event {
+
+    @Label("Format")
+    String format;
+
+    @Label("Filter")
+    String filter;
+
+    @Label("Stock Only")
+    boolean stockOnly;
+
+    @Label("Products")
+    long products;
+
+    @Label("File")
+    String file;
+
+    @Label("File Size")
+    @DataAmount(DataAmount.BYTES)
+    long bytes;
+
+    public void finish(String format, String filter, boolean stockOnly, int products, File file) {
+        end();
+        if (shouldCommit()) {
+            this.format = format;
+            this.filter = filter;
+            this.stockOnly = stockOnly;
+            this.products = products;
+            this.file = file.getName();
+            this.bytes = file.length();
+            commit();
+        }
+    }
+}
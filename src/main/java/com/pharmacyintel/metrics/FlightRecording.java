@@ -0,0 +1,69 @@
+package com.pharmacyintel.metrics;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Optional always-on JFR recording with the JDK's low-overhead "default"
+ * settings plus the app's own events. Keeps the last 30 minutes on disk and
+ * dumps to {@code pharmacy-intelligence.jfr} on exit, so a slow sync or UI
+ * stall reported by a user can be inspected afterwards in Mission Control.
+ *
+ * Enabled with {@code -Dpharmacyintel.jfr=true} (see GlobalConfig).
+ */
+public final class FlightRecording {
+
+    private static final Duration MAX_AGE = Duration.ofMinutes(30);
+    private static final long MAX_SIZE = 200L * 1024 * 1024;
+
+    private static Recording recording;
+
+    private FlightRecording() {
+    }
+
+    public static synchronized void start(Path destination) {
+        if (recording != null)
+            return;
+        try {
+            Recording r = new Recording(Configuration.getConfiguration("default"));
+            r.setName("Pharmacy Intelligence");
+            r.setToDisk(true);
+            r.setMaxAge(MAX_AGE);
+            r.setMaxSize(MAX_SIZE);
+            r.setDumpOnExit(true);
+            r.setDestination(destination);
+            r.enable(SyncStageEvent.class);
+            r.enable(SupplierParseEvent.class);
+            r.enable(TableRefreshEvent.class);
+            r.enable(ExportEvent.class);
+            r.start();
+            recording = r;
+            System.out.println("[FlightRecording] Grabación JFR continua → " + destination.toAbsolutePath());
+        } catch (Exception e) {
+            System.err.println("[FlightRecording] No se pudo iniciar JFR: " + e.getMessage());
+        }
+    }
+
+    public static synchronized boolean isRunning() {
+        return recording != null;
+    }
+
+    /** Write the recording buffered so far, without stopping it. */
+    public static synchronized void dump(Path file) throws IOException {
+        if (recording == null)
+            throw new IllegalStateException("No hay grabación JFR activa");
+        recording.dump(file);
+    }
+
+    public static synchronized void stop() {
+        if (recording == null)
+            return;
+        recording.stop();
+        recording.close();
+        recording = null;
+    }
+}
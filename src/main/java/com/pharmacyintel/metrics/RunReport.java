@@ -0,0 +1,152 @@
+package com.pharmacyintel.metrics;
+
+import com.pharmacyintel.parser.ParseReport;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * All stage metrics of one sync, written as JSON next to the generated
+ * reports ({@code sync_metrics_yyyyMMdd_HHmmss.json}) so runs can be compared
+ * when a supplier file or stage gets slower. The parse quality of each file
+ * (rows read, dropped by reason, sample rows, bound columns) goes along, so a
+ * supplier that changed its layout shows up in the same place.
+ */
+public class RunReport {
+
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final long startNanos = System.nanoTime();
+    private final List<StageMetrics> stages = Collections.synchronizedList(new ArrayList<>());
+    private final List<ParseReport> parseReports = Collections.synchronizedList(new ArrayList<>());
+    private long totalNanos = -1;
+
+    public void add(StageMetrics metrics) {
+        stages.add(metrics);
+    }
+
+    public void addParseReport(ParseReport quality) {
+        parseReports.add(quality);
+    }
+
+    public void finish() {
+        totalNanos = System.nanoTime() - startNanos;
+    }
+
+    public List<StageMetrics> getStages() {
+        synchronized (stages) {
+            return new ArrayList<>(stages);
+        }
+    }
+
+    /** Parse quality of each file, in the order they finished. */
+    public List<ParseReport> getParseReports() {
+        synchronized (parseReports) {
+            return new ArrayList<>(parseReports);
+        }
+    }
+
+    public long getTotalNanos() {
+        return totalNanos >= 0 ? totalNanos : System.nanoTime() - startNanos;
+    }
+
+    public File write(File outputDir) throws IOException {
+        String fileName = "sync_metrics_" + startedAt.format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"))
+                + ".json";
+        File file = new File(outputDir, fileName);
+        Files.writeString(file.toPath(), toJson(), StandardCharsets.UTF_8);
+        return file;
+    }
+
+    public String toJson() {
+        StringBuilder sb = new StringBuilder(512);
+        sb.append("{\n  \"startedAt\": \"").append(startedAt).append("\",\n");
+        sb.append("  \"totalMs\": ").append(millis(getTotalNanos())).append(",\n");
+        sb.append("  \"stages\": [");
+        List<StageMetrics> snapshot = getStages();
+        for (int i = 0; i < snapshot.size(); i++) {
+            StageMetrics m = snapshot.get(i);
+            sb.append(i == 0 ? "\n" : ",\n");
+            sb.append("    {\"stage\": \"").append(escape(m.getStage())).append('"');
+            sb.append(", \"supplier\": ");
+            if (m.getSupplier() != null)
+                sb.append('"').append(m.getSupplier().name()).append('"');
+            else
+                sb.append("null");
+            sb.append(", \"rows\": ").append(m.getRows());
+            sb.append(", \"wallMs\": ").append(millis(m.getWallNanos()));
+            sb.append(", \"cpuMs\": ").append(m.getCpuNanos() >= 0 ? millis(m.getCpuNanos()) : "null");
+            sb.append(", \"allocatedBytes\": ").append(m.getAllocatedBytes() >= 0 ? m.getAllocatedBytes() : "null");
+            sb.append('}');
+        }
+        sb.append(snapshot.isEmpty() ? "],\n" : "\n  ],\n");
+        sb.append("  \"parseQuality\": [");
+        List<ParseReport> quality = getParseReports();
+        for (int i = 0; i < quality.size(); i++) {
+            sb.append(i == 0 ? "\n" : ",\n");
+            appendQuality(sb, quality.get(i));
+        }
+        sb.append(quality.isEmpty() ? "]\n}\n" : "\n  ]\n}\n");
+        return sb.toString();
+    }
+
+    /** One file; row numbers are 1-based, as in the spreadsheet. */
+    private static void appendQuality(StringBuilder sb, ParseReport q) {
+        sb.append("    {\"supplier\": \"").append(q.getSupplier().name()).append('"');
+        sb.append(", \"file\": \"").append(escape(q.getFile().getName())).append('"');
+        sb.append(", \"headerRow\": ").append(q.getHeaderRow() >= 0 ? String.valueOf(q.getHeaderRow() + 1) : "null");
+        sb.append(", \"rowsRead\": ").append(q.getRowsRead());
+        sb.append(", \"products\": ").append(q.getProducts());
+        sb.append(", \"blankRows\": ").append(q.getBlankRows());
+        sb.append(", \"skipped\": ").append(q.getSkipped());
+        sb.append(", \"badCheckDigits\": ").append(q.getBadCheckDigits());
+        sb.append(",\n     \"skippedBy\": {");
+        String sep = "";
+        for (ParseReport.Reason reason : ParseReport.Reason.values()) {
+            if (q.getSkipped(reason) > 0) {
+                sb.append(sep).append('"').append(reason.name()).append("\": ").append(q.getSkipped(reason));
+                sep = ", ";
+            }
+        }
+        sb.append("},\n     \"columns\": {");
+        sep = "";
+        for (ParseReport.Column c : q.getColumns()) {
+            sb.append(sep).append('"').append(escape(c.field())).append("\": \"").append(c.letter()).append('"');
+            sep = ", ";
+        }
+        sb.append("},\n     \"samples\": [");
+        sep = "";
+        for (ParseReport.Sample sample : q.getSamples()) {
+            sb.append(sep).append("\n       {\"row\": ").append(sample.row());
+            sb.append(", \"reason\": \"").append(sample.reason().name()).append('"');
+            sb.append(", \"cells\": \"").append(escape(sample.content())).append("\"}");
+            sep = ",";
+        }
+        sb.append(q.getSamples().isEmpty() ? "]}" : "\n     ]}");
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+
+    private static String escape(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\')
+                sb.append('\\').append(c);
+            else if (c < 0x20)
+                sb.append(String.format("\\u%04x", (int) c));
+            else
+                sb.append(c);
+        }
+        return sb.toString();
+    }
+}
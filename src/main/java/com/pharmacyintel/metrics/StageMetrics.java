@@ -0,0 +1,64 @@
+package com.pharmacyintel.metrics;
+
+import com.pharmacyintel.model.Supplier;
+
+/**
+ * Cost of one pipeline stage on the thread that ran it. {@code supplier} is
+ * null for stages that are not tied to a single file (BCV, consolidation).
+ */
+public final class StageMetrics {
+
+    private final String stage;
+    private final Supplier supplier;
+    private final long wallNanos;
+    private final long cpuNanos;
+    private final long allocatedBytes;
+    private final long rows;
+
+    StageMetrics(String stage, Supplier supplier, long wallNanos, long cpuNanos, long allocatedBytes, long rows) {
+        this.stage = stage;
+        this.supplier = supplier;
+        this.wallNanos = wallNanos;
+        this.cpuNanos = cpuNanos;
+        this.allocatedBytes = allocatedBytes;
+        this.rows = rows;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public Supplier getSupplier() {
+        return supplier;
+    }
+
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    /** -1 when the JVM does not support thread CPU time. */
+    public long getCpuNanos() {
+        return cpuNanos;
+    }
+
+    /** -1 when the JVM does not support thread allocation counters. */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public double getWallMillis() {
+        return wallNanos / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return stage + (supplier != null ? " " + supplier.name() : "") + ": " + rows + " filas, "
+                + String.format("%.1f ms", getWallMillis())
+                + (cpuNanos >= 0 ? String.format(", cpu %.1f ms", cpuNanos / 1_000_000.0) : "")
+                + (allocatedBytes >= 0 ? ", " + (allocatedBytes >> 20) + " MB asignados" : "");
+    }
+}
@@ -0,0 +1,86 @@
+package com.pharmacyintel.metrics;
+
+import com.pharmacyintel.model.Supplier;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures one stage on the current thread: wall time, thread CPU time and
+ * bytes allocated (HotSpot's per-thread counter). Start and finish must run
+ * on the same thread.
+ *
+ * <pre>
+ * StageTimer t = StageTimer.start("parse", supplier);
+ * List&lt;SupplierProduct&gt; rows = parser.parse(file);
+ * StageMetrics m = t.finish(rows.size());
+ * </pre>
+ */
+public final class StageTimer {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final com.sun.management.ThreadMXBean HOTSPOT_THREADS = THREADS instanceof com.sun.management.ThreadMXBean t
+            && t.isThreadAllocatedMemorySupported() ? t : null;
+    private static final boolean CPU_SUPPORTED = THREADS.isCurrentThreadCpuTimeSupported();
+
+    static {
+        try {
+            if (CPU_SUPPORTED && !THREADS.isThreadCpuTimeEnabled())
+                THREADS.setThreadCpuTimeEnabled(true);
+            if (HOTSPOT_THREADS != null && !HOTSPOT_THREADS.isThreadAllocatedMemoryEnabled())
+                HOTSPOT_THREADS.setThreadAllocatedMemoryEnabled(true);
+        } catch (UnsupportedOperationException | SecurityException ignored) {
+            // Counters stay as reported by the JVM
+        }
+    }
+
+    private final String stage;
+    private final Supplier supplier;
+    private final SyncStageEvent event = new SyncStageEvent();
+    private final long startWall;
+    private final long startCpu;
+    private final long startAlloc;
+
+    private StageTimer(String stage, Supplier supplier) {
+        this.stage = stage;
+        this.supplier = supplier;
+        event.begin();
+        this.startCpu = cpuTime();
+        this.startAlloc = allocatedBytes();
+        this.startWall = System.nanoTime();
+    }
+
+    public static StageTimer start(String stage, Supplier supplier) {
+        return new StageTimer(stage, supplier);
+    }
+
+    public static StageTimer start(String stage) {
+        return new StageTimer(stage, null);
+    }
+
+    /** Stop the clock and emit the JFR event (if recording). */
+    public StageMetrics finish(long rows) {
+        long wall = System.nanoTime() - startWall;
+        long cpu = startCpu >= 0 ? cpuTime() - startCpu : -1;
+        long alloc = startAlloc >= 0 ? allocatedBytes() - startAlloc : -1;
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.stage = stage;
+            event.supplier = supplier != null ? supplier.name() : null;
+            event.rows = rows;
+            event.cpuTime = cpu;
+            event.allocated = alloc;
+            event.commit();
+        }
+        return new StageMetrics(stage, supplier, wall, cpu, alloc, rows);
+    }
+
+    private static long cpuTime() {
+        return CPU_SUPPORTED ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    private static long allocatedBytes() {
+        return HOTSPOT_THREADS != null ? HOTSPOT_THREADS.getCurrentThreadAllocatedBytes() : -1;
+    }
+}
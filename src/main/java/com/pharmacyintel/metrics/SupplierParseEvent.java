@@ -0,0 +1,51 @@
+package com.pharmacyintel.metrics;
+
+import com.pharmacyintel.model.Supplier;
+import jdk.jfr.*;
+
+import java.io.File;
+
+/**
+ * JFR event around one {@code SupplierParser.parse} call.
+ *
+ * <pre>
+ * SupplierParseEvent event = new SupplierParseEvent();
+ * event.begin();
+ * List&lt;SupplierProduct&gt; rows = parser.parse(file);
+ * event.finish(supplier, file, rows.size(), parser.getSkippedRows());
+ * </pre>
+ */
+@Name("com.pharmacyintel.SupplierParse")
+@Label("Supplier File Parse")
+@Category({ "Pharmacy Intelligence", "Parse" })
+@StackTrace(false)
+public final class SupplierParseEvent extends Event {
+
+    @Label("Supplier")
+    String supplier;
+
+    @Label("File")
+    String file;
+
+    @Label("File Size")
+    @DataAmount(DataAmount.BYTES)
+    long bytes;
+
+    @Label("Rows")
+    long rows;
+
+    @Label("Skipped Rows")
+    long skippedRows;
+
+    public void finish(Supplier supplier, File file, int rows, int skippedRows) {
+        end();
+        if (shouldCommit()) {
+            this.supplier = supplier.name();
+            this.file = file.getName();
+            this.bytes = file.length();
+            this.rows = rows;
+            this.skippedRows = skippedRows;
+            commit();
+        }
+    }
+}
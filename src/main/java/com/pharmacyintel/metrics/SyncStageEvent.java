@@ -0,0 +1,32 @@
+package com.pharmacyintel.metrics;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event for one sync pipeline stage, emitted by {@link StageTimer}.
+ * Visible in JDK Mission Control under "Pharmacy Intelligence".
+ */
+@Name("com.pharmacyintel.SyncStage")
+@Label("Sync Stage")
+@Category({ "Pharmacy Intelligence", "Sync" })
+@Description("Parse, conversion, BCV or consolidation stage of a supplier sync")
+@StackTrace(false)
+class SyncStageEvent extends Event {
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Supplier")
+    String supplier;
+
+    @Label("Rows")
+    long rows;
+
+    @Label("CPU Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long cpuTime;
+
+    @Label("Allocated")
+    @DataAmount(DataAmount.BYTES)
+    long allocated;
+}
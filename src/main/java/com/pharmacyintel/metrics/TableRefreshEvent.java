@@ -0,0 +1,42 @@
+package com.pharmacyintel.metrics;
+
+import jdk.jfr.*;
+
+/**
+ * JFR event for one filter/search refresh of the product table, including
+ * the KPI update it triggers. Runs on the EDT, so long events line up with
+ * UI stalls.
+ */
+@Name("com.pharmacyintel.TableRefresh")
+@Label("Product Table Refresh")
+@Category({ "Pharmacy Intelligence", "UI" })
+@StackTrace(false)
+public final class TableRefreshEvent extends Event {
+
+    @Label("Filter")
+    String filter;
+
+    @Label("Stock Only")
+    boolean stockOnly;
+
+    @Label("Search Text")
+    boolean searching;
+
+    @Label("Visible Rows")
+    long visibleRows;
+
+    @Label("Total Rows")
+    long totalRows;
+
+    public void finish(String filter, boolean stockOnly, boolean searching, int visibleRows, int totalRows) {
+        end();
+        if (shouldCommit()) {
+            this.filter = filter;
+            this.stockOnly = stockOnly;
+            this.searching = searching;
+            this.visibleRows = visibleRows;
+            this.totalRows = totalRows;
+            commit();
+        }
+    }
+}
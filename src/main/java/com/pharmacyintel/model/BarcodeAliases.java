@@ -0,0 +1,153 @@
+package com.pharmacyintel.model;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Barcodes that stand for another product's barcode: a supplier that lists
+ * an item under its own code joins the product of the canonical one. The
+ * table is kept flat (every alias points straight at its canonical barcode),
+ * so {@link #resolve} is a single hash lookup; the ingest applies it to each
+ * row as it is parsed, and the engine re-keys its rows when the
+ * {@link #getVersion() version} moves.
+ * <p>
+ * Stored as {@code alias=canonical} lines (cleaned codes, as shown in the
+ * product table) in {@value #FILE_NAME} under the data directory. Readers get
+ * a copy-on-write map and never block; changes are published whole, then
+ * written with {@link #save()}.
+ */
+public final class BarcodeAliases {
+
+    public static final String FILE_NAME = "barcode-aliases.properties";
+
+    private static BarcodeAliases defaultInstance;
+
+    /** Where the table is saved; null keeps it in memory only. */
+    private final File file;
+    private volatile Map<String, String> aliases = Map.of();
+    /** Bumped by every change; lets holders of keyed data tell if it is stale. */
+    private volatile long version;
+
+    /** Empty, in-memory table. */
+    public BarcodeAliases() {
+        this(null);
+    }
+
+    /** Table backed by {@code file}, loaded from it if it exists. */
+    public BarcodeAliases(File file) {
+        this.file = file;
+        if (file != null && file.isFile())
+            load();
+    }
+
+    /** The table in the user's data directory, loaded on first use. */
+    public static synchronized BarcodeAliases getDefault() {
+        if (defaultInstance == null)
+            defaultInstance = new BarcodeAliases(new File(GlobalConfig.getInstance().getDataDir(), FILE_NAME));
+        return defaultInstance;
+    }
+
+    /** Canonical barcode for {@code barcode}, or {@code barcode} itself when it is not an alias. */
+    public String resolve(String barcode) {
+        Map<String, String> current = aliases;
+        if (current.isEmpty() || barcode == null)
+            return barcode;
+        return current.getOrDefault(barcode, barcode);
+    }
+
+    public boolean isAlias(String barcode) {
+        return aliases.containsKey(barcode);
+    }
+
+    /**
+     * Makes {@code alias} resolve to {@code canonical} (or to what
+     * {@code canonical} already resolves to). Aliases of {@code alias} are
+     * redirected as well.
+     *
+     * @return false if it would make a barcode an alias of itself
+     */
+    public synchronized boolean add(String alias, String canonical) {
+        if (alias == null || canonical == null || alias.isEmpty() || canonical.isEmpty())
+            throw new IllegalArgumentException("Código de barra vacío");
+        String target = resolve(canonical);
+        if (target.equals(alias))
+            return false;
+        Map<String, String> next = new HashMap<>(aliases);
+        for (var entry : next.entrySet()) {
+            if (entry.getValue().equals(alias))
+                entry.setValue(target);
+        }
+        next.put(alias, target);
+        aliases = next;
+        version++;
+        return true;
+    }
+
+    public synchronized boolean remove(String alias) {
+        if (!aliases.containsKey(alias))
+            return false;
+        Map<String, String> next = new HashMap<>(aliases);
+        next.remove(alias);
+        aliases = next;
+        version++;
+        return true;
+    }
+
+    /** Alias → canonical, sorted by alias. */
+    public Map<String, String> asMap() {
+        return Collections.unmodifiableMap(new TreeMap<>(aliases));
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return aliases.size();
+    }
+
+    public boolean isEmpty() {
+        return aliases.isEmpty();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    private void load() {
+        Properties props = new Properties();
+        try (Reader r = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            props.load(r);
+        } catch (IOException e) {
+            System.err.println("[BarcodeAliases] Tabla de alias ilegible: " + e.getMessage());
+            return;
+        }
+        for (String alias : props.stringPropertyNames()) {
+            String canonical = props.getProperty(alias).trim();
+            if (!alias.isBlank() && !canonical.isEmpty() && !add(alias.trim(), canonical))
+                System.err.println("[BarcodeAliases] Alias circular ignorado: " + alias + "=" + canonical);
+        }
+        System.out.println("[BarcodeAliases] " + aliases.size() + " alias desde " + file);
+    }
+
+    /** Writes the table sorted by alias (a temp file renamed over the old one). */
+    public synchronized void save() throws IOException {
+        if (file == null)
+            return;
+        File dir = file.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs())
+            throw new IOException("No se pudo crear " + dir);
+        File tmp = new File(file.getPath() + ".tmp");
+        try (Writer w = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8))) {
+            w.write("# Código de barra del proveedor = código de barra canónico\n");
+            for (var entry : asMap().entrySet())
+                w.write(entry.getKey() + "=" + entry.getValue() + "\n");
+        }
+        if (!tmp.renameTo(file)) {
+            file.delete();
+            if (!tmp.renameTo(file))
+                throw new IOException("No se pudo reemplazar " + file);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.pharmacyintel.model;
 
+import java.io.File;
 import java.time.LocalDateTime;
 
 public class GlobalConfig {
@@ -8,6 +9,17 @@ public class GlobalConfig {
     private double bcvRate = 1.0;
     private double targetMarginPct = 30.0;
     private LocalDateTime lastUpdated;
+    /** Port for the local query API; 0 disables it. */
+    private int apiPort = Integer.getInteger("pharmacyintel.api.port", 0);
+    /** Keep a continuous low-overhead JFR recording while the app runs. */
+    private boolean continuousRecording = Boolean.getBoolean("pharmacyintel.jfr");
+    /** Heap allowed for products in flight between the parse and consolidate stages. */
+    private int ingestBudgetMb = Integer.getInteger("pharmacyintel.ingest.budgetMb", 64);
+    /** Per-user state kept between runs (rate cache, etc.). */
+    private File dataDir = new File(System.getProperty("pharmacyintel.home",
+            System.getProperty("user.home") + File.separator + ".pharmacy-intelligence"));
+    /** Drop folder watched for new supplier files; unset means {@code inbox} in the data directory, empty disables it. */
+    private String inboxDir = System.getProperty("pharmacyintel.inbox");
 
     private GlobalConfig() {
     }
@@ -37,6 +49,49 @@ public class GlobalConfig {
         return lastUpdated;
     }
 
+    public int getApiPort() {
+        return apiPort;
+    }
+
+    public void setApiPort(int apiPort) {
+        this.apiPort = apiPort;
+    }
+
+    public boolean isContinuousRecording() {
+        return continuousRecording;
+    }
+
+    public void setContinuousRecording(boolean continuousRecording) {
+        this.continuousRecording = continuousRecording;
+    }
+
+    public int getIngestBudgetMb() {
+        return ingestBudgetMb;
+    }
+
+    public void setIngestBudgetMb(int ingestBudgetMb) {
+        this.ingestBudgetMb = ingestBudgetMb;
+    }
+
+    public File getDataDir() {
+        return dataDir;
+    }
+
+    public void setDataDir(File dataDir) {
+        this.dataDir = dataDir;
+    }
+
+    /** Watched drop folder, or null if watching is disabled. */
+    public File getInboxDir() {
+        if (inboxDir == null)
+            return new File(dataDir, "inbox");
+        return inboxDir.isBlank() ? null : new File(inboxDir);
+    }
+
+    public void setInboxDir(File inboxDir) {
+        this.inboxDir = inboxDir != null ? inboxDir.getPath() : "";
+    }
+
     public double usdToVes(double usd) {
         return usd * bcvRate;
     }
@@ -5,7 +5,7 @@ import java.util.*;
 public class MasterProduct {
     private String barcode;
     private String description;
-    private final Map<Supplier, SupplierProduct> supplierPrices = new EnumMap<>(Supplier.class);
+    private final Map<Supplier, SupplierProduct> supplierPrices = new SupplierMap<>();
 
     // Computed fields
     private double bestPrice = Double.MAX_VALUE;
@@ -22,8 +22,8 @@ public class MasterProduct {
     private double simulatedSalePriceStockOnly;
     private double simulatedMargin;
     private double simulatedMarginStockOnly;
-    private final Map<Supplier, Integer> supplierPositions = new EnumMap<>(Supplier.class);
-    private final Map<Supplier, Integer> supplierPositionsStockOnly = new EnumMap<>(Supplier.class);
+    private final Map<Supplier, Integer> supplierPositions = new SupplierMap<>();
+    private final Map<Supplier, Integer> supplierPositionsStockOnly = new SupplierMap<>();
 
     public MasterProduct(String barcode, String description) {
         this.barcode = barcode;
@@ -80,104 +80,83 @@ public class MasterProduct {
         supplierPositions.clear();
         supplierPositionsStockOnly.clear();
 
-        // Collect valid prices
-        List<Map.Entry<Supplier, Double>> validPrices = new ArrayList<>();
+        // Collect valid prices into dense arrays, ranked by insertion: price
+        // ascending, higher stock first on ties, ordinal order otherwise
+        int capacity = supplierPrices.size();
+        Supplier[] ranked = new Supplier[capacity];
+        double[] prices = new double[capacity];
+        int[] stocks = new int[capacity];
+        int count = 0;
         for (var entry : supplierPrices.entrySet()) {
             SupplierProduct sp = entry.getValue();
-            if (sp.getNetPrice() > 0) {
-                validPrices.add(Map.entry(entry.getKey(), sp.getNetPrice()));
+            double net = sp.getNetPrice();
+            if (!(net > 0))
+                continue;
+            int stock = sp.getStock();
+            int j = count++;
+            while (j > 0 && (prices[j - 1] > net || (prices[j - 1] == net && stocks[j - 1] < stock))) {
+                ranked[j] = ranked[j - 1];
+                prices[j] = prices[j - 1];
+                stocks[j] = stocks[j - 1];
+                j--;
             }
+            ranked[j] = entry.getKey();
+            prices[j] = net;
+            stocks[j] = stock;
         }
 
-        if (validPrices.isEmpty()) {
+        if (count == 0) {
             diffPct = 0;
             return;
         }
 
-        // Sort ascending by price
-        validPrices.sort(Comparator.comparingDouble(Map.Entry::getValue));
-
         // --- Ordinal ranking: strictly sequential 1, 2, 3... with stock as tie-breaker ---
-        validPrices.sort((e1, e2) -> {
-            int c = Double.compare(e1.getValue(), e2.getValue());
-            if (c == 0) {
-                // Secondary sort: higher stock wins
-                SupplierProduct sp1 = supplierPrices.get(e1.getKey());
-                SupplierProduct sp2 = supplierPrices.get(e2.getKey());
-                int s1 = sp1 != null ? sp1.getStock() : 0;
-                int s2 = sp2 != null ? sp2.getStock() : 0;
-                return Integer.compare(s2, s1);
-            }
-            return c;
-        });
-
-        for (int i = 0; i < validPrices.size(); i++) {
-            supplierPositions.put(validPrices.get(i).getKey(), i + 1);
-        }
-
-        // --- Ordinal ranking for STOCK ONLY ---
-        List<Map.Entry<Supplier, Double>> stockPrices = new ArrayList<>();
-        for (var vp : validPrices) {
-            SupplierProduct sp = supplierPrices.get(vp.getKey());
-            if (sp != null && sp.hasStock()) {
-                stockPrices.add(vp);
-            }
-        }
-        
-        stockPrices.sort((e1, e2) -> {
-            int c = Double.compare(e1.getValue(), e2.getValue());
-            if (c == 0) {
-                SupplierProduct sp1 = supplierPrices.get(e1.getKey());
-                SupplierProduct sp2 = supplierPrices.get(e2.getKey());
-                int s1 = sp1 != null ? sp1.getStock() : 0;
-                int s2 = sp2 != null ? sp2.getStock() : 0;
-                return Integer.compare(s2, s1);
-            }
-            return c;
-        });
-
-        if (!stockPrices.isEmpty()) {
-            for (int i = 0; i < stockPrices.size(); i++) {
-                supplierPositionsStockOnly.put(stockPrices.get(i).getKey(), i + 1);
+        // Stock-only ranking is the same order restricted to suppliers with stock
+        int stockCount = 0;
+        int[] stockIdx = new int[count];
+        for (int i = 0; i < count; i++) {
+            supplierPositions.put(ranked[i], i + 1);
+            if (stocks[i] > 0) {
+                stockIdx[stockCount++] = i;
+                supplierPositionsStockOnly.put(ranked[i], stockCount);
             }
         }
 
         // --- NORMAL CALCULATIONS ---
-        if (!validPrices.isEmpty()) {
-            winnerSupplier = validPrices.get(0).getKey();
-            bestPrice = validPrices.get(0).getValue();
-
-            if (validPrices.size() >= 2) {
-                loserSupplier = validPrices.get(validPrices.size() - 1).getKey();
-                if (loserSupplier == winnerSupplier)
-                    loserSupplier = null;
-
-                // DIF USD = Precio_DroActiva - Mejor_Precio_Competencia
-                double netDro = getNetPriceForSupplier(Supplier.DROACTIVA);
-                double bestOther = Double.MAX_VALUE;
-                for (var vp : validPrices) {
-                    if (vp.getKey() != Supplier.DROACTIVA && vp.getValue() > 0) {
-                        bestOther = Math.min(bestOther, vp.getValue());
-                    }
-                }
-                
-                if (netDro > 0 && bestOther < Double.MAX_VALUE && bestOther > 0) {
-                    diffAmount = netDro - bestOther;
-                    diffPct = (diffAmount / netDro) * 100.0;
-                } else {
-                    diffAmount = 0;
-                    diffPct = 0;
+        winnerSupplier = ranked[0];
+        bestPrice = prices[0];
+
+        if (count >= 2) {
+            loserSupplier = ranked[count - 1];
+            if (loserSupplier == winnerSupplier)
+                loserSupplier = null;
+
+            // DIF USD = Precio_DroActiva - Mejor_Precio_Competencia
+            double netDro = getNetPriceForSupplier(Supplier.DROACTIVA);
+            double bestOther = Double.MAX_VALUE;
+            for (int i = 0; i < count; i++) {
+                if (ranked[i] != Supplier.DROACTIVA) {
+                    bestOther = prices[i];
+                    break;
                 }
             }
+
+            if (netDro > 0 && bestOther < Double.MAX_VALUE && bestOther > 0) {
+                diffAmount = netDro - bestOther;
+                diffPct = (diffAmount / netDro) * 100.0;
+            } else {
+                diffAmount = 0;
+                diffPct = 0;
+            }
         }
 
         // --- STOCK ONLY CALCULATIONS ---
-        if (!stockPrices.isEmpty()) {
-            winnerSupplierStockOnly = stockPrices.get(0).getKey();
-            bestPriceStockOnly = stockPrices.get(0).getValue();
+        if (stockCount > 0) {
+            winnerSupplierStockOnly = ranked[stockIdx[0]];
+            bestPriceStockOnly = prices[stockIdx[0]];
 
-            if (stockPrices.size() >= 2) {
-                loserSupplierStockOnly = stockPrices.get(stockPrices.size() - 1).getKey();
+            if (stockCount >= 2) {
+                loserSupplierStockOnly = ranked[stockIdx[stockCount - 1]];
                 if (loserSupplierStockOnly == winnerSupplierStockOnly)
                     loserSupplierStockOnly = null;
 
@@ -188,9 +167,10 @@ public class MasterProduct {
                 }
 
                 double bestOtherStock = Double.MAX_VALUE;
-                for (var vp : stockPrices) {
-                    if (vp.getKey() != Supplier.DROACTIVA && vp.getValue() > 0) {
-                        bestOtherStock = Math.min(bestOtherStock, vp.getValue());
+                for (int k = 0; k < stockCount; k++) {
+                    if (ranked[stockIdx[k]] != Supplier.DROACTIVA) {
+                        bestOtherStock = prices[stockIdx[k]];
+                        break;
                     }
                 }
 
@@ -202,7 +182,7 @@ public class MasterProduct {
                     diffPctStockOnly = 0;
                 }
             }
-        } else if (!validPrices.isEmpty()) {
+        } else {
             // fallback if no one has stock
             bestPriceStockOnly = bestPrice;
             winnerSupplierStockOnly = winnerSupplier;
@@ -336,6 +316,48 @@ public class MasterProduct {
         }
     }
 
+    /**
+     * Copy with some supplier entries swapped (e.g. re-priced at another BCV
+     * rate). Description and supplier set are kept; competitiveness and margin
+     * are left for the caller to compute.
+     */
+    public MasterProduct withSupplierProducts(Map<Supplier, SupplierProduct> replacements) {
+        MasterProduct copy = new MasterProduct(barcode, description);
+        for (var entry : supplierPrices.entrySet()) {
+            SupplierProduct replacement = replacements.get(entry.getKey());
+            copy.supplierPrices.put(entry.getKey(), replacement != null ? replacement : entry.getValue());
+        }
+        return copy;
+    }
+
+    /**
+     * Copy with the same supplier entries and ranking, re-simulated at
+     * another target margin. Nothing the margin does not affect is
+     * recomputed.
+     */
+    public MasterProduct withMargin(double marginPct) {
+        MasterProduct copy = new MasterProduct(barcode, description);
+        copy.supplierPrices.putAll(supplierPrices);
+        copy.bestPrice = bestPrice;
+        copy.bestPriceStockOnly = bestPriceStockOnly;
+        copy.winnerSupplier = winnerSupplier;
+        copy.winnerSupplierStockOnly = winnerSupplierStockOnly;
+        copy.loserSupplier = loserSupplier;
+        copy.loserSupplierStockOnly = loserSupplierStockOnly;
+        copy.diffPct = diffPct;
+        copy.diffPctStockOnly = diffPctStockOnly;
+        copy.diffAmount = diffAmount;
+        copy.diffAmountStockOnly = diffAmountStockOnly;
+        copy.simulatedSalePrice = simulatedSalePrice;
+        copy.simulatedSalePriceStockOnly = simulatedSalePriceStockOnly;
+        copy.simulatedMargin = simulatedMargin;
+        copy.simulatedMarginStockOnly = simulatedMarginStockOnly;
+        copy.supplierPositions.putAll(supplierPositions);
+        copy.supplierPositionsStockOnly.putAll(supplierPositionsStockOnly);
+        copy.simulateMargin(marginPct);
+        return copy;
+    }
+
     public Map<Supplier, SupplierProduct> getSupplierPrices() {
         return supplierPrices;
     }
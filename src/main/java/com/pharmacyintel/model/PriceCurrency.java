@@ -0,0 +1,9 @@
+package com.pharmacyintel.model;
+
+/** Currency a supplier quotes its prices in. */
+public enum PriceCurrency {
+    /** US dollars; used as-is. */
+    USD,
+    /** Bolívares; converted to USD with the BCV rate by the engine. */
+    VES
+}
@@ -1,28 +1,121 @@
 package com.pharmacyintel.model;
 
-import java.awt.Color;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
-public enum Supplier {
-    DROACTIVA("Droactiva", new Color(66, 133, 244)),
-    DROMARKO("Dromarko", new Color(234, 67, 53)),
-    COBECA("Cobeca", new Color(52, 168, 83)),
-    NENA("Nena", new Color(251, 188, 4)),
-    F24("F24", new Color(171, 71, 188)),
-    P365("365", new Color(255, 112, 67));
+/**
+ * A wholesaler whose price list can be loaded. The six built-in suppliers are
+ * constants; further ones are registered at startup by
+ * {@code SupplierRegistry.load()} from parser definition files and plugins, so
+ * adding a wholesaler does not need a code change here.
+ * <p>
+ * Behaves like the enum it replaces: instances are unique (compare with
+ * {@code ==}), {@link #ordinal()} is the registration index (dense, starting
+ * at 0) and {@link #values()} lists every registered supplier in that order.
+ * Per-supplier data should live in {@link SupplierMap} or arrays indexed by
+ * ordinal.
+ */
+public final class Supplier implements Comparable<Supplier> {
 
+    private static final List<Supplier> REGISTERED = new CopyOnWriteArrayList<>();
+    private static final Map<String, Supplier> BY_NAME = new ConcurrentHashMap<>();
+
+    public static final Supplier DROACTIVA = register("DROACTIVA", "Droactiva", 0x4285F4, PriceCurrency.USD);
+    public static final Supplier DROMARKO = register("DROMARKO", "Dromarko", 0xEA4335, PriceCurrency.USD);
+    public static final Supplier COBECA = register("COBECA", "Cobeca", 0x34A853, PriceCurrency.USD);
+    public static final Supplier NENA = register("NENA", "Nena", 0xFBBC04, PriceCurrency.VES);
+    public static final Supplier F24 = register("F24", "F24", 0xAB47BC, PriceCurrency.VES);
+    public static final Supplier P365 = register("P365", "365", 0xFF7043, PriceCurrency.USD);
+
+    private final String name;
+    private final int ordinal;
     private final String displayName;
-    private final Color color;
+    private final int rgb;
+    private final PriceCurrency currency;
 
-    Supplier(String displayName, Color color) {
+    private Supplier(String name, int ordinal, String displayName, int rgb, PriceCurrency currency) {
+        this.name = name;
+        this.ordinal = ordinal;
         this.displayName = displayName;
-        this.color = color;
+        this.rgb = rgb;
+        this.currency = currency;
+    }
+
+    /**
+     * Add a supplier. Register before any catalog is built: tables and
+     * exporters size their column groups from {@link #values()}.
+     *
+     * @param name identifier, upper-cased (used in CLI arguments, JSON and files)
+     * @throws IllegalArgumentException if the name is already registered
+     */
+    public static synchronized Supplier register(String name, String displayName, int rgb,
+            PriceCurrency currency) {
+        String key = Objects.requireNonNull(name, "name").trim().toUpperCase(Locale.ROOT);
+        if (key.isEmpty())
+            throw new IllegalArgumentException("El proveedor necesita un nombre");
+        if (BY_NAME.containsKey(key))
+            throw new IllegalArgumentException("Proveedor ya registrado: " + key);
+        Supplier supplier = new Supplier(key, REGISTERED.size(), displayName != null ? displayName : key,
+                rgb & 0xFFFFFF, Objects.requireNonNull(currency, "currency"));
+        REGISTERED.add(supplier);
+        BY_NAME.put(key, supplier);
+        return supplier;
+    }
+
+    /** Every registered supplier, in ordinal order. */
+    public static Supplier[] values() {
+        return REGISTERED.toArray(new Supplier[0]);
+    }
+
+    /** Supplier with the given {@link #ordinal()}. */
+    public static Supplier byOrdinal(int ordinal) {
+        return REGISTERED.get(ordinal);
+    }
+
+    public static int count() {
+        return REGISTERED.size();
+    }
+
+    /**
+     * @throws IllegalArgumentException if no supplier has that name
+     */
+    public static Supplier valueOf(String name) {
+        Supplier supplier = name != null ? BY_NAME.get(name.trim().toUpperCase(Locale.ROOT)) : null;
+        if (supplier == null)
+            throw new IllegalArgumentException("Proveedor desconocido: " + name);
+        return supplier;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int ordinal() {
+        return ordinal;
     }
 
     public String getDisplayName() {
         return displayName;
     }
 
-    public Color getColor() {
-        return color;
+    /** Brand color as 0xRRGGBB; the UI maps it through SupplierColors. */
+    public int getRgb() {
+        return rgb;
+    }
+
+    /** Currency of the prices in this supplier's files. */
+    public PriceCurrency getCurrency() {
+        return currency;
+    }
+
+    @Override
+    public int compareTo(Supplier other) {
+        return Integer.compare(ordinal, other.ordinal);
+    }
+
+    @Override
+    public String toString() {
+        return name;
     }
 }
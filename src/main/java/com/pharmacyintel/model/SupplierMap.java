@@ -0,0 +1,139 @@
+package com.pharmacyintel.model;
+
+import java.util.*;
+
+/**
+ * Map keyed by {@link Supplier}, backed by an array indexed by ordinal (the
+ * role EnumMap played while suppliers were an enum). Iterates in ordinal
+ * order, allows null values, and grows if a supplier registered after
+ * construction is added.
+ */
+public class SupplierMap<V> extends AbstractMap<Supplier, V> {
+
+    private static final Object NULL = new Object();
+
+    private Object[] values;
+    private int size;
+
+    public SupplierMap() {
+        values = new Object[Supplier.count()];
+    }
+
+    public SupplierMap(Map<Supplier, ? extends V> source) {
+        this();
+        putAll(source);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Supplier s && s.ordinal() < values.length && values[s.ordinal()] != null;
+    }
+
+    @Override
+    public V get(Object key) {
+        if (!(key instanceof Supplier s) || s.ordinal() >= values.length)
+            return null;
+        return unmask(values[s.ordinal()]);
+    }
+
+    /** Value by ordinal, for loops over {@code Supplier.values()}. */
+    public V getAt(int ordinal) {
+        return ordinal < values.length ? unmask(values[ordinal]) : null;
+    }
+
+    @Override
+    public V put(Supplier key, V value) {
+        int idx = key.ordinal();
+        if (idx >= values.length)
+            values = Arrays.copyOf(values, Math.max(idx + 1, Supplier.count()));
+        Object old = values[idx];
+        values[idx] = value == null ? NULL : value;
+        if (old == null)
+            size++;
+        return unmask(old);
+    }
+
+    @Override
+    public V remove(Object key) {
+        if (!(key instanceof Supplier s) || s.ordinal() >= values.length)
+            return null;
+        Object old = values[s.ordinal()];
+        if (old != null) {
+            values[s.ordinal()] = null;
+            size--;
+        }
+        return unmask(old);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    @Override
+    public Set<Entry<Supplier, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public Iterator<Entry<Supplier, V>> iterator() {
+                return new EntryIterator();
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private V unmask(Object value) {
+        return value == NULL ? null : (V) value;
+    }
+
+    private final class EntryIterator implements Iterator<Entry<Supplier, V>> {
+        private int next = advance(0);
+        private int last = -1;
+
+        private int advance(int from) {
+            while (from < values.length && values[from] == null)
+                from++;
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < values.length;
+        }
+
+        @Override
+        public Entry<Supplier, V> next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            last = next;
+            next = advance(next + 1);
+            int idx = last;
+            return new SimpleEntry<>(Supplier.byOrdinal(idx), unmask(values[idx])) {
+                @Override
+                public V setValue(V value) {
+                    values[idx] = value == null ? NULL : value;
+                    return super.setValue(value);
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0)
+                throw new IllegalStateException();
+            values[last] = null;
+            size--;
+            last = -1;
+        }
+    }
+}
@@ -6,6 +6,9 @@ public class SupplierProduct {
     private String internalCode;
     private String brand;
     private double basePrice;
+    /** Base price as quoted in the supplier file, in {@link #currency}. */
+    private double nativeBasePrice;
+    private PriceCurrency currency = PriceCurrency.USD;
     private double offerPct;
     private double netPrice;
     private int stock;
@@ -20,10 +23,47 @@ public class SupplierProduct {
         this.barcode = barcode;
         this.description = description;
         this.basePrice = basePrice;
+        this.nativeBasePrice = basePrice;
         this.offerPct = offerPct;
         this.netPrice = basePrice * (1.0 - offerPct / 100.0);
         this.stock = stock;
         this.supplier = supplier;
+        if (supplier != null)
+            this.currency = supplier.getCurrency();
+    }
+
+    /**
+     * USD view of this product at the given BCV rate. USD products return
+     * themselves; VES products return a converted copy and are never modified,
+     * so one parsed list can be projected at any number of rates.
+     */
+    public SupplierProduct projectToUsd(double bcvRate) {
+        if (currency == PriceCurrency.USD)
+            return this;
+        SupplierProduct copy = new SupplierProduct(barcode, description, nativeBasePrice, offerPct, stock, supplier);
+        copy.currency = currency;
+        copy.internalCode = internalCode;
+        copy.brand = brand;
+        copy.iva = iva;
+        // Same rule as the old in-place conversion: a rate of 1 or less means "no rate"
+        copy.basePrice = bcvRate > 1 ? nativeBasePrice / bcvRate : nativeBasePrice;
+        copy.recalcNet();
+        return copy;
+    }
+
+    /**
+     * Copy of this product under another barcode. This one is not modified,
+     * since a published catalog may still hold it.
+     */
+    public SupplierProduct withBarcode(String barcode) {
+        SupplierProduct copy = new SupplierProduct(barcode, description, basePrice, offerPct, stock, supplier);
+        copy.nativeBasePrice = nativeBasePrice;
+        copy.currency = currency;
+        copy.netPrice = netPrice;
+        copy.internalCode = internalCode;
+        copy.brand = brand;
+        copy.iva = iva;
+        return copy;
     }
 
     /** Recalculate netPrice from basePrice and offerPct */
@@ -52,8 +92,30 @@ public class SupplierProduct {
         return basePrice;
     }
 
+    /**
+     * Price in USD for projected products; for unprojected VES products this
+     * is still the native Bs price.
+     */
     public void setBasePrice(double basePrice) {
         this.basePrice = basePrice;
+        this.nativeBasePrice = basePrice;
+    }
+
+    public double getNativeBasePrice() {
+        return nativeBasePrice;
+    }
+
+    /** Net price in the supplier's own currency (Bs for VES suppliers). */
+    public double getNativeNetPrice() {
+        return nativeBasePrice * (1.0 - offerPct / 100.0);
+    }
+
+    public PriceCurrency getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(PriceCurrency currency) {
+        this.currency = currency;
     }
 
     public double getOfferPct() {
@@ -116,6 +178,8 @@ public class SupplierProduct {
 
     public void setSupplier(Supplier supplier) {
         this.supplier = supplier;
+        if (supplier != null)
+            this.currency = supplier.getCurrency();
     }
 
     public String getInternalCode() {
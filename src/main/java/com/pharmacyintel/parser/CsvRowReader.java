@@ -0,0 +1,63 @@
+package com.pharmacyintel.parser;
+
+import java.io.*;
+import java.nio.charset.Charset;
+
+/**
+ * Delimited text reader (no quoting, as the wholesalers export it). Strips the
+ * UTF-8 BOM and skips blank lines; trailing empty fields are kept.
+ */
+public class CsvRowReader implements RowReader {
+
+    private final char delimiter;
+    private final Charset charset;
+
+    public CsvRowReader(char delimiter, Charset charset) {
+        this.delimiter = delimiter;
+        this.charset = charset;
+    }
+
+    @Override
+    public void read(File file, RowHandler handler) throws Exception {
+        read(file, Integer.MAX_VALUE, handler);
+    }
+
+    @Override
+    public void readHead(File file, int maxRows, RowHandler handler) throws Exception {
+        read(file, maxRows, handler);
+    }
+
+    private void read(File file, int maxRows, RowHandler handler) throws Exception {
+        // A header read needs only the first lines, not a large buffer
+        int buffer = maxRows == Integer.MAX_VALUE ? 1 << 16 : 8192;
+        try (BufferedReader br = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), charset), buffer)) {
+            String line;
+            int index = 0;
+            while (index < maxRows && (line = br.readLine()) != null) {
+                if (index == 0 && !line.isEmpty() && line.charAt(0) == '\uFEFF')
+                    line = line.substring(1);
+                if (!line.isBlank())
+                    handler.row(index, split(line));
+                index++;
+            }
+        }
+    }
+
+    private String[] split(String line) {
+        int count = 1;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == delimiter)
+                count++;
+        }
+        String[] cells = new String[count];
+        int start = 0;
+        for (int c = 0; c < count - 1; c++) {
+            int end = line.indexOf(delimiter, start);
+            cells[c] = line.substring(start, end);
+            start = end + 1;
+        }
+        cells[count - 1] = line.substring(start);
+        return cells;
+    }
+}
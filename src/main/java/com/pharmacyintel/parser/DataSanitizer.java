@@ -1,12 +1,22 @@
 package com.pharmacyintel.parser;
 
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 /** Static utilities for data cleaning and normalization */
 public final class DataSanitizer {
 
+    private static final Pattern PERCENT = Pattern.compile("(\\d+[.,]?\\d*)\\s*%");
+
     private DataSanitizer() {
     }
 
-    /** Remove leading zeros, spaces, and special characters from barcode */
+    /**
+     * Remove spaces, special characters and leading zeros from barcode, so
+     * UPC-A, EAN-13 and GTIN-14 spellings of one item give the same key
+     * (leading zeros do not change a GTIN). The code is never rewritten
+     * otherwise: see {@link #hasBadCheckDigit} for GS1 validation.
+     */
     public static String cleanBarcode(String raw) {
         if (raw == null)
             return "";
@@ -18,12 +28,76 @@ public final class DataSanitizer {
         return cleaned;
     }
 
+    /**
+     * True if the cell holds a GTIN-length code (8, 12, 13 or 14 digits once
+     * spaces and symbols are removed, leading zeros included) whose GS1 check
+     * digit is wrong: a mistyped or truncated code. Codes of other lengths are
+     * internal codes and are not judged. Checked on the raw cell, before
+     * {@link #cleanBarcode} drops the zeros that tell UPC-A from EAN-13.
+     */
+    public static boolean hasBadCheckDigit(String raw) {
+        if (raw == null)
+            return false;
+        char[] digits = new char[14];
+        int n = 0;
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (n == digits.length)
+                    return false;
+                digits[n++] = c;
+            } else if (Character.isLetter(c)) {
+                return false;
+            }
+        }
+        return (n == 8 || n == 12 || n == 13 || n == 14) && !isValidGtin(new String(digits, 0, n));
+    }
+
+    /**
+     * True for 8, 12, 13 or 14 digits whose last digit is the GS1 check digit
+     * of the rest (GTIN-8, UPC-A, EAN-13 or GTIN-14).
+     */
+    public static boolean isValidGtin(String code) {
+        int n = code.length();
+        if ((n != 8 && n != 12 && n != 13 && n != 14) || !isDigits(code))
+            return false;
+        return gtinCheckDigit(code.substring(0, n - 1)) == code.charAt(n - 1) - '0';
+    }
+
+    /** GS1 check digit for {@code digits} (weights 3, 1, 3... from the right). */
+    public static int gtinCheckDigit(String digits) {
+        int sum = 0;
+        for (int i = digits.length() - 1, w = 3; i >= 0; i--, w = 4 - w)
+            sum += (digits.charAt(i) - '0') * w;
+        return (10 - sum % 10) % 10;
+    }
+
+    private static boolean isDigits(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9')
+                return false;
+        }
+        return !s.isEmpty();
+    }
+
     /**
      * Parse a decimal value that may use comma as decimal separator
      * and dot as thousands separator (Venezuelan/European format).
      * Examples: "1.351,75" -> 1351.75, "7,94" -> 7.94, "3.39" -> 3.39
+     * Text that is not a number gives 0.
      */
     public static double parseDecimal(String raw) {
+        double value = tryParseDecimal(raw);
+        return Double.isNaN(value) ? 0 : value;
+    }
+
+    /**
+     * Like {@link #parseDecimal}, but text that is not a number gives NaN
+     * (blank or "-" still give 0), so callers can tell a bad cell from an
+     * empty one. Never throws.
+     */
+    public static double tryParseDecimal(String raw) {
         if (raw == null || raw.isBlank())
             return 0;
         String cleaned = raw.trim();
@@ -60,11 +134,45 @@ public final class DataSanitizer {
         }
         // If only dot: standard format, leave as-is
 
-        try {
-            return Double.parseDouble(cleaned);
-        } catch (NumberFormatException e) {
-            return 0;
+        return isNumber(cleaned) ? Double.parseDouble(cleaned) : Double.NaN;
+    }
+
+    /**
+     * True if {@code s} is a plain decimal ("-12", "3.5", "1.0E-4" as numeric
+     * cells are streamed), i.e. {@link Double#parseDouble} accepts it. Checked
+     * up front so bad cells never cost a thrown exception.
+     */
+    public static boolean isNumber(String s) {
+        int n = s.length();
+        int i = n > 0 && (s.charAt(0) == '-' || s.charAt(0) == '+') ? 1 : 0;
+        int digits = 0;
+        boolean dot = false;
+        for (; i < n; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9')
+                digits++;
+            else if (c == '.' && !dot)
+                dot = true;
+            else
+                break;
         }
+        if (digits == 0)
+            return false;
+        if (i == n)
+            return true;
+        if (s.charAt(i) != 'e' && s.charAt(i) != 'E')
+            return false;
+        i++;
+        if (i < n && (s.charAt(i) == '-' || s.charAt(i) == '+'))
+            i++;
+        int expDigits = 0;
+        for (; i < n; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9')
+                return false;
+            expDigits++;
+        }
+        return expDigits > 0;
     }
 
     /** Parse integer stock value, tolerant of formatting */
@@ -72,21 +180,12 @@ public final class DataSanitizer {
         if (raw == null || raw.isBlank())
             return 0;
         String trimmed = raw.trim();
-        // First, try parsing as a decimal (handles "150.0" from numeric Excel cells)
-        try {
-            double d = Double.parseDouble(trimmed);
-            return (int) d;
-        } catch (NumberFormatException ignored) {
-        }
-        // Fallback: strip non-numeric characters
+        // First, as a decimal (handles "150.0" from numeric Excel cells)
+        if (isNumber(trimmed))
+            return (int) Double.parseDouble(trimmed);
+        // Fallback: strip non-numeric characters ("150 uds"); out-of-range values saturate
         String cleaned = trimmed.replaceAll("[^0-9\\-]", "");
-        if (cleaned.isEmpty())
-            return 0;
-        try {
-            return Integer.parseInt(cleaned);
-        } catch (NumberFormatException e) {
-            return 0;
-        }
+        return isNumber(cleaned) ? (int) Double.parseDouble(cleaned) : 0;
     }
 
     /** Strip special characters but keep alphanumeric, spaces, accented chars */
@@ -100,4 +199,20 @@ public final class DataSanitizer {
     public static double parseIva(String raw) {
         return parseDecimal(raw);
     }
+
+    /**
+     * Percentage inside free text, e.g. "Dcto en factura de 20,00%" -> 20.0;
+     * a bare number is accepted when it lies in (0, 100]. Anything else is 0.
+     */
+    public static double parsePercent(String raw) {
+        if (raw == null || raw.isBlank())
+            return 0;
+        if (raw.indexOf('%') >= 0) {
+            Matcher m = PERCENT.matcher(raw);
+            if (m.find())
+                return Double.parseDouble(m.group(1).replace(",", "."));
+        }
+        double val = parseDecimal(raw);
+        return val > 0 && val <= 100 ? val : 0;
+    }
 }
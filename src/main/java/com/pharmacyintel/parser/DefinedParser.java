@@ -0,0 +1,251 @@
+package com.pharmacyintel.parser;
+
+import com.pharmacyintel.model.Supplier;
+import com.pharmacyintel.model.SupplierProduct;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Parser driven by a {@link ParserDefinition}: finds the header row, binds the
+ * declared fields to column indexes and maps every following row straight
+ * from the streamed cells. Rows are validated without exceptions and every
+ * drop is counted by reason in a {@link ParseReport}.
+ * NetPrice is computed: basePrice * (1 - offerPct / 100).
+ */
+public class DefinedParser implements SupplierParser {
+
+    /** Data rows inspected when the price column has to be inferred. */
+    private static final int INFER_ROWS = 5;
+
+    private final ParserDefinition definition;
+    private final Supplier supplier;
+    private ParseReport report;
+
+    public DefinedParser(ParserDefinition definition, Supplier supplier) {
+        this.definition = definition;
+        this.supplier = supplier;
+    }
+
+    @Override
+    public List<SupplierProduct> parse(File file) throws Exception {
+        List<SupplierProduct> products = new ArrayList<>();
+        parse(file, products::add);
+        return products;
+    }
+
+    /** Streams: only the rows held for price inference are buffered. */
+    @Override
+    public void parse(File file, Consumer<SupplierProduct> sink) throws Exception {
+        report = new ParseReport(supplier, file);
+        Run run = new Run(sink);
+        definition.newReader().read(file, run::row);
+        run.finish();
+        System.out.println("[DefinedParser] " + report);
+    }
+
+    @Override
+    public int getSkippedRows() {
+        return report != null ? report.getSkipped() : 0;
+    }
+
+    @Override
+    public ParseReport getParseReport() {
+        return report;
+    }
+
+    public ParserDefinition getDefinition() {
+        return definition;
+    }
+
+    /** State of one file. */
+    private final class Run {
+        final Consumer<SupplierProduct> sink;
+        int headerRow = -1;
+        int colBarcode, colPrice, colDesc, colStock, colIva, colCode, colBrand;
+        int[] offerCols;
+        boolean[] offerPercent;
+        /** Rows held back until the price column is inferred, with their indexes. */
+        List<String[]> pending;
+        List<Integer> pendingIndexes;
+        String[] headerCells;
+
+        Run(Consumer<SupplierProduct> sink) {
+            this.sink = sink;
+        }
+
+        void row(int index, String[] cells) throws Exception {
+            if (headerRow < 0) {
+                if (index >= definition.getScanRows())
+                    throw noHeader();
+                int[] columns = definition.matchHeader(cells);
+                if (columns != null)
+                    bind(index, columns, cells);
+                return;
+            }
+            if (pending != null) {
+                if (index <= headerRow + INFER_ROWS) {
+                    pending.add(cells);
+                    pendingIndexes.add(index);
+                    return;
+                }
+                flushPending();
+            }
+            map(index, cells);
+        }
+
+        void finish() throws Exception {
+            if (headerRow < 0)
+                throw noHeader();
+            if (pending != null)
+                flushPending();
+        }
+
+        private void bind(int index, int[] columns, String[] cells) {
+            headerRow = index;
+            colBarcode = column(columns, ParserDefinition.BARCODE);
+            colPrice = column(columns, ParserDefinition.PRICE);
+            colDesc = column(columns, ParserDefinition.DESCRIPTION);
+            colStock = column(columns, ParserDefinition.STOCK);
+            colIva = column(columns, ParserDefinition.IVA);
+            colCode = column(columns, ParserDefinition.CODE);
+            colBrand = column(columns, ParserDefinition.BRAND);
+            int[] offerFields = definition.getOfferFields();
+            offerCols = new int[offerFields.length];
+            for (int t = 0; t < offerFields.length; t++)
+                offerCols[t] = columns[offerFields[t]];
+            offerPercent = definition.getOfferPercent();
+            if (colPrice < 0 && definition.isInferPrice()) {
+                pending = new ArrayList<>();
+                pendingIndexes = new ArrayList<>();
+                headerCells = cells;
+            }
+
+            report.setHeaderRow(index);
+            List<String> fields = definition.getFields();
+            for (int f = 0; f < fields.size(); f++) {
+                if (columns[f] >= 0)
+                    report.addColumn(new ParseReport.Column(fields.get(f), columns[f],
+                            cell(cells, columns[f]).trim(), false));
+            }
+
+            StringBuilder log = new StringBuilder("[DefinedParser] " + supplier.name() + ": encabezado en fila "
+                    + index + " (");
+            for (int f = 0; f < fields.size(); f++) {
+                if (f > 0)
+                    log.append(", ");
+                log.append(fields.get(f)).append('=');
+                log.append(columns[f] >= 0 ? columns[f] + " '" + cell(cells, columns[f]).trim() + "'" : "-");
+            }
+            System.out.println(log.append(')'));
+        }
+
+        private int column(int[] columns, String field) {
+            int f = definition.fieldIndex(field);
+            return f >= 0 ? columns[f] : -1;
+        }
+
+        private void flushPending() {
+            colPrice = inferPriceColumn(pending);
+            System.out.println("[DefinedParser] " + supplier.name() + ": columna de precio inferida = " + colPrice);
+            if (colPrice >= 0)
+                report.addColumn(new ParseReport.Column(ParserDefinition.PRICE, colPrice,
+                        cell(headerCells, colPrice).trim(), true));
+            List<String[]> rows = pending;
+            List<Integer> indexes = pendingIndexes;
+            pending = null;
+            pendingIndexes = null;
+            for (int i = 0; i < rows.size(); i++)
+                map(indexes.get(i), rows.get(i));
+        }
+
+        /** First column (not barcode or description) holding a plausible number. */
+        private int inferPriceColumn(List<String[]> rows) {
+            for (String[] cells : rows) {
+                for (int c = 0; c < cells.length; c++) {
+                    if (c == colBarcode || c == colDesc || cells[c] == null)
+                        continue;
+                    String text = cells[c].trim();
+                    if (DataSanitizer.isNumber(text)) {
+                        double val = Double.parseDouble(text);
+                        if (val > 0.01 && val < 999999)
+                            return c;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        /** Validates and maps one data row; a row that fails a check is counted, never thrown. */
+        private void map(int index, String[] cells) {
+            report.rowRead();
+            String rawBarcode = cell(cells, colBarcode);
+            String barcode = DataSanitizer.cleanBarcode(rawBarcode);
+            if (barcode.isEmpty()) {
+                if (isBlank(cells))
+                    report.blankRow();
+                else
+                    report.skip(ParseReport.Reason.NO_BARCODE, index, cells);
+                return;
+            }
+            String rawPrice = cell(cells, colPrice);
+            if (rawPrice.isBlank()) {
+                report.skip(ParseReport.Reason.NO_PRICE, index, cells);
+                return;
+            }
+            double basePrice = DataSanitizer.tryParseDecimal(rawPrice);
+            if (Double.isNaN(basePrice)) {
+                report.skip(ParseReport.Reason.INVALID_PRICE, index, cells);
+                return;
+            }
+            if (basePrice <= 0) {
+                report.skip(ParseReport.Reason.NON_POSITIVE_PRICE, index, cells);
+                return;
+            }
+            String desc = colDesc >= 0 ? DataSanitizer.cleanDescription(cell(cells, colDesc)) : "";
+            int stock = colStock >= 0 ? DataSanitizer.parseStock(cell(cells, colStock))
+                    : definition.getStockDefault();
+            double offerPct = 0;
+            for (int t = 0; t < offerCols.length; t++) {
+                if (offerCols[t] < 0)
+                    continue;
+                String raw = cell(cells, offerCols[t]);
+                offerPct += offerPercent[t] ? DataSanitizer.parsePercent(raw.trim())
+                        : DataSanitizer.parseDecimal(raw.replace("%", ""));
+            }
+
+            SupplierProduct sp = new SupplierProduct(barcode, desc, basePrice, offerPct, stock, supplier);
+            if (colIva >= 0)
+                sp.setIva(DataSanitizer.parseIva(cell(cells, colIva)));
+            if (colCode >= 0)
+                sp.setInternalCode(cell(cells, colCode).trim());
+            if (colBrand >= 0)
+                sp.setBrand(cell(cells, colBrand).trim());
+            report.product();
+            if (DataSanitizer.hasBadCheckDigit(rawBarcode))
+                report.badCheckDigit();
+            sink.accept(sp);
+        }
+
+        private Exception noHeader() {
+            return new Exception("No se pudo detectar la fila de encabezados de " + supplier.getDisplayName()
+                    + " en las primeras " + definition.getScanRows() + " filas (" + definition.getSource() + ").");
+        }
+    }
+
+    private static boolean isBlank(String[] cells) {
+        for (String c : cells) {
+            if (c != null && !c.isBlank())
+                return false;
+        }
+        return true;
+    }
+
+    private static String cell(String[] cells, int idx) {
+        if (idx < 0 || idx >= cells.length || cells[idx] == null)
+            return "";
+        return cells[idx];
+    }
+}
@@ -0,0 +1,472 @@
+package com.pharmacyintel.parser;
+
+import org.apache.poi.hssf.eventusermodel.AbortableHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.HSSFUserException;
+import org.apache.poi.hssf.record.*;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * First sheet of an Excel file. {@code .xlsx} is streamed straight from the
+ * sheet XML (shared strings read-only, no styles, no cell objects), so memory
+ * stays flat however long the price list is; legacy {@code .xls} falls back to
+ * the POI workbook model.
+ * <p>
+ * {@link #readHead} stops at the row limit: {@code .xlsx} shared strings are
+ * then pulled only up to the last one referenced, and {@code .xls} goes
+ * through the record event API instead of the workbook model, so a header
+ * check costs milliseconds whatever the file size.
+ */
+public class ExcelRowReader implements RowReader {
+
+    /** Ends a sheet parse at the row limit; thrown once, so no stack trace. */
+    private static final class HeadDone extends SAXException {
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    @Override
+    public void read(File file, RowHandler handler) throws Exception {
+        if (FileMagic.valueOf(file) == FileMagic.OOXML)
+            readXlsx(file, Integer.MAX_VALUE, handler);
+        else
+            readWorkbook(file, handler);
+    }
+
+    @Override
+    public void readHead(File file, int maxRows, RowHandler handler) throws Exception {
+        if (FileMagic.valueOf(file) == FileMagic.OOXML)
+            readXlsx(file, maxRows, handler);
+        else
+            readXlsHead(file, maxRows, handler);
+    }
+
+    private void readXlsx(File file, int maxRows, RowHandler handler) throws Exception {
+        OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ);
+        LazySharedStrings lazy = null;
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            SharedStrings strings;
+            if (maxRows == Integer.MAX_VALUE)
+                strings = new ReadOnlySharedStringsTable(pkg, false);
+            else
+                strings = lazy = new LazySharedStrings(pkg);
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext())
+                return;
+            try (InputStream sheet = sheets.next()) {
+                XMLReader xml = XMLHelper.newXMLReader();
+                xml.setContentHandler(new SheetHandler(strings, handler, maxRows));
+                try {
+                    xml.parse(new InputSource(sheet));
+                } catch (HeadDone done) {
+                    // Row limit reached
+                } catch (SAXException e) {
+                    if (e.getException() != null)
+                        throw e.getException();
+                    throw e;
+                }
+            }
+        } finally {
+            if (lazy != null)
+                lazy.close();
+            pkg.revert();
+        }
+    }
+
+    /** First worksheet of a {@code .xls} up to the row limit, from the BIFF records. */
+    private void readXlsHead(File file, int maxRows, RowHandler handler) throws Exception {
+        try (POIFSFileSystem fs = new POIFSFileSystem(file, true)) {
+            XlsHeadListener listener = new XlsHeadListener(maxRows, handler);
+            HSSFRequest request = new HSSFRequest();
+            request.addListenerForAllRecords(listener);
+            try {
+                new HSSFEventFactory().abortableProcessWorkbookEvents(request, fs);
+            } catch (HSSFUserException e) {
+                if (e.getCause() instanceof Exception cause)
+                    throw cause;
+                throw e;
+            }
+            listener.flush();
+        }
+    }
+
+    private void readWorkbook(File file, RowHandler handler) throws Exception {
+        try (Workbook wb = WorkbookFactory.create(file, null, true)) {
+            Sheet sheet = wb.getSheetAt(0);
+            for (Row row : sheet) {
+                String[] cells = new String[Math.max(row.getLastCellNum(), 0)];
+                for (Cell cell : row)
+                    cells[cell.getColumnIndex()] = cellText(cell);
+                handler.row(row.getRowNum(), cells);
+            }
+        }
+    }
+
+    private static String cellText(Cell cell) {
+        return switch (cell.getCellType()) {
+            case STRING -> cell.getStringCellValue();
+            case NUMERIC -> RowReader.numberText(cell.getNumericCellValue());
+            case BOOLEAN -> String.valueOf(cell.getBooleanCellValue());
+            case FORMULA -> switch (cell.getCachedFormulaResultType()) {
+                case NUMERIC -> RowReader.numberText(cell.getNumericCellValue());
+                case STRING -> cell.getStringCellValue();
+                case BOOLEAN -> String.valueOf(cell.getBooleanCellValue());
+                default -> "";
+            };
+            default -> "";
+        };
+    }
+
+    /** SAX handler for {@code sheetN.xml}: {@code <row><c r="B2" t="s"><v>..</v></c></row>}. */
+    private static final class SheetHandler extends DefaultHandler {
+        private final SharedStrings strings;
+        private final RowHandler handler;
+        private final int maxRows;
+        private final StringBuilder value = new StringBuilder();
+        private String[] cells = new String[32];
+        private int rowIndex = -1;
+        private int column;
+        private int maxColumn;
+        private String type;
+        private boolean inValue;
+
+        SheetHandler(SharedStrings strings, RowHandler handler, int maxRows) {
+            this.strings = strings;
+            this.handler = handler;
+            this.maxRows = maxRows;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attrs) throws SAXException {
+            switch (localName) {
+                case "row" -> {
+                    String r = attrs.getValue("r");
+                    rowIndex = r != null ? Integer.parseInt(r) - 1 : rowIndex + 1;
+                    if (rowIndex >= maxRows)
+                        throw new HeadDone();
+                    column = -1;
+                    maxColumn = -1;
+                }
+                case "c" -> {
+                    String r = attrs.getValue("r");
+                    column = r != null ? columnOf(r) : column + 1;
+                    type = attrs.getValue("t");
+                    value.setLength(0);
+                }
+                case "v", "t" -> inValue = true;
+                default -> {
+                }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inValue)
+                value.append(ch, start, length);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+                case "v", "t" -> inValue = false;
+                case "c" -> {
+                    if (column >= cells.length)
+                        cells = Arrays.copyOf(cells, Math.max(column + 1, cells.length * 2));
+                    cells[column] = text();
+                    maxColumn = Math.max(maxColumn, column);
+                }
+                case "row" -> {
+                    String[] row = Arrays.copyOf(cells, maxColumn + 1);
+                    Arrays.fill(cells, 0, maxColumn + 1, null);
+                    try {
+                        handler.row(rowIndex, row);
+                    } catch (Exception e) {
+                        throw new SAXException(e);
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+
+        private String text() {
+            String raw = value.toString();
+            if (type == null || type.equals("n"))
+                return raw.isEmpty() ? "" : number(raw);
+            return switch (type) {
+                case "s" -> sharedString(raw.trim());
+                case "b" -> raw.equals("1") ? "true" : "false";
+                case "e" -> "";
+                default -> raw; // inlineStr, str (formula text)
+            };
+        }
+
+        /** A blank, malformed or out-of-range index is a blank cell, not a failed file. */
+        private String sharedString(String index) {
+            if (index.isEmpty() || index.length() > 9)
+                return "";
+            int idx = 0;
+            for (int i = 0; i < index.length(); i++) {
+                char ch = index.charAt(i);
+                if (ch < '0' || ch > '9')
+                    return "";
+                idx = idx * 10 + (ch - '0');
+            }
+            try {
+                return strings.getItemAt(idx).getString();
+            } catch (IndexOutOfBoundsException e) {
+                return "";
+            }
+        }
+
+        /** Integers pass through as written; anything else goes through {@link RowReader#numberText}. */
+        private static String number(String raw) {
+            if (raw.length() <= 18) {
+                boolean integral = true;
+                for (int i = 0; i < raw.length() && integral; i++) {
+                    char ch = raw.charAt(i);
+                    integral = (ch >= '0' && ch <= '9') || (i == 0 && ch == '-');
+                }
+                if (integral)
+                    return raw;
+            }
+            try {
+                return RowReader.numberText(Double.parseDouble(raw));
+            } catch (NumberFormatException e) {
+                return raw;
+            }
+        }
+
+        private static int columnOf(String ref) {
+            int col = 0;
+            for (int i = 0; i < ref.length(); i++) {
+                char ch = ref.charAt(i);
+                if (ch < 'A' || ch > 'Z')
+                    break;
+                col = col * 26 + (ch - 'A' + 1);
+            }
+            return col - 1;
+        }
+    }
+
+    /**
+     * {@code sharedStrings.xml} read on demand with a pull parser: only the
+     * strings up to the highest index asked for are parsed. Phonetic runs are
+     * left out, as in {@link ReadOnlySharedStringsTable}.
+     */
+    private static final class LazySharedStrings implements SharedStrings {
+        private final List<String> items = new ArrayList<>();
+        private final InputStream in;
+        private final XMLStreamReader xml;
+
+        LazySharedStrings(OPCPackage pkg) throws IOException, XMLStreamException {
+            List<PackagePart> parts = pkg.getPartsByContentType(XSSFRelation.SHARED_STRINGS.getContentType());
+            in = parts.isEmpty() ? null : parts.get(0).getInputStream();
+            xml = in != null ? XMLHelper.newXMLInputFactory().createXMLStreamReader(in) : null;
+        }
+
+        @Override
+        public RichTextString getItemAt(int idx) {
+            try {
+                while (items.size() <= idx && next()) {
+                }
+            } catch (XMLStreamException e) {
+                throw new IllegalStateException("sharedStrings.xml ilegible: " + e.getMessage(), e);
+            }
+            return new XSSFRichTextString(idx < items.size() ? items.get(idx) : "");
+        }
+
+        /** Parses the next {@code <si>}; false at the end of the part. */
+        private boolean next() throws XMLStreamException {
+            if (xml == null)
+                return false;
+            StringBuilder text = null;
+            int phonetic = 0;
+            boolean inText = false;
+            while (xml.hasNext()) {
+                switch (xml.next()) {
+                    case XMLStreamConstants.START_ELEMENT -> {
+                        switch (xml.getLocalName()) {
+                            case "si" -> text = new StringBuilder();
+                            case "rPh" -> phonetic++;
+                            case "t" -> inText = text != null && phonetic == 0;
+                            default -> {
+                            }
+                        }
+                    }
+                    case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE -> {
+                        if (inText)
+                            text.append(xml.getText());
+                    }
+                    case XMLStreamConstants.END_ELEMENT -> {
+                        switch (xml.getLocalName()) {
+                            case "t" -> inText = false;
+                            case "rPh" -> phonetic--;
+                            case "si" -> {
+                                items.add(text != null ? text.toString() : "");
+                                return true;
+                            }
+                            default -> {
+                            }
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public int getCount() {
+            return items.size();
+        }
+
+        @Override
+        public int getUniqueCount() {
+            return items.size();
+        }
+
+        void close() throws IOException {
+            try {
+                if (xml != null)
+                    xml.close();
+            } catch (XMLStreamException ignored) {
+            }
+            if (in != null)
+                in.close();
+        }
+    }
+
+    /**
+     * BIFF records of the first worksheet turned into rows: cells arrive row
+     * by row, so a row is handed over when the next one starts. Asks the event
+     * factory to stop at the row limit or the end of the sheet.
+     */
+    private static final class XlsHeadListener extends AbortableHSSFListener {
+        private final int maxRows;
+        private final RowHandler handler;
+        private SSTRecord sst;
+        private int worksheets;
+        private boolean done;
+        private int row = -1;
+        private String[] cells = new String[32];
+        private int maxColumn = -1;
+        /** Formula whose string result comes in the next StringRecord. */
+        private int formulaRow = -1, formulaColumn;
+
+        XlsHeadListener(int maxRows, RowHandler handler) {
+            this.maxRows = maxRows;
+            this.handler = handler;
+        }
+
+        @Override
+        public short abortableProcessRecord(org.apache.poi.hssf.record.Record record) throws HSSFUserException {
+            if (record instanceof BOFRecord bof && bof.getType() == BOFRecord.TYPE_WORKSHEET) {
+                worksheets++;
+                return 0;
+            }
+            if (record instanceof SSTRecord table) {
+                sst = table;
+                return 0;
+            }
+            if (worksheets != 1)
+                return (short) (worksheets > 1 ? 1 : 0);
+            try {
+                switch (record) {
+                    case LabelSSTRecord label -> cell(label.getRow(), label.getColumn(),
+                            sst != null ? sst.getString(label.getSSTIndex()).getString() : "");
+                    case NumberRecord number -> cell(number.getRow(), number.getColumn(),
+                            RowReader.numberText(number.getValue()));
+                    case RKRecord rk -> cell(rk.getRow(), rk.getColumn(), RowReader.numberText(rk.getRKNumber()));
+                    case MulRKRecord mul -> {
+                        for (int i = 0; i < mul.getNumColumns() && !done; i++)
+                            cell(mul.getRow(), mul.getFirstColumn() + i, RowReader.numberText(mul.getRKNumberAt(i)));
+                    }
+                    case LabelRecord label -> cell(label.getRow(), label.getColumn(), label.getValue());
+                    case FormulaRecord formula -> {
+                        if (formula.hasCachedResultString()) {
+                            formulaRow = formula.getRow();
+                            formulaColumn = formula.getColumn();
+                        } else if (formula.getCachedResultTypeEnum() == CellType.NUMERIC) {
+                            cell(formula.getRow(), formula.getColumn(), RowReader.numberText(formula.getValue()));
+                        }
+                    }
+                    case StringRecord string -> {
+                        if (formulaRow >= 0)
+                            cell(formulaRow, formulaColumn, string.getString());
+                        formulaRow = -1;
+                    }
+                    case EOFRecord eof -> flush();
+                    default -> {
+                    }
+                }
+            } catch (HSSFUserException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new HSSFUserException(e.getMessage(), e);
+            }
+            return (short) (done ? 1 : 0);
+        }
+
+        private void cell(int r, int column, String text) throws Exception {
+            if (done)
+                return;
+            if (r != row) {
+                flush();
+                if (r >= maxRows) {
+                    done = true;
+                    return;
+                }
+                row = r;
+            }
+            if (column >= cells.length)
+                cells = Arrays.copyOf(cells, Math.max(column + 1, cells.length * 2));
+            cells[column] = text;
+            maxColumn = Math.max(maxColumn, column);
+        }
+
+        /** Hands over the row being filled, if any. */
+        void flush() throws Exception {
+            if (row < 0)
+                return;
+            String[] out = Arrays.copyOf(cells, maxColumn + 1);
+            Arrays.fill(cells, 0, maxColumn + 1, null);
+            int index = row;
+            row = -1;
+            maxColumn = -1;
+            handler.row(index, out);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.pharmacyintel.parser;
+
+import com.pharmacyintel.model.Supplier;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What one parse of a supplier file read and dropped: plain counters per
+ * skip reason, the columns the header was bound to and the first
+ * {@value #MAX_SAMPLES} dropped rows as they appeared in the file. Filled by
+ * the parser thread while it streams the rows, then handed over read-only
+ * (to the run report and the UI).
+ */
+public final class ParseReport {
+
+    /** Dropped rows kept as examples; the rest are only counted. */
+    public static final int MAX_SAMPLES = 20;
+    /** Characters of a sample row kept. */
+    private static final int SAMPLE_CHARS = 160;
+
+    /** Why a data row produced no product. */
+    public enum Reason {
+        NO_BARCODE("Sin código de barra"),
+        NO_PRICE("Sin precio"),
+        INVALID_PRICE("Precio no numérico"),
+        NON_POSITIVE_PRICE("Precio cero o negativo"),
+        OTHER("Descartada por el parser");
+
+        private final String label;
+
+        Reason(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /** A field bound to a column; {@code header} is the header cell text. */
+    public record Column(String field, int index, String header, boolean inferred) {
+        /** Spreadsheet letter of the column ("A", "AB"...). */
+        public String letter() {
+            return columnLetter(index);
+        }
+    }
+
+    /** A dropped row: 1-based row number as shown by Excel, and its cells joined. */
+    public record Sample(int row, Reason reason, String content) {
+    }
+
+    private final Supplier supplier;
+    private final File file;
+    private final int[] skipped = new int[Reason.values().length];
+    private final List<Column> columns = new ArrayList<>();
+    private final List<Sample> samples = new ArrayList<>();
+    private int headerRow = -1;
+    private int rowsRead;
+    private int blankRows;
+    private int products;
+    private int badCheckDigits;
+
+    public ParseReport(Supplier supplier, File file) {
+        this.supplier = supplier;
+        this.file = file;
+    }
+
+    /** Header found at zero-based row {@code index}. */
+    public void setHeaderRow(int index) {
+        headerRow = index;
+    }
+
+    public void addColumn(Column column) {
+        columns.add(column);
+    }
+
+    /** A data row (after the header) came in. */
+    public void rowRead() {
+        rowsRead++;
+    }
+
+    /** A data row with no text at all; not counted as dropped. */
+    public void blankRow() {
+        blankRows++;
+    }
+
+    public void product() {
+        products++;
+    }
+
+    /** A product was read whose GTIN fails the GS1 check; it is kept under that code. */
+    public void badCheckDigit() {
+        badCheckDigits++;
+    }
+
+    /** Row at zero-based {@code index} dropped; its cells are kept while there is room for samples. */
+    public void skip(Reason reason, int index, String[] cells) {
+        skipped[reason.ordinal()]++;
+        if (samples.size() < MAX_SAMPLES)
+            samples.add(new Sample(index + 1, reason, join(cells)));
+    }
+
+    /** Rows dropped without detail, for parsers that only count them. */
+    public void addSkipped(Reason reason, int count) {
+        skipped[reason.ordinal()] += count;
+    }
+
+    public void setProducts(int products) {
+        this.products = products;
+    }
+
+    public Supplier getSupplier() {
+        return supplier;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /** Zero-based header row, or -1 when the parser does not report it. */
+    public int getHeaderRow() {
+        return headerRow;
+    }
+
+    public List<Column> getColumns() {
+        return Collections.unmodifiableList(columns);
+    }
+
+    public List<Sample> getSamples() {
+        return Collections.unmodifiableList(samples);
+    }
+
+    public int getRowsRead() {
+        return rowsRead;
+    }
+
+    public int getBlankRows() {
+        return blankRows;
+    }
+
+    public int getProducts() {
+        return products;
+    }
+
+    /** Products kept whose barcode has a wrong GS1 check digit (likely mistyped or truncated). */
+    public int getBadCheckDigits() {
+        return badCheckDigits;
+    }
+
+    public int getSkipped(Reason reason) {
+        return skipped[reason.ordinal()];
+    }
+
+    /** Data rows dropped for any reason (blank rows excluded). */
+    public int getSkipped() {
+        int total = 0;
+        for (int n : skipped)
+            total += n;
+        return total;
+    }
+
+    /** "12 sin precio, 3 sin código de barra", most frequent reason first; empty if nothing was dropped. */
+    public String describeSkipped() {
+        List<Reason> reasons = new ArrayList<>();
+        for (Reason r : Reason.values()) {
+            if (skipped[r.ordinal()] > 0)
+                reasons.add(r);
+        }
+        reasons.sort((a, b) -> Integer.compare(skipped[b.ordinal()], skipped[a.ordinal()]));
+        StringBuilder sb = new StringBuilder();
+        for (Reason r : reasons) {
+            if (sb.length() > 0)
+                sb.append(", ");
+            sb.append(skipped[r.ordinal()]).append(' ').append(r.getLabel().toLowerCase());
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        String s = supplier.name() + ": " + rowsRead + " filas, " + products + " productos, " + getSkipped()
+                + " descartadas";
+        if (getSkipped() > 0)
+            s += " (" + describeSkipped() + ")";
+        return badCheckDigits > 0 ? s + ", " + badCheckDigits + " con dígito verificador inválido" : s;
+    }
+
+    /** Spreadsheet letter of a zero-based column index. */
+    public static String columnLetter(int index) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = index + 1; i > 0; i = (i - 1) / 26)
+            sb.insert(0, (char) ('A' + (i - 1) % 26));
+        return sb.toString();
+    }
+
+    private static String join(String[] cells) {
+        StringBuilder sb = new StringBuilder();
+        for (int c = 0; c < cells.length && sb.length() < SAMPLE_CHARS; c++) {
+            if (c > 0)
+                sb.append(" | ");
+            if (cells[c] != null)
+                sb.append(cells[c].trim());
+        }
+        // Trailing empty cells add nothing
+        int end = sb.length();
+        while (end >= 3 && sb.substring(end - 3, end).equals(" | "))
+            end -= 3;
+        sb.setLength(Math.min(end, SAMPLE_CHARS));
+        return sb.toString();
+    }
+}
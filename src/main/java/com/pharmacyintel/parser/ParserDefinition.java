@@ -0,0 +1,344 @@
+package com.pharmacyintel.parser;
+
+import com.pharmacyintel.model.PriceCurrency;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.*;
+
+/**
+ * A supplier file format described in a {@code .properties} file and compiled
+ * once: header keywords become matchers, the offer expression becomes a list
+ * of column terms. {@link DefinedParser} applies it to each file.
+ *
+ * <pre>
+ * supplier=DROSUR
+ * format=xlsx
+ * header.scanRows=16
+ * header.required=barcode,price
+ * columns=barcode,price,promo,stock,description
+ * column.barcode=barra | ean | "codigo"
+ * column.price=precio + referencial !externo
+ * column.price.fallback=precio | costo
+ * column.promo=dcto + factura
+ * column.stock=exist | stock
+ * column.description=descripcion | producto !cod
+ * offer=percent(promo)
+ * stock.default=1
+ * price.infer=true
+ * </pre>
+ *
+ * {@code supplier} is the id; an id that is not registered yet creates a
+ * supplier from {@code displayName}, {@code currency} (USD or VES, default USD)
+ * and {@code color} (#RRGGBB). {@code format} is {@code xlsx} (also reads
+ * .xls) or {@code csv} with {@code csv.delimiter} (default ;) and
+ * {@code csv.charset} (default UTF-8). The header is the first of the first
+ * {@code header.scanRows} rows that has every {@code header.required} field.
+ * {@code offer} adds up its terms: a field holding a number, or
+ * {@code percent(field)} for text such as "Dcto en factura de 20,00%".
+ * {@code stock.default} applies when there is no stock column, and
+ * {@code price.infer} takes the first numeric column of the next rows when the
+ * header has no price.
+ * <p>
+ * Each column rule is a list of alternatives separated by {@code |}; an
+ * alternative matches a header containing every {@code +} term and none of the
+ * {@code !} terms, or equals a {@code "quoted"} text. Headers and keywords are
+ * compared trimmed, lower-case and without accents. Header cells are visited
+ * left to right and each goes to the first field in {@code columns} order that
+ * is still free and matches; fallbacks only fill fields left empty. Known
+ * fields are barcode, price, description, stock, iva, code and brand; any
+ * other name can be used as an offer term.
+ */
+public final class ParserDefinition {
+
+    public static final String BARCODE = "barcode";
+    public static final String PRICE = "price";
+    public static final String DESCRIPTION = "description";
+    public static final String STOCK = "stock";
+    public static final String IVA = "iva";
+    public static final String CODE = "code";
+    public static final String BRAND = "brand";
+
+    private final String source;
+    private final String supplierId;
+    private final String displayName;
+    private final PriceCurrency currency;
+    private final Integer rgb;
+    private final String format;
+    private final char delimiter;
+    private final Charset charset;
+    private final List<String> extensions;
+    private final int scanRows;
+    private final List<String> fields;
+    private final ColumnRule[] rules;
+    private final ColumnRule[] fallbacks;
+    private final int[] required;
+    private final int[] offerFields;
+    private final boolean[] offerPercent;
+    private final int stockDefault;
+    private final boolean inferPrice;
+
+    private ParserDefinition(Properties p, String source) {
+        this.source = source;
+        String id = p.getProperty("supplier", "").trim();
+        this.supplierId = id.isEmpty() ? null : id.toUpperCase(Locale.ROOT);
+        this.displayName = p.getProperty("displayName", "").trim();
+        this.currency = PriceCurrency.valueOf(p.getProperty("currency", "USD").trim().toUpperCase(Locale.ROOT));
+        String color = p.getProperty("color", "").trim();
+        this.rgb = color.isEmpty() ? null : Integer.parseInt(color.replace("#", ""), 16);
+
+        this.format = p.getProperty("format", "xlsx").trim().toLowerCase(Locale.ROOT);
+        if (!format.equals("csv") && !format.equals("xlsx"))
+            throw new IllegalArgumentException("Formato no soportado: " + format);
+        String delim = p.getProperty("csv.delimiter", ";");
+        this.delimiter = delim.isEmpty() ? ';' : delim.charAt(0);
+        this.charset = Charset.forName(p.getProperty("csv.charset", "UTF-8").trim());
+        List<String> ext = list(p.getProperty("extensions", ""));
+        this.extensions = !ext.isEmpty() ? ext : format.equals("csv") ? List.of("csv") : List.of("xlsx", "xls");
+        this.scanRows = Integer.parseInt(p.getProperty("header.scanRows", "16").trim());
+
+        this.fields = list(p.getProperty("columns", ""));
+        if (!fields.contains(BARCODE))
+            throw new IllegalArgumentException("'columns' debe incluir " + BARCODE);
+        this.rules = new ColumnRule[fields.size()];
+        this.fallbacks = new ColumnRule[fields.size()];
+        for (int f = 0; f < fields.size(); f++) {
+            String key = "column." + fields.get(f);
+            String rule = p.getProperty(key);
+            if (rule == null || rule.isBlank())
+                throw new IllegalArgumentException("Falta '" + key + "'");
+            rules[f] = new ColumnRule(rule);
+            String fallback = p.getProperty(key + ".fallback");
+            if (fallback != null && !fallback.isBlank())
+                fallbacks[f] = new ColumnRule(fallback);
+        }
+        this.required = list(p.getProperty("header.required", BARCODE + "," + PRICE)).stream()
+                .mapToInt(this::requireField).toArray();
+
+        String offer = p.getProperty("offer", fields.contains("offer") ? "offer" : "");
+        List<String> terms = offer.isBlank() ? List.of() : Arrays.stream(offer.split("\\+")).map(String::trim).toList();
+        this.offerFields = new int[terms.size()];
+        this.offerPercent = new boolean[terms.size()];
+        for (int t = 0; t < terms.size(); t++) {
+            String term = terms.get(t);
+            boolean percent = term.startsWith("percent(") && term.endsWith(")");
+            offerPercent[t] = percent;
+            offerFields[t] = requireField(percent ? term.substring(8, term.length() - 1).trim() : term);
+        }
+        this.stockDefault = Integer.parseInt(p.getProperty("stock.default", "0").trim());
+        this.inferPrice = Boolean.parseBoolean(p.getProperty("price.infer", "false").trim());
+    }
+
+    /** Read and compile a definition; {@code source} names it in error messages. */
+    public static ParserDefinition load(InputStream in, String source) throws IOException {
+        Properties p = new Properties();
+        p.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+        try {
+            return new ParserDefinition(p, source);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(source + ": " + e.getMessage(), e);
+        }
+    }
+
+    public static ParserDefinition load(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return load(in, file.getName());
+        }
+    }
+
+    /** Bundled definition {@code /parsers/<name>.properties}, or {@code null}. */
+    public static ParserDefinition resource(String name) throws IOException {
+        String path = "/parsers/" + name.toLowerCase(Locale.ROOT) + ".properties";
+        try (InputStream in = ParserDefinition.class.getResourceAsStream(path)) {
+            return in != null ? load(in, path) : null;
+        }
+    }
+
+    public RowReader newReader() {
+        return format.equals("csv") ? new CsvRowReader(delimiter, charset) : new ExcelRowReader();
+    }
+
+    /** Definitions with the same key read a file into the same rows. */
+    String readerKey() {
+        return format.equals("csv") ? "csv:" + delimiter + ":" + charset.name() : format;
+    }
+
+    /**
+     * Column of every field (in {@link #getFields()} order, -1 when absent) if
+     * this row is a header, or {@code null} when a required field is missing.
+     */
+    int[] matchHeader(String[] cells) {
+        int[] columns = new int[fields.size()];
+        Arrays.fill(columns, -1);
+        String[] headers = new String[cells.length];
+        boolean[] claimed = new boolean[cells.length];
+        for (int c = 0; c < cells.length; c++) {
+            headers[c] = normalize(cells[c]);
+            if (headers[c].isEmpty())
+                continue;
+            for (int f = 0; f < rules.length; f++) {
+                if (columns[f] < 0 && rules[f].matches(headers[c])) {
+                    columns[f] = c;
+                    claimed[c] = true;
+                    break;
+                }
+            }
+        }
+        for (int f = 0; f < fallbacks.length; f++) {
+            if (columns[f] >= 0 || fallbacks[f] == null)
+                continue;
+            for (int c = 0; c < cells.length && columns[f] < 0; c++) {
+                if (!claimed[c] && !headers[c].isEmpty() && fallbacks[f].matches(headers[c])) {
+                    columns[f] = c;
+                    claimed[c] = true;
+                }
+            }
+        }
+        for (int f : required) {
+            if (columns[f] < 0)
+                return null;
+        }
+        return columns;
+    }
+
+    /** Trimmed, lower-case, accents removed. */
+    static String normalize(String text) {
+        if (text == null)
+            return "";
+        String s = text.replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT);
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0x7F)
+                return Normalizer.normalize(s, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        }
+        return s;
+    }
+
+    private int requireField(String name) {
+        int f = fields.indexOf(name);
+        if (f < 0)
+            throw new IllegalArgumentException("Campo no declarado en 'columns': " + name);
+        return f;
+    }
+
+    private static List<String> list(String value) {
+        return Arrays.stream(value.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /** Supplier id, or {@code null} for a definition shared by several suppliers. */
+    public String getSupplierId() {
+        return supplierId;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public PriceCurrency getCurrency() {
+        return currency;
+    }
+
+    /** 0xRRGGBB, or {@code null} when not given. */
+    public Integer getRgb() {
+        return rgb;
+    }
+
+    public List<String> getExtensions() {
+        return extensions;
+    }
+
+    public int getScanRows() {
+        return scanRows;
+    }
+
+    public List<String> getFields() {
+        return fields;
+    }
+
+    public int fieldIndex(String name) {
+        return fields.indexOf(name);
+    }
+
+    int[] getOfferFields() {
+        return offerFields;
+    }
+
+    boolean[] getOfferPercent() {
+        return offerPercent;
+    }
+
+    public int getStockDefault() {
+        return stockDefault;
+    }
+
+    public boolean isInferPrice() {
+        return inferPrice;
+    }
+
+    /** {@code a + b !c | "exact"}, compiled. */
+    private static final class ColumnRule {
+        private final String[] exact;
+        private final String[][] all;
+        private final String[][] none;
+
+        ColumnRule(String rule) {
+            String[] alternatives = rule.split("\\|");
+            List<String> exactList = new ArrayList<>();
+            List<String[]> allList = new ArrayList<>();
+            List<String[]> noneList = new ArrayList<>();
+            for (String alt : alternatives) {
+                String a = alt.trim();
+                if (a.isEmpty())
+                    continue;
+                if (a.length() > 1 && a.startsWith("\"") && a.endsWith("\"")) {
+                    exactList.add(normalize(a.substring(1, a.length() - 1)));
+                    continue;
+                }
+                String[] parts = a.split("!");
+                allList.add(terms(parts[0].split("\\+")));
+                noneList.add(terms(Arrays.copyOfRange(parts, 1, parts.length)));
+            }
+            this.exact = exactList.toArray(String[]::new);
+            this.all = allList.toArray(String[][]::new);
+            this.none = noneList.toArray(String[][]::new);
+        }
+
+        private static String[] terms(String[] raw) {
+            return Arrays.stream(raw).map(ParserDefinition::normalize).filter(s -> !s.isEmpty())
+                    .toArray(String[]::new);
+        }
+
+        boolean matches(String header) {
+            for (String e : exact) {
+                if (header.equals(e))
+                    return true;
+            }
+            for (int a = 0; a < all.length; a++) {
+                if (containsAll(header, all[a]) && containsNone(header, none[a]))
+                    return true;
+            }
+            return false;
+        }
+
+        private static boolean containsAll(String header, String[] terms) {
+            for (String t : terms) {
+                if (!header.contains(t))
+                    return false;
+            }
+            return terms.length > 0;
+        }
+
+        private static boolean containsNone(String header, String[] terms) {
+            for (String t : terms) {
+                if (header.contains(t))
+                    return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.pharmacyintel.parser;
+
+import java.io.File;
+
+/**
+ * Streams the rows of a supplier file as plain strings, one callback per row,
+ * without building the whole sheet in memory. Numeric cells arrive in a single
+ * canonical form: integral values without decimals ("7591234567890"), others
+ * as {@link Double#toString} ("12.35").
+ */
+public interface RowReader {
+
+    void read(File file, RowHandler handler) throws Exception;
+
+    /**
+     * Only the rows with index below {@code maxRows}, for looking at a header
+     * without reading the file. Readers override this to stop early; the
+     * default reads everything and drops the rest.
+     */
+    default void readHead(File file, int maxRows, RowHandler handler) throws Exception {
+        read(file, (index, cells) -> {
+            if (index < maxRows)
+                handler.row(index, cells);
+        });
+    }
+
+    @FunctionalInterface
+    interface RowHandler {
+        /**
+         * @param index zero-based physical row number in the file
+         * @param cells cell texts by column; missing cells are {@code null}
+         */
+        void row(int index, String[] cells) throws Exception;
+    }
+
+    /** Canonical text of a numeric cell value. */
+    static String numberText(double value) {
+        if (value == Math.floor(value) && !Double.isInfinite(value))
+            return String.valueOf((long) value);
+        return String.valueOf(value);
+    }
+}
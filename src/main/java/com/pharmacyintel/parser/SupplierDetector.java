@@ -0,0 +1,190 @@
+package com.pharmacyintel.parser;
+
+import com.pharmacyintel.model.Supplier;
+
+import java.io.File;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Works out which supplier a file belongs to without parsing it. Only the
+ * first rows are read (see {@link RowReader#readHead}) and every declarative
+ * format that accepts the extension scores them: the share of the row's
+ * non-empty cells and of the format's fields that its header rules bind. The
+ * best score wins; formats with the same header (Dromarko and 365) are told
+ * apart by the supplier id or name in the file name ("Lista_Nena_19-10.xlsx",
+ * "precios-f24.xlsx"). Plugin formats have no header to check and are only
+ * found by name.
+ */
+public final class SupplierDetector {
+
+    /**
+     * Outcome of {@link #classify}: the supplier, or null when no header
+     * matched or the tie could not be broken, and the suppliers whose header
+     * fits the file best (more than one only on a tie). A weaker match is not
+     * a candidate: Nena's header rules also bind Cobeca's header, but not as
+     * many columns.
+     */
+    public record Result(Supplier supplier, List<Supplier> candidates) {
+        public boolean accepts(Supplier s) {
+            return s == supplier || candidates.contains(s);
+        }
+    }
+
+    /** Ends a header scan early; thrown once per file, so no stack trace. */
+    private static final class Stop extends Exception {
+        Stop() {
+            super(null, null, false, false);
+        }
+    }
+
+    private SupplierDetector() {
+    }
+
+    /** Supplier of the file, or null if it is not recognized. */
+    public static Supplier detect(File file) {
+        return classify(file).supplier();
+    }
+
+    /**
+     * Scores the header of the file against every format that reads its
+     * extension. The head is read once per reader configuration (all the
+     * {@code ;} CSV formats share one read).
+     */
+    public static Result classify(File file) {
+        long start = System.nanoTime();
+        String ext = extension(normalize(file.getName()));
+        Map<String, List<Supplier>> groups = new LinkedHashMap<>();
+        for (Supplier s : Supplier.values()) {
+            ParserDefinition definition = SupplierRegistry.getDefinition(s);
+            if (definition != null && SupplierRegistry.getFileExtensions(s).contains(ext))
+                groups.computeIfAbsent(definition.readerKey(), k -> new ArrayList<>()).add(s);
+        }
+
+        Map<Supplier, Double> scores = new LinkedHashMap<>();
+        for (List<Supplier> group : groups.values()) {
+            try {
+                scoreGroup(file, group, scores);
+            } catch (Exception e) {
+                System.out.println("[SupplierDetector] " + file.getName() + " ilegible: " + e.getMessage());
+            }
+        }
+
+        double best = scores.values().stream().mapToDouble(Double::doubleValue).max().orElse(0);
+        List<Supplier> candidates = scores.keySet().stream().filter(s -> scores.get(s) == best).toList();
+        Supplier named = byFileName(file);
+        Supplier supplier = null;
+        if (candidates.size() == 1)
+            supplier = candidates.get(0);
+        else if (candidates.contains(named))
+            supplier = named;
+        else if (candidates.isEmpty() && named != null && SupplierRegistry.getDefinition(named) == null)
+            supplier = named;
+
+        System.out.printf("[SupplierDetector] %s → %s en %d ms%s%n", file.getName(),
+                supplier != null ? supplier.name() : "?", (System.nanoTime() - start) / 1_000_000,
+                candidates.size() > 1 ? " (empate " + candidates + ")" : "");
+        return new Result(supplier, candidates);
+    }
+
+    /**
+     * Best header score of each supplier in the group over its own
+     * {@code scanRows}; suppliers with no header row are left out.
+     */
+    private static void scoreGroup(File file, List<Supplier> group, Map<Supplier, Double> scores) throws Exception {
+        ParserDefinition[] definitions = new ParserDefinition[group.size()];
+        int maxRows = 0;
+        for (int i = 0; i < definitions.length; i++) {
+            definitions[i] = SupplierRegistry.getDefinition(group.get(i));
+            maxRows = Math.max(maxRows, definitions[i].getScanRows());
+        }
+        definitions[0].newReader().readHead(file, maxRows, (index, cells) -> {
+            int nonEmpty = 0;
+            for (String cell : cells) {
+                if (cell != null && !cell.isBlank())
+                    nonEmpty++;
+            }
+            if (nonEmpty == 0)
+                return;
+            for (int i = 0; i < definitions.length; i++) {
+                ParserDefinition definition = definitions[i];
+                if (index >= definition.getScanRows())
+                    continue;
+                int[] columns = definition.matchHeader(cells);
+                if (columns == null)
+                    continue;
+                int bound = 0;
+                for (int c : columns) {
+                    if (c >= 0)
+                        bound++;
+                }
+                double score = 2.0 * bound / (definition.getFields().size() + nonEmpty);
+                scores.merge(group.get(i), score, Math::max);
+            }
+        });
+    }
+
+    /**
+     * Supplier whose id or display name appears in the file name (accents and
+     * case ignored; a number must not run into other digits, so "365" is not
+     * found in "20261365") and accepts the extension. Null if none or more
+     * than one supplier matches.
+     */
+    public static Supplier byFileName(File file) {
+        String name = normalize(file.getName());
+        String ext = extension(name);
+        int dot = name.lastIndexOf('.');
+        String stem = dot >= 0 ? name.substring(0, dot) : name;
+        Supplier found = null;
+        for (Supplier s : Supplier.values()) {
+            if (!SupplierRegistry.getFileExtensions(s).contains(ext))
+                continue;
+            if (mentions(stem, normalize(s.name())) || mentions(stem, normalize(s.getDisplayName()))) {
+                if (found != null && found != s)
+                    return null;
+                found = s;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * True if the first {@code header.scanRows} rows hold the supplier's
+     * header. Plugin formats cannot be checked and are accepted.
+     */
+    public static boolean hasHeader(Supplier supplier, File file) {
+        ParserDefinition definition = SupplierRegistry.getDefinition(supplier);
+        if (definition == null)
+            return true;
+        try {
+            definition.newReader().readHead(file, definition.getScanRows(), (index, cells) -> {
+                if (definition.matchHeader(cells) != null)
+                    throw new Stop();
+            });
+        } catch (Stop stop) {
+            return true;
+        } catch (Exception e) {
+            System.out.println("[SupplierDetector] " + file.getName() + " ilegible: " + e.getMessage());
+        }
+        return false;
+    }
+
+    private static String extension(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 ? name.substring(dot + 1) : "";
+    }
+
+    private static boolean mentions(String text, String key) {
+        if (key.isEmpty())
+            return false;
+        String regex = (Character.isDigit(key.charAt(0)) ? "(?<![0-9])" : "") + Pattern.quote(key)
+                + (Character.isDigit(key.charAt(key.length() - 1)) ? "(?![0-9])" : "");
+        return Pattern.compile(regex).matcher(text).find();
+    }
+
+    /** Lower case, without accents. */
+    private static String normalize(String s) {
+        return Normalizer.normalize(s, Normalizer.Form.NFD).replaceAll("\\p{M}", "").toLowerCase(Locale.ROOT);
+    }
+}
@@ -3,8 +3,32 @@ package com.pharmacyintel.parser;
 import com.pharmacyintel.model.SupplierProduct;
 import java.io.File;
 import java.util.List;
+import java.util.function.Consumer;
 
 /** Strategy interface for supplier-specific file parsers */
 public interface SupplierParser {
     List<SupplierProduct> parse(File file) throws Exception;
+
+    /**
+     * Hand each product to {@code sink} as soon as its row is read, so the
+     * caller decides what to keep. The default parses the whole file first.
+     */
+    default void parse(File file, Consumer<SupplierProduct> sink) throws Exception {
+        for (SupplierProduct sp : parse(file))
+            sink.accept(sp);
+    }
+
+    /** Data rows dropped by the last {@link #parse} (no barcode, no price or malformed). */
+    default int getSkippedRows() {
+        return 0;
+    }
+
+    /**
+     * Counters, detected columns and sample dropped rows of the last
+     * {@link #parse}, or null if the parser does not keep them (only
+     * {@link #getSkippedRows} is then known).
+     */
+    default ParseReport getParseReport() {
+        return null;
+    }
 }
@@ -0,0 +1,51 @@
+package com.pharmacyintel.parser;
+
+import com.pharmacyintel.model.PriceCurrency;
+import com.pharmacyintel.model.Supplier;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Service-provider interface for onboarding a wholesaler without changing the
+ * application. Implementations are discovered with {@link java.util.ServiceLoader}:
+ * ship a jar on the classpath containing the class and a
+ * {@code META-INF/services/com.pharmacyintel.parser.SupplierPlugin} file
+ * naming it. Formats that only differ in column names are simpler to add as a
+ * {@link ParserDefinition} file; a plugin is for suppliers whose files need
+ * code.
+ */
+public interface SupplierPlugin {
+
+    /** Identifier (upper-cased), as used in {@code --file ID=ruta}. */
+    String getId();
+
+    String getDisplayName();
+
+    /** Currency of the price column; VES prices are projected with the BCV rate. */
+    PriceCurrency getCurrency();
+
+    /** Brand color as 0xRRGGBB. */
+    default int getRgb() {
+        return 0x9E9E9E;
+    }
+
+    /** Accepted file extensions, without the dot; the first one is shown as a hint. */
+    default List<String> getFileExtensions() {
+        return List.of("xlsx", "xls");
+    }
+
+    /**
+     * Parser for this supplier's files. The default is the bundled
+     * {@code generic} definition: barcode, PRECIO ($/USD), DA(%), description
+     * and stock located by their header names.
+     */
+    default SupplierParser createParser(Supplier supplier) {
+        try {
+            return new DefinedParser(ParserDefinition.resource("generic"), supplier);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.pharmacyintel.parser;
+
+import com.pharmacyintel.model.GlobalConfig;
+import com.pharmacyintel.model.Supplier;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Parsers and file types for every {@link Supplier}. Formats are
+ * {@link ParserDefinition}s: the bundled {@code /parsers/*.properties}, then
+ * any {@code .properties} in the {@code parsers} folder of the data directory
+ * (same id overrides, new id registers a supplier); {@link SupplierPlugin}s
+ * found on the classpath cover formats a definition cannot describe. Call
+ * {@link #load()} at startup, before any catalog, table or export is built, so
+ * every component sizes its per-supplier columns from the complete list.
+ */
+public final class SupplierRegistry {
+
+    private static final List<String> EXCEL = List.of("xlsx", "xls");
+
+    private static final Map<Supplier, ParserDefinition> DEFINITIONS = new ConcurrentHashMap<>();
+    private static final Map<Supplier, SupplierPlugin> PLUGINS = new ConcurrentHashMap<>();
+    private static volatile boolean loaded;
+
+    private SupplierRegistry() {
+    }
+
+    /**
+     * Load definitions and discover plugins (once). A definition or plugin that
+     * fails to load is skipped with a log line.
+     */
+    public static synchronized void load() {
+        if (loaded)
+            return;
+        for (Supplier supplier : Supplier.values()) {
+            try {
+                ParserDefinition definition = ParserDefinition.resource(supplier.name());
+                if (definition != null)
+                    DEFINITIONS.put(supplier, definition);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("[SupplierRegistry] Definicion ignorada: " + e.getMessage());
+            }
+        }
+        loadPlugins();
+        loadDefinitions(new File(GlobalConfig.getInstance().getDataDir(), "parsers"));
+        loaded = true;
+    }
+
+    private static void loadPlugins() {
+        Iterator<SupplierPlugin> it = ServiceLoader.load(SupplierPlugin.class).iterator();
+        while (true) {
+            try {
+                if (!it.hasNext())
+                    break;
+                SupplierPlugin plugin = it.next();
+                Supplier supplier = Supplier.register(plugin.getId(), plugin.getDisplayName(), plugin.getRgb(),
+                        plugin.getCurrency());
+                PLUGINS.put(supplier, plugin);
+                logRegistered(supplier);
+            } catch (ServiceConfigurationError | RuntimeException e) {
+                System.err.println("[SupplierRegistry] Plugin ignorado: " + e.getMessage());
+            }
+        }
+    }
+
+    /** User definitions, in file-name order so supplier ordinals are stable. */
+    private static void loadDefinitions(File dir) {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".properties"));
+        if (files == null)
+            return;
+        Arrays.sort(files);
+        for (File file : files) {
+            try {
+                ParserDefinition definition = ParserDefinition.load(file);
+                String id = definition.getSupplierId();
+                if (id == null)
+                    throw new IllegalArgumentException(file.getName() + ": falta 'supplier'");
+                Supplier supplier;
+                try {
+                    supplier = Supplier.valueOf(id);
+                } catch (IllegalArgumentException unknown) {
+                    supplier = Supplier.register(id, definition.getDisplayName().isEmpty() ? id
+                            : definition.getDisplayName(),
+                            definition.getRgb() != null ? definition.getRgb() : 0x9E9E9E, definition.getCurrency());
+                    logRegistered(supplier);
+                }
+                DEFINITIONS.put(supplier, definition);
+                PLUGINS.remove(supplier);
+                System.out.println("[SupplierRegistry] Formato " + supplier.name() + " desde " + file);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("[SupplierRegistry] Definicion ignorada: " + e.getMessage());
+            }
+        }
+    }
+
+    private static void logRegistered(Supplier supplier) {
+        System.out.println("[SupplierRegistry] Proveedor registrado: " + supplier.name() + " ("
+                + supplier.getDisplayName() + ", " + supplier.getCurrency() + ")");
+    }
+
+    /**
+     * New parser instance for one file of the given supplier.
+     *
+     * @throws IllegalArgumentException if the supplier has no parser
+     */
+    public static SupplierParser createParser(Supplier supplier) {
+        if (!loaded)
+            load();
+        ParserDefinition definition = DEFINITIONS.get(supplier);
+        if (definition != null)
+            return new DefinedParser(definition, supplier);
+        SupplierPlugin plugin = PLUGINS.get(supplier);
+        if (plugin == null)
+            throw new IllegalArgumentException("Proveedor sin parser registrado: " + supplier.name());
+        return plugin.createParser(supplier);
+    }
+
+    /** Format of a definition-driven supplier, or null for a plugin (or an unknown supplier). */
+    public static ParserDefinition getDefinition(Supplier supplier) {
+        if (!loaded)
+            load();
+        return DEFINITIONS.get(supplier);
+    }
+
+    /** Accepted extensions (without the dot); the first is the usual one. */
+    public static List<String> getFileExtensions(Supplier supplier) {
+        if (!loaded)
+            load();
+        ParserDefinition definition = DEFINITIONS.get(supplier);
+        if (definition != null)
+            return definition.getExtensions();
+        SupplierPlugin plugin = PLUGINS.get(supplier);
+        return plugin != null ? plugin.getFileExtensions() : EXCEL;
+    }
+}
@@ -0,0 +1,421 @@
+package com.pharmacyintel.report;
+
+import com.pharmacyintel.metrics.ExportEvent;
+import com.pharmacyintel.model.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plain CSV/TSV export with the same column layout as {@link ExcelExporter}.
+ * Rows are streamed straight into a direct buffer flushed through a
+ * {@link FileChannel}; numbers are formatted by hand (dot decimal separator,
+ * no grouping) so downstream scripts can read the raw values.
+ */
+public class DelimitedExporter {
+
+    public enum Format {
+        CSV(',', "csv"),
+        TSV('\t', "tsv");
+
+        private final char delimiter;
+        private final String extension;
+
+        Format(char delimiter, String extension) {
+            this.delimiter = delimiter;
+            this.extension = extension;
+        }
+
+        public char getDelimiter() {
+            return delimiter;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private static final Supplier[] SUPPLIERS = Supplier.values();
+    private static final Supplier BASE_SUPPLIER = Supplier.DROACTIVA;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final long[] POW10 = { 1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L };
+
+    private final Format format;
+    private final char delimiter;
+    private ByteBuffer buffer;
+    private FileChannel channel;
+
+    public DelimitedExporter(Format format) {
+        this.format = format;
+        this.delimiter = format.getDelimiter();
+    }
+
+    public File export(Map<String, MasterProduct> catalog, File outputDir, String activeFilter, boolean stockOnly)
+            throws IOException {
+        String filename = "Analisis_Precio_" +
+                LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmm")) + "." + format.getExtension();
+        File outputFile = new File(outputDir, filename);
+
+        ExportEvent event = new ExportEvent();
+        event.begin();
+        boolean isSinInventario = ReportFilters.FILTER_SIN_INVENTARIO.equals(activeFilter);
+        List<MasterProduct> products = ReportFilters.filterAndSort(catalog, activeFilter, isSinInventario);
+
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        try (FileChannel fc = FileChannel.open(outputFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel = fc;
+            if (ReportFilters.isStrategicFilter(activeFilter)) {
+                writeStrategicReport(products, activeFilter, stockOnly);
+            } else {
+                writeFullReport(products, stockOnly);
+            }
+            flush();
+        } finally {
+            channel = null;
+            buffer = null;
+        }
+        event.finish(format.getExtension(), activeFilter, stockOnly, products.size(), outputFile);
+        return outputFile;
+    }
+
+    // ====================================================================
+    // FULL REPORT (mirrors ExcelExporter.writeFullReport)
+    // ====================================================================
+
+    private void writeFullReport(List<MasterProduct> products, boolean stockOnly) throws IOException {
+        text("Código de Barras");
+        sep();
+        text("Código Interno");
+        sep();
+        text("Descripción");
+        for (Supplier s : SUPPLIERS) {
+            sep();
+            text("PV " + s.getDisplayName());
+            sep();
+            text("OF% " + s.getDisplayName());
+            sep();
+            text("Neto " + s.getDisplayName());
+            sep();
+            text("Stock " + s.getDisplayName());
+        }
+        sep();
+        text("Posición " + BASE_SUPPLIER.getDisplayName());
+        sep();
+        text("# Prov");
+        sep();
+        text("MARCA");
+        sep();
+        text("DIF %");
+        sep();
+        text("DIF USD");
+        sep();
+        text("Margen USD");
+        newline();
+
+        for (MasterProduct mp : products) {
+            text(mp.getBarcode());
+            sep();
+            text(mp.getInternalCode());
+            sep();
+            text(mp.getDescription());
+
+            for (Supplier s : SUPPLIERS) {
+                int stock = mp.getStockForSupplier(s);
+                boolean hidden = stockOnly && stock <= 0;
+                sep();
+                positive(hidden ? 0 : mp.getBasePriceForSupplier(s), 2);
+                sep();
+                positiveInt(hidden ? 0 : Math.round(mp.getOfferPctForSupplier(s)));
+                sep();
+                positive(hidden ? 0 : mp.getNetPriceForSupplier(s), 2);
+                sep();
+                positiveInt(stock);
+            }
+
+            int basePos = mp.getPositionForSupplier(BASE_SUPPLIER);
+            int supplierCount = mp.getSupplierCount();
+            sep();
+            if (basePos > 0) {
+                number(basePos);
+                ascii(" de ");
+                number(supplierCount);
+            }
+            sep();
+            number(supplierCount);
+            sep();
+            text(mp.getBrand());
+            sep();
+            positive(mp.getDiffPct(stockOnly) / 100.0, 4);
+            sep();
+            positive(mp.getDiffAmount(stockOnly), 2);
+            sep();
+            positive(mp.getSimulatedMargin(stockOnly), 2);
+            newline();
+        }
+    }
+
+    // ====================================================================
+    // STRATEGIC REPORT (mirrors ExcelExporter.writeStrategicReport)
+    // ====================================================================
+
+    private void writeStrategicReport(List<MasterProduct> products, String activeFilter, boolean stockOnly)
+            throws IOException {
+        boolean isPrecio = ReportFilters.FILTER_MEJOR_PRECIO.equals(activeFilter);
+        boolean isOferta = ReportFilters.FILTER_MEJOR_OFERTA.equals(activeFilter)
+                || ReportFilters.FILTER_PEOR_OFERTA.equals(activeFilter);
+        boolean skipDiffAndPos = isOferta;
+
+        String metricPrefix = isPrecio ? "PV" : isOferta ? "OF%" : "Neto";
+        text("Código de Barras");
+        sep();
+        text("Código Interno");
+        sep();
+        text("Descripción");
+        for (Supplier s : SUPPLIERS) {
+            sep();
+            text(metricPrefix + " " + s.getDisplayName());
+        }
+        if (!skipDiffAndPos) {
+            sep();
+            text("Diferencial $");
+            sep();
+            text("% Diferencial");
+        }
+        for (Supplier s : SUPPLIERS) {
+            sep();
+            text("Inv. " + s.getDisplayName());
+        }
+        if (!skipDiffAndPos) {
+            for (Supplier s : SUPPLIERS) {
+                sep();
+                text("Pos. " + s.getDisplayName());
+            }
+        }
+        newline();
+
+        for (MasterProduct mp : products) {
+            text(mp.getBarcode());
+            sep();
+            text(mp.getInternalCode());
+            sep();
+            text(mp.getDescription());
+
+            double droValue = 0;
+            double bestOtherValue = Double.MAX_VALUE;
+            for (Supplier s : SUPPLIERS) {
+                double val;
+                if (isPrecio) {
+                    val = mp.getBasePriceForSupplier(s);
+                } else if (isOferta) {
+                    val = mp.getOfferPctForSupplier(s);
+                } else {
+                    val = mp.getNetPriceForSupplier(s);
+                }
+                if (stockOnly && mp.getStockForSupplier(s) <= 0) {
+                    val = 0;
+                }
+
+                sep();
+                if (isOferta) {
+                    positiveInt(val > 0 ? Math.round(val) : 0);
+                } else {
+                    positive(val, 2);
+                }
+
+                if (s == BASE_SUPPLIER) {
+                    droValue = val;
+                } else if (val > 0 && !isOferta && val < bestOtherValue) {
+                    bestOtherValue = val;
+                }
+            }
+
+            if (!skipDiffAndPos) {
+                double diffAmt = 0;
+                double diffPctVal = 0;
+                if (isPrecio) {
+                    if (droValue > 0 && bestOtherValue < Double.MAX_VALUE && bestOtherValue > 0) {
+                        diffAmt = droValue - bestOtherValue;
+                        diffPctVal = diffAmt / droValue;
+                    }
+                } else {
+                    Supplier winner = mp.getWinnerSupplier(stockOnly);
+                    double netWinner = winner != null ? mp.getNetPriceForSupplier(winner) : 0;
+                    if (droValue > 0 && netWinner > 0) {
+                        diffAmt = droValue - netWinner;
+                        diffPctVal = diffAmt / droValue;
+                    }
+                }
+                sep();
+                nonZero(diffAmt, 2);
+                sep();
+                nonZero(diffPctVal, 4);
+            }
+
+            for (Supplier s : SUPPLIERS) {
+                sep();
+                positiveInt(mp.getStockForSupplier(s));
+            }
+
+            if (!skipDiffAndPos) {
+                int supplierCount = mp.getSupplierCount();
+                for (Supplier s : SUPPLIERS) {
+                    int pos = stockOnly ? mp.getStockOnlyPositionForSupplier(s) : mp.getPositionForSupplier(s);
+                    sep();
+                    if (pos > 0) {
+                        number(pos);
+                        put((byte) '/');
+                        number(supplierCount);
+                    }
+                }
+            }
+            newline();
+        }
+    }
+
+    // ====================================================================
+    // Low-level writers
+    // ====================================================================
+
+    private void sep() throws IOException {
+        put((byte) delimiter);
+    }
+
+    private void newline() throws IOException {
+        put((byte) '\n');
+    }
+
+    /** Empty cell for non-positive values, like the Excel report. */
+    private void positive(double value, int scale) throws IOException {
+        if (value > 0)
+            decimal(value, scale);
+    }
+
+    private void positiveInt(long value) throws IOException {
+        if (value > 0)
+            number(value);
+    }
+
+    private void nonZero(double value, int scale) throws IOException {
+        if (value != 0)
+            decimal(value, scale);
+    }
+
+    /** Fixed-point formatting, rounding half-up, without String.format. */
+    private void decimal(double value, int scale) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value) || Math.abs(value) >= 1e12) {
+            ascii(Double.toString(value));
+            return;
+        }
+        long pow = POW10[scale];
+        long scaled = Math.round(Math.abs(value) * pow);
+        if (value < 0 && scaled != 0)
+            put((byte) '-');
+        number(scaled / pow);
+        if (scale > 0) {
+            put((byte) '.');
+            long frac = scaled % pow;
+            for (long p = pow / 10; p > 0; p /= 10) {
+                put((byte) ('0' + (frac / p) % 10));
+            }
+        }
+    }
+
+    private void number(long value) throws IOException {
+        if (value < 0) {
+            put((byte) '-');
+            value = -value;
+        }
+        if (value < 10) {
+            put((byte) ('0' + value));
+            return;
+        }
+        ensure(20);
+        int start = buffer.position();
+        while (value > 0) {
+            buffer.put((byte) ('0' + value % 10));
+            value /= 10;
+        }
+        // Digits were written least-significant first: reverse in place
+        for (int i = start, j = buffer.position() - 1; i < j; i++, j--) {
+            byte tmp = buffer.get(i);
+            buffer.put(i, buffer.get(j));
+            buffer.put(j, tmp);
+        }
+    }
+
+    private void ascii(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            put((byte) s.charAt(i));
+        }
+    }
+
+    /** Write a text field as UTF-8, quoting only when it contains special characters. */
+    private void text(String s) throws IOException {
+        if (s == null || s.isEmpty())
+            return;
+        boolean quote = false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == delimiter || c == '"' || c == '\n' || c == '\r') {
+                quote = true;
+                break;
+            }
+        }
+        if (quote)
+            put((byte) '"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                if (c == '"')
+                    put((byte) '"');
+                put((byte) c);
+            } else if (c < 0x800) {
+                ensure(2);
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length()
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                ensure(4);
+                buffer.put((byte) (0xF0 | (cp >> 18)));
+                buffer.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (cp & 0x3F)));
+            } else {
+                ensure(3);
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+        if (quote)
+            put((byte) '"');
+    }
+
+    private void put(byte b) throws IOException {
+        if (!buffer.hasRemaining())
+            flush();
+        buffer.put(b);
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes)
+            flush();
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
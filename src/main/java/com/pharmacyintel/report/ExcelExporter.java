@@ -1,5 +1,6 @@
 package com.pharmacyintel.report;
 
+import com.pharmacyintel.metrics.ExportEvent;
 import com.pharmacyintel.model.*;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellRangeAddress;
@@ -9,8 +10,6 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 
@@ -24,12 +23,15 @@ public class ExcelExporter {
     private static final int SUPPLIER_COUNT = SUPPLIERS.length;
     private static final Supplier BASE_SUPPLIER = Supplier.DROACTIVA;
 
-    // Filter constants (must match ProductTablePanel)
-    private static final String FILTER_MEJOR_PRECIO = "Mejor Precio DroActiva";
-    private static final String FILTER_MEJOR_OFERTA = "Mejor Oferta DroActiva";
-    private static final String FILTER_PEOR_NETO = "Peor Neto DroActiva";
-    private static final String FILTER_PEOR_OFERTA = "Peor Oferta DroActiva";
-    private static final String FILTER_SIN_INVENTARIO = "Productos sin Inventario";
+    private boolean autoSizeColumns = true;
+
+    /**
+     * Auto-sizing measures text with AWT font metrics; headless batch runs turn
+     * it off and get fixed widths instead.
+     */
+    public void setAutoSizeColumns(boolean autoSizeColumns) {
+        this.autoSizeColumns = autoSizeColumns;
+    }
 
     public File export(Map<String, MasterProduct> catalog, double bcvRate, File outputDir, String activeFilter,
             boolean stockOnly)
@@ -52,12 +54,9 @@ public class ExcelExporter {
         CellStyle posLoseStyle = createPositionLoseStyle(wb);
         CellStyle posNeutralStyle = createPositionNeutralStyle(wb);
 
-        boolean isStrategic = FILTER_MEJOR_PRECIO.equals(activeFilter)
-                || FILTER_MEJOR_OFERTA.equals(activeFilter)
-                || FILTER_PEOR_NETO.equals(activeFilter)
-                || FILTER_PEOR_OFERTA.equals(activeFilter);
+        boolean isStrategic = ReportFilters.isStrategicFilter(activeFilter);
 
-        boolean isSinInventario = FILTER_SIN_INVENTARIO.equals(activeFilter);
+        boolean isSinInventario = ReportFilters.FILTER_SIN_INVENTARIO.equals(activeFilter);
 
         // --- Title row ---
         Row titleRow = sheet.createRow(0);
@@ -81,7 +80,9 @@ public class ExcelExporter {
         infoRow.createCell(6).setCellValue("Filtro: " + activeFilter);
 
         // --- Filter + Sort products ---
-        List<MasterProduct> products = filterAndSort(catalog, activeFilter, isSinInventario);
+        ExportEvent event = new ExportEvent();
+        event.begin();
+        List<MasterProduct> products = ReportFilters.filterAndSort(catalog, activeFilter, isSinInventario);
 
         // --- Write data based on mode ---
         int colCount;
@@ -100,7 +101,10 @@ public class ExcelExporter {
 
         // Auto-size columns
         for (int i = 0; i < colCount; i++) {
-            sheet.autoSizeColumn(i);
+            if (autoSizeColumns)
+                sheet.autoSizeColumn(i);
+            else
+                sheet.setColumnWidth(i, (i == 2 ? 60 : 14) * 256);
         }
         sheet.createFreezePane(2, 4);
 
@@ -112,121 +116,10 @@ public class ExcelExporter {
             wb.write(fos);
         }
         wb.close();
+        event.finish("xlsx", activeFilter, stockOnly, products.size(), outputFile);
         return outputFile;
     }
 
-    // ====================================================================
-    // FILTERING & SORTING
-    // ====================================================================
-
-    private List<MasterProduct> filterAndSort(Map<String, MasterProduct> catalog, String activeFilter,
-            boolean sinInventario) {
-        List<MasterProduct> all = new ArrayList<>(catalog.values());
-
-        List<MasterProduct> filtered;
-        Comparator<MasterProduct> comparator;
-
-        switch (activeFilter) {
-            case FILTER_MEJOR_PRECIO -> {
-                // DroActiva is winner — sort by higher discount first
-                filtered = all.stream()
-                        .filter(mp -> mp.getWinnerSupplier() == BASE_SUPPLIER)
-                        .toList();
-                comparator = Comparator.comparingDouble(
-                        (MasterProduct mp) -> -mp.getOfferPctForSupplier(BASE_SUPPLIER));
-            }
-            case FILTER_MEJOR_OFERTA -> {
-                // DroActiva has the best OF% among all suppliers
-                filtered = all.stream()
-                        .filter(mp -> {
-                            double ofDro = mp.getOfferPctForSupplier(BASE_SUPPLIER);
-                            if (ofDro <= 0)
-                                return false;
-                            for (Supplier s : SUPPLIERS) {
-                                if (s == BASE_SUPPLIER)
-                                    continue;
-                                if (mp.getOfferPctForSupplier(s) > ofDro)
-                                    return false;
-                            }
-                            return true;
-                        })
-                        .toList();
-                comparator = Comparator.comparingDouble(
-                        (MasterProduct mp) -> -mp.getOfferPctForSupplier(BASE_SUPPLIER));
-            }
-            case FILTER_PEOR_NETO -> {
-                // DroActiva has the HIGHEST net price (true loser)
-                filtered = all.stream()
-                        .filter(mp -> {
-                            double netDro = mp.getNetPriceForSupplier(BASE_SUPPLIER);
-                            if (netDro <= 0)
-                                return false;
-                            boolean hasLower = false;
-                            for (Supplier s : SUPPLIERS) {
-                                if (s == BASE_SUPPLIER)
-                                    continue;
-                                double netOther = mp.getNetPriceForSupplier(s);
-                                if (netOther > 0 && netOther >= netDro)
-                                    return false;
-                                if (netOther > 0)
-                                    hasLower = true;
-                            }
-                            return hasLower;
-                        })
-                        .toList();
-                // Sort by highest net of DroActiva first (worst first)
-                comparator = Comparator.comparingDouble(
-                        (MasterProduct mp) -> -mp.getNetPriceForSupplier(BASE_SUPPLIER));
-            }
-            case FILTER_PEOR_OFERTA -> {
-                // DroActiva has the LOWEST OF% among suppliers with offers
-                filtered = all.stream()
-                        .filter(mp -> {
-                            double ofDro = mp.getOfferPctForSupplier(BASE_SUPPLIER);
-                            boolean hasHigher = false;
-                            for (Supplier s : SUPPLIERS) {
-                                if (s == BASE_SUPPLIER)
-                                    continue;
-                                double ofOther = mp.getOfferPctForSupplier(s);
-                                if (ofOther > 0 && ofOther > ofDro)
-                                    hasHigher = true;
-                                if (ofOther > 0 && ofOther <= ofDro)
-                                    return false;
-                            }
-                            return hasHigher;
-                        })
-                        .toList();
-                comparator = Comparator.comparingDouble(
-                        (MasterProduct mp) -> mp.getOfferPctForSupplier(BASE_SUPPLIER));
-            }
-            default -> {
-                // "Todos" or "Sin Inventario"
-                if (sinInventario) {
-                    // Only products where DroActiva has NO inventory
-                    filtered = all.stream()
-                            .filter(mp -> mp.getStockForSupplier(BASE_SUPPLIER) <= 0)
-                            .toList();
-                    // Sort by Cobeca's inventory for "Sin Inventario"
-                    comparator = Comparator
-                            .comparingInt((MasterProduct mp) -> -mp.getStockForSupplier(Supplier.COBECA))
-                            .thenComparingDouble(mp -> -mp.getDiffPctForSupplier(BASE_SUPPLIER))
-                            .thenComparingInt(mp -> -mp.getPositionForSupplier(BASE_SUPPLIER))
-                            .thenComparing(mp -> mp.getDescription() != null ? mp.getDescription() : "");
-                } else {
-                    filtered = all;
-                    // Normal sort by DroActiva's inventory
-                    comparator = Comparator
-                            .comparingInt((MasterProduct mp) -> -mp.getStockForSupplier(BASE_SUPPLIER))
-                            .thenComparingDouble(mp -> -mp.getDiffPctForSupplier(BASE_SUPPLIER))
-                            .thenComparingInt(mp -> -mp.getPositionForSupplier(BASE_SUPPLIER))
-                            .thenComparing(mp -> mp.getDescription() != null ? mp.getDescription() : "");
-                }
-            }
-        }
-
-        return filtered.stream().sorted(comparator).toList();
-    }
-
     // ====================================================================
     // FULL REPORT (all suppliers)
     // ====================================================================
@@ -328,9 +221,9 @@ public class ExcelExporter {
             String activeFilter, boolean stockOnly) {
 
         // Determine mode
-        boolean isPrecio = FILTER_MEJOR_PRECIO.equals(activeFilter);
-        boolean isMejorOferta = FILTER_MEJOR_OFERTA.equals(activeFilter);
-        boolean isPeorOferta = FILTER_PEOR_OFERTA.equals(activeFilter);
+        boolean isPrecio = ReportFilters.FILTER_MEJOR_PRECIO.equals(activeFilter);
+        boolean isMejorOferta = ReportFilters.FILTER_MEJOR_OFERTA.equals(activeFilter);
+        boolean isPeorOferta = ReportFilters.FILTER_PEOR_OFERTA.equals(activeFilter);
         boolean isOferta = isMejorOferta || isPeorOferta;
         // Offer-based exports: only OF% + Inventory (no diff, no positions)
         boolean skipDiffAndPos = isOferta;
@@ -0,0 +1,54 @@
+package com.pharmacyintel.report;
+
+import com.pharmacyintel.engine.DescriptionMatcher;
+import com.pharmacyintel.model.MasterProduct;
+import com.pharmacyintel.model.Supplier;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Writes description match suggestions as a plain CSV, best score first. The
+ * first two columns are the alias and canonical barcodes, so accepted rows
+ * can be copied into the alias table as {@code alias=canonical}.
+ */
+public class MatchSuggestionExporter {
+
+    public File export(List<DescriptionMatcher.Suggestion> suggestions, File outputDir) throws IOException {
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmm"));
+        File file = new File(outputDir, "Coincidencias_Descripcion_" + stamp + ".csv");
+        try (Writer w = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            w.write("Codigo Alias,Codigo Canonico,Similitud,Descripcion Alias,Descripcion Canonica,"
+                    + "Droguerias Alias,Droguerias Canonico\n");
+            for (DescriptionMatcher.Suggestion s : suggestions) {
+                w.write(s.alias().getBarcode() + "," + s.canonical().getBarcode() + ","
+                        + String.format(Locale.ROOT, "%.3f", s.score()) + "," + quote(s.alias().getDescription())
+                        + "," + quote(s.canonical().getDescription()) + "," + quote(suppliers(s.alias())) + ","
+                        + quote(suppliers(s.canonical())) + "\n");
+            }
+        }
+        System.out.println("[MatchSuggestionExporter] " + suggestions.size() + " sugerencias → " + file.getName());
+        return file;
+    }
+
+    private static String suppliers(MasterProduct mp) {
+        return mp.getSupplierPrices().keySet().stream().map(Supplier::getDisplayName)
+                .collect(Collectors.joining(" "));
+    }
+
+    private static String quote(String s) {
+        if (s == null)
+            return "";
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0)
+            return s;
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,63 @@
+package com.pharmacyintel.report;
+
+import com.pharmacyintel.engine.OrderOptimizer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * Writes an optimized purchase order as two plain CSV files (dot decimals,
+ * like {@link RateSweepExporter}): the lines to order from each supplier and
+ * the units that could not be placed.
+ */
+public class OrderPlanExporter {
+
+    /** Returns {order file, shortfall file}. */
+    public File[] export(OrderOptimizer.Plan plan, File outputDir) throws IOException {
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmm"));
+        File orderFile = new File(outputDir, "Pedido_Optimizado_" + stamp + ".csv");
+        File shortfallFile = new File(outputDir, "Pedido_Faltantes_" + stamp + ".csv");
+
+        try (Writer w = newWriter(orderFile)) {
+            w.write("Proveedor,Codigo de Barra,Descripcion,Cantidad,Neto USD,Subtotal USD\n");
+            for (OrderOptimizer.Allocation a : plan.getAllocations()) {
+                w.write(a.supplier().getDisplayName() + "," + a.product().getBarcode() + ","
+                        + quote(a.product().getDescription()) + "," + a.quantity() + "," + number(a.unitPrice())
+                        + "," + number(a.subtotal()) + "\n");
+            }
+        }
+
+        try (Writer w = newWriter(shortfallFile)) {
+            w.write("Codigo de Barra,Descripcion,Cantidad,Motivo\n");
+            for (OrderOptimizer.Shortfall s : plan.getShortfalls()) {
+                String desc = s.product() != null ? s.product().getDescription() : "";
+                w.write(s.barcode() + "," + quote(desc) + "," + s.quantity() + "," + quote(s.reason()) + "\n");
+            }
+        }
+        System.out.println("[OrderPlanExporter] " + plan.getAllocations().size() + " líneas de pedido, "
+                + plan.getShortfalls().size() + " faltantes");
+        return new File[] { orderFile, shortfallFile };
+    }
+
+    private static Writer newWriter(File file) throws IOException {
+        return Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+    }
+
+    private static String number(double v) {
+        return String.format(Locale.ROOT, "%.4f", v);
+    }
+
+    private static String quote(String s) {
+        if (s == null)
+            return "";
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0)
+            return s;
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,73 @@
+package com.pharmacyintel.report;
+
+import com.pharmacyintel.engine.RateSweepAnalyzer;
+import com.pharmacyintel.model.Supplier;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes a BCV rate sweep as two plain CSV files (dot decimals, like
+ * {@link DelimitedExporter}): the wins-per-supplier curve, one row per rate,
+ * and the breakeven table, one row per product whose winner flips in range.
+ */
+public class RateSweepExporter {
+
+    /** Returns {curve file, breakeven file}. */
+    public File[] export(RateSweepAnalyzer.Result result, File outputDir) throws IOException {
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmm"));
+        File curveFile = new File(outputDir, "Barrido_Tasa_Victorias_" + stamp + ".csv");
+        File breakevenFile = new File(outputDir, "Barrido_Tasa_Equilibrio_" + stamp + ".csv");
+
+        double[] rates = result.getRates();
+        Map<Supplier, int[]> wins = result.getWinsByRate();
+        try (Writer w = newWriter(curveFile)) {
+            w.write("Tasa");
+            for (Supplier s : wins.keySet())
+                w.write("," + s.getDisplayName());
+            w.write('\n');
+            for (int r = 0; r < rates.length; r++) {
+                w.write(number(rates[r]));
+                for (int[] curve : wins.values())
+                    w.write("," + curve[r]);
+                w.write('\n');
+            }
+        }
+
+        try (Writer w = newWriter(breakevenFile)) {
+            w.write("Codigo de Barra,Descripcion,Tasa Equilibrio,Gana USD,Neto USD,Gana Bs,Neto Bs\n");
+            for (RateSweepAnalyzer.Breakeven b : result.getBreakevens()) {
+                w.write(b.getProduct().getBarcode() + "," + quote(b.getProduct().getDescription()) + ","
+                        + number(b.getRate()) + "," + b.getUsdSupplier().getDisplayName() + ","
+                        + number(b.getUsdNetPrice()) + "," + b.getBsSupplier().getDisplayName() + ","
+                        + number(b.getBsNetPrice()) + "\n");
+            }
+        }
+        System.out.println("[RateSweepExporter] " + rates.length + " tasas, " + result.getBreakevens().size()
+                + " productos con cambio de ganador");
+        return new File[] { curveFile, breakevenFile };
+    }
+
+    private static Writer newWriter(File file) throws IOException {
+        return Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+    }
+
+    private static String number(double v) {
+        return String.format(Locale.ROOT, "%.4f", v);
+    }
+
+    private static String quote(String s) {
+        if (s == null)
+            return "";
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0)
+            return s;
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+}
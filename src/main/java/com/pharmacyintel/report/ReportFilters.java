@@ -0,0 +1,144 @@
+package com.pharmacyintel.report;
+
+import com.pharmacyintel.model.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Filtering and ordering shared by the report writers. Kept free of POI so
+ * plain-text exports do not load the spreadsheet stack.
+ */
+final class ReportFilters {
+
+    private static final Supplier[] SUPPLIERS = Supplier.values();
+    private static final Supplier BASE_SUPPLIER = Supplier.DROACTIVA;
+
+    // Filter constants (must match ProductTablePanel)
+    static final String FILTER_MEJOR_PRECIO = "Mejor Precio DroActiva";
+    static final String FILTER_MEJOR_OFERTA = "Mejor Oferta DroActiva";
+    static final String FILTER_PEOR_NETO = "Peor Neto DroActiva";
+    static final String FILTER_PEOR_OFERTA = "Peor Oferta DroActiva";
+    static final String FILTER_SIN_INVENTARIO = "Productos sin Inventario";
+
+    private ReportFilters() {
+    }
+
+    /** Strategic filters use the per-metric layout instead of the full report. */
+    static boolean isStrategicFilter(String activeFilter) {
+        return FILTER_MEJOR_PRECIO.equals(activeFilter)
+                || FILTER_MEJOR_OFERTA.equals(activeFilter)
+                || FILTER_PEOR_NETO.equals(activeFilter)
+                || FILTER_PEOR_OFERTA.equals(activeFilter);
+    }
+
+    static List<MasterProduct> filterAndSort(Map<String, MasterProduct> catalog, String activeFilter,
+            boolean sinInventario) {
+        List<MasterProduct> all = new ArrayList<>(catalog.values());
+
+        List<MasterProduct> filtered;
+        Comparator<MasterProduct> comparator;
+
+        switch (activeFilter) {
+            case FILTER_MEJOR_PRECIO -> {
+                // DroActiva is winner — sort by higher discount first
+                filtered = all.stream()
+                        .filter(mp -> mp.getWinnerSupplier() == BASE_SUPPLIER)
+                        .toList();
+                comparator = Comparator.comparingDouble(
+                        (MasterProduct mp) -> -mp.getOfferPctForSupplier(BASE_SUPPLIER));
+            }
+            case FILTER_MEJOR_OFERTA -> {
+                // DroActiva has the best OF% among all suppliers
+                filtered = all.stream()
+                        .filter(mp -> {
+                            double ofDro = mp.getOfferPctForSupplier(BASE_SUPPLIER);
+                            if (ofDro <= 0)
+                                return false;
+                            for (Supplier s : SUPPLIERS) {
+                                if (s == BASE_SUPPLIER)
+                                    continue;
+                                if (mp.getOfferPctForSupplier(s) > ofDro)
+                                    return false;
+                            }
+                            return true;
+                        })
+                        .toList();
+                comparator = Comparator.comparingDouble(
+                        (MasterProduct mp) -> -mp.getOfferPctForSupplier(BASE_SUPPLIER));
+            }
+            case FILTER_PEOR_NETO -> {
+                // DroActiva has the HIGHEST net price (true loser)
+                filtered = all.stream()
+                        .filter(mp -> {
+                            double netDro = mp.getNetPriceForSupplier(BASE_SUPPLIER);
+                            if (netDro <= 0)
+                                return false;
+                            boolean hasLower = false;
+                            for (Supplier s : SUPPLIERS) {
+                                if (s == BASE_SUPPLIER)
+                                    continue;
+                                double netOther = mp.getNetPriceForSupplier(s);
+                                if (netOther > 0 && netOther >= netDro)
+                                    return false;
+                                if (netOther > 0)
+                                    hasLower = true;
+                            }
+                            return hasLower;
+                        })
+                        .toList();
+                // Sort by highest net of DroActiva first (worst first)
+                comparator = Comparator.comparingDouble(
+                        (MasterProduct mp) -> -mp.getNetPriceForSupplier(BASE_SUPPLIER));
+            }
+            case FILTER_PEOR_OFERTA -> {
+                // DroActiva has the LOWEST OF% among suppliers with offers
+                filtered = all.stream()
+                        .filter(mp -> {
+                            double ofDro = mp.getOfferPctForSupplier(BASE_SUPPLIER);
+                            boolean hasHigher = false;
+                            for (Supplier s : SUPPLIERS) {
+                                if (s == BASE_SUPPLIER)
+                                    continue;
+                                double ofOther = mp.getOfferPctForSupplier(s);
+                                if (ofOther > 0 && ofOther > ofDro)
+                                    hasHigher = true;
+                                if (ofOther > 0 && ofOther <= ofDro)
+                                    return false;
+                            }
+                            return hasHigher;
+                        })
+                        .toList();
+                comparator = Comparator.comparingDouble(
+                        (MasterProduct mp) -> mp.getOfferPctForSupplier(BASE_SUPPLIER));
+            }
+            default -> {
+                // "Todos" or "Sin Inventario"
+                if (sinInventario) {
+                    // Only products where DroActiva has NO inventory
+                    filtered = all.stream()
+                            .filter(mp -> mp.getStockForSupplier(BASE_SUPPLIER) <= 0)
+                            .toList();
+                    // Sort by Cobeca's inventory for "Sin Inventario"
+                    comparator = Comparator
+                            .comparingInt((MasterProduct mp) -> -mp.getStockForSupplier(Supplier.COBECA))
+                            .thenComparingDouble(mp -> -mp.getDiffPctForSupplier(BASE_SUPPLIER))
+                            .thenComparingInt(mp -> -mp.getPositionForSupplier(BASE_SUPPLIER))
+                            .thenComparing(mp -> mp.getDescription() != null ? mp.getDescription() : "");
+                } else {
+                    filtered = all;
+                    // Normal sort by DroActiva's inventory
+                    comparator = Comparator
+                            .comparingInt((MasterProduct mp) -> -mp.getStockForSupplier(BASE_SUPPLIER))
+                            .thenComparingDouble(mp -> -mp.getDiffPctForSupplier(BASE_SUPPLIER))
+                            .thenComparingInt(mp -> -mp.getPositionForSupplier(BASE_SUPPLIER))
+                            .thenComparing(mp -> mp.getDescription() != null ? mp.getDescription() : "");
+                }
+            }
+        }
+
+        return filtered.stream().sorted(comparator).toList();
+    }
+}
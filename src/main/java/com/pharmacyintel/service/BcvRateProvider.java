@@ -0,0 +1,253 @@
+package com.pharmacyintel.service;
+
+import com.pharmacyintel.model.GlobalConfig;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Properties;
+import java.util.concurrent.*;
+
+/**
+ * Non-blocking BCV rate source shared by all syncs.
+ * <ul>
+ * <li>{@link #refreshAsync()} scrapes the BCV site on a background thread, so
+ * file parsing runs while the request is in flight.</li>
+ * <li>The last good rate is cached on disk with its timestamp
+ * ({@code bcv-rate.properties} in the data dir) and survives restarts.</li>
+ * <li>A quick TCP probe and a short back-off after failures make the offline
+ * case fall back to the cached rate immediately instead of waiting for the
+ * 15 s page timeout.</li>
+ * <li>{@link #startScheduledRefresh(Duration)} keeps the cache fresh while the
+ * app is open.</li>
+ * </ul>
+ */
+public class BcvRateProvider {
+
+    private static final String BCV_HOST = "www.bcv.org.ve";
+    private static final int PROBE_TIMEOUT_MS = 1500;
+    /** A rate fetched this recently is reused instead of scraping again. */
+    private static final Duration FRESH_FOR = Duration.ofMinutes(10);
+    /** After a failed fetch, don't retry the network for this long. */
+    private static final Duration FAILURE_BACKOFF = Duration.ofMinutes(2);
+    /** How long a sync waits for the network when a cached rate is available. */
+    private static final long MAX_WAIT_WITH_CACHE_MS = 3000;
+    private static final long MAX_WAIT_NO_CACHE_MS = 20000;
+    private static final String CACHE_FILE = "bcv-rate.properties";
+
+    private static final BcvRateProvider DEFAULT = new BcvRateProvider(new BcvService(),
+            new File(GlobalConfig.getInstance().getDataDir(), CACHE_FILE));
+
+    /** Where a resolved rate came from. */
+    public enum Source {
+        FETCHED, CACHED, NONE
+    }
+
+    /** Rate chosen for a sync plus its origin and age. */
+    public static final class Resolution {
+        private final double rate;
+        private final Source source;
+        private final LocalDateTime fetchedAt;
+
+        Resolution(double rate, Source source, LocalDateTime fetchedAt) {
+            this.rate = rate;
+            this.source = source;
+            this.fetchedAt = fetchedAt;
+        }
+
+        public double getRate() {
+            return rate;
+        }
+
+        public Source getSource() {
+            return source;
+        }
+
+        public LocalDateTime getFetchedAt() {
+            return fetchedAt;
+        }
+    }
+
+    private final BcvService service;
+    private final File cacheFile;
+    private final ExecutorService fetchExecutor = Executors.newSingleThreadExecutor(daemon("bcv-fetch"));
+    private ScheduledExecutorService scheduler;
+
+    private volatile double cachedRate;
+    private volatile LocalDateTime cachedAt;
+    /** Time of the last failed fetch; only meaningful while {@link #hasFailed}. */
+    private volatile long lastFailureNanos;
+    private volatile boolean hasFailed;
+    private CompletableFuture<Double> inFlight;
+
+    BcvRateProvider(BcvService service, File cacheFile) {
+        this.service = service;
+        this.cacheFile = cacheFile;
+        loadCache();
+    }
+
+    public static BcvRateProvider getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Start (or join) a background fetch. Completes with the fetched rate, or
+     * 0 on failure; never completes exceptionally. A recent successful fetch
+     * is returned without touching the network.
+     */
+    public synchronized CompletableFuture<Double> refreshAsync() {
+        if (inFlight != null && !inFlight.isDone())
+            return inFlight;
+        LocalDateTime at = cachedAt;
+        if (cachedRate > 0 && at != null && at.isAfter(LocalDateTime.now().minus(FRESH_FOR)))
+            return CompletableFuture.completedFuture(cachedRate);
+        if (hasFailed && System.nanoTime() - lastFailureNanos < FAILURE_BACKOFF.toNanos())
+            return CompletableFuture.completedFuture(0.0);
+
+        inFlight = CompletableFuture.supplyAsync(this::fetchNow, fetchExecutor)
+                .exceptionally(e -> 0.0);
+        return inFlight;
+    }
+
+    /**
+     * Wait for a pending fetch, bounded: a few seconds if a cached rate can
+     * stand in, otherwise up to the full page timeout. Falls back to the cache.
+     * With {@code mayWait == false} only an already completed fetch is used.
+     */
+    public Resolution resolve(CompletableFuture<Double> pending, boolean mayWait) {
+        long maxWait = !mayWait ? 0 : cachedRate > 0 ? MAX_WAIT_WITH_CACHE_MS : MAX_WAIT_NO_CACHE_MS;
+        double rate = 0;
+        try {
+            rate = pending.get(maxWait, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (mayWait)
+                System.out.println("[BcvRateProvider] BCV no respondió en " + maxWait + " ms, usando caché");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // fetchNow never throws; treated as a failed fetch
+        }
+        if (rate > 0)
+            return new Resolution(rate, Source.FETCHED, cachedAt);
+        if (cachedRate > 0)
+            return new Resolution(cachedRate, Source.CACHED, cachedAt);
+        return new Resolution(0, Source.NONE, null);
+    }
+
+    /** Periodically refresh the cache in the background (idempotent). */
+    public synchronized void startScheduledRefresh(Duration period) {
+        if (scheduler != null)
+            return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(daemon("bcv-refresh"));
+        scheduler.scheduleWithFixedDelay(this::refreshAsync, 0, period.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopScheduledRefresh() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    public double getCachedRate() {
+        return cachedRate;
+    }
+
+    public LocalDateTime getCachedAt() {
+        return cachedAt;
+    }
+
+    // ====================================================================
+    // Fetch + cache
+    // ====================================================================
+
+    private double fetchNow() {
+        if (!reachable()) {
+            markFailure();
+            System.err.println("[BcvRateProvider] Sin conexión con " + BCV_HOST);
+            return 0;
+        }
+        double rate = service.scrapeRate();
+        if (rate > 0) {
+            storeCache(rate, LocalDateTime.now());
+            hasFailed = false;
+        } else {
+            markFailure();
+        }
+        return rate;
+    }
+
+    private void markFailure() {
+        lastFailureNanos = System.nanoTime();
+        hasFailed = true;
+    }
+
+    /** Fails in ~1.5 s (or instantly without DNS) instead of the 15 s page timeout. */
+    private static boolean reachable() {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(BCV_HOST, 443), PROBE_TIMEOUT_MS);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void loadCache() {
+        if (!cacheFile.isFile())
+            return;
+        Properties props = new Properties();
+        try (Reader r = new InputStreamReader(new FileInputStream(cacheFile), StandardCharsets.UTF_8)) {
+            props.load(r);
+            double rate = Double.parseDouble(props.getProperty("rate", "0"));
+            LocalDateTime at = LocalDateTime.parse(props.getProperty("fetchedAt"));
+            if (rate > 0) {
+                cachedRate = rate;
+                cachedAt = at;
+            }
+        } catch (Exception e) {
+            System.err.println("[BcvRateProvider] Caché de tasa ilegible: " + e.getMessage());
+        }
+    }
+
+    private synchronized void storeCache(double rate, LocalDateTime at) {
+        cachedRate = rate;
+        cachedAt = at;
+        Properties props = new Properties();
+        props.setProperty("rate", String.valueOf(rate));
+        props.setProperty("fetchedAt", at.toString());
+        File dir = cacheFile.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs())
+            return;
+        File tmp = new File(cacheFile.getPath() + ".tmp");
+        try (Writer w = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+            props.store(w, "Última tasa BCV obtenida");
+        } catch (IOException e) {
+            System.err.println("[BcvRateProvider] No se pudo guardar la caché: " + e.getMessage());
+            return;
+        }
+        if (!tmp.renameTo(cacheFile)) {
+            cacheFile.delete();
+            tmp.renameTo(cacheFile);
+        }
+    }
+
+    /** "51.3205 (dd/MM HH:mm)" for progress messages. */
+    public static String describe(Resolution r) {
+        String when = r.getFetchedAt() != null
+                ? " del " + r.getFetchedAt().format(DateTimeFormatter.ofPattern("dd/MM HH:mm"))
+                : "";
+        return String.format("%.4f", r.getRate()) + (r.getSource() == Source.CACHED ? " (en caché" + when + ")" : "");
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -23,6 +23,17 @@ public class BcvService {
      * Returns the rate or 0 if failed.
      */
     public double fetchRate() {
+        double rate = scrapeRate();
+        if (rate > 0)
+            GlobalConfig.getInstance().setBcvRate(rate);
+        return rate;
+    }
+
+    /**
+     * Fetch current USD/VES rate from BCV without touching GlobalConfig.
+     * Returns the rate or 0 if failed.
+     */
+    public double scrapeRate() {
         try {
             // Disable SSL verification for BCV (common issue with Venezuelan gov sites)
             disableSSLVerification();
@@ -43,7 +54,6 @@ public class BcvService {
                 if (strong != null) {
                     double rate = parseVenezuelanDecimal(strong.text().trim());
                     if (rate > 0) {
-                        GlobalConfig.getInstance().setBcvRate(rate);
                         System.out.println("[BcvService] Rate fetched: " + rate);
                         return rate;
                     }
@@ -53,7 +63,6 @@ public class BcvService {
                 String text = dolarDiv.text().trim();
                 double rate = parseVenezuelanDecimal(text);
                 if (rate > 0) {
-                    GlobalConfig.getInstance().setBcvRate(rate);
                     System.out.println("[BcvService] Rate fetched: " + rate);
                     return rate;
                 }
@@ -64,7 +73,6 @@ public class BcvService {
             for (Element el : strongElements) {
                 double rate = parseVenezuelanDecimal(el.text().trim());
                 if (rate > 0) {
-                    GlobalConfig.getInstance().setBcvRate(rate);
                     System.out.println("[BcvService] Rate fetched (fallback): " + rate);
                     return rate;
                 }
@@ -75,7 +83,6 @@ public class BcvService {
             for (Element el : centrado) {
                 double rate = parseVenezuelanDecimal(el.text().trim());
                 if (rate > 1) { // USD rate should be > 1
-                    GlobalConfig.getInstance().setBcvRate(rate);
                     System.out.println("[BcvService] Rate fetched (centrado): " + rate);
                     return rate;
                 }
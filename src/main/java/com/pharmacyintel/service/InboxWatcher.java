@@ -0,0 +1,187 @@
+package com.pharmacyintel.service;
+
+import com.pharmacyintel.model.Supplier;
+import com.pharmacyintel.parser.SupplierDetector;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a drop folder for supplier price lists. A new or overwritten file
+ * is handed over once it has been quiet for a while (size and modification
+ * time unchanged and the file openable), so a download or copy in progress
+ * is never read half-written; then it is matched to a supplier by
+ * {@link SupplierDetector}. Files already in the folder when the watch starts
+ * are reported too.
+ * <p>
+ * Everything runs on one daemon thread, including the listener calls, so a
+ * sync started from {@link Listener#onFile} finishes before the next file is
+ * looked at.
+ */
+public class InboxWatcher {
+
+    /** Called on the watcher thread. */
+    public interface Listener {
+        void onFile(Supplier supplier, File file);
+
+        default void onUnrecognized(File file) {
+        }
+    }
+
+    /** How often pending files are checked while no event arrives. */
+    private static final long TICK_MS = 250;
+
+    /** A file seen changing; ready once {@code size}/{@code modified} hold still for the quiet period. */
+    private static final class Pending {
+        long size = -1;
+        long modified = -1;
+        long stableSince;
+    }
+
+    private final File dir;
+    private final long quietMs;
+    private final Listener listener;
+    private final Map<Path, Pending> pending = new LinkedHashMap<>();
+    private WatchService watchService;
+    private Thread thread;
+
+    /**
+     * @param quiet how long a file must stay unchanged before it is read
+     */
+    public InboxWatcher(File dir, Duration quiet, Listener listener) {
+        this.dir = dir;
+        this.quietMs = quiet.toMillis();
+        this.listener = listener;
+    }
+
+    /** Creates the folder if needed and starts watching it. */
+    public synchronized void start() throws IOException {
+        if (thread != null)
+            return;
+        if (!dir.isDirectory() && !dir.mkdirs())
+            throw new IOException("No se pudo crear " + dir);
+        watchService = FileSystems.getDefault().newWatchService();
+        dir.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        thread = new Thread(this::loop, "inbox-watch");
+        thread.setDaemon(true);
+        thread.start();
+        System.out.println("[InboxWatcher] Vigilando " + dir.getAbsolutePath());
+    }
+
+    public synchronized void stop() {
+        if (thread == null)
+            return;
+        thread.interrupt();
+        try {
+            watchService.close();
+        } catch (IOException ignored) {
+        }
+        thread = null;
+    }
+
+    public File getDir() {
+        return dir;
+    }
+
+    private void loop() {
+        scanExisting();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.poll(TICK_MS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+                            scanExisting();
+                        else
+                            touch(dir.toPath().resolve((Path) event.context()));
+                    }
+                    key.reset();
+                }
+                checkPending();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped
+        }
+    }
+
+    private void scanExisting() {
+        File[] files = dir.listFiles(File::isFile);
+        if (files == null)
+            return;
+        // Oldest first, so the newest list of a supplier is the one that stays
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File f : files)
+            touch(f.toPath());
+    }
+
+    /** (Re)starts the quiet period of a file. */
+    private void touch(Path path) {
+        if (isTemporary(path.getFileName().toString()))
+            return;
+        Pending p = pending.computeIfAbsent(path, k -> new Pending());
+        p.stableSince = System.currentTimeMillis();
+    }
+
+    private void checkPending() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<Path, Pending>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Path, Pending> entry = it.next();
+            File file = entry.getKey().toFile();
+            Pending p = entry.getValue();
+            if (!file.isFile()) {
+                it.remove();
+                continue;
+            }
+            long size = file.length();
+            long modified = file.lastModified();
+            if (size != p.size || modified != p.modified) {
+                p.size = size;
+                p.modified = modified;
+                p.stableSince = now;
+                continue;
+            }
+            if (now - p.stableSince < quietMs || size == 0 || !canOpen(file))
+                continue;
+            it.remove();
+            dispatch(file);
+        }
+    }
+
+    private void dispatch(File file) {
+        Supplier supplier = SupplierDetector.detect(file);
+        try {
+            if (supplier != null) {
+                System.out.println("[InboxWatcher] " + file.getName() + " → " + supplier.name());
+                listener.onFile(supplier, file);
+            } else {
+                System.out.println("[InboxWatcher] " + file.getName() + ": proveedor no reconocido");
+                listener.onUnrecognized(file);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("[InboxWatcher] Error con " + file.getName() + ": " + e.getMessage());
+        }
+    }
+
+    /** A writer that still holds the file (Windows copy, Excel) makes this fail. */
+    private static boolean canOpen(File file) {
+        try {
+            Files.newByteChannel(file.toPath(), StandardOpenOption.READ).close();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** Office lock files, partial downloads and hidden files. */
+    private static boolean isTemporary(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        return lower.startsWith("~$") || lower.startsWith(".") || lower.endsWith(".tmp")
+                || lower.endsWith(".crdownload") || lower.endsWith(".part") || lower.endsWith(".download");
+    }
+}
@@ -0,0 +1,232 @@
+package com.pharmacyintel.service;
+
+import com.pharmacyintel.metrics.StageMetrics;
+import com.pharmacyintel.metrics.StageTimer;
+import com.pharmacyintel.metrics.SupplierParseEvent;
+import com.pharmacyintel.model.BarcodeAliases;
+import com.pharmacyintel.model.Supplier;
+import com.pharmacyintel.model.SupplierMap;
+import com.pharmacyintel.model.SupplierProduct;
+import com.pharmacyintel.parser.ParseReport;
+import com.pharmacyintel.parser.SupplierParser;
+import com.pharmacyintel.parser.SupplierRegistry;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Supplier files → per-supplier product lists with bounded memory in flight.
+ * <p>
+ * Worker threads parse and sanitize one file each (rows are streamed, never a
+ * whole sheet) and hand products over in batches through a bounded queue;
+ * the calling thread converts them (net price) and consolidates them into the
+ * lists the engine keeps, keying each row through the {@link BarcodeAliases}
+ * table and sharing one barcode string per product across suppliers. When the consumer falls behind, workers block on the queue, so
+ * the products in transit stay within the memory budget however large the
+ * files are.
+ */
+public class IngestPipeline {
+
+    /** Products per hand-over. */
+    static final int BATCH_SIZE = 1024;
+    /** Rough heap of one product in transit (object, strings, list slot). */
+    static final int BYTES_PER_PRODUCT = 320;
+
+    /** Called on the thread running {@link #run}, in completion order. */
+    public interface Listener {
+        default void onParsed(Supplier supplier, File file, int products, ParseReport quality, StageMetrics parse) {
+        }
+
+        /** {@code error} may be an {@link Error} (out of memory on a huge sheet) as well as an exception. */
+        default void onFailed(Supplier supplier, Throwable error) {
+        }
+    }
+
+    private sealed interface Message permits Batch, Done, Failed {
+    }
+
+    private record Batch(Supplier supplier, List<SupplierProduct> products) implements Message {
+    }
+
+    private record Done(Supplier supplier, File file, int products, ParseReport quality, StageMetrics parse)
+            implements Message {
+    }
+
+    private record Failed(Supplier supplier, Throwable error) implements Message {
+    }
+
+    private final int capacity;
+    private final int parallelism;
+    private BarcodeAliases aliases = BarcodeAliases.getDefault();
+    private int peakBatches;
+    private StageMetrics lastMetrics;
+
+    /**
+     * @param budgetMb heap for products in transit; sets the queue length
+     * @param parallelism files parsed at the same time
+     */
+    public IngestPipeline(int budgetMb, int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        long budget = Math.max(1, budgetMb) * 1024L * 1024L;
+        this.capacity = (int) Math.max(2L * this.parallelism,
+                Math.min(Integer.MAX_VALUE, budget / ((long) BATCH_SIZE * BYTES_PER_PRODUCT)));
+    }
+
+    /** Table the rows are keyed through (the user's table by default); pass the engine's. */
+    public void setBarcodeAliases(BarcodeAliases aliases) {
+        this.aliases = aliases;
+    }
+
+    /**
+     * Parse, convert and collect every file. A file that fails contributes
+     * nothing (its partial rows are dropped) and is reported to the listener.
+     */
+    public Map<Supplier, List<SupplierProduct>> run(Map<Supplier, File> files, Listener listener)
+            throws InterruptedException {
+        BlockingQueue<Message> queue = new ArrayBlockingQueue<>(capacity);
+        AtomicInteger threadIds = new AtomicInteger();
+        int threads = Math.min(parallelism, Math.max(1, files.size()));
+        ExecutorService workers = Executors.newFixedThreadPool(threads,
+                r -> {
+                    Thread t = new Thread(r, "ingest-" + threadIds.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        try {
+            for (var entry : files.entrySet())
+                workers.execute(() -> produce(entry.getKey(), entry.getValue(), queue));
+
+            StageTimer timer = StageTimer.start("ingest");
+            Map<Supplier, List<SupplierProduct>> data = new SupplierMap<>();
+            Map<String, String> barcodes = new HashMap<>();
+            int remaining = files.size();
+            long total = 0;
+            peakBatches = 0;
+            while (remaining > 0) {
+                peakBatches = Math.max(peakBatches, queue.size());
+                switch (queue.take()) {
+                    case Batch b -> {
+                        List<SupplierProduct> list = data.computeIfAbsent(b.supplier(), s -> new ArrayList<>());
+                        for (SupplierProduct sp : b.products()) {
+                            // convert: net price in the supplier's own currency
+                            sp.setNetPrice(sp.getBasePrice() * (1.0 - (sp.getOfferPct() / 100.0)));
+                            String key = aliases.resolve(sp.getBarcode());
+                            String barcode = barcodes.putIfAbsent(key, key);
+                            sp.setBarcode(barcode != null ? barcode : key);
+                            list.add(sp);
+                        }
+                        total += b.products().size();
+                    }
+                    case Done d -> {
+                        remaining--;
+                        data.computeIfAbsent(d.supplier(), s -> new ArrayList<>());
+                        listener.onParsed(d.supplier(), d.file(), d.products(), d.quality(), d.parse());
+                    }
+                    case Failed f -> {
+                        remaining--;
+                        List<SupplierProduct> partial = data.remove(f.supplier());
+                        if (partial != null)
+                            total -= partial.size();
+                        listener.onFailed(f.supplier(), f.error());
+                    }
+                }
+            }
+            lastMetrics = timer.finish(total);
+            System.out.println("[IngestPipeline] " + total + " productos, cola de " + capacity + " lotes de "
+                    + BATCH_SIZE + " (pico " + peakBatches + "), " + threads + " hilos");
+            return data;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Worker: stream one file into the queue, ending with {@link Done} or
+     * {@link Failed}. Errors are caught too: without a terminal message the
+     * consumer would wait for this file forever.
+     */
+    private void produce(Supplier supplier, File file, BlockingQueue<Message> queue) {
+        try {
+            SupplierParser parser = SupplierRegistry.createParser(supplier);
+            StageTimer parseTimer = StageTimer.start("parse", supplier);
+            SupplierParseEvent parseEvent = new SupplierParseEvent();
+            parseEvent.begin();
+            BatchSink sink = new BatchSink(supplier, queue);
+            parser.parse(file, sink);
+            sink.flush();
+            ParseReport quality = parser.getParseReport();
+            if (quality == null) {
+                quality = new ParseReport(supplier, file);
+                quality.setProducts(sink.count);
+                quality.addSkipped(ParseReport.Reason.OTHER, parser.getSkippedRows());
+            }
+            parseEvent.finish(supplier, file, sink.count, quality.getSkipped());
+            StageMetrics parse = parseTimer.finish(sink.count);
+            put(queue, new Done(supplier, file, sink.count, quality, parse));
+        } catch (CancellationException e) {
+            // Consumer gone; nobody is waiting for this file
+        } catch (Exception | Error e) {
+            try {
+                if (!Thread.currentThread().isInterrupted())
+                    put(queue, new Failed(supplier, e));
+            } catch (CancellationException ignored) {
+                // Consumer gone
+            }
+        }
+    }
+
+    /** Fills a batch and blocks on the queue when it is full. */
+    private static final class BatchSink implements Consumer<SupplierProduct> {
+        private final Supplier supplier;
+        private final BlockingQueue<Message> queue;
+        private List<SupplierProduct> batch = new ArrayList<>(BATCH_SIZE);
+        int count;
+
+        BatchSink(Supplier supplier, BlockingQueue<Message> queue) {
+            this.supplier = supplier;
+            this.queue = queue;
+        }
+
+        @Override
+        public void accept(SupplierProduct sp) {
+            batch.add(sp);
+            if (batch.size() == BATCH_SIZE)
+                flush();
+        }
+
+        void flush() {
+            if (batch.isEmpty())
+                return;
+            count += batch.size();
+            put(queue, new Batch(supplier, batch));
+            batch = new ArrayList<>(BATCH_SIZE);
+        }
+    }
+
+    private static void put(BlockingQueue<Message> queue, Message message) {
+        try {
+            queue.put(message);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Ingesta cancelada");
+        }
+    }
+
+    /** Queue length in batches, as derived from the budget. */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /** Most batches waiting at once in the last {@link #run}. */
+    public int getPeakBatches() {
+        return peakBatches;
+    }
+
+    /** Consumer-side (convert + consolidate) cost of the last {@link #run}. */
+    public StageMetrics getLastMetrics() {
+        return lastMetrics;
+    }
+}
@@ -1,11 +1,15 @@
 package com.pharmacyintel.service;
 
 import com.pharmacyintel.engine.ConsolidationEngine;
+import com.pharmacyintel.metrics.RunReport;
+import com.pharmacyintel.metrics.StageMetrics;
+import com.pharmacyintel.metrics.StageTimer;
 import com.pharmacyintel.model.*;
-import com.pharmacyintel.parser.*;
+import com.pharmacyintel.parser.ParseReport;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public class SyncOrchestrator {
 
@@ -15,81 +19,106 @@ public class SyncOrchestrator {
         void onError(String stage, String message);
 
         void onComplete(ConsolidationEngine engine);
+
+        /** Called as each stage finishes (BCV, parse/convert per supplier, engine phases). */
+        default void onStageMetrics(StageMetrics metrics) {
+        }
+
+        /** Called as each supplier file is parsed, with what was read and dropped. */
+        default void onParseReport(ParseReport quality) {
+        }
     }
 
-    private final BcvService bcvService = new BcvService();
+    private final BcvRateProvider rateProvider = BcvRateProvider.getDefault();
     private final ConsolidationEngine engine = new ConsolidationEngine();
     private ProgressListener listener;
+    private RunReport lastReport;
+    private boolean includeAllProducts;
 
     public void setProgressListener(ProgressListener listener) {
         this.listener = listener;
     }
 
+    /**
+     * Build the first catalog in Full Outer Join mode, instead of building the
+     * DroActiva-centric one and recalculating (two catalogs alive at once).
+     */
+    public void setIncludeAllProducts(boolean includeAllProducts) {
+        this.includeAllProducts = includeAllProducts;
+    }
+
     public void execute(Map<Supplier, File> supplierFiles, File outputDir, boolean fetchBcv) {
+        RunReport report = new RunReport();
+        lastReport = report;
         try {
-            // Phase 1: BCV Rate
-            reportProgress("Obteniendo tasa BCV...", 5);
+            // Phase 1: BCV Rate — fetched in the background while files are parsed
+            CompletableFuture<Double> pendingRate = null;
             if (fetchBcv) {
-                double rate = bcvService.fetchRate();
-                if (rate <= 0) {
-                    double currentRate = GlobalConfig.getInstance().getBcvRate();
-                    if (currentRate <= 1.0) {
-                        reportError("BCV", "No se pudo obtener la tasa BCV. Configure la tasa manual.");
-                    } else {
-                        reportProgress("Usando tasa manual: " + String.format("%.4f", currentRate), 10);
-                    }
-                }
+                reportProgress("Obteniendo tasa BCV en segundo plano...", 5);
+                pendingRate = rateProvider.refreshAsync();
             }
-            double bcvRate = GlobalConfig.getInstance().getBcvRate();
-            reportProgress("Tasa BCV: " + String.format("%.4f", bcvRate), 10);
 
-            // Phase 2: Parse supplier files
-            Map<Supplier, List<SupplierProduct>> supplierData = new EnumMap<>(Supplier.class);
-            int fileIdx = 0;
+            // Phase 2: Stream supplier files through the bounded pipeline
+            // (Bs prices stay native; the engine projects them)
+            List<Supplier> pendingBs = new ArrayList<>();
             int totalFiles = supplierFiles.size();
+            int[] filesDone = { 0 };
+            reportProgress("Procesando " + totalFiles + " archivo(s)...", 10);
+            IngestPipeline pipeline = new IngestPipeline(GlobalConfig.getInstance().getIngestBudgetMb(),
+                    Runtime.getRuntime().availableProcessors());
+            pipeline.setBarcodeAliases(engine.getBarcodeAliases());
+            Map<Supplier, List<SupplierProduct>> supplierData = pipeline.run(supplierFiles,
+                    new IngestPipeline.Listener() {
+                        @Override
+                        public void onParsed(Supplier supplier, File file, int products, ParseReport quality,
+                                StageMetrics parse) {
+                            filesDone[0]++;
+                            recordStage(report, parse);
+                            report.addParseReport(quality);
+                            if (quality.getSkipped() > 0)
+                                System.out.println("[SyncOrchestrator] " + quality);
+                            if (listener != null)
+                                listener.onParseReport(quality);
+                            if (supplier.getCurrency() == PriceCurrency.VES)
+                                pendingBs.add(supplier);
+                            String skipped = quality.getSkipped() > 0
+                                    ? ", " + quality.getSkipped() + " filas descartadas"
+                                    : "";
+                            reportProgress(supplier.getDisplayName() + ": " + products + " productos" + skipped,
+                                    10 + (filesDone[0] * 60 / totalFiles));
+                        }
 
-            for (var entry : supplierFiles.entrySet()) {
-                Supplier supplier = entry.getKey();
-                File file = entry.getValue();
-                fileIdx++;
-
-                reportProgress("Procesando " + supplier.getDisplayName() + "...", 10 + (fileIdx * 60 / totalFiles));
-
-                try {
-                    SupplierParser parser = createParser(supplier);
-                    List<SupplierProduct> products = parser.parse(file);
-
-                    for (SupplierProduct sp : products) {
-                        // Paso 1: Si el proveedor reporta en Bs, convertir basePrice a USD
-                        if (isSupplierInBs(supplier) && bcvRate > 1) {
-                            sp.setBasePrice(sp.getBasePrice() / bcvRate);
+                        @Override
+                        public void onFailed(Supplier supplier, Throwable error) {
+                            filesDone[0]++;
+                            reportError(supplier.getDisplayName(), "Error: " + (error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName()));
                         }
-                        // Paso 2: Recalcular netPrice para TODOS los proveedores
-                        sp.setNetPrice(sp.getBasePrice() * (1.0 - (sp.getOfferPct() / 100.0)));
-                    }
-
-                    if (isSupplierInBs(supplier) && bcvRate > 1) {
-                        reportProgress(supplier.getDisplayName() + ": " + products.size()
-                                + " productos (convertidos de Bs a USD)", 10 + (fileIdx * 60 / totalFiles));
-                    } else {
-                        reportProgress(supplier.getDisplayName() + ": " + products.size() + " productos",
-                                10 + (fileIdx * 60 / totalFiles));
-                    }
-
-                    supplierData.put(supplier, products);
-                } catch (Exception e) {
-                    reportError(supplier.getDisplayName(), "Error: " + e.getMessage());
+                    });
+            recordStage(report, pipeline.getLastMetrics());
+
+            // Only the Bs projection has to wait for the rate
+            double bcvRate = resolveRate(report, pendingRate, !pendingBs.isEmpty());
+            if (bcvRate > 1) {
+                for (Supplier supplier : pendingBs) {
+                    reportProgress(supplier.getDisplayName() + ": " + supplierData.get(supplier).size()
+                            + " productos (Bs → USD a " + String.format("%.4f", bcvRate) + ")", 72);
                 }
             }
 
             // Phase 3: Consolidate and analyze
             reportProgress("Consolidando datos...", 75);
             double margin = GlobalConfig.getInstance().getTargetMarginPct();
-            engine.process(supplierData, margin, false);
+            engine.process(supplierData, margin, includeAllProducts);
+            for (StageMetrics m : engine.getLastRebuildMetrics()) {
+                recordStage(report, m);
+            }
 
             reportProgress("Análisis: " + engine.getTotalProducts() + " productos, "
                     + engine.getComparableProducts() + " comparables", 85);
 
+            report.finish();
+            writeReport(report, outputDir);
+
             reportProgress("¡Procesamiento exitoso sin exportación!", 100);
 
             if (listener != null) {
@@ -102,23 +131,116 @@ public class SyncOrchestrator {
         }
     }
 
-    private boolean isSupplierInBs(Supplier supplier) {
-        return supplier == Supplier.NENA || supplier == Supplier.F24;
+    /**
+     * Incremental sync of one supplier's new file: only that file is parsed,
+     * the engine swaps it in and rebuilds from the rows it already keeps (Bs
+     * prices at the rate already in use). Reports progress, stage metrics and
+     * the parse report like {@link #execute}, then {@code onComplete}.
+     *
+     * @return the parse report, or null if the file could not be read
+     */
+    public ParseReport syncSupplier(Supplier supplier, File file, File outputDir) {
+        RunReport report = new RunReport();
+        lastReport = report;
+        try {
+            reportProgress(supplier.getDisplayName() + ": leyendo " + file.getName(), 10);
+            IngestPipeline pipeline = new IngestPipeline(GlobalConfig.getInstance().getIngestBudgetMb(), 1);
+            pipeline.setBarcodeAliases(engine.getBarcodeAliases());
+            ParseReport[] parsed = { null };
+            Map<Supplier, List<SupplierProduct>> data = pipeline.run(Map.of(supplier, file),
+                    new IngestPipeline.Listener() {
+                        @Override
+                        public void onParsed(Supplier s, File f, int products, ParseReport quality,
+                                StageMetrics parse) {
+                            parsed[0] = quality;
+                            recordStage(report, parse);
+                            report.addParseReport(quality);
+                            if (listener != null)
+                                listener.onParseReport(quality);
+                        }
+
+                        @Override
+                        public void onFailed(Supplier s, Throwable error) {
+                            reportError(s.getDisplayName(), "Error: " + (error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName()));
+                        }
+                    });
+            if (parsed[0] == null)
+                return null;
+            recordStage(report, pipeline.getLastMetrics());
+
+            reportProgress("Consolidando " + supplier.getDisplayName() + "...", 75);
+            engine.replaceSupplier(supplier, data.get(supplier));
+            for (StageMetrics m : engine.getLastRebuildMetrics())
+                recordStage(report, m);
+
+            report.finish();
+            writeReport(report, outputDir);
+            reportProgress(supplier.getDisplayName() + ": " + parsed[0].getProducts() + " productos", 100);
+            if (listener != null)
+                listener.onComplete(engine);
+            return parsed[0];
+        } catch (Exception e) {
+            reportError(supplier.getDisplayName(), "Error crítico: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Settle the BCV rate for this run: fetched, else cached on disk, else the
+     * manual rate already in GlobalConfig.
+     */
+    private double resolveRate(RunReport report, CompletableFuture<Double> pendingRate, boolean mayWait) {
+        GlobalConfig config = GlobalConfig.getInstance();
+        if (pendingRate != null) {
+            if (mayWait && !pendingRate.isDone())
+                reportProgress("Esperando tasa BCV...", 72);
+            StageTimer bcvTimer = StageTimer.start("bcv");
+            BcvRateProvider.Resolution resolution = rateProvider.resolve(pendingRate, mayWait);
+            recordStage(report, bcvTimer.finish(resolution.getSource() == BcvRateProvider.Source.NONE ? 0 : 1));
+
+            if (resolution.getSource() != BcvRateProvider.Source.NONE) {
+                config.setBcvRate(resolution.getRate());
+                reportProgress("Tasa BCV: " + BcvRateProvider.describe(resolution), 72);
+                return resolution.getRate();
+            }
+            if (config.getBcvRate() <= 1.0) {
+                reportError("BCV", "No se pudo obtener la tasa BCV. Configure la tasa manual.");
+            } else {
+                reportProgress("Usando tasa manual: " + String.format("%.4f", config.getBcvRate()), 72);
+            }
+        }
+        double bcvRate = config.getBcvRate();
+        reportProgress("Tasa BCV: " + String.format("%.4f", bcvRate), 72);
+        return bcvRate;
     }
 
-    public ConsolidationEngine getEngine() {
-        return engine;
+    private void recordStage(RunReport report, StageMetrics metrics) {
+        report.add(metrics);
+        System.out.println("[SyncOrchestrator] " + metrics);
+        if (listener != null)
+            listener.onStageMetrics(metrics);
     }
 
-    private SupplierParser createParser(Supplier supplier) {
-        return switch (supplier) {
-            case DROACTIVA -> new DroactivaParser();
-            case DROMARKO -> new DromarkoParser();
-            case COBECA -> new CobecaParser();
-            case NENA -> new NenaParser();
-            case F24 -> new F24Parser();
-            case P365 -> new P365CsvParser();
-        };
+    private void writeReport(RunReport report, File outputDir) {
+        if (outputDir == null || !outputDir.isDirectory())
+            return;
+        try {
+            File file = report.write(outputDir);
+            System.out.println("[SyncOrchestrator] Métricas: " + file.getAbsolutePath());
+        } catch (Exception e) {
+            // Metrics are diagnostic only; never fail the sync over them
+            System.err.println("[SyncOrchestrator] No se pudo escribir métricas: " + e.getMessage());
+        }
+    }
+
+    /** Stage metrics of the last {@link #execute} call, or null before the first run. */
+    public RunReport getLastReport() {
+        return lastReport;
+    }
+
+    public ConsolidationEngine getEngine() {
+        return engine;
     }
 
     private void reportProgress(String stage, int percent) {
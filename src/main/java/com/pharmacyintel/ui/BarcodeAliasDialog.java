@@ -0,0 +1,152 @@
+package com.pharmacyintel.ui;
+
+import com.pharmacyintel.model.BarcodeAliases;
+import com.pharmacyintel.parser.DataSanitizer;
+import com.formdev.flatlaf.FlatClientProperties;
+import net.miginfocom.swing.MigLayout;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Editor for the {@link BarcodeAliases} table: add a supplier code that
+ * should join another product, or remove one. Codes are cleaned like the
+ * parsers clean them (symbols and leading zeros removed), so they match the
+ * keyed rows. Edits are applied and saved together on "Guardar".
+ */
+public class BarcodeAliasDialog extends JDialog {
+
+    private static final Color BG = new Color(30, 33, 40);
+    private static final Color TABLE_BG = new Color(38, 42, 52);
+    private static final Color ACCENT = new Color(100, 160, 255);
+
+    private final BarcodeAliases aliases;
+    private final DefaultTableModel model;
+
+    public BarcodeAliasDialog(Window owner, BarcodeAliases aliases) {
+        super(owner, " 🏷 Alias de Códigos de Barra ", ModalityType.APPLICATION_MODAL);
+        this.aliases = aliases;
+        setSize(620, 560);
+        setLocationRelativeTo(owner);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        getContentPane().setBackground(BG);
+        setLayout(new MigLayout("insets 12, fill, wrap", "[grow]", "[]8[]8[grow]8[]"));
+
+        JLabel info = new JLabel("<html>Cada código alias se une al producto del código canónico. Los alias nuevos "
+                + "se aplican al recalcular; los eliminados, al volver a cargar los archivos.</html>");
+        info.setForeground(new Color(150, 160, 175));
+        add(info, "growx, w 100:580");
+
+        JPanel addRow = new JPanel(new MigLayout("insets 0, fillx", "[grow]8[grow]8[]", ""));
+        addRow.setOpaque(false);
+        JTextField aliasField = new JTextField();
+        aliasField.putClientProperty(FlatClientProperties.PLACEHOLDER_TEXT, "Código alias");
+        JTextField canonicalField = new JTextField();
+        canonicalField.putClientProperty(FlatClientProperties.PLACEHOLDER_TEXT, "Código canónico");
+        JButton addBtn = new JButton("Agregar");
+        addBtn.addActionListener(e -> {
+            if (addEntry(aliasField.getText(), canonicalField.getText())) {
+                aliasField.setText("");
+                canonicalField.setText("");
+                aliasField.requestFocusInWindow();
+            }
+        });
+        addRow.add(aliasField, "growx");
+        addRow.add(canonicalField, "growx");
+        addRow.add(addBtn);
+        add(addRow, "growx");
+
+        model = new DefaultTableModel(new Object[] { "Código alias", "Código canónico" }, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        aliases.asMap().forEach((alias, canonical) -> model.addRow(new Object[] { alias, canonical }));
+        JTable table = new JTable(model);
+        table.setBackground(TABLE_BG);
+        table.setForeground(Color.WHITE);
+        table.setSelectionBackground(new Color(60, 70, 90));
+        table.setSelectionForeground(Color.WHITE);
+        table.setRowHeight(24);
+        table.setGridColor(new Color(50, 55, 65));
+        table.setAutoCreateRowSorter(true);
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setBorder(BorderFactory.createEmptyBorder());
+        scrollPane.getViewport().setBackground(TABLE_BG);
+        add(scrollPane, "grow");
+
+        JPanel buttons = new JPanel(new MigLayout("insets 8, fillx", "[]push[]16[]", ""));
+        buttons.setOpaque(false);
+        JButton removeBtn = new JButton("Eliminar seleccionados");
+        removeBtn.addActionListener(e -> {
+            int[] rows = table.getSelectedRows();
+            for (int i = rows.length - 1; i >= 0; i--)
+                model.removeRow(table.convertRowIndexToModel(rows[i]));
+        });
+        buttons.add(removeBtn);
+        JButton cancelBtn = new JButton("Cancelar");
+        cancelBtn.addActionListener(e -> dispose());
+        buttons.add(cancelBtn);
+        JButton saveBtn = new JButton(" 💾  Guardar ");
+        saveBtn.setBackground(ACCENT);
+        saveBtn.setForeground(Color.WHITE);
+        saveBtn.addActionListener(e -> save());
+        buttons.add(saveBtn);
+        add(buttons, "growx");
+    }
+
+    private boolean addEntry(String rawAlias, String rawCanonical) {
+        String alias = DataSanitizer.cleanBarcode(rawAlias);
+        String canonical = DataSanitizer.cleanBarcode(rawCanonical);
+        if (alias.isEmpty() || canonical.isEmpty()) {
+            Toast.show("Indique ambos códigos", Toast.Type.WARNING);
+            return false;
+        }
+        if (alias.equals(canonical)) {
+            Toast.show("Un código no puede ser alias de sí mismo", Toast.Type.WARNING);
+            return false;
+        }
+        for (int row = 0; row < model.getRowCount(); row++) {
+            if (model.getValueAt(row, 0).equals(alias)) {
+                model.setValueAt(canonical, row, 1);
+                return true;
+            }
+        }
+        model.addRow(new Object[] { alias, canonical });
+        return true;
+    }
+
+    /** Applies removals, then additions, to the shared table and writes it. */
+    private void save() {
+        Map<String, String> edited = new LinkedHashMap<>();
+        for (int row = 0; row < model.getRowCount(); row++)
+            edited.put((String) model.getValueAt(row, 0), (String) model.getValueAt(row, 1));
+
+        Map<String, String> current = aliases.asMap();
+        for (String alias : current.keySet()) {
+            if (!edited.containsKey(alias))
+                aliases.remove(alias);
+        }
+        int rejected = 0;
+        for (var entry : edited.entrySet()) {
+            if (entry.getValue().equals(current.get(entry.getKey())))
+                continue;
+            if (!aliases.add(entry.getKey(), entry.getValue()))
+                rejected++;
+        }
+        try {
+            aliases.save();
+        } catch (IOException ex) {
+            Toast.show("No se pudo guardar la tabla de alias: " + ex.getMessage(), Toast.Type.ERROR);
+            return;
+        }
+        if (rejected > 0)
+            Toast.show(rejected + " alias circulares ignorados", Toast.Type.WARNING);
+        dispose();
+    }
+}
@@ -1,7 +1,7 @@
 package com.pharmacyintel.ui;
 
-import com.pharmacyintel.engine.ConsolidationEngine;
-import com.pharmacyintel.model.*;
+import com.pharmacyintel.engine.CatalogSnapshot;
+import com.pharmacyintel.engine.PriceDistributions.Metric;
 import net.miginfocom.swing.MigLayout;
 import org.jfree.chart.ChartPanel;
 
@@ -9,11 +9,16 @@ import javax.swing.*;
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Function;
 
 /**
  * Chart carousel dialog: modal window with CardLayout to navigate
  * through analytics charts at full size.
+ * <p>
+ * The dialog opens with placeholder cards while {@link ChartDatasets}
+ * aggregates the catalog in the background (or returns the cached result for
+ * the same snapshot); each chart is only created the first time its card is
+ * shown.
  */
 public class ChartCarouselDialog extends JDialog {
 
@@ -25,9 +30,14 @@ public class ChartCarouselDialog extends JDialog {
     private final JPanel cardsPanel;
     private final JLabel titleLabel;
     private final List<String> chartTitles = new ArrayList<>();
+    private final List<Function<ChartDatasets, ChartPanel>> chartFactories = new ArrayList<>();
+    private final List<RoundedPanel> cards = new ArrayList<>();
+    private final List<Boolean> built = new ArrayList<>();
+    /** Null until the background aggregation finishes. */
+    private ChartDatasets datasets;
     private int currentIndex = 0;
 
-    public ChartCarouselDialog(Frame owner, ConsolidationEngine engine) {
+    public ChartCarouselDialog(Frame owner, CatalogSnapshot snapshot) {
         super(owner, " 📊 Gráficos de Análisis ", true);
         setSize(900, 700);
         setLocationRelativeTo(owner);
@@ -46,8 +56,8 @@ public class ChartCarouselDialog extends JDialog {
         cardsPanel = new JPanel(cardLayout);
         cardsPanel.setBackground(BG);
 
-        // Build charts
-        buildCharts(engine);
+        // Placeholder cards; charts are created on first show
+        buildCards(snapshot);
 
         add(cardsPanel, "grow");
 
@@ -69,65 +79,101 @@ public class ChartCarouselDialog extends JDialog {
         if (!chartTitles.isEmpty()) {
             titleLabel.setText(chartTitles.get(0));
         }
+
+        ChartDatasets.of(snapshot).whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                System.err.println("[ChartCarouselDialog] Error al calcular los gráficos: " + error);
+                for (RoundedPanel card : cards)
+                    setPlaceholder(card, "No se pudieron calcular los gráficos");
+                return;
+            }
+            datasets = result;
+            showCard(currentIndex);
+        }));
     }
 
-    private void buildCharts(ConsolidationEngine engine) {
-        // Chart 1: Average Price by Supplier
-        Map<Supplier, Double> avgPrices = engine.getAveragePriceBySupplier();
+    private void buildCards(CatalogSnapshot snapshot) {
         addChart("Precio Promedio por Droguería",
-                PharmacyChartFactory.createBarChart("Precio Promedio por Droguería", avgPrices, "USD"));
-
-        // Chart 2: Market Position (Wins)
-        Map<Supplier, Integer> wins = engine.getWinCountBySupplier();
+                d -> PharmacyChartFactory.createBarChart("Precio Promedio por Droguería", d.avgPrices, "USD"));
         addChart("Posición de Mercado (Victorias)",
-                PharmacyChartFactory.createHorizontalBarChart("Posición de Mercado (Victorias)", wins));
-
-        // Chart 3: Inventory Summary
-        Map<Supplier, Integer> stock = engine.getTotalStockBySupplier();
+                d -> PharmacyChartFactory.createHorizontalBarChart("Posición de Mercado (Victorias)", d.wins));
         addChart("Inventario Total por Droguería",
-                PharmacyChartFactory.createBarChart("Inventario Total por Droguería", stock, "Unidades"));
-
-        // Chart 4: Offers (Pie)
-        Map<Supplier, Integer> offers = engine.getOfferCountBySupplier();
+                d -> PharmacyChartFactory.createBarChart("Inventario Total por Droguería", d.stock, "Unidades"));
         addChart("Productos con Oferta",
-                PharmacyChartFactory.createPieChart("Productos con Oferta", offers));
-
-        // Chart 5: Base vs Offer Price
-        Map<Supplier, double[]> baseVsOffer = engine.getBasePriceVsOfferPrice();
+                d -> PharmacyChartFactory.createPieChart("Productos con Oferta", d.offers));
         addChart("Precio Base vs Precio Neto",
-                PharmacyChartFactory.createGroupedBarChart("Precio Base vs Precio Neto", baseVsOffer));
-
-        // Chart 6: Win Distribution (Pie)
+                d -> PharmacyChartFactory.createGroupedBarChart("Precio Base vs Precio Neto", d.baseVsOffer));
         addChart("Distribución de Victorias",
-                PharmacyChartFactory.createPieChart("Distribución de Victorias", wins));
+                d -> PharmacyChartFactory.createPieChart("Distribución de Victorias", d.wins));
+        // Price distributions (quantile sketches built during consolidation)
+        addChart("Histograma de Precio Neto", d -> PharmacyChartFactory.createHistogramChart(
+                "Histograma de Precio Neto", d.distributions.bySupplier(Metric.NET_PRICE), "Precio neto (USD)", 40));
+        addChart("Percentiles de Precio Neto", d -> PharmacyChartFactory.createPercentileChart(
+                "Percentiles de Precio Neto", d.distributions.bySupplier(Metric.NET_PRICE), "USD"));
+        addChart("Percentiles de Oferta", d -> PharmacyChartFactory.createPercentileChart(
+                "Percentiles de Oferta", d.distributions.bySupplier(Metric.OFFER_PCT), "Oferta (%)"));
+        addChart("Histograma de DIF% vs Mejor Precio", d -> PharmacyChartFactory.createHistogramChart(
+                "Histograma de DIF% vs Mejor Precio", d.distributions.bySupplier(Metric.DIFF_PCT), "DIF (%)", 40));
+        addChart("Percentiles de DIF% vs Mejor Precio", d -> PharmacyChartFactory.createPercentileChart(
+                "Percentiles de DIF% vs Mejor Precio", d.distributions.bySupplier(Metric.DIFF_PCT), "DIF (%)"));
+        // Wins vs BCV rate (±50% around the current rate)
+        if (ChartDatasets.hasRateSweep(snapshot)) {
+            addChart("Victorias vs Tasa BCV", d -> PharmacyChartFactory.createRateSweepChart("Victorias vs Tasa BCV",
+                    d.rates, d.winsByRate, d.rate));
+        }
     }
 
-    private void addChart(String title, ChartPanel chartPanel) {
+    private void addChart(String title, Function<ChartDatasets, ChartPanel> factory) {
         String cardName = "chart_" + chartTitles.size();
         chartTitles.add(title);
+        chartFactories.add(factory);
+        built.add(false);
 
         RoundedPanel wrapper = new RoundedPanel(14);
         wrapper.setLayout(new BorderLayout());
         wrapper.setBackground(CARD_BG);
-        wrapper.add(chartPanel, BorderLayout.CENTER);
+        setPlaceholder(wrapper, "Calculando…");
+        cards.add(wrapper);
 
         cardsPanel.add(wrapper, cardName);
     }
 
+    private void setPlaceholder(RoundedPanel card, String text) {
+        JLabel label = new JLabel(text, SwingConstants.CENTER);
+        label.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        label.setForeground(new Color(150, 160, 175));
+        card.removeAll();
+        card.add(label, BorderLayout.CENTER);
+        card.revalidate();
+        card.repaint();
+    }
+
+    /** Shows card {@code index}, creating its chart if the datasets are ready and it was not built yet. */
+    private void showCard(int index) {
+        if (datasets != null && !built.get(index)) {
+            RoundedPanel card = cards.get(index);
+            card.removeAll();
+            card.add(chartFactories.get(index).apply(datasets), BorderLayout.CENTER);
+            card.revalidate();
+            card.repaint();
+            built.set(index, true);
+        }
+        cardLayout.show(cardsPanel, "chart_" + index);
+        titleLabel.setText(chartTitles.get(index));
+    }
+
     private void navigateNext() {
         if (chartTitles.isEmpty())
             return;
         currentIndex = (currentIndex + 1) % chartTitles.size();
-        cardLayout.show(cardsPanel, "chart_" + currentIndex);
-        titleLabel.setText(chartTitles.get(currentIndex));
+        showCard(currentIndex);
     }
 
     private void navigatePrev() {
         if (chartTitles.isEmpty())
             return;
         currentIndex = (currentIndex - 1 + chartTitles.size()) % chartTitles.size();
-        cardLayout.show(cardsPanel, "chart_" + currentIndex);
-        titleLabel.setText(chartTitles.get(currentIndex));
+        showCard(currentIndex);
     }
 
     private JButton createNavButton(String text) {
@@ -0,0 +1,79 @@
+package com.pharmacyintel.ui;
+
+import com.pharmacyintel.engine.CatalogSnapshot;
+import com.pharmacyintel.engine.PriceDistributions;
+import com.pharmacyintel.engine.RateSweepAnalyzer;
+import com.pharmacyintel.model.Supplier;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The aggregations behind {@link ChartCarouselDialog} for one snapshot.
+ * They are computed on a background thread and kept until a newer snapshot
+ * is asked for, so reopening the carousel without a recalculation reuses them.
+ */
+final class ChartDatasets {
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "chart-datasets");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Weak, so a catalog replaced by a recalculation is not kept alive by the cache. */
+    private static WeakReference<CatalogSnapshot> cachedSnapshot = new WeakReference<>(null);
+    private static CompletableFuture<ChartDatasets> cached;
+
+    final Map<Supplier, Double> avgPrices;
+    final Map<Supplier, Integer> wins;
+    final Map<Supplier, Integer> stock;
+    final Map<Supplier, Integer> offers;
+    final Map<Supplier, double[]> baseVsOffer;
+    /** Built by the engine with the snapshot; nothing to compute here. */
+    final PriceDistributions distributions;
+    /** Wins vs BCV rate (±50% around the snapshot's rate); null when there is no usable rate. */
+    final double[] rates;
+    final Map<Supplier, int[]> winsByRate;
+    final double rate;
+
+    private ChartDatasets(CatalogSnapshot snapshot) {
+        long start = System.nanoTime();
+        avgPrices = snapshot.getAveragePriceBySupplier();
+        wins = snapshot.getWinCountBySupplier();
+        stock = snapshot.getTotalStockBySupplier();
+        offers = snapshot.getOfferCountBySupplier();
+        baseVsOffer = snapshot.getBasePriceVsOfferPrice();
+        distributions = snapshot.getPriceDistributions();
+        rate = snapshot.getBcvRate();
+        if (hasRateSweep(snapshot)) {
+            rates = RateSweepAnalyzer.rates(rate * 0.5, rate * 1.5, 200);
+            winsByRate = new RateSweepAnalyzer(snapshot, false).winsByRate(rates);
+        } else {
+            rates = null;
+            winsByRate = null;
+        }
+        System.out.println("[ChartDatasets] Versión " + snapshot.getVersion() + " calculada en "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    static boolean hasRateSweep(CatalogSnapshot snapshot) {
+        return snapshot.getBcvRate() > 2;
+    }
+
+    /**
+     * Datasets for {@code snapshot}: the cached ones if it is the snapshot
+     * last asked for, otherwise a new background computation (which replaces
+     * the cache). A failed computation is retried on the next call.
+     */
+    static synchronized CompletableFuture<ChartDatasets> of(CatalogSnapshot snapshot) {
+        if (snapshot != cachedSnapshot.get() || cached.isCompletedExceptionally()) {
+            cachedSnapshot = new WeakReference<>(snapshot);
+            cached = CompletableFuture.supplyAsync(() -> new ChartDatasets(snapshot), EXECUTOR);
+        }
+        return cached;
+    }
+}
@@ -1,8 +1,11 @@
 package com.pharmacyintel.ui;
 
+import com.pharmacyintel.engine.CatalogSnapshot;
 import com.pharmacyintel.engine.ConsolidationEngine;
+import com.pharmacyintel.engine.MarginSimulator;
 import com.pharmacyintel.model.GlobalConfig;
 import com.pharmacyintel.model.MasterProduct;
+import com.pharmacyintel.report.DelimitedExporter;
 import com.pharmacyintel.report.ExcelExporter;
 import net.miginfocom.swing.MigLayout;
 
@@ -18,11 +21,26 @@ public class DashboardPanel extends JPanel {
     private static final Color ACCENT = new Color(100, 160, 255);
 
     private final ConsolidationEngine engine;
+    /** Version shown by this panel; exports and charts read it even if the engine moves on. */
+    private CatalogSnapshot snapshot;
     private final JCheckBox includeAllCheck;
+    private final JSlider marginSlider;
+    private final JLabel totalValue;
+    private final JLabel comparableValue;
+    private final JLabel rateValue;
+    private final JLabel marginValue;
     private ProductTablePanel tablePanel;
+    /** Columnar view of {@link #snapshot} for the slider preview, built on first drag. */
+    private MarginSimulator simulator;
+    private double[] previewSale;
+    private double[] previewMargin;
+    private boolean updatingSlider;
 
     public DashboardPanel(ConsolidationEngine engine) {
         this.engine = engine;
+        this.snapshot = engine.getSnapshot();
+        // Snapshots published from elsewhere (a supplier file synced from the inbox) show up live
+        engine.addRecalculationListener(next -> SwingUtilities.invokeLater(() -> showSnapshot(engine.getSnapshot())));
         setLayout(new MigLayout("insets 16, fill, wrap", "[grow]", "[]8[]8[grow]8[]"));
         setBackground(BG);
 
@@ -30,15 +48,15 @@ public class DashboardPanel extends JPanel {
         JPanel summaryRow = new JPanel(new MigLayout("insets 0, fillx", "[grow][grow][grow][grow]", ""));
         summaryRow.setOpaque(false);
 
-        summaryRow.add(createSummaryCard("📦 Total Productos",
-                String.valueOf(engine.getTotalProducts()), ACCENT), "grow");
-        summaryRow.add(createSummaryCard(" 📊 Productos Comparables ",
-                String.valueOf(engine.getComparableProducts()), new Color(52, 168, 83)), "grow");
-        summaryRow.add(createSummaryCard("💱 Tasa BCV",
-                String.format("%.4f", GlobalConfig.getInstance().getBcvRate()), new Color(251, 188, 4)), "grow");
-        summaryRow.add(createSummaryCard("📈 Margen Objetivo",
-                String.format("%.0f%%", GlobalConfig.getInstance().getTargetMarginPct()), new Color(171, 71, 188)),
-                "grow");
+        totalValue = createValueLabel(ACCENT);
+        comparableValue = createValueLabel(new Color(52, 168, 83));
+        rateValue = createValueLabel(new Color(251, 188, 4));
+        marginValue = createValueLabel(new Color(171, 71, 188));
+        summaryRow.add(createSummaryCard("📦 Total Productos", totalValue), "grow");
+        summaryRow.add(createSummaryCard(" 📊 Productos Comparables ", comparableValue), "grow");
+        summaryRow.add(createSummaryCard("💱 Tasa BCV", rateValue), "grow");
+        summaryRow.add(createSummaryCard("📈 Margen Objetivo", marginValue), "grow");
+        updateSummaryCards();
 
         add(summaryRow, "growx, h 80!");
 
@@ -46,7 +64,7 @@ public class DashboardPanel extends JPanel {
         ExecutiveSummaryPanel execSummary = new ExecutiveSummaryPanel();
         add(execSummary, "growx, h 90!");
 
-        List<MasterProduct> products = engine.getMasterProductList();
+        List<MasterProduct> products = snapshot.getMasterProductList();
         tablePanel = new ProductTablePanel(products);
         add(tablePanel, "grow");
 
@@ -58,7 +76,7 @@ public class DashboardPanel extends JPanel {
         tablePanel.fireInitialFilter();
 
         // --- Button Bar ---
-        JPanel buttonBar = new JPanel(new MigLayout("insets 8, fillx", "push[]16[]16[]16[]push", ""));
+        JPanel buttonBar = new JPanel(new MigLayout("insets 8, fillx", "push[]16[]16[]16[]16[]16[]16[]16[]push", ""));
         buttonBar.setOpaque(false);
 
         // Charts button
@@ -67,7 +85,7 @@ public class DashboardPanel extends JPanel {
         chartsBtn.setFont(new Font("Segoe UI Emoji", Font.BOLD, 15));
         chartsBtn.addActionListener(e -> {
             Frame owner = (Frame) SwingUtilities.getWindowAncestor(this);
-            ChartCarouselDialog dialog = new ChartCarouselDialog(owner, engine);
+            ChartCarouselDialog dialog = new ChartCarouselDialog(owner, snapshot);
             dialog.setVisible(true);
         });
         buttonBar.add(chartsBtn);
@@ -80,44 +98,182 @@ public class DashboardPanel extends JPanel {
         includeAllCheck.setSelected(false);
         includeAllCheck.setToolTipText(
                 "Desmarcado = Solo productos de Droactiva. Marcado = Full Outer Join (todos los proveedores).");
+        includeAllCheck.addItemListener(e -> recalculateAndRefresh());
         buttonBar.add(includeAllCheck);
 
+        // Margin slider: previews the "Utilidad Sim." column while dragging, applies on release
+        JPanel marginBox = new JPanel(new MigLayout("insets 0", "[]4[]", ""));
+        marginBox.setOpaque(false);
+        JLabel marginLabel = new JLabel("Margen");
+        marginLabel.setFont(new Font("Segoe UI Emoji", Font.BOLD, 13));
+        marginLabel.setForeground(new Color(171, 71, 188));
+        marginBox.add(marginLabel);
+        marginSlider = new JSlider(0, 100, (int) Math.round(snapshot.getMarginPct()));
+        marginSlider.setOpaque(false);
+        marginSlider.setPreferredSize(new Dimension(180, 28));
+        marginSlider.setToolTipText("Margen objetivo (%): la utilidad simulada se actualiza al arrastrar.");
+        marginSlider.addChangeListener(e -> onMarginSliderChanged());
+        marginBox.add(marginSlider);
+        buttonBar.add(marginBox);
+
         // Recalculate button
-        JButton refreshBtn = createStyledButton(" 🔄  Recalcular con Nuevo Margen ", ACCENT);
+        JButton refreshBtn = createStyledButton(" 🔄  Recalcular ", ACCENT);
+        refreshBtn.setPreferredSize(new Dimension(180, 42));
         refreshBtn.addActionListener(e -> recalculateAndRefresh());
         buttonBar.add(refreshBtn);
 
+        // What-if BCV rate: re-prices only the Bs suppliers, no re-parsing
+        JButton rateBtn = createStyledButton(" 💱  Simular Tasa BCV ", new Color(200, 150, 0));
+        rateBtn.setPreferredSize(new Dimension(220, 42));
+        rateBtn.addActionListener(e -> applyRateAndRefresh());
+        buttonBar.add(rateBtn);
+
+        // Description matches for products under different barcodes
+        JButton matchBtn = createStyledButton(" 🔗  Coincidencias ", new Color(0, 137, 123));
+        matchBtn.setPreferredSize(new Dimension(200, 42));
+        matchBtn.setToolTipText("Productos con la misma descripción y distinto código de barra");
+        matchBtn.addActionListener(e -> reviewMatches());
+        buttonBar.add(matchBtn);
+
         // Export button
         JButton exportBtn = createStyledButton(" 📥  Exportar Excel ", new Color(52, 168, 83));
-        exportBtn.addActionListener(ev -> exportExcel(engine));
+        exportBtn.addActionListener(ev -> exportExcel());
         buttonBar.add(exportBtn);
 
+        // Plain CSV/TSV export (raw numbers for purchasing scripts)
+        JButton csvBtn = createStyledButton(" 📄  Exportar CSV/TSV ", new Color(90, 100, 120));
+        csvBtn.setPreferredSize(new Dimension(220, 42));
+        csvBtn.addActionListener(ev -> exportDelimited());
+        buttonBar.add(csvBtn);
+
         add(buttonBar, "growx, h 60!");
     }
 
+    /** Full rebuild off the EDT: it may queue behind a supplier file being synced from the inbox. */
     private void recalculateAndRefresh() {
-        double margin = GlobalConfig.getInstance().getTargetMarginPct();
+        double margin = snapshot.getMarginPct();
         boolean includeAll = includeAllCheck.isSelected();
+        includeAllCheck.setEnabled(false);
+
+        long start = System.nanoTime();
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() {
+                engine.recalculate(margin, includeAll);
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                includeAllCheck.setEnabled(true);
+                try {
+                    get();
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    Toast.show("Error al recalcular: " + cause.getMessage(), Toast.Type.ERROR);
+                    return;
+                }
+                showSnapshot(engine.getSnapshot());
+                long ms = (System.nanoTime() - start) / 1_000_000;
+                String mode = includeAll ? "Full Outer Join" : "Solo Droactiva";
+                Toast.show("Recalculado (" + mode + ") — " + engine.getTotalProducts() + " productos en " + ms
+                        + " ms", Toast.Type.SUCCESS);
+            }
+        }.execute();
+    }
+
+    private void reviewMatches() {
+        Frame owner = (Frame) SwingUtilities.getWindowAncestor(this);
+        long aliasVersion = engine.getBarcodeAliases().getVersion();
+        MatchSuggestionDialog dialog = new MatchSuggestionDialog(owner, snapshot, engine.getBarcodeAliases());
+        dialog.setVisible(true);
+        // Accepted suggestions or edits in the alias editor
+        if (engine.getBarcodeAliases().getVersion() != aliasVersion)
+            recalculateAndRefresh();
+    }
 
-        engine.recalculate(margin, includeAll);
-
-        String mode = includeAll ? "Full Outer Join" : "Solo Droactiva";
-        Toast.show("Recalculado (" + mode + ") — " + engine.getTotalProducts() + " productos", Toast.Type.SUCCESS);
-
-        // Rebuild this panel entirely
-        Container parent = getParent();
-        if (parent != null) {
-            parent.removeAll();
-            DashboardPanel newDash = new DashboardPanel(engine);
-            newDash.includeAllCheck.setSelected(includeAll);
-            parent.setLayout(new BorderLayout());
-            parent.add(newDash, BorderLayout.CENTER);
-            parent.revalidate();
-            parent.repaint();
+    private void onMarginSliderChanged() {
+        if (updatingSlider)
+            return;
+        int margin = marginSlider.getValue();
+        marginValue.setText(String.format("%d%%", margin));
+        if (marginSlider.getValueIsAdjusting()) {
+            previewMargin(margin);
+        } else {
+            GlobalConfig.getInstance().setTargetMarginPct(margin);
+            showSnapshot(engine.applyMargin(margin));
         }
     }
 
-    private JPanel createSummaryCard(String label, String value, Color accentColor) {
+    /** Columnar what-if for the table only; the snapshot is untouched until the slider is released. */
+    private void previewMargin(double margin) {
+        if (simulator == null) {
+            simulator = new MarginSimulator(snapshot, false);
+            previewSale = new double[simulator.size()];
+            previewMargin = new double[simulator.size()];
+        }
+        simulator.simulate(margin, previewSale, previewMargin);
+        tablePanel.showSimulatedMargins(previewMargin);
+    }
+
+    private void applyRateAndRefresh() {
+        String input = JOptionPane.showInputDialog(this, "Nueva tasa BCV (Bs/USD):",
+                String.format("%.4f", snapshot.getBcvRate()));
+        if (input == null)
+            return;
+        double rate;
+        try {
+            rate = Double.parseDouble(input.trim().replace(',', '.'));
+        } catch (NumberFormatException e) {
+            Toast.show("Tasa inválida: " + input, Toast.Type.ERROR);
+            return;
+        }
+        if (rate <= 1.0) {
+            Toast.show("La tasa debe ser mayor que 1", Toast.Type.ERROR);
+            return;
+        }
+
+        long start = System.nanoTime();
+        engine.applyRate(rate);
+        long ms = (System.nanoTime() - start) / 1_000_000;
+        GlobalConfig.getInstance().setBcvRate(rate);
+
+        showSnapshot(engine.getSnapshot());
+        Toast.show("Tasa " + String.format("%.4f", rate) + " aplicada en " + ms + " ms", Toast.Type.SUCCESS);
+    }
+
+    /**
+     * Show another snapshot in the existing components: the table only
+     * repaints the cells that changed and re-runs its filter, which in turn
+     * refreshes the KPI cards.
+     */
+    private void showSnapshot(CatalogSnapshot next) {
+        if (next == snapshot)
+            return;
+        snapshot = next;
+        simulator = null;
+        updateSummaryCards();
+        updatingSlider = true;
+        marginSlider.setValue((int) Math.round(next.getMarginPct()));
+        updatingSlider = false;
+        tablePanel.setProducts(next.getMasterProductList());
+    }
+
+    private void updateSummaryCards() {
+        totalValue.setText(String.valueOf(snapshot.getTotalProducts()));
+        comparableValue.setText(String.valueOf(snapshot.getComparableProducts()));
+        rateValue.setText(String.format("%.4f", snapshot.getBcvRate()));
+        marginValue.setText(String.format("%.0f%%", snapshot.getMarginPct()));
+    }
+
+    private JLabel createValueLabel(Color accentColor) {
+        JLabel valueLabel = new JLabel();
+        valueLabel.setFont(new Font("Segoe UI", Font.BOLD, 22));
+        valueLabel.setForeground(accentColor);
+        return valueLabel;
+    }
+
+    private JPanel createSummaryCard(String label, JLabel valueLabel) {
         RoundedPanel card = new RoundedPanel(14);
         card.setLayout(new MigLayout("insets 12 16 12 16, wrap", "[grow]", "[]4[]"));
         card.setBackground(CARD_BG);
@@ -126,10 +282,6 @@ public class DashboardPanel extends JPanel {
         titleLabel.setFont(new Font("Segoe UI Emoji", Font.PLAIN, 12));
         titleLabel.setForeground(new Color(150, 160, 175));
         card.add(titleLabel);
-
-        JLabel valueLabel = new JLabel(value);
-        valueLabel.setFont(new Font("Segoe UI", Font.BOLD, 22));
-        valueLabel.setForeground(accentColor);
         card.add(valueLabel);
 
         return card;
@@ -146,7 +298,7 @@ public class DashboardPanel extends JPanel {
         return btn;
     }
 
-    private void exportExcel(ConsolidationEngine engine) {
+    private JFileChooser createOutputDirChooser() {
         JFileChooser chooser = new JFileChooser();
         File downloadsDir = new File(System.getProperty("user.home"), "Downloads");
         if (!downloadsDir.exists())
@@ -154,14 +306,19 @@ public class DashboardPanel extends JPanel {
         chooser.setCurrentDirectory(downloadsDir.exists() ? downloadsDir : new File(System.getProperty("user.dir")));
         chooser.setDialogTitle("Seleccionar carpeta de destino");
         chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        return chooser;
+    }
+
+    private void exportExcel() {
+        JFileChooser chooser = createOutputDirChooser();
 
         if (chooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
             try {
                 ExcelExporter exporter = new ExcelExporter();
                 String activeFilter = tablePanel != null ? tablePanel.getActiveFilter() : "Todos";
                 boolean stockOnly = tablePanel != null && tablePanel.isStockOnly();
-                File output = exporter.export(engine.getMasterCatalog(),
-                        GlobalConfig.getInstance().getBcvRate(), chooser.getSelectedFile(), activeFilter, stockOnly);
+                File output = exporter.export(snapshot.getMasterCatalog(), snapshot.getBcvRate(),
+                        chooser.getSelectedFile(), activeFilter, stockOnly);
                 Toast.show("Excel generado: " + output.getName(), Toast.Type.SUCCESS);
 
                 if (Desktop.isDesktopSupported()) {
@@ -173,4 +330,27 @@ public class DashboardPanel extends JPanel {
             }
         }
     }
+
+    private void exportDelimited() {
+        Object[] options = { "CSV", "TSV" };
+        int choice = JOptionPane.showOptionDialog(this, "Formato de exportación:", "Exportar datos planos",
+                JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, options, options[0]);
+        if (choice < 0)
+            return;
+        DelimitedExporter.Format format = choice == 1 ? DelimitedExporter.Format.TSV : DelimitedExporter.Format.CSV;
+
+        JFileChooser chooser = createOutputDirChooser();
+        if (chooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+            try {
+                String activeFilter = tablePanel != null ? tablePanel.getActiveFilter() : "Todos";
+                boolean stockOnly = tablePanel != null && tablePanel.isStockOnly();
+                File output = new DelimitedExporter(format).export(snapshot.getMasterCatalog(),
+                        chooser.getSelectedFile(), activeFilter, stockOnly);
+                Toast.show(format.name() + " generado: " + output.getName(), Toast.Type.SUCCESS);
+            } catch (Exception ex) {
+                Toast.show("Error al exportar: " + ex.getMessage(), Toast.Type.ERROR);
+                ex.printStackTrace();
+            }
+        }
+    }
 }
@@ -2,6 +2,7 @@ package com.pharmacyintel.ui;
 
 import com.pharmacyintel.model.MasterProduct;
 import com.pharmacyintel.model.Supplier;
+import com.pharmacyintel.model.SupplierMap;
 import com.pharmacyintel.model.SupplierProduct;
 import net.miginfocom.swing.MigLayout;
 
@@ -154,7 +155,7 @@ public class ExecutiveSummaryPanel extends JPanel {
                 int total = products.size();
 
                 // KPI 1: Best Price Supplier (most wins)
-                Map<Supplier, Integer> wins = new java.util.EnumMap<>(Supplier.class);
+                Map<Supplier, Integer> wins = new SupplierMap<>();
                 for (Supplier s : Supplier.values())
                         wins.put(s, 0);
                 for (MasterProduct mp : products) {
@@ -169,10 +170,10 @@ public class ExecutiveSummaryPanel extends JPanel {
                 setCard(1, " 🏆 ", " MEJOR PRECIO ",
                                 bestPrice != null ? bestPrice.getDisplayName() : "N/A",
                                 winCount + " victorias (" + winPct + ")",
-                                bestPrice != null ? bestPrice.getColor() : WIN_COLOR, WIN_COLOR);
+                                bestPrice != null ? SupplierColors.of(bestPrice) : WIN_COLOR, WIN_COLOR);
 
                 // KPI 2: Worst Price Supplier (most losses)
-                Map<Supplier, Integer> losses = new java.util.EnumMap<>(Supplier.class);
+                Map<Supplier, Integer> losses = new SupplierMap<>();
                 for (Supplier s : Supplier.values())
                         losses.put(s, 0);
                 for (MasterProduct mp : products) {
@@ -188,10 +189,10 @@ public class ExecutiveSummaryPanel extends JPanel {
                 setCard(2, " ⚠️ ", " PEOR PRECIO ",
                                 worstPrice != null ? worstPrice.getDisplayName() : "N/A",
                                 lossCount + " productos más caros (" + lossPct + ")",
-                                worstPrice != null ? worstPrice.getColor() : LOSS_COLOR, LOSS_COLOR);
+                                worstPrice != null ? SupplierColors.of(worstPrice) : LOSS_COLOR, LOSS_COLOR);
 
                 // KPI 3: Best Discount
-                Map<Supplier, Integer> offers = new java.util.EnumMap<>(Supplier.class);
+                Map<Supplier, Integer> offers = new SupplierMap<>();
                 for (MasterProduct mp : products) {
                         for (var entry : mp.getSupplierPrices().entrySet()) {
                                 if (entry.getValue().hasDiscount()) {
@@ -206,7 +207,7 @@ public class ExecutiveSummaryPanel extends JPanel {
                 setCard(3, " 💎 ", " MEJOR DESCUENTO ",
                                 bestDiscount != null ? bestDiscount.getDisplayName() : "N/A",
                                 offerCount + " productos con oferta",
-                                bestDiscount != null ? bestDiscount.getColor() : DISCOUNT_COLOR, DISCOUNT_COLOR);
+                                bestDiscount != null ? SupplierColors.of(bestDiscount) : DISCOUNT_COLOR, DISCOUNT_COLOR);
 
                 // KPI 4: Total products
                 long comparable = products.stream().filter(mp -> mp.getSupplierCount() >= 2).count();
@@ -394,7 +395,7 @@ public class ExecutiveSummaryPanel extends JPanel {
                                 LOSS_COLOR, LOSS_COLOR);
 
                 // Build per-supplier counts: how many of these products each other supplier carries
-                java.util.Map<Supplier, Integer> supplierCarries = new java.util.EnumMap<>(Supplier.class);
+                java.util.Map<Supplier, Integer> supplierCarries = new SupplierMap<>();
                 for (Supplier s : Supplier.values()) {
                         if (s == dro) continue;
                         supplierCarries.put(s, 0);
@@ -416,7 +417,7 @@ public class ExecutiveSummaryPanel extends JPanel {
                 setCard(2, " 🏪 ", " MAYOR COBERTURA ",
                                 topCoverage != null ? topCoverage.getDisplayName() : "N/A",
                                 topCount + " de " + total + " productos disponibles",
-                                topCoverage != null ? topCoverage.getColor() : WIN_COLOR, WIN_COLOR);
+                                topCoverage != null ? SupplierColors.of(topCoverage) : WIN_COLOR, WIN_COLOR);
 
                 // Card 3: Per-supplier breakdown
                 StringBuilder breakdown = new StringBuilder();
@@ -2,6 +2,10 @@ package com.pharmacyintel.ui;
 
 import com.pharmacyintel.model.GlobalConfig;
 import com.pharmacyintel.model.Supplier;
+import com.pharmacyintel.model.SupplierMap;
+import com.pharmacyintel.parser.SupplierDetector;
+import com.pharmacyintel.parser.SupplierRegistry;
+import com.pharmacyintel.service.BcvRateProvider;
 import net.miginfocom.swing.MigLayout;
 
 import javax.swing.*;
@@ -11,10 +15,16 @@ import java.awt.datatransfer.DataFlavor;
 import java.awt.dnd.*;
 import java.io.File;
 import java.util.*;
+import java.util.List;
 
 /**
  * File upload panel: 6 slots for supplier files + BCV rate display + process
  * button.
+ * <p>
+ * Files dropped anywhere on the panel (or several at once on a card) are
+ * routed to their slots by header with {@link SupplierDetector}; a single file
+ * dropped on a card or picked with the chooser is checked against that
+ * supplier and refused if its header belongs to another one.
  */
 public class FileUploadPanel extends JPanel {
 
@@ -27,8 +37,8 @@ public class FileUploadPanel extends JPanel {
     private static final Color ACCENT = new Color(100, 160, 255);
     private static final Color SUCCESS = new Color(52, 168, 83);
 
-    private final Map<Supplier, File> selectedFiles = new EnumMap<>(Supplier.class);
-    private final Map<Supplier, JLabel> fileLabels = new EnumMap<>(Supplier.class);
+    private final Map<Supplier, File> selectedFiles = new SupplierMap<>();
+    private final Map<Supplier, JLabel> fileLabels = new SupplierMap<>();
     private final JTextField bcvRateField;
     private final JCheckBox fetchBcvCheck;
     private final JButton processBtn;
@@ -45,13 +55,13 @@ public class FileUploadPanel extends JPanel {
         title.setForeground(Color.WHITE);
         add(title, "center");
 
-        JLabel subtitle = new JLabel("Carga los archivos de cada proveedor para generar el análisis comparativo");
+        JLabel subtitle = new JLabel("Carga los archivos de cada proveedor (o arrástralos todos juntos) para generar el análisis comparativo");
         subtitle.setFont(new Font("Segoe UI", Font.PLAIN, 14));
         subtitle.setForeground(new Color(130, 140, 160));
         add(subtitle, "center");
 
-        // File slots grid: 3 columns x 2 rows
-        JPanel grid = new JPanel(new MigLayout("insets 0, gap 16", "[grow][grow][grow]", "[grow][grow]"));
+        // File slots grid: 3 columns, one row per three registered suppliers
+        JPanel grid = new JPanel(new MigLayout("insets 0, gap 16, wrap 3", "[grow][grow][grow]", ""));
         grid.setOpaque(false);
 
         for (Supplier s : Supplier.values()) {
@@ -76,7 +86,9 @@ public class FileUploadPanel extends JPanel {
         rateLabel.setForeground(new Color(180, 185, 195));
         bcvPanel.add(rateLabel);
 
-        bcvRateField = new JTextField("51.3205", 10);
+        // Last rate fetched from the BCV (cached on disk) beats a hard-coded default
+        double cachedRate = BcvRateProvider.getDefault().getCachedRate();
+        bcvRateField = new JTextField(cachedRate > 0 ? String.format(Locale.ROOT, "%.4f", cachedRate) : "51.3205", 10);
         bcvRateField.setFont(new Font("Segoe UI", Font.PLAIN, 13));
         bcvPanel.add(bcvRateField);
 
@@ -104,6 +116,16 @@ public class FileUploadPanel extends JPanel {
         processBtn.setPreferredSize(new Dimension(420, 48));
         processBtn.addActionListener(e -> onProcess());
         add(processBtn, "center, h 48!");
+
+        // Batch drop: every file goes to the supplier its header belongs to
+        new DropTarget(this, new DropTargetAdapter() {
+            @Override
+            public void drop(DropTargetDropEvent dtde) {
+                List<File> files = droppedFiles(dtde);
+                if (files != null)
+                    routeFiles(files);
+            }
+        });
     }
 
     private JPanel createFileCard(Supplier supplier) {
@@ -118,7 +140,7 @@ public class FileUploadPanel extends JPanel {
         JPanel colorDot = new JPanel() {
             @Override
             protected void paintComponent(Graphics g) {
-                g.setColor(supplier.getColor());
+                g.setColor(SupplierColors.of(supplier));
                 ((Graphics2D) g).setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
                 g.fillOval(0, 0, 12, 12);
             }
@@ -134,7 +156,7 @@ public class FileUploadPanel extends JPanel {
         card.add(headerPanel);
 
         // File extension hint
-        String ext = (supplier == Supplier.DROACTIVA || supplier == Supplier.DROMARKO) ? "CSV" : "XLSX";
+        String ext = SupplierRegistry.getFileExtensions(supplier).get(0).toUpperCase(Locale.ROOT);
         JLabel extLabel = new JLabel("Archivo " + ext);
         extLabel.setFont(new Font("Segoe UI", Font.PLAIN, 11));
         extLabel.setForeground(new Color(120, 130, 145));
@@ -160,21 +182,117 @@ public class FileUploadPanel extends JPanel {
         new DropTarget(card, new DropTargetAdapter() {
             @Override
             public void drop(DropTargetDropEvent dtde) {
+                List<File> files = droppedFiles(dtde);
+                if (files == null)
+                    return;
+                if (files.size() == 1)
+                    checkFile(supplier, files.get(0));
+                else
+                    routeFiles(files);
+            }
+        });
+
+        return card;
+    }
+
+    /** Files of a drop, or null (with a toast) if the drop carries none. */
+    private static List<File> droppedFiles(DropTargetDropEvent dtde) {
+        try {
+            dtde.acceptDrop(DnDConstants.ACTION_COPY);
+            @SuppressWarnings("unchecked")
+            List<File> files = (List<File>) dtde.getTransferable().getTransferData(DataFlavor.javaFileListFlavor);
+            dtde.dropComplete(true);
+            List<File> regular = files.stream().filter(File::isFile).toList();
+            return regular.isEmpty() ? null : regular;
+        } catch (Exception ex) {
+            Toast.show("Error al cargar archivo", Toast.Type.ERROR);
+            return null;
+        }
+    }
+
+    /**
+     * Puts {@code file} in the supplier's slot if its header is that
+     * supplier's (or one it cannot be told apart from); otherwise says whose
+     * it looks like. Only the first rows are read, off the EDT.
+     */
+    private void checkFile(Supplier supplier, File file) {
+        new SwingWorker<SupplierDetector.Result, Void>() {
+            @Override
+            protected SupplierDetector.Result doInBackground() {
+                return SupplierDetector.classify(file);
+            }
+
+            @Override
+            protected void done() {
+                SupplierDetector.Result result;
                 try {
-                    dtde.acceptDrop(DnDConstants.ACTION_COPY);
-                    @SuppressWarnings("unchecked")
-                    java.util.List<File> files = (java.util.List<File>) dtde.getTransferable()
-                            .getTransferData(DataFlavor.javaFileListFlavor);
-                    if (!files.isEmpty()) {
-                        setFile(supplier, files.get(0));
+                    result = get();
+                } catch (Exception e) {
+                    Toast.show("Error al leer " + file.getName(), Toast.Type.ERROR);
+                    return;
+                }
+                if (result.accepts(supplier) || SupplierRegistry.getDefinition(supplier) == null) {
+                    setFile(supplier, file);
+                    return;
+                }
+                String guess = result.candidates().isEmpty() ? "encabezado no reconocido"
+                        : "parece de " + displayNames(result.supplier() != null
+                                ? List.of(result.supplier()) : result.candidates());
+                Toast.show(file.getName() + " no es un archivo de " + supplier.getDisplayName() + " (" + guess + ")",
+                        Toast.Type.ERROR);
+            }
+        }.execute();
+    }
+
+    /**
+     * Classifies every file by header and fills the matching slots; files
+     * that match no supplier, or two suppliers the name does not tell apart,
+     * are listed in a warning.
+     */
+    private void routeFiles(List<File> files) {
+        new SwingWorker<List<SupplierDetector.Result>, Void>() {
+            @Override
+            protected List<SupplierDetector.Result> doInBackground() {
+                List<SupplierDetector.Result> results = new ArrayList<>();
+                for (File f : files)
+                    results.add(SupplierDetector.classify(f));
+                return results;
+            }
+
+            @Override
+            protected void done() {
+                List<SupplierDetector.Result> results;
+                try {
+                    results = get();
+                } catch (Exception e) {
+                    Toast.show("Error al leer los archivos", Toast.Type.ERROR);
+                    return;
+                }
+                int routed = 0;
+                List<String> rejected = new ArrayList<>();
+                for (int i = 0; i < files.size(); i++) {
+                    SupplierDetector.Result r = results.get(i);
+                    File f = files.get(i);
+                    if (r.supplier() != null) {
+                        assign(r.supplier(), f);
+                        routed++;
+                    } else if (r.candidates().isEmpty()) {
+                        rejected.add(f.getName());
+                    } else {
+                        rejected.add(f.getName() + " (¿" + displayNames(r.candidates()) + "?)");
                     }
-                } catch (Exception ex) {
-                    Toast.show("Error al cargar archivo", Toast.Type.ERROR);
                 }
+                if (routed > 0)
+                    Toast.show(routed + " de " + files.size() + " archivo(s) asignados por encabezado",
+                            Toast.Type.SUCCESS);
+                if (!rejected.isEmpty())
+                    Toast.show("Sin proveedor: " + String.join(", ", rejected), Toast.Type.WARNING);
             }
-        });
+        }.execute();
+    }
 
-        return card;
+    private static String displayNames(List<Supplier> suppliers) {
+        return String.join(" o ", suppliers.stream().map(Supplier::getDisplayName).toList());
     }
 
     private void browseFile(Supplier supplier) {
@@ -183,24 +301,28 @@ public class FileUploadPanel extends JPanel {
         if (!downloadsDir.exists())
             downloadsDir = new File(System.getProperty("user.home"), "Descargas");
         chooser.setCurrentDirectory(downloadsDir.exists() ? downloadsDir : new File(System.getProperty("user.dir")));
-        if (supplier == Supplier.DROACTIVA || supplier == Supplier.DROMARKO || supplier == Supplier.P365) {
-            chooser.setFileFilter(new FileNameExtensionFilter("CSV files", "csv"));
-        } else {
-            chooser.setFileFilter(new FileNameExtensionFilter("Excel files", "xlsx", "xls"));
-        }
+        List<String> extensions = SupplierRegistry.getFileExtensions(supplier);
+        chooser.setFileFilter(new FileNameExtensionFilter(
+                supplier.getDisplayName() + " (" + String.join(", ", extensions) + ")",
+                extensions.toArray(new String[0])));
 
         if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
-            setFile(supplier, chooser.getSelectedFile());
+            checkFile(supplier, chooser.getSelectedFile());
         }
     }
 
-    private void setFile(Supplier supplier, File file) {
+    /** Puts {@code file} in the supplier's slot (also used for files picked up from the inbox). */
+    public void setFile(Supplier supplier, File file) {
+        assign(supplier, file);
+        Toast.show(supplier.getDisplayName() + ": " + file.getName(), Toast.Type.SUCCESS);
+    }
+
+    private void assign(Supplier supplier, File file) {
         selectedFiles.put(supplier, file);
         JLabel label = fileLabels.get(supplier);
         label.setText("✓ " + file.getName());
         label.setForeground(SUCCESS);
         label.setFont(new Font("Segoe UI", Font.BOLD, 11));
-        Toast.show(supplier.getDisplayName() + ": " + file.getName(), Toast.Type.SUCCESS);
     }
 
     private void onProcess() {
@@ -229,7 +351,7 @@ public class FileUploadPanel extends JPanel {
             }
         }
 
-        listener.onProcess(new EnumMap<>(selectedFiles), fetchBcvCheck.isSelected());
+        listener.onProcess(new SupplierMap<>(selectedFiles), fetchBcvCheck.isSelected());
     }
 
     public Map<Supplier, File> getSelectedFiles() {
@@ -0,0 +1,163 @@
+package com.pharmacyintel.ui;
+
+import com.pharmacyintel.engine.CatalogSnapshot;
+import com.pharmacyintel.engine.DescriptionMatcher;
+import com.pharmacyintel.model.BarcodeAliases;
+import com.pharmacyintel.model.MasterProduct;
+import com.pharmacyintel.model.Supplier;
+import net.miginfocom.swing.MigLayout;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableColumnModel;
+import java.awt.*;
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Review of the description matches found in a snapshot's universal
+ * catalog: products that probably are the same item under different
+ * barcodes. Checked rows are added to the {@link BarcodeAliases} table when
+ * the user accepts (the table can also be edited from here); the caller
+ * recalculates when its version changed.
+ */
+public class MatchSuggestionDialog extends JDialog {
+
+    private static final Color BG = new Color(30, 33, 40);
+    private static final Color TABLE_BG = new Color(38, 42, 52);
+    private static final Color ACCENT = new Color(100, 160, 255);
+    /** Suggestions at or above this similarity start checked. */
+    private static final double PRESELECT_SCORE = 0.9;
+
+    private static final int COL_ACCEPT = 0;
+
+    private final BarcodeAliases aliases;
+    private final DefaultTableModel model;
+    private final JLabel statusLabel;
+    private final JButton acceptBtn;
+    private List<DescriptionMatcher.Suggestion> suggestions = List.of();
+
+    public MatchSuggestionDialog(Frame owner, CatalogSnapshot snapshot, BarcodeAliases aliases) {
+        super(owner, " 🔗 Coincidencias por Descripción ", true);
+        this.aliases = aliases;
+        setSize(1200, 700);
+        setLocationRelativeTo(owner);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        getContentPane().setBackground(BG);
+        setLayout(new MigLayout("insets 12, fill, wrap", "[grow]", "[]8[grow]8[]"));
+
+        statusLabel = new JLabel("Buscando productos con la misma descripción y distinto código…");
+        statusLabel.setFont(new Font("Segoe UI", Font.BOLD, 14));
+        statusLabel.setForeground(Color.WHITE);
+        add(statusLabel, "growx");
+
+        model = new DefaultTableModel(new Object[] { "Aceptar", "Similitud", "Código", "Descripción",
+                "Droguerías", "Código alias", "Descripción alias", "Droguerías alias" }, 0) {
+            @Override
+            public Class<?> getColumnClass(int column) {
+                return column == COL_ACCEPT ? Boolean.class : String.class;
+            }
+
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return column == COL_ACCEPT;
+            }
+        };
+        JTable table = new JTable(model);
+        table.setBackground(TABLE_BG);
+        table.setForeground(Color.WHITE);
+        table.setSelectionBackground(new Color(60, 70, 90));
+        table.setSelectionForeground(Color.WHITE);
+        table.setRowHeight(26);
+        table.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        table.setGridColor(new Color(50, 55, 65));
+        table.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
+        table.setAutoCreateRowSorter(true);
+        TableColumnModel cm = table.getColumnModel();
+        int[] widths = { 60, 70, 110, 320, 150, 110, 320, 150 };
+        for (int i = 0; i < widths.length; i++)
+            cm.getColumn(i).setPreferredWidth(widths[i]);
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setBorder(BorderFactory.createEmptyBorder());
+        scrollPane.getViewport().setBackground(TABLE_BG);
+        add(scrollPane, "grow");
+
+        JPanel buttons = new JPanel(new MigLayout("insets 8, fillx", "[]16[]push[]16[]", ""));
+        buttons.setOpaque(false);
+        JLabel hint = new JLabel("El código alias se unirá al producto del código canónico al recalcular.");
+        hint.setForeground(new Color(150, 160, 175));
+        buttons.add(hint);
+        JButton editBtn = new JButton("Editar alias…");
+        editBtn.addActionListener(e -> new BarcodeAliasDialog(this, aliases).setVisible(true));
+        buttons.add(editBtn);
+        JButton cancelBtn = new JButton("Cancelar");
+        cancelBtn.addActionListener(e -> dispose());
+        buttons.add(cancelBtn);
+        acceptBtn = new JButton(" ✔  Aceptar seleccionadas ");
+        acceptBtn.setBackground(ACCENT);
+        acceptBtn.setForeground(Color.WHITE);
+        acceptBtn.setEnabled(false);
+        acceptBtn.addActionListener(e -> acceptChecked());
+        buttons.add(acceptBtn);
+        add(buttons, "growx");
+
+        List<MasterProduct> products = List.copyOf(snapshot.getUniversalCatalog().values());
+        new SwingWorker<List<DescriptionMatcher.Suggestion>, Void>() {
+            @Override
+            protected List<DescriptionMatcher.Suggestion> doInBackground() {
+                return new DescriptionMatcher().match(products);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    showSuggestions(get());
+                } catch (Exception ex) {
+                    statusLabel.setText("No se pudieron buscar coincidencias: " + ex.getMessage());
+                    ex.printStackTrace();
+                }
+            }
+        }.execute();
+    }
+
+    private void showSuggestions(List<DescriptionMatcher.Suggestion> found) {
+        suggestions = found;
+        for (DescriptionMatcher.Suggestion s : found) {
+            MasterProduct canonical = s.canonical();
+            MasterProduct alias = s.alias();
+            model.addRow(new Object[] { s.score() >= PRESELECT_SCORE, String.format("%.0f%%", s.score() * 100),
+                    canonical.getBarcode(), canonical.getDescription(), suppliers(canonical), alias.getBarcode(),
+                    alias.getDescription(), suppliers(alias) });
+        }
+        statusLabel.setText(found.isEmpty() ? "No se encontraron productos con distinto código y la misma descripción."
+                : found.size() + " posibles coincidencias; marque las que son el mismo producto.");
+        acceptBtn.setEnabled(!found.isEmpty());
+    }
+
+    private static String suppliers(MasterProduct mp) {
+        return mp.getSupplierPrices().keySet().stream().map(Supplier::getDisplayName)
+                .collect(Collectors.joining(", "));
+    }
+
+    private void acceptChecked() {
+        int added = 0;
+        for (int row = 0; row < model.getRowCount(); row++) {
+            if (!Boolean.TRUE.equals(model.getValueAt(row, COL_ACCEPT)))
+                continue;
+            DescriptionMatcher.Suggestion s = suggestions.get(row);
+            if (aliases.add(s.alias().getBarcode(), s.canonical().getBarcode()))
+                added++;
+        }
+        if (added == 0) {
+            Toast.show("No hay coincidencias marcadas", Toast.Type.WARNING);
+            return;
+        }
+        try {
+            aliases.save();
+        } catch (IOException ex) {
+            Toast.show("Los alias se aplicarán, pero no se pudieron guardar: " + ex.getMessage(), Toast.Type.WARNING);
+        }
+        dispose();
+    }
+}
@@ -0,0 +1,170 @@
+package com.pharmacyintel.ui;
+
+import com.pharmacyintel.parser.ParseReport;
+import net.miginfocom.swing.MigLayout;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableColumnModel;
+import java.awt.*;
+import java.util.List;
+
+/**
+ * Parse quality of the last sync: one row per supplier file with what was
+ * read and dropped by reason; selecting a file shows the columns its header
+ * was bound to and the first dropped rows, so a changed layout or a bad
+ * export can be spotted without opening the file.
+ */
+public class ParseQualityDialog extends JDialog {
+
+    private static final Color BG = new Color(30, 33, 40);
+    private static final Color TABLE_BG = new Color(38, 42, 52);
+    private static final Color MUTED = new Color(150, 160, 175);
+
+    private final JLabel columnsLabel;
+    private final DefaultTableModel sampleModel;
+
+    public ParseQualityDialog(Frame owner, List<ParseReport> reports) {
+        super(owner, " 📋 Calidad de Lectura ", true);
+        setSize(1100, 640);
+        setLocationRelativeTo(owner);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        getContentPane().setBackground(BG);
+        setLayout(new MigLayout("insets 12, fill, wrap", "[grow]", "[]8[]8[]4[grow]8[]"));
+
+        int skipped = reports.stream().mapToInt(ParseReport::getSkipped).sum();
+        JLabel title = new JLabel(skipped == 0 ? "Todas las filas con datos se leyeron como productos."
+                : skipped + " filas descartadas en " + reports.stream().filter(r -> r.getSkipped() > 0).count()
+                        + " archivo(s). Seleccione un archivo para ver ejemplos.");
+        title.setFont(new Font("Segoe UI", Font.BOLD, 14));
+        title.setForeground(Color.WHITE);
+        add(title, "growx");
+
+        ParseReport.Reason[] reasons = ParseReport.Reason.values();
+        String[] headers = new String[8 + reasons.length];
+        String[] fixed = { "Droguería", "Archivo", "Encabezado", "Filas", "Productos", "Vacías", "Descartadas",
+                "Dígito verif. inválido" };
+        System.arraycopy(fixed, 0, headers, 0, fixed.length);
+        for (int r = 0; r < reasons.length; r++)
+            headers[fixed.length + r] = reasons[r].getLabel();
+        DefaultTableModel fileModel = readOnly(headers);
+        for (ParseReport q : reports) {
+            Object[] row = new Object[headers.length];
+            row[0] = q.getSupplier().getDisplayName();
+            row[1] = q.getFile().getName();
+            row[2] = q.getHeaderRow() >= 0 ? "Fila " + (q.getHeaderRow() + 1) : "—";
+            row[3] = q.getRowsRead();
+            row[4] = q.getProducts();
+            row[5] = q.getBlankRows();
+            row[6] = q.getSkipped();
+            row[7] = q.getBadCheckDigits();
+            for (int r = 0; r < reasons.length; r++)
+                row[fixed.length + r] = q.getSkipped(reasons[r]);
+            fileModel.addRow(row);
+        }
+        JTable fileTable = table(fileModel);
+        TableColumnModel cm = fileTable.getColumnModel();
+        cm.getColumn(0).setPreferredWidth(110);
+        cm.getColumn(1).setPreferredWidth(220);
+        add(scroll(fileTable), "growx, h 170!");
+
+        columnsLabel = new JLabel(" ");
+        columnsLabel.setForeground(MUTED);
+        add(columnsLabel, "growx, w 100:1060");
+
+        JLabel samplesTitle = new JLabel("Filas descartadas (primeras " + ParseReport.MAX_SAMPLES + ")");
+        samplesTitle.setForeground(Color.WHITE);
+        add(samplesTitle);
+
+        sampleModel = readOnly(new String[] { "Fila", "Motivo", "Contenido" });
+        JTable sampleTable = table(sampleModel);
+        sampleTable.getColumnModel().getColumn(0).setPreferredWidth(60);
+        sampleTable.getColumnModel().getColumn(1).setPreferredWidth(170);
+        sampleTable.getColumnModel().getColumn(2).setPreferredWidth(840);
+        add(scroll(sampleTable), "grow");
+
+        JButton closeBtn = new JButton("Cerrar");
+        closeBtn.addActionListener(e -> dispose());
+        add(closeBtn, "right");
+
+        fileTable.getSelectionModel().addListSelectionListener(e -> {
+            int view = fileTable.getSelectedRow();
+            if (!e.getValueIsAdjusting() && view >= 0)
+                showFile(reports.get(fileTable.convertRowIndexToModel(view)));
+        });
+        int first = 0;
+        for (int i = 0; i < reports.size(); i++) {
+            if (reports.get(i).getSkipped() > 0) {
+                first = i;
+                break;
+            }
+        }
+        if (!reports.isEmpty())
+            fileTable.setRowSelectionInterval(first, first);
+    }
+
+    private void showFile(ParseReport q) {
+        StringBuilder cols = new StringBuilder("<html>Columnas de " + q.getSupplier().getDisplayName() + ": ");
+        List<ParseReport.Column> columns = q.getColumns();
+        if (columns.isEmpty())
+            cols.append("no informadas por el parser");
+        for (int i = 0; i < columns.size(); i++) {
+            ParseReport.Column c = columns.get(i);
+            if (i > 0)
+                cols.append(", ");
+            cols.append("<b>").append(c.field()).append("</b>=").append(c.letter());
+            if (!c.header().isEmpty())
+                cols.append(" '").append(escapeHtml(c.header())).append('\'');
+            if (c.inferred())
+                cols.append(" (inferida)");
+        }
+        columnsLabel.setText(cols.append("</html>").toString());
+
+        sampleModel.setRowCount(0);
+        for (ParseReport.Sample s : q.getSamples())
+            sampleModel.addRow(new Object[] { s.row(), s.reason().getLabel(), s.content() });
+    }
+
+    private static DefaultTableModel readOnly(String[] headers) {
+        return new DefaultTableModel(headers, 0) {
+            @Override
+            public Class<?> getColumnClass(int column) {
+                for (int row = 0; row < getRowCount(); row++) {
+                    if (getValueAt(row, column) != null)
+                        return getValueAt(row, column).getClass();
+                }
+                return Object.class;
+            }
+
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+    }
+
+    private static JTable table(DefaultTableModel model) {
+        JTable table = new JTable(model);
+        table.setBackground(TABLE_BG);
+        table.setForeground(Color.WHITE);
+        table.setSelectionBackground(new Color(60, 70, 90));
+        table.setSelectionForeground(Color.WHITE);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.setRowHeight(24);
+        table.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        table.setGridColor(new Color(50, 55, 65));
+        table.setAutoCreateRowSorter(true);
+        return table;
+    }
+
+    private static JScrollPane scroll(JTable table) {
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setBorder(BorderFactory.createEmptyBorder());
+        scrollPane.getViewport().setBackground(TABLE_BG);
+        return scrollPane;
+    }
+
+    private static String escapeHtml(String s) {
+        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
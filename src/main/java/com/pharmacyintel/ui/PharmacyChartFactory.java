@@ -1,5 +1,6 @@
 package com.pharmacyintel.ui;
 
+import com.pharmacyintel.engine.QuantileSketch;
 import com.pharmacyintel.model.Supplier;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.JFreeChart;
@@ -7,10 +8,19 @@ import org.jfree.chart.ChartPanel;
 import org.jfree.chart.plot.CategoryPlot;
 import org.jfree.chart.plot.PiePlot;
 import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.chart.plot.ValueMarker;
+import org.jfree.chart.plot.XYPlot;
 import org.jfree.chart.renderer.category.BarRenderer;
+import org.jfree.chart.renderer.category.BoxAndWhiskerRenderer;
+import org.jfree.chart.renderer.xy.XYLineAndShapeRenderer;
 import org.jfree.data.category.DefaultCategoryDataset;
 import org.jfree.data.general.DefaultPieDataset;
+import org.jfree.data.statistics.BoxAndWhiskerItem;
+import org.jfree.data.statistics.DefaultBoxAndWhiskerCategoryDataset;
+import org.jfree.data.xy.XYSeries;
+import org.jfree.data.xy.XYSeriesCollection;
 import java.awt.*;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -45,7 +55,7 @@ public class PharmacyChartFactory {
         // Color each series by its supplier
         int seriesIdx = 0;
         for (Supplier s : data.keySet()) {
-            renderer.setSeriesPaint(seriesIdx++, s.getColor());
+            renderer.setSeriesPaint(seriesIdx++, SupplierColors.of(s));
         }
 
         return wrap(chart);
@@ -72,7 +82,7 @@ public class PharmacyChartFactory {
         int seriesIdx = 0;
         for (var entry : data.entrySet().stream()
                 .sorted(Map.Entry.<Supplier, Integer>comparingByValue().reversed()).toList()) {
-            renderer.setSeriesPaint(seriesIdx++, entry.getKey().getColor());
+            renderer.setSeriesPaint(seriesIdx++, SupplierColors.of(entry.getKey()));
         }
 
         return wrap(chart);
@@ -101,7 +111,7 @@ public class PharmacyChartFactory {
         plot.setShadowPaint(null);
 
         for (var entry : data.entrySet()) {
-            plot.setSectionPaint(entry.getKey().getDisplayName(), entry.getKey().getColor());
+            plot.setSectionPaint(entry.getKey().getDisplayName(), SupplierColors.of(entry.getKey()));
         }
 
         if (chart.getLegend() != null) {
@@ -135,8 +145,132 @@ public class PharmacyChartFactory {
         return wrap(chart);
     }
 
+    /** Line chart: wins per supplier across a range of BCV rates, marking the current one */
+    public static ChartPanel createRateSweepChart(String title, double[] rates, Map<Supplier, int[]> wins,
+            double currentRate) {
+        XYSeriesCollection dataset = new XYSeriesCollection();
+        for (var entry : wins.entrySet()) {
+            XYSeries series = new XYSeries(entry.getKey().getDisplayName(), false, false);
+            int[] curve = entry.getValue();
+            for (int i = 0; i < rates.length; i++)
+                series.add(rates[i], curve[i]);
+            dataset.addSeries(series);
+        }
+
+        JFreeChart chart = ChartFactory.createXYLineChart(title, "Tasa BCV (Bs/USD)", "Victorias", dataset,
+                PlotOrientation.VERTICAL, true, true, false);
+        XYPlot plot = styleXYChart(chart, wins.keySet());
+
+        if (currentRate > 1) {
+            ValueMarker marker = new ValueMarker(currentRate, TEXT, new BasicStroke(1f, BasicStroke.CAP_BUTT,
+                    BasicStroke.JOIN_MITER, 10f, new float[] { 4f, 4f }, 0f));
+            marker.setLabel(String.format("Actual %.2f", currentRate));
+            marker.setLabelPaint(TEXT);
+            marker.setLabelFont(LABEL_FONT);
+            plot.addDomainMarker(marker);
+        }
+
+        return wrap(chart);
+    }
+
+    /**
+     * Histogram per supplier from its quantile sketch, as one line per
+     * supplier over shared bins so their shapes can be compared. Heights are
+     * the share of each supplier's own products; the range stops at the
+     * largest 99th percentile so a few outliers do not flatten the rest.
+     */
+    public static ChartPanel createHistogramChart(String title, Map<Supplier, QuantileSketch> data,
+            String valueLabel, int bins) {
+        double lo = Double.MAX_VALUE, hi = -Double.MAX_VALUE;
+        for (QuantileSketch sketch : data.values()) {
+            lo = Math.min(lo, sketch.getMin());
+            hi = Math.max(hi, sketch.quantile(0.99));
+        }
+        XYSeriesCollection dataset = new XYSeriesCollection();
+        if (hi > lo) {
+            double[] edges = QuantileSketch.edges(lo, hi, bins);
+            for (var entry : data.entrySet()) {
+                XYSeries series = new XYSeries(entry.getKey().getDisplayName(), false, false);
+                double[] counts = entry.getValue().histogram(edges);
+                double total = entry.getValue().getCount();
+                for (int i = 0; i < counts.length; i++)
+                    series.add((edges[i] + edges[i + 1]) / 2, counts[i] * 100.0 / total);
+                dataset.addSeries(series);
+            }
+        }
+
+        JFreeChart chart = ChartFactory.createXYLineChart(title, valueLabel + " (hasta P99)", "% de productos",
+                dataset, PlotOrientation.VERTICAL, true, true, false);
+        styleXYChart(chart, data.keySet());
+        return wrap(chart);
+    }
+
+    /**
+     * Box plot per supplier from its quantile sketch: box from P25 to P75
+     * with the median, whiskers at P5 and P95, min and max as outlier marks.
+     */
+    public static ChartPanel createPercentileChart(String title, Map<Supplier, QuantileSketch> data,
+            String valueLabel) {
+        DefaultBoxAndWhiskerCategoryDataset dataset = new DefaultBoxAndWhiskerCategoryDataset();
+        for (var entry : data.entrySet()) {
+            double[] q = entry.getValue().quantiles(0.05, 0.25, 0.5, 0.75, 0.95);
+            QuantileSketch sketch = entry.getValue();
+            dataset.add(new BoxAndWhiskerItem(null, q[2], q[1], q[3], q[0], q[4], sketch.getMin(), sketch.getMax(),
+                    List.of()), "Percentiles", entry.getKey().getDisplayName());
+        }
+
+        JFreeChart chart = ChartFactory.createBoxAndWhiskerChart(title, "", valueLabel, dataset, false);
+        styleChart(chart);
+        CategoryPlot plot = chart.getCategoryPlot();
+        Supplier[] suppliers = data.keySet().toArray(new Supplier[0]);
+        BoxAndWhiskerRenderer renderer = new BoxAndWhiskerRenderer() {
+            @Override
+            public Paint getItemPaint(int row, int column) {
+                return SupplierColors.of(suppliers[column]);
+            }
+        };
+        renderer.setMeanVisible(false);
+        renderer.setMaximumBarWidth(0.08);
+        renderer.setArtifactPaint(TEXT);
+        renderer.setDefaultToolTipGenerator(new org.jfree.chart.labels.BoxAndWhiskerToolTipGenerator());
+        plot.setRenderer(renderer);
+        return wrap(chart);
+    }
+
     // --- Helpers ---
 
+    /** Dark theme for XY line charts, one series per supplier in {@code suppliers} order. */
+    private static XYPlot styleXYChart(JFreeChart chart, Iterable<Supplier> suppliers) {
+        chart.setBackgroundPaint(BG);
+        chart.getTitle().setFont(TITLE_FONT);
+        chart.getTitle().setPaint(TEXT);
+        if (chart.getLegend() != null) {
+            chart.getLegend().setBackgroundPaint(BG);
+            chart.getLegend().setItemPaint(TEXT);
+            chart.getLegend().setItemFont(LABEL_FONT);
+        }
+
+        XYPlot plot = chart.getXYPlot();
+        plot.setBackgroundPaint(PLOT_BG);
+        plot.setOutlinePaint(null);
+        plot.setRangeGridlinePaint(GRID);
+        plot.setDomainGridlinePaint(GRID);
+        for (var axis : new org.jfree.chart.axis.ValueAxis[] { plot.getDomainAxis(), plot.getRangeAxis() }) {
+            axis.setTickLabelPaint(TEXT);
+            axis.setTickLabelFont(LABEL_FONT);
+            axis.setLabelPaint(TEXT);
+        }
+
+        XYLineAndShapeRenderer renderer = new XYLineAndShapeRenderer(true, false);
+        int seriesIdx = 0;
+        for (Supplier s : suppliers) {
+            renderer.setSeriesPaint(seriesIdx, SupplierColors.of(s));
+            renderer.setSeriesStroke(seriesIdx++, new BasicStroke(2f));
+        }
+        plot.setRenderer(renderer);
+        return plot;
+    }
+
     private static void styleChart(JFreeChart chart) {
         chart.setBackgroundPaint(BG);
         chart.getTitle().setFont(TITLE_FONT);
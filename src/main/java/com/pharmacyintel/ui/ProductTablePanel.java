@@ -1,15 +1,21 @@
 package com.pharmacyintel.ui;
 
+import com.pharmacyintel.metrics.TableRefreshEvent;
 import com.pharmacyintel.model.*;
 import net.miginfocom.swing.MigLayout;
 
 import javax.swing.*;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
+import javax.swing.event.TableModelEvent;
 import javax.swing.table.*;
 import java.awt.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.Vector;
 
 public class ProductTablePanel extends JPanel {
 
@@ -25,6 +31,7 @@ public class ProductTablePanel extends JPanel {
     private static final int COL_PRECIO_CON_OF_START = 4 + SUPPLIER_COUNT * 2;
     private static final int COL_POSICION_START = 4 + SUPPLIER_COUNT * 3;
     private static final int COL_ANALISIS_START = 4 + SUPPLIER_COUNT * 4;
+    private static final int COL_UTILIDAD = COL_ANALISIS_START + 2;
     private static final int COL_INVENTARIO_START = COL_ANALISIS_START + 3;
     private static final int COL_LOSER = COL_INVENTARIO_START + SUPPLIER_COUNT; // Hidden column for loser supplier
     private static final int TOTAL_COLS = 4 + SUPPLIER_COUNT * 4 + 3 + SUPPLIER_COUNT + 1; // +1 for hidden loser
@@ -46,7 +53,8 @@ public class ProductTablePanel extends JPanel {
     private final JCheckBox stockOnlyCheck;
     private final JComboBox<String> strategyFilter;
     private final JLabel countLabel;
-    private final List<MasterProduct> products;
+    /** Model rows, in order; replaced in place by {@link #setProducts(List)}. */
+    private List<MasterProduct> products;
 
     // Filter change listener
     private FilterChangeListener filterChangeListener;
@@ -123,40 +131,9 @@ public class ProductTablePanel extends JPanel {
 
         // Build table data
         Object[][] data = new Object[products.size()][TOTAL_COLS];
+        RowWriter writer = new RowWriter();
         for (int i = 0; i < products.size(); i++) {
-            MasterProduct mp = products.get(i);
-            col = 0;
-
-            data[i][col++] = mp.getBarcode();
-            data[i][col++] = mp.getInternalCode() != null ? mp.getInternalCode() : "";
-            data[i][col++] = mp.getDescription() != null ? mp.getDescription() : "";
-            data[i][col++] = mp.getSupplierCount();
-
-            for (Supplier s : SUPPLIERS) {
-                double bp = mp.getBasePriceForSupplier(s);
-                data[i][col++] = bp > 0 ? bp : null;
-            }
-            for (Supplier s : SUPPLIERS) {
-                double op = mp.getOfferPctForSupplier(s);
-                data[i][col++] = op > 0 ? op : null;
-            }
-            for (Supplier s : SUPPLIERS) {
-                double np = mp.getNetPriceForSupplier(s);
-                data[i][col++] = np > 0 ? np : null;
-            }
-            for (Supplier s : SUPPLIERS) {
-                int pos = mp.getPositionForSupplier(s);
-                data[i][col++] = pos > 0 ? pos : null;
-            }
-
-            data[i][col++] = mp.getWinnerSupplier() != null ? mp.getWinnerSupplier().getDisplayName() : "";
-            data[i][col++] = mp.getDiffPct() > 0 ? mp.getDiffPct() : null;
-            data[i][col++] = mp.getSimulatedMargin() > 0 ? mp.getSimulatedMargin() : null;
-            for (Supplier s : SUPPLIERS) {
-                int inv = mp.getStockForSupplier(s);
-                data[i][col++] = inv > 0 ? inv : null;
-            }
-            data[i][col++] = mp.getLoserSupplier() != null ? mp.getLoserSupplier().getDisplayName() : "";
+            writer.write(Arrays.asList(data[i]), i, products.get(i));
         }
 
         model = new DefaultTableModel(data, columnNames) {
@@ -183,7 +160,7 @@ public class ProductTablePanel extends JPanel {
             @Override
             public Object getValueAt(int row, int column) {
                 if (column >= COL_PRECIO_VENTA_START && column < COL_POSICION_START) {
-                    MasterProduct mp = products.get(row);
+                    MasterProduct mp = product(row);
                     int supplierIdx = -1;
                     if (column >= COL_PRECIO_CON_OF_START) {
                         supplierIdx = column - COL_PRECIO_CON_OF_START;
@@ -201,7 +178,7 @@ public class ProductTablePanel extends JPanel {
                 }
 
                 if (column >= COL_POSICION_START && column < COL_ANALISIS_START) {
-                    MasterProduct mp = products.get(row);
+                    MasterProduct mp = product(row);
                     int supplierIdx = column - COL_POSICION_START;
                     Supplier s = SUPPLIERS[supplierIdx];
                     if (stockOnlyCheck.isSelected() && mp.getStockForSupplier(s) <= 0) {
@@ -303,6 +280,178 @@ public class ProductTablePanel extends JPanel {
         add(scrollPane, "grow");
     }
 
+    private MasterProduct product(int modelRow) {
+        return products.get(modelRow);
+    }
+
+    /**
+     * Show another version of the catalog without rebuilding the table. When
+     * the rows are the same products in the same order (margin or rate
+     * changes) only the cells whose value changed are written, and one update
+     * event per changed column is fired over the span of changed rows, so the
+     * table repaints just those cells; filters and KPIs are re-evaluated
+     * unless only the simulated margin moved. Otherwise the rows are replaced and a
+     * single data-changed event is fired; columns, widths, sort keys and
+     * filters are kept either way.
+     */
+    public void setProducts(List<MasterProduct> newProducts) {
+        Vector<Vector<Object>> rows = dataRows();
+        List<MasterProduct> old = products;
+        products = newProducts;
+
+        RowWriter writer = new RowWriter();
+        if (!sameRows(old, newProducts)) {
+            rows.clear();
+            for (int i = 0; i < newProducts.size(); i++) {
+                Vector<Object> cells = new Vector<>(Collections.nCopies(TOTAL_COLS, null));
+                writer.write(cells, i, newProducts.get(i));
+                rows.add(cells);
+            }
+            model.fireTableDataChanged();
+            applyFilter();
+            return;
+        }
+
+        for (int i = 0; i < newProducts.size(); i++) {
+            MasterProduct mp = newProducts.get(i);
+            writer.write(rows.get(i), i, mp);
+            // Stock-only positions are not stored in the model, see getValueAt
+            for (int si = 0; si < SUPPLIER_COUNT; si++) {
+                if (old.get(i).getStockOnlyPositionForSupplier(SUPPLIERS[si]) != mp
+                        .getStockOnlyPositionForSupplier(SUPPLIERS[si]))
+                    writer.mark(COL_POSICION_START + si, i);
+            }
+        }
+
+        boolean refilter = false;
+        for (int c = 0; c < TOTAL_COLS; c++) {
+            if (writer.firstChanged[c] >= 0) {
+                model.fireTableChanged(new TableModelEvent(model, writer.firstChanged[c], writer.lastChanged[c], c));
+                // Neither the filters nor the KPI cards read the simulated margin
+                refilter |= c != COL_UTILIDAD;
+            }
+        }
+        if (refilter)
+            applyFilter();
+    }
+
+    /**
+     * Live preview of the "Utilidad Sim." column while the margin slider
+     * moves: {@code margins} is indexed like the products passed to
+     * {@link #setProducts(List)} (master catalog order, as produced by
+     * {@link com.pharmacyintel.engine.MarginSimulator}). Only that column is
+     * written and repainted; filters and KPIs are left alone until the
+     * margin is applied.
+     */
+    public void showSimulatedMargins(double[] margins) {
+        Vector<Vector<Object>> rows = dataRows();
+        int n = Math.min(rows.size(), margins.length);
+        for (int i = 0; i < n; i++) {
+            double m = margins[i];
+            rows.get(i).set(COL_UTILIDAD, m > 0 ? m : null);
+        }
+        if (n > 0)
+            model.fireTableChanged(new TableModelEvent(model, 0, n - 1, COL_UTILIDAD));
+    }
+
+    private static boolean sameRows(List<MasterProduct> a, List<MasterProduct> b) {
+        if (a.size() != b.size())
+            return false;
+        for (int i = 0; i < a.size(); i++) {
+            if (!a.get(i).getBarcode().equals(b.get(i).getBarcode()))
+                return false;
+        }
+        return true;
+    }
+
+    /** The model's rows; DefaultTableModel still declares them as a raw {@code Vector<Vector>}. */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Vector<Vector<Object>> dataRows() {
+        return (Vector<Vector<Object>>) (Vector) model.getDataVector();
+    }
+
+    /**
+     * Writes products into model rows. A cell is only boxed and stored when
+     * its value differs from what the row already holds, and each write is
+     * recorded as the span of rows changed per column.
+     */
+    private static final class RowWriter {
+        final int[] firstChanged = new int[TOTAL_COLS];
+        final int[] lastChanged = new int[TOTAL_COLS];
+        private List<Object> cells;
+        private int row;
+
+        RowWriter() {
+            Arrays.fill(firstChanged, -1);
+        }
+
+        /** Price and position cells are masked by {@code getValueAt} in stock-only mode. */
+        void write(List<Object> cells, int row, MasterProduct mp) {
+            this.cells = cells;
+            this.row = row;
+            int col = 0;
+
+            text(col++, mp.getBarcode());
+            text(col++, mp.getInternalCode() != null ? mp.getInternalCode() : "");
+            text(col++, mp.getDescription() != null ? mp.getDescription() : "");
+            integer(col++, mp.getSupplierCount(), true);
+
+            for (Supplier s : SUPPLIERS)
+                positive(col++, mp.getBasePriceForSupplier(s));
+            for (Supplier s : SUPPLIERS)
+                positive(col++, mp.getOfferPctForSupplier(s));
+            for (Supplier s : SUPPLIERS)
+                positive(col++, mp.getNetPriceForSupplier(s));
+            for (Supplier s : SUPPLIERS)
+                integer(col++, mp.getPositionForSupplier(s), false);
+
+            text(col++, mp.getWinnerSupplier() != null ? mp.getWinnerSupplier().getDisplayName() : "");
+            positive(col++, mp.getDiffPct());
+            positive(col++, mp.getSimulatedMargin());
+            for (Supplier s : SUPPLIERS)
+                integer(col++, mp.getStockForSupplier(s), false);
+            text(col++, mp.getLoserSupplier() != null ? mp.getLoserSupplier().getDisplayName() : "");
+        }
+
+        void mark(int column, int row) {
+            if (firstChanged[column] < 0)
+                firstChanged[column] = row;
+            lastChanged[column] = row;
+        }
+
+        private void text(int column, String value) {
+            if (!Objects.equals(cells.get(column), value))
+                store(column, value);
+        }
+
+        /** Stores {@code value}, or null when it is not positive and {@code keepZero} is false. */
+        private void integer(int column, int value, boolean keepZero) {
+            Object current = cells.get(column);
+            if (value > 0 || keepZero) {
+                if (!(current instanceof Integer i && i == value))
+                    store(column, value);
+            } else if (current != null) {
+                store(column, null);
+            }
+        }
+
+        /** Stores {@code value}, or null when it is not positive. */
+        private void positive(int column, double value) {
+            Object current = cells.get(column);
+            if (value > 0) {
+                if (!(current instanceof Double d && d == value))
+                    store(column, value);
+            } else if (current != null) {
+                store(column, null);
+            }
+        }
+
+        private void store(int column, Object value) {
+            cells.set(column, value);
+            mark(column, row);
+        }
+    }
+
     /**
      * Register a listener to be notified when the filter changes.
      */
@@ -330,6 +479,8 @@ public class ProductTablePanel extends JPanel {
     }
 
     private void applyFilter() {
+        TableRefreshEvent refreshEvent = new TableRefreshEvent();
+        refreshEvent.begin();
         String text = searchField.getText().trim().toLowerCase();
         boolean stockOnly = stockOnlyCheck.isSelected();
         String strategy = (String) strategyFilter.getSelectedItem();
@@ -441,6 +592,8 @@ public class ProductTablePanel extends JPanel {
             List<MasterProduct> visibleProducts = getVisibleProducts();
             filterChangeListener.onFilterChanged(visibleProducts, strategy != null ? strategy : FILTER_ALL, stockOnly);
         }
+        refreshEvent.finish(strategy != null ? strategy : FILTER_ALL, stockOnly, !text.isEmpty(), table.getRowCount(),
+                products.size());
     }
 
     /**
@@ -0,0 +1,36 @@
+package com.pharmacyintel.ui;
+
+import com.pharmacyintel.model.Supplier;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+/**
+ * AWT colors for each {@link Supplier}. Kept out of the model so headless
+ * batch runs never load the AWT stack.
+ */
+public final class SupplierColors {
+
+    private static volatile Color[] colors = new Color[0];
+
+    private SupplierColors() {
+    }
+
+    public static Color of(Supplier supplier) {
+        Color[] current = colors;
+        if (supplier.ordinal() >= current.length)
+            current = grow();
+        return current[supplier.ordinal()];
+    }
+
+    /** Extend the table to suppliers registered since the last call. */
+    private static synchronized Color[] grow() {
+        Supplier[] all = Supplier.values();
+        Color[] next = Arrays.copyOf(colors, all.length);
+        for (int i = colors.length; i < all.length; i++) {
+            next[i] = new Color(all[i].getRgb());
+        }
+        colors = next;
+        return next;
+    }
+}